@@ -0,0 +1,27 @@
+-- Outbox for realtime ride, wallet and booking events (model OutboxEvent)
+-- Hibernate creates it with ddl-auto; run this where schema changes are applied by hand
+
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    event_key VARCHAR(160) NOT NULL,
+    aggregate_type VARCHAR(255),
+    aggregate_id VARCHAR(255),
+    event_type VARCHAR(64) NOT NULL,
+    rooms VARCHAR(1000),
+    payload TEXT NOT NULL,
+    push_token VARCHAR(512),
+    push_title VARCHAR(255),
+    push_body VARCHAR(1000),
+    status VARCHAR(16) NOT NULL,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    last_error VARCHAR(500),
+    created_at TIMESTAMP(6),
+    next_attempt_at TIMESTAMP(6),
+    published_at TIMESTAMP(6),
+    CONSTRAINT uk_outbox_events_event_key UNIQUE (event_key)
+);
+
+-- Relay polling (due pending events, oldest pending per aggregate) and bulk pruning of published ones
+CREATE INDEX IF NOT EXISTS idx_outbox_events_due ON outbox_events (status, next_attempt_at);
+CREATE INDEX IF NOT EXISTS idx_outbox_events_aggregate ON outbox_events (aggregate_type, aggregate_id, id);
+CREATE INDEX IF NOT EXISTS idx_outbox_events_published_at ON outbox_events (published_at);
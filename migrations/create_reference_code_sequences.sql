@@ -0,0 +1,5 @@
+-- Sequences behind intercity booking and trip codes
+-- The app creates them on first use; run this when its database user cannot create sequences
+
+CREATE SEQUENCE IF NOT EXISTS intercity_booking_code_seq;
+CREATE SEQUENCE IF NOT EXISTS intercity_trip_code_seq;
@@ -0,0 +1,7 @@
+-- Widen short_code columns from 4 to 8 characters
+-- Short codes move to 5+ digits once the 4-digit space is mostly used
+-- (app.short-codes.max-length); ddl-auto=update does not widen existing columns
+
+ALTER TABLE my_user ALTER COLUMN short_code TYPE VARCHAR(8);
+ALTER TABLE driver ALTER COLUMN short_code TYPE VARCHAR(8);
+ALTER TABLE ride ALTER COLUMN short_code TYPE VARCHAR(8);
@@ -0,0 +1,92 @@
+package com.ridefast.ride_fast_backend.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Compares two JMH JSON result files (baseline, then candidate) and prints
+ * one line per benchmark and parameter set, sorted by name:
+ *
+ * <pre>
+ * benchmark [params]   baseline ± error   candidate ± error   change%   unit
+ * </pre>
+ *
+ * Lower is better for the time-based modes used here. A change is flagged
+ * with {@code *} when the two error intervals do not overlap.
+ */
+public final class BenchmarkCompare {
+
+  private record Score(double score, double error, String unit) {
+  }
+
+  private BenchmarkCompare() {
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length != 2) {
+      System.err.println("usage: BenchmarkCompare <baseline.json> <candidate.json>");
+      System.exit(2);
+    }
+    Map<String, Score> baseline = read(new File(args[0]));
+    Map<String, Score> candidate = read(new File(args[1]));
+
+    TreeSet<String> keys = new TreeSet<>(baseline.keySet());
+    keys.addAll(candidate.keySet());
+
+    int width = keys.stream().mapToInt(String::length).max().orElse(10);
+    for (String key : keys) {
+      Score before = baseline.get(key);
+      Score after = candidate.get(key);
+      String line;
+      if (before == null || after == null) {
+        line = String.format(Locale.ROOT, "%-" + width + "s  %24s  %24s  %9s", key, format(before), format(after),
+            before == null ? "new" : "removed");
+      } else {
+        double change = (after.score() - before.score()) / before.score() * 100.0;
+        boolean significant = after.score() - after.error() > before.score() + before.error()
+            || after.score() + after.error() < before.score() - before.error();
+        line = String.format(Locale.ROOT, "%-" + width + "s  %24s  %24s  %+8.1f%%%s  %s", key, format(before),
+            format(after), change, significant ? "*" : " ", after.unit());
+      }
+      System.out.println(line);
+    }
+  }
+
+  private static Map<String, Score> read(File file) throws IOException {
+    Map<String, Score> scores = new TreeMap<>();
+    for (JsonNode run : new ObjectMapper().readTree(file)) {
+      StringBuilder key = new StringBuilder(shortName(run.path("benchmark").asText()));
+      JsonNode params = run.path("params");
+      if (params.isObject()) {
+        TreeMap<String, String> sorted = new TreeMap<>();
+        Iterator<Map.Entry<String, JsonNode>> fields = params.fields();
+        while (fields.hasNext()) {
+          Map.Entry<String, JsonNode> field = fields.next();
+          sorted.put(field.getKey(), field.getValue().asText());
+        }
+        key.append(' ').append(sorted);
+      }
+      JsonNode metric = run.path("primaryMetric");
+      scores.put(key.toString(), new Score(metric.path("score").asDouble(), metric.path("scoreError").asDouble(),
+          metric.path("scoreUnit").asText()));
+    }
+    return scores;
+  }
+
+  private static String shortName(String benchmark) {
+    String prefix = BenchmarkCompare.class.getPackageName() + '.';
+    return benchmark.startsWith(prefix) ? benchmark.substring(prefix.length()) : benchmark;
+  }
+
+  private static String format(Score score) {
+    return score == null ? "-" : String.format(Locale.ROOT, "%.3f ± %.3f", score.score(), score.error());
+  }
+}
@@ -0,0 +1,229 @@
+package com.ridefast.ride_fast_backend.benchmark;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.ridefast.ride_fast_backend.enums.ServiceType;
+import com.ridefast.ride_fast_backend.model.Driver;
+import com.ridefast.ride_fast_backend.model.PricingProfile;
+import com.ridefast.ride_fast_backend.model.ServiceConfig;
+import com.ridefast.ride_fast_backend.model.ServiceRate;
+import com.ridefast.ride_fast_backend.model.Zone;
+import com.ridefast.ride_fast_backend.model.v2.TripFare;
+import com.ridefast.ride_fast_backend.model.v2.VehicleCategory;
+import com.ridefast.ride_fast_backend.model.v2.ZoneV2;
+import com.ridefast.ride_fast_backend.repository.PricingProfileRepository;
+import com.ridefast.ride_fast_backend.repository.ServiceConfigRepository;
+import com.ridefast.ride_fast_backend.repository.ServiceRateRepository;
+import com.ridefast.ride_fast_backend.repository.ZoneRepository;
+import com.ridefast.ride_fast_backend.repository.v2.TripFareRepository;
+import com.ridefast.ride_fast_backend.repository.v2.VehicleCategoryRepository;
+import com.ridefast.ride_fast_backend.repository.v2.ZoneV2Repository;
+import com.ridefast.ride_fast_backend.service.dispatch.DriverSpatialIndex;
+import com.ridefast.ride_fast_backend.service.impl.CalculatorServiceImpl;
+import com.ridefast.ride_fast_backend.service.pricing.PricingSnapshotService;
+import com.ridefast.ride_fast_backend.service.zone.ZoneIndexService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.SplittableRandom;
+
+/**
+ * Synthetic, seeded data for the benchmarks: a square city of grid zones,
+ * drivers scattered over it and a full set of pricing tables. The same seed
+ * gives the same fixtures on every run, so results are comparable across
+ * commits.
+ */
+final class BenchmarkFixtures {
+
+  static final long SEED = 42L;
+
+  // Bengaluru centre; the city is CITY_KM x CITY_KM around it
+  static final double CENTER_LAT = 12.9716;
+  static final double CENTER_LNG = 77.5946;
+  static final double CITY_KM = 40.0;
+
+  private static final double KM_PER_DEGREE = 111.32;
+
+  private BenchmarkFixtures() {
+  }
+
+  /**
+   * {@code count} coordinates as interleaved lat/lng pairs, uniformly over the city.
+   */
+  static double[] points(int count, SplittableRandom random) {
+    double half = CITY_KM / 2 / KM_PER_DEGREE;
+    double[] latLng = new double[count * 2];
+    for (int i = 0; i < count; i++) {
+      latLng[2 * i] = CENTER_LAT - half + random.nextDouble() * 2 * half;
+      latLng[2 * i + 1] = CENTER_LNG - half + random.nextDouble() * 2 * half;
+    }
+    return latLng;
+  }
+
+  static List<Driver> drivers(int count, SplittableRandom random) {
+    double[] latLng = points(count, random);
+    List<Driver> drivers = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      Driver driver = new Driver();
+      driver.setId((long) i + 1);
+      driver.setLatitude(latLng[2 * i]);
+      driver.setLongitude(latLng[2 * i + 1]);
+      drivers.add(driver);
+    }
+    return drivers;
+  }
+
+  /**
+   * Dispatch index holding {@link #drivers} (all idle), spread evenly over
+   * the service types, with the default 1 km cells.
+   */
+  static DriverSpatialIndex driverIndex(int count, SplittableRandom random) {
+    DriverSpatialIndex index = new DriverSpatialIndex(new CalculatorServiceImpl());
+    ReflectionTestUtils.setField(index, "cellSizeKm", 1.0);
+    ServiceType[] types = ServiceType.values();
+    List<Driver> drivers = drivers(count, random);
+    for (int i = 0; i < drivers.size(); i++) {
+      Driver driver = drivers.get(i);
+      index.upsert(driver.getId(), types[i % types.length], driver.getLatitude(), driver.getLongitude(), false);
+    }
+    return index;
+  }
+
+  /**
+   * Zone index over {@code count} square zones tiling the city (row-major,
+   * named {@code zone-<n>}).
+   */
+  static ZoneIndexService zoneIndex(int count) {
+    ZoneRepository zoneRepository = mock(ZoneRepository.class);
+    ZoneV2Repository zoneV2Repository = mock(ZoneV2Repository.class);
+    List<Zone> zones = new ArrayList<>(count);
+    int perRow = (int) Math.ceil(Math.sqrt(count));
+    double cell = CITY_KM / perRow / KM_PER_DEGREE;
+    double minLat = CENTER_LAT - CITY_KM / 2 / KM_PER_DEGREE;
+    double minLng = CENTER_LNG - CITY_KM / 2 / KM_PER_DEGREE;
+    for (int i = 0; i < count; i++) {
+      double lat = minLat + (i / perRow) * cell;
+      double lng = minLng + (i % perRow) * cell;
+      Zone zone = new Zone();
+      zone.setId((long) i + 1);
+      zone.setName(zoneName(i));
+      zone.setReadableId(zoneName(i));
+      zone.setActive(true);
+      zone.setPolygonWkt(String.format(Locale.ROOT, "POLYGON((%f %f, %f %f, %f %f, %f %f, %f %f))",
+          lng, lat, lng + cell, lat, lng + cell, lat + cell, lng, lat + cell, lng, lat));
+      zones.add(zone);
+    }
+    when(zoneRepository.findAll()).thenReturn(zones);
+    when(zoneV2Repository.findAll()).thenReturn(List.of());
+
+    ZoneIndexService index = new ZoneIndexService(zoneRepository, zoneV2Repository);
+    index.refresh();
+    return index;
+  }
+
+  /**
+   * Pricing snapshot with an active profile, rates for every service type,
+   * one config-priced service and trip fare overrides in every other zone.
+   */
+  static PricingSnapshotService pricing(int zoneCount) {
+    PricingProfile profile = new PricingProfile();
+    profile.setId(1L);
+    profile.setName("default");
+    profile.setCurrency("INR");
+    profile.setBaseFare(40);
+    profile.setPerKmRate(12);
+    profile.setTimeRatePerMin(1.5);
+    profile.setActive(true);
+
+    List<ServiceRate> rates = new ArrayList<>();
+    List<ServiceConfig> configs = new ArrayList<>();
+    List<VehicleCategory> categories = new ArrayList<>();
+    ServiceType[] types = ServiceType.values();
+    for (int t = 0; t < types.length; t++) {
+      ServiceRate rate = new ServiceRate();
+      rate.setId((long) t + 1);
+      rate.setPricingProfile(profile);
+      rate.setServiceType(types[t]);
+      rate.setBaseFare(20 + 10 * t);
+      rate.setPerKmRate(8 + 3 * t);
+      rate.setTimeRatePerMin(1 + 0.5 * t);
+      rates.add(rate);
+
+      VehicleCategory category = new VehicleCategory();
+      category.setId("cat-" + types[t].name());
+      category.setName(types[t].name());
+      category.setType(types[t].name());
+      category.setIsActive(true);
+      categories.add(category);
+
+      configs.add(serviceConfig(types[t].name(), t));
+    }
+    // Priced from its own config rather than a ServiceType
+    ServiceConfig auto = serviceConfig("AUTO", types.length);
+    auto.setBaseFare(30.0);
+    auto.setPerKmRate(11.0);
+    auto.setPerMinRate(1.0);
+    auto.setMinimumFare(50.0);
+    configs.add(auto);
+
+    List<ZoneV2> zones = new ArrayList<>(zoneCount);
+    List<TripFare> tripFares = new ArrayList<>();
+    for (int i = 0; i < zoneCount; i++) {
+      ZoneV2 zone = new ZoneV2();
+      zone.setId("z" + i);
+      zone.setName(zoneName(i));
+      zone.setIsActive(true);
+      zones.add(zone);
+      if (i % 2 == 0) {
+        for (VehicleCategory category : categories) {
+          TripFare fare = new TripFare();
+          fare.setId("tf-" + i + "-" + category.getId());
+          fare.setZone(zone);
+          fare.setVehicleCategory(category);
+          fare.setBaseFare(BigDecimal.valueOf(25 + i % 7));
+          fare.setBaseFarePerKm(BigDecimal.valueOf(9 + i % 5));
+          fare.setTimeRatePerMinOverride(BigDecimal.valueOf(1.25));
+          tripFares.add(fare);
+        }
+      }
+    }
+
+    PricingProfileRepository profileRepository = mock(PricingProfileRepository.class);
+    ServiceRateRepository rateRepository = mock(ServiceRateRepository.class);
+    ServiceConfigRepository configRepository = mock(ServiceConfigRepository.class);
+    ZoneV2Repository zoneRepository = mock(ZoneV2Repository.class);
+    VehicleCategoryRepository categoryRepository = mock(VehicleCategoryRepository.class);
+    TripFareRepository tripFareRepository = mock(TripFareRepository.class);
+    when(profileRepository.findFirstByActiveTrue()).thenReturn(Optional.of(profile));
+    when(rateRepository.findAll()).thenReturn(rates);
+    when(configRepository.findAllByOrderByDisplayOrderAsc()).thenReturn(configs);
+    when(zoneRepository.findAll()).thenReturn(zones);
+    when(categoryRepository.findAll()).thenReturn(categories);
+    when(tripFareRepository.findAll()).thenReturn(tripFares);
+
+    PricingSnapshotService service = new PricingSnapshotService(profileRepository, rateRepository,
+        configRepository, zoneRepository, categoryRepository, tripFareRepository);
+    service.refresh();
+    return service;
+  }
+
+  static String zoneName(int i) {
+    return "zone-" + i;
+  }
+
+  private static ServiceConfig serviceConfig(String serviceId, int order) {
+    ServiceConfig config = new ServiceConfig();
+    config.setId((long) order + 1);
+    config.setServiceId(serviceId);
+    config.setName(serviceId);
+    config.setDisplayName(serviceId);
+    config.setDisplayOrder(order);
+    config.setIsActive(true);
+    return config;
+  }
+}
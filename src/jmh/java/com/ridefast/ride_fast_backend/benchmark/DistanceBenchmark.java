@@ -0,0 +1,84 @@
+package com.ridefast.ride_fast_backend.benchmark;
+
+import com.ridefast.ride_fast_backend.service.CalculatorService;
+import com.ridefast.ride_fast_backend.service.impl.CalculatorServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Haversine distance between two city points, and the batch variants over
+ * {@value #BATCH} points.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DistanceBenchmark {
+
+  private static final int PAIRS = 4096;
+  private static final int BATCH = 10_000;
+
+  private final CalculatorService calculatorService = new CalculatorServiceImpl();
+  private double[] from;
+  private double[] to;
+  private double[] batchLatitudes;
+  private double[] batchLongitudes;
+  private int cursor;
+
+  @Setup
+  public void setup() {
+    SplittableRandom random = new SplittableRandom(BenchmarkFixtures.SEED);
+    from = BenchmarkFixtures.points(PAIRS, random);
+    to = BenchmarkFixtures.points(PAIRS, random);
+    double[] batch = BenchmarkFixtures.points(BATCH, random);
+    batchLatitudes = new double[BATCH];
+    batchLongitudes = new double[BATCH];
+    for (int i = 0; i < BATCH; i++) {
+      batchLatitudes[i] = batch[2 * i];
+      batchLongitudes[i] = batch[2 * i + 1];
+    }
+  }
+
+  @Benchmark
+  public double calculateDistance() {
+    int i = next();
+    return calculatorService.calculateDistance(from[2 * i], from[2 * i + 1], to[2 * i], to[2 * i + 1]);
+  }
+
+  @Benchmark
+  public double[] calculateDistances() {
+    int i = next();
+    return calculatorService.calculateDistances(from[2 * i], from[2 * i + 1], batchLatitudes, batchLongitudes);
+  }
+
+  @Benchmark
+  public double[] approximateDistances() {
+    int i = next();
+    return calculatorService.approximateDistances(from[2 * i], from[2 * i + 1], batchLatitudes, batchLongitudes);
+  }
+
+  @Benchmark
+  public int[] nearestIndices() {
+    int i = next();
+    return calculatorService.nearestIndices(from[2 * i], from[2 * i + 1], batchLatitudes, batchLongitudes, 10);
+  }
+
+  private int next() {
+    int i = cursor;
+    cursor = (cursor + 1) & (PAIRS - 1);
+    return i;
+  }
+}
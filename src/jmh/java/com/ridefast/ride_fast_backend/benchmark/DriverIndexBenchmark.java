@@ -0,0 +1,70 @@
+package com.ridefast.ride_fast_backend.benchmark;
+
+import com.ridefast.ride_fast_backend.enums.ServiceType;
+import com.ridefast.ride_fast_backend.service.dispatch.DriverCandidate;
+import com.ridefast.ride_fast_backend.service.dispatch.DriverSpatialIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dispatch candidate lookup, DriverSpatialIndex.findNearest, with the
+ * default search radius and candidate limit, for any vehicle type and for
+ * one type (drivers are spread evenly over the types).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DriverIndexBenchmark {
+
+  private static final int PICKUPS = 1024;
+  private static final double RADIUS_KM = 10;
+  private static final int LIMIT = 20;
+
+  @Param({ "1000", "10000", "100000" })
+  int drivers;
+
+  private DriverSpatialIndex index;
+  private double[] pickups;
+  private int cursor;
+
+  @Setup
+  public void setup() {
+    SplittableRandom random = new SplittableRandom(BenchmarkFixtures.SEED);
+    index = BenchmarkFixtures.driverIndex(drivers, random);
+    pickups = BenchmarkFixtures.points(PICKUPS, random);
+  }
+
+  @Benchmark
+  public List<DriverCandidate> findNearest() {
+    int i = next();
+    return index.findNearest(pickups[2 * i], pickups[2 * i + 1], null, RADIUS_KM, LIMIT, List.of());
+  }
+
+  @Benchmark
+  public List<DriverCandidate> findNearestByType() {
+    int i = next();
+    return index.findNearest(pickups[2 * i], pickups[2 * i + 1], ServiceType.MEGA, RADIUS_KM, LIMIT, List.of());
+  }
+
+  private int next() {
+    int i = cursor;
+    cursor = (cursor + 1) & (PICKUPS - 1);
+    return i;
+  }
+}
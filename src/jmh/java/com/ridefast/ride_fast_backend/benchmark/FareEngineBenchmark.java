@@ -0,0 +1,97 @@
+package com.ridefast.ride_fast_backend.benchmark;
+
+import static org.mockito.Mockito.mock;
+
+import com.ridefast.ride_fast_backend.dto.FareEstimateRequest;
+import com.ridefast.ride_fast_backend.dto.FareEstimateResponse;
+import com.ridefast.ride_fast_backend.enums.ServiceType;
+import com.ridefast.ride_fast_backend.service.dispatch.DriverSpatialIndex;
+import com.ridefast.ride_fast_backend.service.dispatch.RedisDriverLocationStore;
+import com.ridefast.ride_fast_backend.service.impl.CalculatorServiceImpl;
+import com.ridefast.ride_fast_backend.service.impl.FareEngineImpl;
+import com.ridefast.ride_fast_backend.service.promo.CouponService;
+import com.ridefast.ride_fast_backend.service.routing.RoutingService;
+import com.ridefast.ride_fast_backend.service.surge.InMemorySurgeCounterStore;
+import com.ridefast.ride_fast_backend.service.surge.RedisSurgeCounterStore;
+import com.ridefast.ride_fast_backend.service.surge.SurgePricingService;
+import com.ridefast.ride_fast_backend.service.zone.ZoneIndexService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fare quotes from coordinates: zone lookup, pricing snapshot, Haversine
+ * fallback (no road graph loaded) and surge disabled.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FareEngineBenchmark {
+
+  private static final int REQUESTS = 4096;
+
+  @Param({ "100", "500" })
+  int zones;
+
+  private FareEngineImpl fareEngine;
+  private FareEstimateRequest[] requests;
+  private int cursor;
+
+  @Setup
+  public void setup() {
+    ZoneIndexService zoneIndex = BenchmarkFixtures.zoneIndex(zones);
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    SurgePricingService surge = new SurgePricingService(zoneIndex, mock(DriverSpatialIndex.class),
+        mock(RedisDriverLocationStore.class), mock(InMemorySurgeCounterStore.class), mock(RedisSurgeCounterStore.class),
+        registry);
+    fareEngine = new FareEngineImpl(BenchmarkFixtures.pricing(zones), mock(CouponService.class),
+        new CalculatorServiceImpl(), new RoutingService(registry), zoneIndex, surge);
+
+    SplittableRandom random = new SplittableRandom(BenchmarkFixtures.SEED);
+    double[] pickups = BenchmarkFixtures.points(REQUESTS, random);
+    double[] drops = BenchmarkFixtures.points(REQUESTS, random);
+    ServiceType[] types = ServiceType.values();
+    requests = new FareEstimateRequest[REQUESTS];
+    for (int i = 0; i < REQUESTS; i++) {
+      FareEstimateRequest request = new FareEstimateRequest();
+      request.setServiceType(types[i % types.length]);
+      request.setPickupLat(pickups[2 * i]);
+      request.setPickupLng(pickups[2 * i + 1]);
+      request.setDropLat(drops[2 * i]);
+      request.setDropLng(drops[2 * i + 1]);
+      requests[i] = request;
+    }
+  }
+
+  @Benchmark
+  public FareEstimateResponse estimate() {
+    return fareEngine.estimate(next());
+  }
+
+  @Benchmark
+  public List<FareEstimateResponse> estimateAll() {
+    return fareEngine.estimateAll(next());
+  }
+
+  private FareEstimateRequest next() {
+    FareEstimateRequest request = requests[cursor];
+    cursor = (cursor + 1) & (REQUESTS - 1);
+    return request;
+  }
+}
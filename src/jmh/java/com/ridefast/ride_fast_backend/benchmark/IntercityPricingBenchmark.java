@@ -0,0 +1,68 @@
+package com.ridefast.ride_fast_backend.benchmark;
+
+import static org.mockito.Mockito.mock;
+
+import com.ridefast.ride_fast_backend.model.intercity.IntercityTrip;
+import com.ridefast.ride_fast_backend.repository.intercity.IntercityRouteRepository;
+import com.ridefast.ride_fast_backend.repository.intercity.IntercityTripRepository;
+import com.ridefast.ride_fast_backend.repository.intercity.IntercityVehicleConfigRepository;
+import com.ridefast.ride_fast_backend.service.intercity.IntercityPricingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Projected per-head price for a booking joining a shared intercity trip.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IntercityPricingBenchmark {
+
+  private static final int TRIPS = 1024;
+
+  private IntercityPricingService pricingService;
+  private IntercityTrip[] trips;
+  private int[] additionalSeats;
+  private int cursor;
+
+  @Setup
+  public void setup() {
+    pricingService = new IntercityPricingService(mock(IntercityVehicleConfigRepository.class),
+        mock(IntercityRouteRepository.class), mock(IntercityTripRepository.class));
+    SplittableRandom random = new SplittableRandom(BenchmarkFixtures.SEED);
+    trips = new IntercityTrip[TRIPS];
+    additionalSeats = new int[TRIPS];
+    for (int i = 0; i < TRIPS; i++) {
+      int totalSeats = 4 + random.nextInt(4);
+      IntercityTrip trip = new IntercityTrip();
+      trip.setTotalSeats(totalSeats);
+      trip.setMinSeats(2);
+      trip.setSeatsBooked(random.nextInt(totalSeats));
+      trip.setTotalPrice(BigDecimal.valueOf(1500 + random.nextInt(6000)));
+      trips[i] = trip;
+      additionalSeats[i] = 1 + random.nextInt(totalSeats - trip.getSeatsBooked());
+    }
+  }
+
+  @Benchmark
+  public BigDecimal calculateProjectedPerHeadPrice() {
+    int i = cursor;
+    cursor = (cursor + 1) & (TRIPS - 1);
+    return pricingService.calculateProjectedPerHeadPrice(trips[i], additionalSeats[i]);
+  }
+}
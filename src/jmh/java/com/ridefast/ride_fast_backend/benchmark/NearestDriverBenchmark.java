@@ -0,0 +1,78 @@
+package com.ridefast.ride_fast_backend.benchmark;
+
+import static org.mockito.Mockito.mock;
+
+import com.ridefast.ride_fast_backend.model.Driver;
+import com.ridefast.ride_fast_backend.repository.DriverDetailsRepository;
+import com.ridefast.ride_fast_backend.repository.DriverKycRepository;
+import com.ridefast.ride_fast_backend.repository.DriverRepository;
+import com.ridefast.ride_fast_backend.repository.LicenseRepository;
+import com.ridefast.ride_fast_backend.repository.VehicleRepository;
+import com.ridefast.ride_fast_backend.service.RealtimeService;
+import com.ridefast.ride_fast_backend.service.ShortCodeService;
+import com.ridefast.ride_fast_backend.service.dispatch.DriverLocationIngestService;
+import com.ridefast.ride_fast_backend.service.dispatch.DriverLocationStore;
+import com.ridefast.ride_fast_backend.service.impl.CalculatorServiceImpl;
+import com.ridefast.ride_fast_backend.service.impl.DriverServiceImpl;
+import com.ridefast.ride_fast_backend.util.JwtTokenHelper;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Legacy linear nearest-driver scan, DriverServiceImpl.getNearestDriver over
+ * the available driver list. The dispatch index path is measured by
+ * {@link DriverIndexBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NearestDriverBenchmark {
+
+  private static final int PICKUPS = 1024;
+
+  @Param({ "1000", "10000", "100000" })
+  int drivers;
+
+  private DriverServiceImpl driverService;
+  private List<Driver> available;
+  private double[] pickups;
+  private int cursor;
+
+  @Setup
+  public void setup() {
+    // getNearestDriver only uses the calculator; the other collaborators are never called
+    driverService = new DriverServiceImpl(mock(DriverRepository.class), mock(DriverDetailsRepository.class),
+        mock(LicenseRepository.class), mock(VehicleRepository.class), mock(DriverKycRepository.class),
+        new CalculatorServiceImpl(), mock(JwtTokenHelper.class), mock(RealtimeService.class),
+        mock(PasswordEncoder.class), mock(ModelMapper.class), mock(ShortCodeService.class),
+        mock(DriverLocationStore.class), mock(DriverLocationIngestService.class));
+    SplittableRandom random = new SplittableRandom(BenchmarkFixtures.SEED);
+    available = BenchmarkFixtures.drivers(drivers, random);
+    pickups = BenchmarkFixtures.points(PICKUPS, random);
+  }
+
+  @Benchmark
+  public Driver getNearestDriver() {
+    int i = cursor;
+    cursor = (cursor + 1) & (PICKUPS - 1);
+    return driverService.getNearestDriver(available, pickups[2 * i], pickups[2 * i + 1]);
+  }
+}
@@ -0,0 +1,129 @@
+package com.ridefast.ride_fast_backend.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.ridefast.ride_fast_backend.dto.DriverResponse;
+import com.ridefast.ride_fast_backend.dto.RideDto;
+import com.ridefast.ride_fast_backend.dto.UserResponse;
+import com.ridefast.ride_fast_backend.enums.RideStatus;
+import com.ridefast.ride_fast_backend.websocket.FrameCodec;
+import com.ridefast.ride_fast_backend.websocket.RealtimeMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding cost of the realtime envelope as JSON text versus the CBOR
+ * subprotocol, for the two highest-volume events. Frame sizes for each
+ * format are printed once per trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WireFormatBenchmark {
+
+  @Param({"driver_location", "ride_status"})
+  public String event;
+
+  private FrameCodec codec;
+  private Object payload;
+
+  @Setup
+  public void setup() {
+    // Same date handling as the Spring Boot application mapper
+    ObjectMapper objectMapper = new ObjectMapper()
+        .registerModule(new JavaTimeModule())
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    codec = new FrameCodec(objectMapper, new RealtimeMetrics(new SimpleMeterRegistry()));
+    payload = "ride_status".equals(event) ? rideStatus() : driverLocation();
+
+    int json = codec.encode(event, payload).text().getPayload().getBytes(StandardCharsets.UTF_8).length;
+    int cbor = codec.encode(event, payload).binary().length;
+    System.out.printf(Locale.ROOT, "%n%s frame: json=%d B, cbor=%d B (%.0f%%)%n", event, json, cbor,
+        100.0 * cbor / json);
+  }
+
+  @Benchmark
+  public String json() {
+    return codec.encode(event, payload).text().getPayload();
+  }
+
+  @Benchmark
+  public byte[] cbor() {
+    return codec.encode(event, payload).binary();
+  }
+
+  // As built by RealtimeService.broadcastDriverLocation
+  private static Map<String, Object> driverLocation() {
+    Map<String, Object> payload = new HashMap<>();
+    payload.put("rideId", 918_273L);
+    payload.put("driverId", 40_512L);
+    payload.put("lat", BenchmarkFixtures.CENTER_LAT + 0.012345);
+    payload.put("lng", BenchmarkFixtures.CENTER_LNG - 0.006789);
+    payload.put("heading", 87.5);
+    payload.put("timestamp", LocalDateTime.of(2025, 3, 14, 9, 26, 53));
+    return payload;
+  }
+
+  // As built by RealtimeService.broadcastRideStatusUpdate
+  private static Map<String, Object> rideStatus() {
+    UserResponse user = new UserResponse();
+    user.setId("7f3c2a10-5b9e-4d1a-9c3e-2b8f6a4d1e90");
+    user.setEmail("rider@example.com");
+    user.setFullName("Asha Rao");
+    user.setPhone("+919876543210");
+
+    DriverResponse driver = new DriverResponse();
+    driver.setId(40_512L);
+    driver.setName("Ravi Kumar");
+    driver.setEmail("driver@example.com");
+    driver.setMobile("+919812345678");
+    driver.setRating(4.8);
+    driver.setLatitude(BenchmarkFixtures.CENTER_LAT + 0.01);
+    driver.setLongitude(BenchmarkFixtures.CENTER_LNG - 0.01);
+
+    RideDto ride = new RideDto();
+    ride.setId(918_273L);
+    ride.setUser(user);
+    ride.setDriver(driver);
+    ride.setPickupLatitude(BenchmarkFixtures.CENTER_LAT);
+    ride.setPickupLongitude(BenchmarkFixtures.CENTER_LNG);
+    ride.setDestinationLatitude(BenchmarkFixtures.CENTER_LAT + 0.08);
+    ride.setDestinationLongitude(BenchmarkFixtures.CENTER_LNG + 0.05);
+    ride.setPickupArea("MG Road");
+    ride.setDestinationArea("Indiranagar 100 Feet Road");
+    ride.setDistance(11.4);
+    ride.setDuration(1_680);
+    ride.setStatus(RideStatus.STARTED);
+    ride.setStartTime(LocalDateTime.of(2025, 3, 14, 9, 12, 0));
+    ride.setFare(236.0);
+    ride.setOtp(4821);
+
+    Map<String, Object> payload = new HashMap<>();
+    payload.put("rideId", ride.getId());
+    payload.put("status", ride.getStatus().toString());
+    payload.put("ride", ride);
+    payload.put("timestamp", LocalDateTime.of(2025, 3, 14, 9, 26, 53));
+    return payload;
+  }
+}
@@ -38,41 +38,29 @@ public class BackfillShortCodesRunner implements ApplicationRunner {
   }
 
   private int backfillUsers() {
-    List<MyUser> list = userRepository.findAll();
-    int updated = 0;
+    List<MyUser> list = userRepository.findAllWithoutShortCode();
     for (MyUser u : list) {
-      if (u.getShortCode() == null || u.getShortCode().isBlank()) {
-        u.setShortCode(shortCodeService.generateUserCode());
-        updated++;
-      }
+      u.setShortCode(shortCodeService.generateUserCode());
     }
-    if (updated > 0) userRepository.saveAll(list);
-    return updated;
+    if (!list.isEmpty()) userRepository.saveAll(list);
+    return list.size();
   }
 
   private int backfillDrivers() {
-    List<Driver> list = driverRepository.findAll();
-    int updated = 0;
+    List<Driver> list = driverRepository.findAllWithoutShortCode();
     for (Driver d : list) {
-      if (d.getShortCode() == null || d.getShortCode().isBlank()) {
-        d.setShortCode(shortCodeService.generateDriverCode());
-        updated++;
-      }
+      d.setShortCode(shortCodeService.generateDriverCode());
     }
-    if (updated > 0) driverRepository.saveAll(list);
-    return updated;
+    if (!list.isEmpty()) driverRepository.saveAll(list);
+    return list.size();
   }
 
   private int backfillRides() {
-    List<Ride> list = rideRepository.findAll();
-    int updated = 0;
+    List<Ride> list = rideRepository.findAllWithoutShortCode();
     for (Ride r : list) {
-      if (r.getShortCode() == null || r.getShortCode().isBlank()) {
-        r.setShortCode(shortCodeService.generateRideCode());
-        updated++;
-      }
+      r.setShortCode(shortCodeService.generateRideCode());
     }
-    if (updated > 0) rideRepository.saveAll(list);
-    return updated;
+    if (!list.isEmpty()) rideRepository.saveAll(list);
+    return list.size();
   }
 }
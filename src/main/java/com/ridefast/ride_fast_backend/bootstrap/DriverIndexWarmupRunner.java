@@ -0,0 +1,38 @@
+package com.ridefast.ride_fast_backend.bootstrap;
+
+import com.ridefast.ride_fast_backend.model.Driver;
+import com.ridefast.ride_fast_backend.repository.DriverRepository;
+import com.ridefast.ride_fast_backend.service.DriverService;
+import com.ridefast.ride_fast_backend.service.dispatch.DriverSpatialIndex;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Loads drivers that were online when the app last stopped into the in-memory
+ * dispatch index, so ride requests can be matched right after startup.
+ */
+@Component
+@RequiredArgsConstructor
+public class DriverIndexWarmupRunner implements ApplicationRunner {
+  private static final Logger log = LoggerFactory.getLogger(DriverIndexWarmupRunner.class);
+
+  private final DriverRepository driverRepository;
+  private final DriverService driverService;
+  private final DriverSpatialIndex driverSpatialIndex;
+
+  @Override
+  @Transactional(readOnly = true)
+  public void run(ApplicationArguments args) throws Exception {
+    List<Driver> online = driverRepository.findByIsOnlineTrue();
+    for (Driver d : online) {
+      driverService.syncDispatchIndex(d);
+    }
+    log.info("Dispatch index warmed: online={} indexed={}", online.size(), driverSpatialIndex.size());
+  }
+}
@@ -4,26 +4,40 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
 import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
+import com.ridefast.ride_fast_backend.websocket.DriverHandshakeInterceptor;
+import com.ridefast.ride_fast_backend.websocket.FrameCodec;
 import com.ridefast.ride_fast_backend.websocket.RealtimeWebSocketHandler;
 
 /**
  * WebSocket configuration for Flutter-compatible real-time communication
  * Flutter clients can connect to: ws://host:port/ws
+ * Clients may request the "ridefast-cbor-v1" subprotocol for binary CBOR frames; JSON is the default
+ * Drivers pass their JWT at handshake (see {@link DriverHandshakeInterceptor}) to send location updates
  */
 @Configuration
 @EnableWebSocket
 public class WebSocketConfig implements WebSocketConfigurer {
 
     private final RealtimeWebSocketHandler webSocketHandler;
+    private final DriverHandshakeInterceptor driverHandshakeInterceptor;
 
-    public WebSocketConfig(RealtimeWebSocketHandler webSocketHandler) {
+    public WebSocketConfig(RealtimeWebSocketHandler webSocketHandler,
+            DriverHandshakeInterceptor driverHandshakeInterceptor) {
         this.webSocketHandler = webSocketHandler;
+        this.driverHandshakeInterceptor = driverHandshakeInterceptor;
     }
 
     @Override
     public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        // Subprotocols offered at handshake; clients that request none get JSON text frames
+        DefaultHandshakeHandler handshakeHandler = new DefaultHandshakeHandler();
+        handshakeHandler.setSupportedProtocols(FrameCodec.PROTOCOL_CBOR, FrameCodec.PROTOCOL_JSON);
+
         // Register WebSocket endpoint - Flutter can connect to ws://host:port/ws
         registry.addHandler(webSocketHandler, "/ws")
+                .setHandshakeHandler(handshakeHandler)
+                .addInterceptors(driverHandshakeInterceptor)
                 .setAllowedOrigins("*"); // Configure CORS as needed for production
     }
 }
@@ -9,6 +9,7 @@ import com.ridefast.ride_fast_backend.repository.PricingProfileRepository;
 import com.ridefast.ride_fast_backend.repository.ServiceRateRepository;
 import com.ridefast.ride_fast_backend.repository.ZoneFareRuleRepository;
 import com.ridefast.ride_fast_backend.repository.ZoneRepository;
+import com.ridefast.ride_fast_backend.service.pricing.PricingSnapshotService;
 import java.util.List;
 import java.util.Optional;
 import lombok.RequiredArgsConstructor;
@@ -25,6 +26,7 @@ public class AdminPricingController {
   private final ServiceRateRepository rateRepo;
   private final ZoneRepository zoneRepo;
   private final ZoneFareRuleRepository zoneRuleRepo;
+  private final PricingSnapshotService pricingSnapshotService;
 
   // Profiles
   @GetMapping("/profiles")
@@ -44,10 +46,14 @@ public class AdminPricingController {
         e.setPerKmRate(p.getPerKmRate());
         e.setTimeRatePerMin(p.getTimeRatePerMin());
         e.setActive(p.isActive());
-        return ResponseEntity.ok(profileRepo.save(e));
+        PricingProfile saved = profileRepo.save(e);
+        pricingSnapshotService.refresh();
+        return ResponseEntity.ok(saved);
       }
     }
-    return ResponseEntity.ok(profileRepo.save(p));
+    PricingProfile saved = profileRepo.save(p);
+    pricingSnapshotService.refresh();
+    return ResponseEntity.ok(saved);
   }
 
   @PostMapping("/profiles/{id}/activate")
@@ -61,6 +67,7 @@ public class AdminPricingController {
       if (isActive) active = p;
     }
     profileRepo.saveAll(all);
+    pricingSnapshotService.refresh();
     return ResponseEntity.ok(active);
   }
 
@@ -89,7 +96,9 @@ public class AdminPricingController {
     rate.setBaseFare(baseFare);
     rate.setPerKmRate(perKmRate);
     rate.setTimeRatePerMin(timeRatePerMin);
-    return ResponseEntity.ok(rateRepo.save(rate));
+    ServiceRate saved = rateRepo.save(rate);
+    pricingSnapshotService.refresh();
+    return ResponseEntity.ok(saved);
   }
 
   // Zones
@@ -17,6 +17,7 @@ import org.springframework.web.bind.annotation.RestController;
 
 import com.ridefast.ride_fast_backend.dto.ChangePasswordRequest;
 import com.ridefast.ride_fast_backend.dto.DriverResponse;
+import com.ridefast.ride_fast_backend.dto.LocationUpdate;
 import com.ridefast.ride_fast_backend.dto.RideDto;
 import com.ridefast.ride_fast_backend.exception.ResourceNotFoundException;
 import com.ridefast.ride_fast_backend.dto.UpdateBankDetailsRequest;
@@ -24,6 +25,7 @@ import com.ridefast.ride_fast_backend.dto.UpdateDriverProfileRequest;
 import com.ridefast.ride_fast_backend.model.Driver;
 import com.ridefast.ride_fast_backend.model.Ride;
 import com.ridefast.ride_fast_backend.service.DriverService;
+import com.ridefast.ride_fast_backend.service.dispatch.DriverLocationIngestService;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -35,6 +37,7 @@ public class DriverController {
 
   private final DriverService driverService;
   private final ModelMapper modelMapper;
+  private final DriverLocationIngestService driverLocationIngestService;
 
   @GetMapping("/profile")
   public ResponseEntity<DriverResponse> getRequestedDriverProfileHandler(
@@ -131,6 +134,37 @@ public class DriverController {
     }
   }
 
+  /**
+   * Location pings, one or several buffered fixes per call (oldest first).
+   * Only the newest fix is kept; the driver row is updated in the background.
+   */
+  @PostMapping("/location")
+  public ResponseEntity<Map<String, Object>> ingestLocations(
+      @RequestHeader("Authorization") String jwtToken,
+      @RequestBody List<LocationUpdate> updates) throws ResourceNotFoundException {
+    if (updates == null || updates.isEmpty()) {
+      return ResponseEntity.badRequest().body(Map.of(
+          "success", false,
+          "message", "At least one location is required"
+      ));
+    }
+
+    Long driverId = driverService.getRequestedDriverId(jwtToken);
+    int accepted = 0;
+    for (LocationUpdate update : updates) {
+      if (update != null && update.getLat() != null && update.getLng() != null
+          && driverLocationIngestService.ingest(driverId, update.getLat(), update.getLng(),
+              update.getHeading(), update.getTs())) {
+        accepted++;
+      }
+    }
+
+    return ResponseEntity.ok(Map.of(
+        "success", true,
+        "accepted", accepted
+    ));
+  }
+
   @PutMapping("/status/online")
   public ResponseEntity<Map<String, Object>> setOnlineStatus(
       @RequestHeader("Authorization") String jwtToken,
@@ -1,19 +1,21 @@
 package com.ridefast.ride_fast_backend.controller;
 
 import com.ridefast.ride_fast_backend.service.maps.MapsKeyService;
+import com.ridefast.ride_fast_backend.service.maps.MapsResponseCache;
+import com.ridefast.ride_fast_backend.service.routing.RouteResult;
+import com.ridefast.ride_fast_backend.service.routing.RoutingService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import org.springframework.web.client.RestTemplate;
 
-import java.net.URI;
-import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -27,10 +29,17 @@ import java.util.Optional;
 public class LocationController {
 
   private final MapsKeyService mapsKeyService;
-  private final RestTemplate restTemplate = new RestTemplate();
+  private final MapsResponseCache mapsResponseCache;
+  private final RoutingService routingService;
+
+  @Value("${app.routing.serve-directions:true}")
+  private boolean serveDirectionsLocally;
 
   /**
-   * Get directions between two points using Google Maps Directions API
+   * Get directions between two points. Answered by the embedded routing
+   * engine (in the Directions API response shape) when a road graph is loaded
+   * and there are no waypoints, otherwise by Google Maps Directions API
+   * through {@link MapsResponseCache}.
    * 
    * GET /api/location/directions
    * 
@@ -43,7 +52,7 @@ public class LocationController {
    * - language (optional) - Response language (default: en)
    * - googleMapsApiKey (optional) - If provided, uses this key; otherwise uses server key
    * 
-   * Returns: Google Maps Directions API response
+   * Returns: Google Maps Directions API response (or a compatible subset)
    */
   @GetMapping("/directions")
   public ResponseEntity<?> getDirections(
@@ -61,6 +70,14 @@ public class LocationController {
           HttpStatus.BAD_REQUEST);
     }
 
+    if (serveDirectionsLocally && (waypoints == null || waypoints.isBlank()) && routingService.isReady()) {
+      Optional<RouteResult> route = routingService.route(originLat, originLng, destinationLat, destinationLng, true);
+      if (route.isPresent()) {
+        return ResponseEntity.ok(toDirectionsResponse(route.get()));
+      }
+      log.debug("No local route for directions request, falling back to Google");
+    }
+
     // Get API key - prefer client-provided key, fallback to server key
     String apiKey;
     if (clientApiKey != null && !clientApiKey.isBlank()) {
@@ -77,30 +94,9 @@ public class LocationController {
     }
 
     try {
-      // Build Google Maps Directions API URL
-      StringBuilder url = new StringBuilder("https://maps.googleapis.com/maps/api/directions/json");
-      
-      // Origin
-      url.append("?origin=").append(originLat).append(",").append(originLng);
-      
-      // Destination
-      url.append("&destination=").append(destinationLat).append(",").append(destinationLng);
-      
-      // Waypoints (optional)
-      if (waypoints != null && !waypoints.isBlank()) {
-        url.append("&waypoints=").append(URLEncoder.encode(waypoints, StandardCharsets.UTF_8));
-      }
-      
-      // Language
-      url.append("&language=").append(URLEncoder.encode(language, StandardCharsets.UTF_8));
-      
-      // API Key
-      url.append("&key=").append(URLEncoder.encode(apiKey, StandardCharsets.UTF_8));
-
-      log.debug("Calling Google Maps Directions API: {}", url.toString().replace(apiKey, "***"));
-      
-      // Call Google Maps Directions API
-      Map<?, ?> response = restTemplate.getForObject(URI.create(url.toString()), Map.class);
+      // Cached by snapped origin/destination; identical concurrent misses share one upstream call
+      Map<?, ?> response = mapsResponseCache.directions(originLat, originLng, destinationLat, destinationLng,
+          waypoints, language, apiKey);
       
       if (response == null) {
         return new ResponseEntity<>(Map.of("error", "No response from Google Maps API"), 
@@ -115,5 +111,46 @@ public class LocationController {
           HttpStatus.INTERNAL_SERVER_ERROR);
     }
   }
+
+  /**
+   * Local route in the subset of the Directions API response the apps read.
+   */
+  private Map<String, Object> toDirectionsResponse(RouteResult route) {
+    long meters = Math.round(route.distanceKm() * 1000);
+    long seconds = Math.round(route.durationMin() * 60);
+
+    Map<String, Object> leg = new LinkedHashMap<>();
+    leg.put("distance", Map.of("value", meters, "text", distanceText(meters)));
+    leg.put("duration", Map.of("value", seconds, "text", durationText(seconds)));
+    leg.put("start_location", Map.of("lat", route.startLatitude(), "lng", route.startLongitude()));
+    leg.put("end_location", Map.of("lat", route.endLatitude(), "lng", route.endLongitude()));
+    leg.put("steps", List.of());
+
+    Map<String, Object> result = new LinkedHashMap<>();
+    result.put("legs", List.of(leg));
+    result.put("overview_polyline", Map.of("points", route.polyline()));
+    result.put("summary", "");
+    result.put("warnings", List.of());
+
+    Map<String, Object> response = new LinkedHashMap<>();
+    response.put("geocoded_waypoints", List.of());
+    response.put("routes", List.of(result));
+    response.put("status", "OK");
+    return response;
+  }
+
+  private static String distanceText(long meters) {
+    return meters < 1000 ? meters + " m" : String.format("%.1f km", meters / 1000.0);
+  }
+
+  private static String durationText(long seconds) {
+    long minutes = Math.max(1, Math.round(seconds / 60.0));
+    if (minutes < 60) {
+      return minutes + (minutes == 1 ? " min" : " mins");
+    }
+    long hours = minutes / 60;
+    long rest = minutes % 60;
+    return hours + (hours == 1 ? " hour " : " hours ") + rest + (rest == 1 ? " min" : " mins");
+  }
 }
 
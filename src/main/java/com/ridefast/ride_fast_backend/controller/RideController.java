@@ -51,9 +51,10 @@ public class RideController {
 
   @PostMapping("/{rideId}/accept")
   @PreAuthorize("hasRole('DRIVER')")
-  public ResponseEntity<RideDto> acceptRideRequestHandler(@PathVariable Long rideId)
-      throws ResourceNotFoundException {
-    Ride ride = rideService.acceptRide(rideId);
+  public ResponseEntity<RideDto> acceptRideRequestHandler(@RequestHeader("Authorization") String jwtToken,
+      @PathVariable Long rideId) throws ResourceNotFoundException, UserException {
+    Driver driver = driverService.getRequestedDriverProfile(jwtToken);
+    Ride ride = rideService.acceptRide(rideId, driver.getId());
     RideDto rideDto = modelMapper.map(ride, RideDto.class);
     return new ResponseEntity<>(rideDto, HttpStatus.OK);
   }
@@ -80,7 +81,7 @@ public class RideController {
   @PostMapping("/{rideId}/complete")
   @PreAuthorize("hasRole('DRIVER')")
   public ResponseEntity<RideDto> rideCompleteHandler(
-      @PathVariable Long rideId) throws ResourceNotFoundException {
+      @PathVariable Long rideId) throws ResourceNotFoundException, UserException {
     Ride ride = rideService.completeRide(rideId);
     RideDto rideDto = modelMapper.map(ride, RideDto.class);
     return new ResponseEntity<>(rideDto, HttpStatus.OK);
@@ -0,0 +1,46 @@
+package com.ridefast.ride_fast_backend.controller.admin;
+
+import com.ridefast.ride_fast_backend.service.dispatch.DispatchMode;
+import com.ridefast.ride_fast_backend.service.dispatch.DispatchService;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/admin/dispatch")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminDispatchController {
+
+  private final DispatchService dispatchService;
+
+  @GetMapping
+  public ResponseEntity<Map<String, Object>> stats() {
+    return ResponseEntity.ok(dispatchService.getStats());
+  }
+
+  /**
+   * Switch between greedy and batched matching, e.g. {"mode": "BATCHED"}
+   */
+  @PutMapping("/mode")
+  public ResponseEntity<Map<String, Object>> setMode(@RequestBody Map<String, String> body) {
+    String value = body.get("mode");
+    if (value == null || value.isBlank()) {
+      return ResponseEntity.badRequest().body(Map.of("success", false, "message", "mode is required"));
+    }
+    DispatchMode mode;
+    try {
+      mode = DispatchMode.valueOf(value.trim().toUpperCase());
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Unknown mode: " + value));
+    }
+    dispatchService.setMode(mode);
+    return ResponseEntity.ok(Map.of("success", true, "mode", mode.name()));
+  }
+}
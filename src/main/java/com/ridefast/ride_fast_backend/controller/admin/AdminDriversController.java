@@ -6,6 +6,9 @@ import com.ridefast.ride_fast_backend.model.Driver;
 import com.ridefast.ride_fast_backend.model.DriverKyc;
 import com.ridefast.ride_fast_backend.repository.DriverKycRepository;
 import com.ridefast.ride_fast_backend.repository.DriverRepository;
+import com.ridefast.ride_fast_backend.service.DriverService;
+import com.ridefast.ride_fast_backend.service.dispatch.DriverLocationIngestService;
+import com.ridefast.ride_fast_backend.service.dispatch.DriverLocationStore;
 import com.ridefast.ride_fast_backend.service.storage.StorageService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -34,6 +37,9 @@ public class AdminDriversController {
   private final DriverRepository driverRepository;
   private final DriverKycRepository driverKycRepository;
   private final StorageService storageService;
+  private final DriverService driverService;
+  private final DriverLocationStore driverLocationStore;
+  private final DriverLocationIngestService driverLocationIngestService;
   
   @Value("${app.firebase.storage-bucket:}")
   private String storageBucket;
@@ -75,7 +81,9 @@ public class AdminDriversController {
           if (body.getLatitude() != null) existing.setLatitude(body.getLatitude());
           if (body.getLongitude() != null) existing.setLongitude(body.getLongitude());
           if (body.getRating() != null) existing.setRating(body.getRating());
-          return new ResponseEntity<>(driverRepository.save(existing), HttpStatus.OK);
+          Driver saved = driverRepository.save(existing);
+          driverService.syncDispatchIndex(saved);
+          return new ResponseEntity<>(saved, HttpStatus.OK);
         })
         .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
   }
@@ -98,6 +106,8 @@ public class AdminDriversController {
     }
     
     driverRepository.deleteById(driverId);
+    driverLocationStore.remove(driverId);
+    driverLocationIngestService.forget(driverId);
     log.info("Deleted driver id={}", driverId);
     return new ResponseEntity<>(HttpStatus.NO_CONTENT);
   }
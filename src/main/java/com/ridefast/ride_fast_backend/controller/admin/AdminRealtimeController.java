@@ -0,0 +1,27 @@
+package com.ridefast.ride_fast_backend.controller.admin;
+
+import com.ridefast.ride_fast_backend.websocket.RealtimeWebSocketHandler;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/admin/realtime")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminRealtimeController {
+
+  private final RealtimeWebSocketHandler webSocketHandler;
+
+  /**
+   * WebSocket sessions, rooms by type and estimated room index memory
+   */
+  @GetMapping
+  public ResponseEntity<Map<String, Object>> stats() {
+    return ResponseEntity.ok(webSocketHandler.getStats());
+  }
+}
@@ -2,6 +2,7 @@ package com.ridefast.ride_fast_backend.controller.admin;
 
 import com.ridefast.ride_fast_backend.model.ServiceConfig;
 import com.ridefast.ride_fast_backend.repository.ServiceConfigRepository;
+import com.ridefast.ride_fast_backend.service.pricing.PricingSnapshotService;
 import com.ridefast.ride_fast_backend.service.storage.StorageService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -33,6 +34,7 @@ public class AdminServiceConfigController {
 
     private final ServiceConfigRepository serviceConfigRepository;
     private final StorageService storageService;
+    private final PricingSnapshotService pricingSnapshotService;
 
     /**
      * Get all services with pagination and filtering
@@ -132,6 +134,7 @@ public class AdminServiceConfigController {
             }
 
             ServiceConfig saved = serviceConfigRepository.save(request);
+            pricingSnapshotService.refresh();
             log.info("Service created: id={}, serviceId={}", saved.getId(), saved.getServiceId());
 
             return new ResponseEntity<>(saved, HttpStatus.CREATED);
@@ -171,6 +174,7 @@ public class AdminServiceConfigController {
                     if (request.getCategory() != null) existing.setCategory(request.getCategory());
 
                     ServiceConfig updated = serviceConfigRepository.save(existing);
+                    pricingSnapshotService.refresh();
                     log.info("Service updated: id={}", updated.getId());
                     return ResponseEntity.ok(updated);
                 })
@@ -189,6 +193,7 @@ public class AdminServiceConfigController {
                 .map(service -> {
                     service.setIsActive(active);
                     ServiceConfig updated = serviceConfigRepository.save(service);
+                    pricingSnapshotService.refresh();
                     log.info("Service status updated: id={}, active={}", id, active);
                     return ResponseEntity.ok(updated);
                 })
@@ -210,6 +215,7 @@ public class AdminServiceConfigController {
                     serviceConfigRepository.save(service);
                 });
             }
+            pricingSnapshotService.refresh();
             return ResponseEntity.ok(Map.of("status", "ok", "message", "Order updated successfully"));
         } catch (Exception e) {
             log.error("Error reordering services", e);
@@ -225,6 +231,7 @@ public class AdminServiceConfigController {
         return serviceConfigRepository.findById(id)
                 .map(service -> {
                     serviceConfigRepository.delete(service);
+                    pricingSnapshotService.refresh();
                     log.info("Service deleted: id={}, serviceId={}", id, service.getServiceId());
                     return ResponseEntity.noContent().build();
                 })
@@ -278,6 +285,7 @@ public class AdminServiceConfigController {
                         // Update service
                         service.setIconUrl(iconUrl);
                         ServiceConfig updated = serviceConfigRepository.save(service);
+                        pricingSnapshotService.refresh();
 
                         log.info("Icon uploaded for service: id={}, iconUrl={}", id, iconUrl);
 
@@ -390,6 +398,7 @@ public class AdminServiceConfigController {
                     created++;
                 }
             }
+            pricingSnapshotService.refresh();
 
             return ResponseEntity.ok(Map.of(
                     "status", "ok",
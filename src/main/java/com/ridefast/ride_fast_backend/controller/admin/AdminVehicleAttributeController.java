@@ -2,6 +2,7 @@ package com.ridefast.ride_fast_backend.controller.admin;
 
 import com.ridefast.ride_fast_backend.model.v2.VehicleCategory;
 import com.ridefast.ride_fast_backend.repository.v2.VehicleCategoryRepository;
+import com.ridefast.ride_fast_backend.service.pricing.PricingSnapshotService;
 import com.ridefast.ride_fast_backend.service.storage.StorageService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -31,6 +32,7 @@ public class AdminVehicleAttributeController {
 
     private final VehicleCategoryRepository vehicleCategoryRepository;
     private final StorageService storageService;
+    private final PricingSnapshotService pricingSnapshotService;
 
     // ==================== Vehicle Categories ====================
 
@@ -153,6 +155,7 @@ public class AdminVehicleAttributeController {
             }
 
             VehicleCategory saved = vehicleCategoryRepository.save(category);
+            pricingSnapshotService.refresh();
             
             Map<String, Object> response = new HashMap<>();
             response.put("id", saved.getId());
@@ -221,6 +224,7 @@ public class AdminVehicleAttributeController {
 
             category.setUpdatedAt(LocalDateTime.now());
             VehicleCategory saved = vehicleCategoryRepository.save(category);
+            pricingSnapshotService.refresh();
             
             Map<String, Object> response = new HashMap<>();
             response.put("id", saved.getId());
@@ -256,6 +260,7 @@ public class AdminVehicleAttributeController {
                 category.setDeletedAt(LocalDateTime.now());
                 category.setIsActive(false);
                 vehicleCategoryRepository.save(category);
+                pricingSnapshotService.refresh();
             }
             
             return ResponseEntity.ok(Map.of("message", "Category deleted successfully"));
@@ -4,6 +4,7 @@ import com.ridefast.ride_fast_backend.model.Zone;
 import com.ridefast.ride_fast_backend.repository.DriverRepository;
 import com.ridefast.ride_fast_backend.repository.ServiceConfigRepository;
 import com.ridefast.ride_fast_backend.repository.ZoneRepository;
+import com.ridefast.ride_fast_backend.service.zone.ZoneIndexService;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -32,6 +33,7 @@ public class AdminZonesController {
   private final ZoneRepository zoneRepository;
   private final DriverRepository driverRepository;
   private final ServiceConfigRepository serviceConfigRepository;
+  private final ZoneIndexService zoneIndexService;
 
   @GetMapping
   public ResponseEntity<List<Zone>> list() {
@@ -165,6 +167,7 @@ public class AdminZonesController {
       body.setActive(body.getIsActive() != null ? body.getIsActive() : true);
     }
     Zone saved = zoneRepository.save(body);
+    zoneIndexService.refresh();
     return new ResponseEntity<>(saved, HttpStatus.CREATED);
   }
 
@@ -176,7 +179,9 @@ public class AdminZonesController {
           if (body.getName() != null) existing.setName(body.getName());
           if (body.getPolygonWkt() != null) existing.setPolygonWkt(body.getPolygonWkt());
           if (body.getActive() != null) existing.setActive(body.getActive());
-          return new ResponseEntity<>(zoneRepository.save(existing), HttpStatus.OK);
+          Zone saved = zoneRepository.save(existing);
+          zoneIndexService.refresh();
+          return new ResponseEntity<>(saved, HttpStatus.OK);
         })
         .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
   }
@@ -185,6 +190,7 @@ public class AdminZonesController {
   public ResponseEntity<Void> delete(@PathVariable Long id) {
     if (!zoneRepository.existsById(id)) return new ResponseEntity<>(HttpStatus.NOT_FOUND);
     zoneRepository.deleteById(id);
+    zoneIndexService.refresh();
     return new ResponseEntity<>(HttpStatus.NO_CONTENT);
   }
 }
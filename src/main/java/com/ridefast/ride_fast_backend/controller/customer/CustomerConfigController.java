@@ -1,8 +1,9 @@
 package com.ridefast.ride_fast_backend.controller.customer;
 
 import com.ridefast.ride_fast_backend.service.maps.MapsKeyService;
-import com.ridefast.ride_fast_backend.model.Zone;
-import com.ridefast.ride_fast_backend.repository.ZoneRepository;
+import com.ridefast.ride_fast_backend.service.maps.MapsResponseCache;
+import com.ridefast.ride_fast_backend.service.zone.ZoneIndexService;
+import com.ridefast.ride_fast_backend.service.zone.ZoneMatch;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -11,12 +12,6 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.client.RestTemplate;
-import org.locationtech.jts.geom.Coordinate;
-import org.locationtech.jts.geom.Geometry;
-import org.locationtech.jts.geom.GeometryFactory;
-import org.locationtech.jts.geom.Point;
-import org.locationtech.jts.geom.PrecisionModel;
-import org.locationtech.jts.io.WKTReader;
 import java.net.URI;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
@@ -29,7 +24,8 @@ import java.util.Optional;
 public class CustomerConfigController {
 
   private final MapsKeyService mapsKeyService;
-  private final ZoneRepository zoneRepository;
+  private final MapsResponseCache mapsResponseCache;
+  private final ZoneIndexService zoneIndexService;
   private final RestTemplate restTemplate = new RestTemplate();
 
   // Compatibility for: /api/customer/config/place-api-autocomplete?search_text=...
@@ -97,11 +93,7 @@ public class CustomerConfigController {
     if (keyOpt.isEmpty()) return new ResponseEntity<>(Map.of("error", "Server key not configured"), HttpStatus.SERVICE_UNAVAILABLE);
     String key = keyOpt.get();
 
-    StringBuilder url = new StringBuilder("https://maps.googleapis.com/maps/api/geocode/json");
-    url.append("?latlng=").append(lat).append(",").append(lng);
-    url.append("&key=").append(URLEncoder.encode(key, StandardCharsets.UTF_8));
-
-    Map<?,?> resp = restTemplate.getForObject(URI.create(url.toString()), Map.class);
+    Map<?,?> resp = mapsResponseCache.reverseGeocode(lat, lng, key);
     return ResponseEntity.ok(resp);
   }
 
@@ -114,25 +106,13 @@ public class CustomerConfigController {
       return new ResponseEntity<>(Map.of("error", "lat and lng are required"), HttpStatus.BAD_REQUEST);
     }
 
-    GeometryFactory gf = new GeometryFactory(new PrecisionModel(), 4326);
-    Point point = gf.createPoint(new Coordinate(lng, lat)); // x=lng, y=lat
-    WKTReader reader = new WKTReader(gf);
-
-    for (Zone z : zoneRepository.findAll()) {
-      if (z == null || z.getActive() == null || !z.getActive()) continue;
-      String wkt = z.getPolygonWkt();
-      if (wkt == null || wkt.isBlank()) continue;
-      try {
-        Geometry poly = reader.read(wkt);
-        if (poly != null && (poly.contains(point) || poly.covers(point))) {
-          return ResponseEntity.ok(Map.of(
-              "zoneId", z.getReadableId(),
-              "name", z.getName()
-          ));
-        }
-      } catch (Exception ignore) {
-        // skip invalid polygons
-      }
+    Optional<ZoneMatch> zone = zoneIndexService.findZone(lat, lng);
+    if (zone.isPresent()) {
+      ZoneMatch z = zone.get();
+      return ResponseEntity.ok(Map.of(
+          "zoneId", z.readableId() != null ? z.readableId() : z.name(),
+          "name", z.name()
+      ));
     }
 
     return new ResponseEntity<>(Map.of("error", "Zone not found for given location"), HttpStatus.NOT_FOUND);
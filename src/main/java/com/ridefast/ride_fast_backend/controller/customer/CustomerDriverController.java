@@ -17,6 +17,7 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @RestController
 @RequestMapping("/api/customer")
@@ -36,19 +37,25 @@ public class CustomerDriverController {
   ) {
     double radiusKm = radiusMeters != null ? (radiusMeters / 1000.0) : 5.0; // default 5km
 
-    List<DriverResponse> nearby = driverRepository.findAll().stream()
+    List<Driver> candidates = driverRepository.findAll().stream()
         .filter(d -> d.getLatitude() != null && d.getLongitude() != null)
         .filter(d -> d.getCurrentRide() == null || d.getCurrentRide().getStatus() == RideStatus.COMPLETED)
-        .map(d -> new Object[]{d, calculatorService.calculateDistance(d.getLatitude(), d.getLongitude(), lat, lng)})
-        .filter(arr -> (double) arr[1] <= radiusKm)
-        .sorted(Comparator.comparingDouble(arr -> (double) arr[1]))
-        .map(arr -> (Driver) arr[0])
-        .map(d -> modelMapper.map(d, DriverResponse.class))
         .collect(Collectors.toList());
-
-    if (limit != null && limit > 0 && nearby.size() > limit) {
-      nearby = nearby.subList(0, limit);
+    double[] latitudes = new double[candidates.size()];
+    double[] longitudes = new double[candidates.size()];
+    for (int i = 0; i < latitudes.length; i++) {
+      latitudes[i] = candidates.get(i).getLatitude();
+      longitudes[i] = candidates.get(i).getLongitude();
     }
+    double[] distances = calculatorService.calculateDistances(lat, lng, latitudes, longitudes);
+
+    List<DriverResponse> nearby = IntStream.range(0, distances.length)
+        .filter(i -> distances[i] <= radiusKm)
+        .boxed()
+        .sorted(Comparator.comparingDouble(i -> distances[i]))
+        .limit(limit != null && limit > 0 ? limit : Long.MAX_VALUE)
+        .map(i -> modelMapper.map(candidates.get(i), DriverResponse.class))
+        .collect(Collectors.toList());
 
     return ResponseEntity.ok(nearby);
   }
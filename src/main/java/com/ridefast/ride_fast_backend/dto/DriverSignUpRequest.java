@@ -1,5 +1,6 @@
 package com.ridefast.ride_fast_backend.dto;
 
+import com.ridefast.ride_fast_backend.enums.ServiceType;
 import com.ridefast.ride_fast_backend.model.License;
 import com.ridefast.ride_fast_backend.model.Vehicle;
 
@@ -55,11 +56,23 @@ public class DriverSignUpRequest {
             return Vehicle.builder()
                     .licensePlate(this.licensePlate != null ? this.licensePlate : this.vehicleNumber)
                     .vehicleId(this.vehicleNumber)
+                    .serviceType(parseServiceType(this.vehicleType))
                     .build();
         }
         return null;
     }
     
+    private static ServiceType parseServiceType(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return ServiceType.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+    
     /**
      * Build License object from flat fields if license is not provided
      */
@@ -27,6 +27,8 @@ public class FareEstimateResponse {
   private String appliedCoupon;
   private ExtraFareStatus extraFareStatus;
   private String extraFareReason;
+  @Builder.Default
+  private double surgeMultiplier = 1.0;
   
   // Vehicle/Service info
   private VehicleInfo vehicle;
@@ -30,6 +30,7 @@ public class RideDto {
   private LocalDateTime startTime;
   private LocalDateTime endTime;
   private double fare;
+  private Double surgeMultiplier;
   private PaymentDetails paymentDetails;
   private int otp;
 }
@@ -1,5 +1,6 @@
 package com.ridefast.ride_fast_backend.dto;
 
+import com.ridefast.ride_fast_backend.enums.ServiceType;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -17,4 +18,6 @@ public class RideRequest {
   private double pickupLongitude;
   private double destinationLatitude;
   private double destinationLongitude;
+  // optional; when set only drivers of this service type are matched
+  private ServiceType serviceType;
 }
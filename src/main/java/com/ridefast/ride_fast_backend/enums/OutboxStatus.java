@@ -0,0 +1,7 @@
+package com.ridefast.ride_fast_backend.enums;
+
+public enum OutboxStatus {
+  PENDING,
+  PUBLISHED,
+  FAILED
+}
@@ -1,5 +1,17 @@
 package com.ridefast.ride_fast_backend.enums;
 
 public enum RideStatus {
-    REQUESTED, ACCEPTED, STARTED, COMPLETED, CANCELLED
+    REQUESTED, ACCEPTED, STARTED, COMPLETED, CANCELLED;
+
+    /**
+     * Whether a ride in this status may move to {@code next}.
+     */
+    public boolean canTransitionTo(RideStatus next) {
+        return switch (this) {
+            case REQUESTED -> next == ACCEPTED || next == CANCELLED;
+            case ACCEPTED -> next == STARTED || next == CANCELLED;
+            case STARTED -> next == COMPLETED || next == CANCELLED;
+            case COMPLETED, CANCELLED -> false;
+        };
+    }
 }
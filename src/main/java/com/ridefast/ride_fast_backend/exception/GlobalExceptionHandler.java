@@ -54,6 +54,18 @@ public class GlobalExceptionHandler {
     return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
   }
 
+  @ExceptionHandler(RideStateConflictException.class)
+  public ResponseEntity<CustomExceptionResponse> rideStateConflictHandler(RideStateConflictException ex,
+      WebRequest req) {
+    CustomExceptionResponse response = new CustomExceptionResponse(
+        HttpStatus.CONFLICT.value(),
+        HttpStatus.CONFLICT.getReasonPhrase(),
+        ex.getMessage(),
+        req.getDescription(false),
+        LocalDateTime.now());
+    return new ResponseEntity<>(response, HttpStatus.CONFLICT);
+  }
+
   @ExceptionHandler(MethodArgumentNotValidException.class)
   public ResponseEntity<Map<String, Object>> methodArguementNotValidHandler(MethodArgumentNotValidException ex,
       WebRequest req) {
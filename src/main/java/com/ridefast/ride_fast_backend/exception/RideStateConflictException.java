@@ -0,0 +1,22 @@
+package com.ridefast.ride_fast_backend.exception;
+
+import com.ridefast.ride_fast_backend.enums.RideStatus;
+
+import lombok.Getter;
+
+/**
+ * A ride transition lost a race or is not allowed from the ride's current
+ * status (e.g. a second driver accepting). Answered with 409 Conflict.
+ */
+@Getter
+public class RideStateConflictException extends UserException {
+
+  private final Long rideId;
+  private final RideStatus currentStatus;
+
+  public RideStateConflictException(Long rideId, RideStatus currentStatus, RideStatus requestedStatus) {
+    super(String.format("Ride %s cannot move to %s, it is %s", rideId, requestedStatus, currentStatus));
+    this.rideId = rideId;
+    this.currentStatus = currentStatus;
+  }
+}
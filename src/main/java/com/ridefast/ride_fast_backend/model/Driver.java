@@ -31,7 +31,7 @@ public class Driver {
     private Double longitude;
     private UserRole role;
 
-    @Column(name = "short_code", unique = true, length = 4)
+    @Column(name = "short_code", unique = true, length = 8)
     private String shortCode;
 
     private String password;
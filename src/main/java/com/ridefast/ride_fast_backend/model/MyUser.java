@@ -131,7 +131,7 @@ public class MyUser {
     @Column(name = "current_language_key")
     private String currentLanguageKey;
 
-    @Column(name = "short_code", unique = true, length = 4)
+    @Column(name = "short_code", unique = true, length = 8)
     private String shortCode;
 
     @Enumerated(EnumType.STRING)
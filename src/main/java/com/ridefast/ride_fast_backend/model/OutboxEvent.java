@@ -0,0 +1,77 @@
+package com.ridefast.ride_fast_backend.model;
+
+import com.ridefast.ride_fast_backend.enums.OutboxStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Realtime event recorded in the transaction that produced it and relayed
+ * after commit (see OutboxRelay). Schema: migrations/create_outbox_events.sql.
+ */
+@Entity
+@Table(name = "outbox_events", indexes = {
+    @Index(name = "idx_outbox_events_due", columnList = "status, nextAttemptAt"),
+    @Index(name = "idx_outbox_events_aggregate", columnList = "aggregateType, aggregateId, id"),
+    @Index(name = "idx_outbox_events_published_at", columnList = "publishedAt")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  // Idempotency key: recording the same key twice is a no-op, and clients get it as "eventId"
+  @Column(nullable = false, unique = true, length = 160)
+  private String eventKey;
+
+  private String aggregateType; // RIDE / WALLET / BOOKING
+  private String aggregateId;
+
+  @Column(nullable = false, length = 64)
+  private String eventType;
+
+  // Comma-separated WebSocket rooms
+  @Column(length = 1000)
+  private String rooms;
+
+  @Column(nullable = false, columnDefinition = "TEXT")
+  private String payload;
+
+  // Optional push notification sent with the event
+  @Column(length = 512)
+  private String pushToken;
+  private String pushTitle;
+  @Column(length = 1000)
+  private String pushBody;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false, length = 16)
+  @Builder.Default
+  private OutboxStatus status = OutboxStatus.PENDING;
+
+  @Builder.Default
+  private int attempts = 0;
+
+  @Column(length = 500)
+  private String lastError;
+
+  private LocalDateTime createdAt;
+  private LocalDateTime nextAttemptAt;
+  private LocalDateTime publishedAt;
+
+  @PrePersist
+  public void onCreate() {
+    this.createdAt = LocalDateTime.now();
+    if (this.nextAttemptAt == null) {
+      this.nextAttemptAt = this.createdAt;
+    }
+  }
+}
@@ -2,6 +2,7 @@ package com.ridefast.ride_fast_backend.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.ridefast.ride_fast_backend.enums.RideStatus;
+import com.ridefast.ride_fast_backend.enums.ServiceType;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -22,7 +23,7 @@ public class Ride {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(name = "short_code", unique = true, length = 4)
+    @Column(name = "short_code", unique = true, length = 8)
     private String shortCode;
 
     @ManyToOne(cascade = CascadeType.MERGE)
@@ -42,6 +43,10 @@ public class Ride {
     private String pickupArea;
     private String destinationArea;
 
+    @Enumerated(EnumType.STRING)
+    @Column(length = 32)
+    private ServiceType serviceType;
+
     private Double distance;
     private Long duration;
 
@@ -51,6 +56,8 @@ public class Ride {
     private LocalDateTime endTime;
 
     private Double fare;
+    // Surge multiplier at request time, applied to the completion fare (null: none)
+    private Double surgeMultiplier;
     private Integer otp;
 
     @Embedded
@@ -1,6 +1,7 @@
 package com.ridefast.ride_fast_backend.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.ridefast.ride_fast_backend.enums.ServiceType;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -29,6 +30,11 @@ public class Vehicle {
     private String fuelType;
     private String vehicleId;
 
+    // Service the vehicle is dispatched for (BIKE, CAR, ...); null = matched by requests of every service type
+    @Enumerated(EnumType.STRING)
+    @Column(length = 32)
+    private ServiceType serviceType;
+
     @JsonIgnore
     @OneToOne(cascade = CascadeType.ALL)
     private Driver driver;
@@ -4,6 +4,7 @@ import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -19,6 +20,32 @@ public interface DriverRepository extends JpaRepository<Driver, Long> {
 
   boolean existsByShortCode(String shortCode);
 
+  @Query("select d.shortCode from Driver d where d.shortCode is not null")
+  List<String> findAllShortCodes();
+
+  @Query("select d from Driver d where d.shortCode is null or d.shortCode = ''")
+  List<Driver> findAllWithoutShortCode();
+
+  @Query("select d.id from Driver d where d.email = :email")
+  Optional<Long> findIdByEmail(@Param("email") String email);
+
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("update Driver d set d.currentRide = :ride where d.id = :driverId")
+  int assignCurrentRide(@Param("driverId") Long driverId, @Param("ride") Ride ride);
+
+  /**
+   * Clear the driver's current ride, but only if it is still {@code rideId}.
+   */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("update Driver d set d.currentRide = null where d.id = :driverId and d.currentRide.id = :rideId")
+  int releaseCurrentRide(@Param("driverId") Long driverId, @Param("rideId") Long rideId);
+
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("update Driver d set d.totalRevenue = coalesce(d.totalRevenue, 0) + :amount where d.id = :driverId")
+  int addRevenue(@Param("driverId") Long driverId, @Param("amount") Long amount);
+
+  List<Driver> findByIsOnlineTrue();
+
   @Query("select r from Ride r where r.status=REQUESTED and r.driver.id=:driverId")
   public List<Ride> getAllocatedRides(@Param("driverId") Long driverId);
 
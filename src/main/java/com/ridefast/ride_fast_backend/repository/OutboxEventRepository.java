@@ -0,0 +1,61 @@
+package com.ridefast.ride_fast_backend.repository;
+
+import com.ridefast.ride_fast_backend.enums.OutboxStatus;
+import com.ridefast.ride_fast_backend.model.OutboxEvent;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+  /**
+   * Insert a pending event unless its key is already recorded; returns 1 if inserted, 0 for a duplicate.
+   * A concurrent duplicate waits for the other transaction instead of failing this one.
+   */
+  @Modifying
+  @Query(value = "insert into outbox_events (event_key, aggregate_type, aggregate_id, event_type, rooms, payload, "
+      + "push_token, push_title, push_body, status, attempts, created_at, next_attempt_at) "
+      + "values (:eventKey, :aggregateType, :aggregateId, :eventType, :rooms, :payload, "
+      + ":pushToken, :pushTitle, :pushBody, 'PENDING', 0, :now, :now) "
+      + "on conflict (event_key) do nothing", nativeQuery = true)
+  int insertIfAbsent(@Param("eventKey") String eventKey, @Param("aggregateType") String aggregateType,
+      @Param("aggregateId") String aggregateId, @Param("eventType") String eventType, @Param("rooms") String rooms,
+      @Param("payload") String payload, @Param("pushToken") String pushToken, @Param("pushTitle") String pushTitle,
+      @Param("pushBody") String pushBody, @Param("now") LocalDateTime now);
+
+  /**
+   * Due pending events in id order, row-locked; rows locked by another instance are skipped.
+   * Only the oldest pending event of each aggregate is eligible, so one aggregate's
+   * events are relayed one after the other, in order, even across instances.
+   */
+  @Query(value = "select * from outbox_events e where e.status = 'PENDING' and e.next_attempt_at <= :now "
+      + "and not exists (select 1 from outbox_events o where o.aggregate_type = e.aggregate_type "
+      + "and o.aggregate_id = e.aggregate_id and o.status = 'PENDING' and o.id < e.id) "
+      + "order by e.id limit :limit for update skip locked", nativeQuery = true)
+  List<OutboxEvent> lockDue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("update OutboxEvent e set e.status = :status, e.publishedAt = :now, e.lastError = null where e.id in :ids")
+  int markPublished(@Param("ids") Collection<Long> ids, @Param("status") OutboxStatus status,
+      @Param("now") LocalDateTime now);
+
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("update OutboxEvent e set e.status = :status, e.nextAttemptAt = :nextAttemptAt, e.lastError = :error "
+      + "where e.id = :id")
+  int reschedule(@Param("id") Long id, @Param("status") OutboxStatus status,
+      @Param("nextAttemptAt") LocalDateTime nextAttemptAt, @Param("error") String error);
+
+  /**
+   * Delete up to {@code limit} events published before {@code cutoff}; returns the number deleted.
+   */
+  @Modifying
+  @Query(value = "delete from outbox_events where id in (select id from outbox_events "
+      + "where status = 'PUBLISHED' and published_at < :cutoff limit :limit)", nativeQuery = true)
+  int deletePublishedBefore(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+}
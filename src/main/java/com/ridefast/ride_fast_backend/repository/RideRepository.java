@@ -1,20 +1,74 @@
 package com.ridefast.ride_fast_backend.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import com.ridefast.ride_fast_backend.enums.RideStatus;
+import com.ridefast.ride_fast_backend.model.Driver;
 import com.ridefast.ride_fast_backend.model.Ride;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.LockModeType;
+
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 @Repository
 
 public interface RideRepository extends JpaRepository<Ride,Long>{
   Page<Ride> findByUser_Id(String userId, Pageable pageable);
   Page<Ride> findByDriver_Id(Long driverId, Pageable pageable);
   boolean existsByShortCode(String shortCode);
+
+  @Query("select r.shortCode from Ride r where r.shortCode is not null")
+  List<String> findAllShortCodes();
+
+  @Query("select r from Ride r where r.shortCode is null or r.shortCode = ''")
+  List<Ride> findAllWithoutShortCode();
   List<Ride> findByStartTimeBetween(LocalDateTime from, LocalDateTime to);
   Page<Ride> findAllByOrderByStartTimeDesc(Pageable pageable);
+
+  // Compare-and-set status transitions: each returns the number of rows changed (0 = lost the race)
+
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("update Ride r set r.status = :accepted, r.driver = :driver, r.otp = :otp "
+      + "where r.id = :rideId and r.status = :requested")
+  int casAccept(@Param("rideId") Long rideId, @Param("driver") Driver driver, @Param("otp") Integer otp,
+      @Param("requested") RideStatus requested, @Param("accepted") RideStatus accepted);
+
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("update Ride r set r.status = :started, r.startTime = :startTime "
+      + "where r.id = :rideId and r.status = :accepted")
+  int casStart(@Param("rideId") Long rideId, @Param("startTime") LocalDateTime startTime,
+      @Param("accepted") RideStatus accepted, @Param("started") RideStatus started);
+
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("update Ride r set r.status = :completed, r.endTime = :endTime, r.distance = :distance, "
+      + "r.fare = :fare, r.duration = :duration where r.id = :rideId and r.status = :started")
+  int casComplete(@Param("rideId") Long rideId, @Param("endTime") LocalDateTime endTime,
+      @Param("distance") Double distance, @Param("fare") Double fare, @Param("duration") Long duration,
+      @Param("started") RideStatus started, @Param("completed") RideStatus completed);
+
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("update Ride r set r.status = :cancelled where r.id = :rideId and r.status in :from")
+  int casCancel(@Param("rideId") Long rideId, @Param("from") Collection<RideStatus> from,
+      @Param("cancelled") RideStatus cancelled);
+
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("update Ride r set r.shortCode = null where r.id = :rideId")
+  int clearShortCode(@Param("rideId") Long rideId);
+
+  /**
+   * Row-locked read, for the rare paths (driver declines) that rewrite a
+   * ride that is still REQUESTED.
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select r from Ride r where r.id = :rideId")
+  Optional<Ride> findByIdForUpdate(@Param("rideId") Long rideId);
 }
@@ -15,6 +15,12 @@ public interface UserRepository extends JpaRepository<MyUser, String> {
 
     boolean existsByShortCode(String shortCode);
 
+    @Query("select u.shortCode from MyUser u where u.shortCode is not null")
+    List<String> findAllShortCodes();
+
+    @Query("select u from MyUser u where u.shortCode is null or u.shortCode = ''")
+    List<MyUser> findAllWithoutShortCode();
+
     @Query("select r from Ride r where r.status=COMPLETED and r.user.id=:userId")
     public List<Ride> getCompletedRides(
             @Param("userId") String userId);
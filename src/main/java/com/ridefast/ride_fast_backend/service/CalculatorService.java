@@ -7,7 +7,32 @@ public interface CalculatorService {
   double calculateDistance(double sourceLatitude, double sourceLongitude, double destinationLatitude,
       double destinationLongitude);
 
+  /**
+   * Haversine distance in km from one point to each point of the parallel
+   * {@code latitudes}/{@code longitudes} arrays. NaN coordinates give NaN.
+   */
+  double[] calculateDistances(double latitude, double longitude, double[] latitudes, double[] longitudes);
+
+  /**
+   * Equirectangular approximation of {@link #calculateDistances}: no trig
+   * per point. Within 100 km of the query point and up to 70° latitude the
+   * relative error is below 0.01%; it grows with distance beyond that.
+   */
+  double[] approximateDistances(double latitude, double longitude, double[] latitudes, double[] longitudes);
+
+  /**
+   * Indices of the (at most) {@code k} points nearest to the query point,
+   * nearest first, ranked by the equirectangular approximation. Points with
+   * NaN coordinates are skipped.
+   */
+  int[] nearestIndices(double latitude, double longitude, double[] latitudes, double[] longitudes, int k);
+
   Long calculateDuration(LocalDateTime startTime, LocalDateTime endTime);
 
   double calculateFair(double distance);
+
+  /**
+   * Fare for {@code distance} with the surge multiplier the ride was quoted at.
+   */
+  double calculateFair(double distance, double surgeMultiplier);
 }
@@ -18,6 +18,11 @@ public interface DriverService {
 
   Driver getRequestedDriverProfile(String jwtToken) throws ResourceNotFoundException;
 
+  /**
+   * Id of the driver behind the token, without loading the driver (cached; used on hot paths).
+   */
+  Long getRequestedDriverId(String jwtToken) throws ResourceNotFoundException;
+
   List<Ride> getDriverCurrentRide(Long driverId) throws ResourceNotFoundException;
 
   List<Ride> getDriverStartedRide(String jwtToken) throws ResourceNotFoundException;
@@ -33,4 +38,9 @@ public interface DriverService {
   void changePassword(String jwtToken, String currentPassword, String newPassword) throws ResourceNotFoundException;
 
   void updateOnlineStatus(String jwtToken, boolean isOnline) throws ResourceNotFoundException;
+
+  /**
+   * Reflect the driver's online/position/trip state into the in-memory dispatch index.
+   */
+  void syncDispatchIndex(Driver driver);
 }
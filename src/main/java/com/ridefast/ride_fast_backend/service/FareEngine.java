@@ -2,7 +2,14 @@ package com.ridefast.ride_fast_backend.service;
 
 import com.ridefast.ride_fast_backend.dto.FareEstimateRequest;
 import com.ridefast.ride_fast_backend.dto.FareEstimateResponse;
+import java.util.List;
 
 public interface FareEngine {
   FareEstimateResponse estimate(FareEstimateRequest req);
+
+  /**
+   * Quotes for every active service, cheapest first. Distance/duration, zone
+   * and coupon are resolved once for all of them.
+   */
+  List<FareEstimateResponse> estimateAll(FareEstimateRequest req);
 }
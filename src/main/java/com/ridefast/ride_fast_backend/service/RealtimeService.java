@@ -4,6 +4,12 @@ import com.ridefast.ride_fast_backend.dto.RideDto;
 import com.ridefast.ride_fast_backend.enums.WalletOwnerType;
 import com.ridefast.ride_fast_backend.model.Driver;
 import com.ridefast.ride_fast_backend.model.Ride;
+import com.ridefast.ride_fast_backend.model.intercity.IntercityBooking;
+import com.ridefast.ride_fast_backend.service.notification.PushNotificationService;
+import com.ridefast.ride_fast_backend.service.outbox.OutboxService;
+import com.ridefast.ride_fast_backend.websocket.FleetLocationConflator;
+import com.ridefast.ride_fast_backend.websocket.RealtimeDispatcher;
+import com.ridefast.ride_fast_backend.websocket.RealtimeMetrics;
 import com.ridefast.ride_fast_backend.websocket.RealtimeWebSocketHandler;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -11,19 +17,34 @@ import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 /**
  * Service for broadcasting real-time updates via WebSocket
  * Compatible with Flutter WebSocket clients
+ * Payloads are built on the caller's thread; encoding and delivery run on the
+ * {@link RealtimeDispatcher}, ordered per room and after the caller's transaction commits
+ * Ride status, wallet and booking events go through the transactional outbox ({@link OutboxService})
+ * instead, so they are only relayed once committed and are retried until delivered
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class RealtimeService {
 
+    private static final String FLEET_ROOM = "fleet:monitoring";
+
     private final RealtimeWebSocketHandler webSocketHandler;
+    private final FleetLocationConflator fleetLocationConflator;
+    private final RealtimeDispatcher dispatcher;
+    private final OutboxService outboxService;
+    private final PushNotificationService pushNotificationService;
+    private final RealtimeMetrics metrics;
 
     // ==================== RIDE STATUS UPDATES ====================
 
@@ -45,33 +66,110 @@ public class RealtimeService {
             payload.put("ride", rideDto);
             payload.put("timestamp", LocalDateTime.now());
 
-            // Broadcast to ride-specific room
-            String rideRoom = "ride:" + ride.getId();
-            webSocketHandler.broadcastToRoom(rideRoom, "ride_status", payload);
-            log.debug("Broadcasted ride status to room: {}", rideRoom);
-
-            // Broadcast to user-specific room
+            List<String> rooms = new ArrayList<>();
+            rooms.add("ride:" + ride.getId());
             if (ride.getUser() != null && ride.getUser().getId() != null) {
-                String userRoom = "user:" + ride.getUser().getId();
-                webSocketHandler.broadcastToRoom(userRoom, "ride_status", payload);
-                log.debug("Broadcasted ride status to user room: {}", userRoom);
+                rooms.add("user:" + ride.getUser().getId());
             }
-
-            // Broadcast to driver-specific room
-            if (ride.getDriver() != null && ride.getDriver().getId() != null) {
-                String driverRoom = "driver:" + ride.getDriver().getId();
-                webSocketHandler.broadcastToRoom(driverRoom, "ride_status", payload);
-                log.debug("Broadcasted ride status to driver room: {}", driverRoom);
+            Long driverId = ride.getDriver() != null ? ride.getDriver().getId() : null;
+            if (driverId != null) {
+                rooms.add("driver:" + driverId);
             }
+
+            // One event per status and driver: repeating the same transition is not re-sent
+            String eventKey = "ride:" + ride.getId() + ":" + ride.getStatus() + ":" + (driverId != null ? driverId : 0);
+            publish("RIDE", ride.getId(), eventKey, "ride_status", rooms, payload, null);
+            log.debug("Recorded ride status {} for rooms {}", ride.getStatus(), rooms);
         } catch (Exception e) {
+            metrics.error("service");
             log.error("Error broadcasting ride status for ride {}: {}", ride.getId(), e.getMessage(), e);
         }
     }
 
+    /**
+     * Offer a new ride to selected drivers only
+     * Event: "new_ride_request" (with "ring" and "expiresAt" so the app can show a countdown)
+     * Rooms: "driver:{driverId}" for each offered driver
+     */
+    public void sendRideOffer(Ride ride, RideDto rideDto, Collection<Long> driverIds, int ring, long expiresAt) {
+        if (ride == null || ride.getId() == null || driverIds == null || driverIds.isEmpty()) {
+            return;
+        }
+
+        try {
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("rideId", ride.getId());
+            payload.put("ride", rideDto);
+            payload.put("ring", ring);
+            payload.put("expiresAt", expiresAt);
+            payload.put("timestamp", LocalDateTime.now());
+
+            for (Long driverId : driverIds) {
+                broadcast("driver:" + driverId, "new_ride_request", payload);
+            }
+            log.debug("Offered ride {} to {} drivers (ring {})", ride.getId(), driverIds.size(), ring);
+        } catch (Exception e) {
+            metrics.error("service");
+            log.error("Error sending ride offer for ride {}: {}", ride.getId(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Tell drivers that an offer they received is gone (accepted by someone else or cancelled)
+     * Event: "ride_offer_withdrawn"
+     * Rooms: "driver:{driverId}" for each driver
+     */
+    public void withdrawRideOffer(Long rideId, Collection<Long> driverIds) {
+        if (rideId == null || driverIds == null || driverIds.isEmpty()) {
+            return;
+        }
+
+        try {
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("rideId", rideId);
+            payload.put("timestamp", LocalDateTime.now());
+
+            for (Long driverId : driverIds) {
+                broadcast("driver:" + driverId, "ride_offer_withdrawn", payload);
+            }
+            log.debug("Withdrew ride {} offer from {} drivers", rideId, driverIds.size());
+        } catch (Exception e) {
+            metrics.error("service");
+            log.error("Error withdrawing ride offer for ride {}: {}", rideId, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Notify the rider that no driver accepted the request
+     * Event: "no_driver_found"
+     * Rooms: "ride:{rideId}", "user:{userId}"
+     */
+    public void broadcastNoDriverFound(Ride ride) {
+        if (ride == null || ride.getId() == null) {
+            return;
+        }
+
+        try {
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("rideId", ride.getId());
+            payload.put("timestamp", LocalDateTime.now());
+
+            broadcast("ride:" + ride.getId(), "no_driver_found", payload);
+            if (ride.getUser() != null && ride.getUser().getId() != null) {
+                broadcast("user:" + ride.getUser().getId(), "no_driver_found", payload);
+            }
+        } catch (Exception e) {
+            metrics.error("service");
+            log.error("Error broadcasting no driver found for ride {}: {}", ride.getId(), e.getMessage(), e);
+        }
+    }
+
     /**
      * Broadcast new ride request to all available drivers
      * Event: "new_ride_request"
      * Room: "drivers:available"
+     *
+     * Only used as a last resort when targeted offers ran out (see RideOfferService)
      */
     public void broadcastNewRideRequest(Ride ride, RideDto rideDto) {
         if (ride == null || ride.getId() == null) {
@@ -86,9 +184,10 @@ public class RealtimeService {
             payload.put("timestamp", LocalDateTime.now());
 
             // Broadcast to all available drivers
-            webSocketHandler.broadcastToRoom("drivers:available", "new_ride_request", payload);
+            broadcast("drivers:available", "new_ride_request", payload);
             log.debug("Broadcasted new ride request to available drivers");
         } catch (Exception e) {
+            metrics.error("service");
             log.error("Error broadcasting new ride request for ride {}: {}", ride.getId(), e.getMessage(), e);
         }
     }
@@ -98,7 +197,7 @@ public class RealtimeService {
     /**
      * Broadcast driver location update
      * Event: "driver_location"
-     * Rooms: "ride:{rideId}", "driver:{driverId}", "fleet:monitoring"
+     * Rooms: "ride:{rideId}", "driver:{driverId}", "fleet:monitoring" (batched as "fleet_locations")
      */
     public void broadcastDriverLocation(Long rideId, Long driverId, Double lat, Double lng, Double heading) {
         if (rideId == null || driverId == null || lat == null || lng == null) {
@@ -117,17 +216,25 @@ public class RealtimeService {
 
             // Broadcast to ride room (for user tracking)
             String rideRoom = "ride:" + rideId;
-            webSocketHandler.broadcastToRoom(rideRoom, "driver_location", payload);
+            String conflationKey = RealtimeWebSocketHandler.locationConflationKey(driverId);
+            broadcast(rideRoom, "driver_location", payload, conflationKey);
 
             // Broadcast to driver room (for driver app)
             String driverRoom = "driver:" + driverId;
-            webSocketHandler.broadcastToRoom(driverRoom, "driver_location", payload);
-
-            // Broadcast to fleet monitoring room (for admin)
-            webSocketHandler.broadcastToRoom("fleet:monitoring", "driver_location", payload);
+            broadcast(driverRoom, "driver_location", payload, conflationKey);
+
+            // Fleet monitoring room (for admin) gets the conflated fleet_locations stream
+            if (fleetLocationConflator.isEnabled()) {
+                fleetLocationConflator.offer(driverId, rideId, lat, lng, heading, System.currentTimeMillis());
+            } else {
+                metrics.emitted("driver_location", "dispatch");
+                dispatcher.dispatch(FLEET_ROOM,
+                        () -> webSocketHandler.broadcastFleetDriverEvent("driver_location", payload, conflationKey));
+            }
 
             log.debug("Broadcasted driver location for ride {} driver {}", rideId, driverId);
         } catch (Exception e) {
+            metrics.error("service");
             log.error("Error broadcasting driver location: {}", e.getMessage(), e);
         }
     }
@@ -155,13 +262,17 @@ public class RealtimeService {
 
             // Broadcast to driver-specific room
             String driverRoom = "driver:" + driver.getId();
-            webSocketHandler.broadcastToRoom(driverRoom, "driver_status", payload);
+            broadcast(driverRoom, "driver_status", payload);
 
-            // Broadcast to fleet monitoring room (for admin)
-            webSocketHandler.broadcastToRoom("fleet:monitoring", "driver_status", payload);
+            // Broadcast to fleet monitoring room (for admin; viewport sessions only if the driver is inside)
+            String statusKey = RealtimeWebSocketHandler.statusConflationKey(driver.getId());
+            metrics.emitted("driver_status", "dispatch");
+            dispatcher.dispatch(FLEET_ROOM,
+                    () -> webSocketHandler.broadcastFleetDriverEvent("driver_status", payload, statusKey));
 
             log.debug("Broadcasted driver status for driver {}", driver.getId());
         } catch (Exception e) {
+            metrics.error("service");
             log.error("Error broadcasting driver status for driver {}: {}", driver.getId(), e.getMessage(), e);
         }
     }
@@ -170,11 +281,11 @@ public class RealtimeService {
 
     /**
      * Broadcast wallet transaction update
-     * Event: "wallet_update"
+     * Event: "wallet_update" (one per wallet transaction)
      * Rooms: "user:{userId}", "driver:{driverId}"
      */
     public void broadcastWalletUpdate(String userId, WalletOwnerType ownerType, BigDecimal balance, 
-                                     String transactionType, String description) {
+                                     String transactionType, String description, Long transactionId) {
         if (userId == null) {
             log.warn("Cannot broadcast wallet update: userId is null");
             return;
@@ -190,13 +301,52 @@ public class RealtimeService {
             payload.put("timestamp", LocalDateTime.now());
 
             String room = ownerType == WalletOwnerType.DRIVER ? "driver:" + userId : "user:" + userId;
-            webSocketHandler.broadcastToRoom(room, "wallet_update", payload);
-            log.debug("Broadcasted wallet update to room: {}", room);
+            String eventKey = transactionId != null
+                    ? "wallet:txn:" + transactionId
+                    : "wallet:" + room + ":" + UUID.randomUUID();
+            // Aggregate is the wallet (room), so one wallet's updates are relayed in order
+            publish("WALLET", room, eventKey, "wallet_update", List.of(room), payload, null);
+            log.debug("Recorded wallet update for room: {}", room);
         } catch (Exception e) {
+            metrics.error("service");
             log.error("Error broadcasting wallet update: {}", e.getMessage(), e);
         }
     }
 
+    // ==================== INTERCITY BOOKINGS ====================
+
+    /**
+     * Broadcast intercity booking status change, with a push notification to the booking user
+     * Event: "booking_status"
+     * Room: "user:{userId}"
+     */
+    public void broadcastBookingStatusUpdate(IntercityBooking booking) {
+        if (booking == null || booking.getId() == null || booking.getUser() == null) {
+            log.warn("Cannot broadcast booking update: booking or its user is null");
+            return;
+        }
+
+        try {
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("bookingId", booking.getId());
+            payload.put("bookingCode", booking.getBookingCode());
+            payload.put("status", booking.getStatus().toString());
+            if (booking.getTrip() != null) payload.put("tripId", booking.getTrip().getId());
+            payload.put("timestamp", LocalDateTime.now());
+
+            String room = "user:" + booking.getUser().getId();
+            String eventKey = "booking:" + booking.getId() + ":" + booking.getStatus();
+            OutboxService.Push push = new OutboxService.Push(booking.getUser().getFcmToken(),
+                    "Booking " + booking.getStatus().toString().toLowerCase(),
+                    "Your intercity booking " + booking.getBookingCode() + " is " + booking.getStatus().toString().toLowerCase());
+            publish("BOOKING", booking.getId(), eventKey, "booking_status", List.of(room), payload, push);
+            log.debug("Recorded booking status {} for booking {}", booking.getStatus(), booking.getBookingCode());
+        } catch (Exception e) {
+            metrics.error("service");
+            log.error("Error broadcasting booking status for booking {}: {}", booking.getId(), e.getMessage(), e);
+        }
+    }
+
     // ==================== FLEET MONITORING ====================
 
     /**
@@ -207,9 +357,10 @@ public class RealtimeService {
     public void broadcastFleetStats(Map<String, Object> stats) {
         try {
             stats.put("timestamp", LocalDateTime.now());
-            webSocketHandler.broadcastToRoom("fleet:monitoring", "fleet_stats", stats);
+            broadcast(FLEET_ROOM, "fleet_stats", stats);
             log.debug("Broadcasted fleet stats to monitoring room");
         } catch (Exception e) {
+            metrics.error("service");
             log.error("Error broadcasting fleet stats: {}", e.getMessage(), e);
         }
     }
@@ -224,9 +375,10 @@ public class RealtimeService {
             Map<String, Object> payload = new HashMap<>();
             payload.put("drivers", drivers);
             payload.put("timestamp", LocalDateTime.now());
-            webSocketHandler.broadcastToRoom("fleet:monitoring", "fleet_drivers", payload);
+            broadcast(FLEET_ROOM, "fleet_drivers", payload);
             log.debug("Broadcasted fleet drivers update");
         } catch (Exception e) {
+            metrics.error("service");
             log.error("Error broadcasting fleet drivers: {}", e.getMessage(), e);
         }
     }
@@ -256,11 +408,43 @@ public class RealtimeService {
             payload.put("timestamp", LocalDateTime.now());
 
             String rideRoom = "ride:" + rideId;
-            webSocketHandler.broadcastToRoom(rideRoom, "chat_message", payload);
+            broadcast(rideRoom, "chat_message", payload);
             log.debug("Broadcasted chat message to room: {}", rideRoom);
         } catch (Exception e) {
+            metrics.error("service");
             log.error("Error broadcasting chat message: {}", e.getMessage(), e);
         }
     }
-}
 
+    // ==================== DISPATCH ====================
+
+    /**
+     * Record the event in the outbox (relayed after commit); dispatched directly while the outbox is disabled
+     */
+    private void publish(String aggregateType, Object aggregateId, String eventKey, String event,
+                         List<String> rooms, Map<String, Object> payload, OutboxService.Push push) {
+        if (outboxService.isEnabled()) {
+            outboxService.record(aggregateType, aggregateId, eventKey, event, rooms, payload, push);
+            metrics.emitted(event, "outbox");
+            return;
+        }
+        payload.put("eventId", eventKey);
+        for (String room : rooms) {
+            broadcast(room, event, payload);
+        }
+        if (push != null && push.token() != null && !push.token().isBlank()) {
+            dispatcher.dispatch(rooms.get(0), () -> pushNotificationService.sendToToken(push.token(), push.title(),
+                    push.body(), Map.of("type", event, "eventId", eventKey)));
+        }
+    }
+
+    private void broadcast(String room, String event, Object data) {
+        metrics.emitted(event, "dispatch");
+        dispatcher.dispatch(room, () -> webSocketHandler.broadcastToRoom(room, event, data));
+    }
+
+    private void broadcast(String room, String event, Object data, String conflationKey) {
+        metrics.emitted(event, "dispatch");
+        dispatcher.dispatch(room, () -> webSocketHandler.broadcastToRoom(room, event, data, conflationKey));
+    }
+}
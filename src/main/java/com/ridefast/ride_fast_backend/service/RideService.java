@@ -1,6 +1,7 @@
 package com.ridefast.ride_fast_backend.service;
 
 import com.ridefast.ride_fast_backend.dto.RideRequest;
+import com.ridefast.ride_fast_backend.enums.ServiceType;
 import com.ridefast.ride_fast_backend.exception.ResourceNotFoundException;
 import com.ridefast.ride_fast_backend.exception.UserException;
 import com.ridefast.ride_fast_backend.model.Driver;
@@ -11,17 +12,18 @@ public interface RideService {
   Ride requestRide(RideRequest rideRequest, MyUser user) throws UserException;
 
   Ride createRide(MyUser user, Driver nearestDriver, double pickupLatitude, double pickupLongitude,
-      double destinationLatitude, double destinationLongitude, String pickupArea, String destinationArea);
+      double destinationLatitude, double destinationLongitude, String pickupArea, String destinationArea,
+      ServiceType serviceType);
 
-  Ride acceptRide(Long rideId) throws ResourceNotFoundException;
+  Ride acceptRide(Long rideId, Long driverId) throws ResourceNotFoundException, UserException;
 
   Ride declineRide(Long rideId, Long driverId) throws ResourceNotFoundException;
 
   Ride startRide(Long rideId, int OTP) throws ResourceNotFoundException, UserException;
 
-  Ride completeRide(Long rideId) throws ResourceNotFoundException;
+  Ride completeRide(Long rideId) throws ResourceNotFoundException, UserException;
 
-  Ride cancelRide(Long rideId) throws ResourceNotFoundException;
+  Ride cancelRide(Long rideId) throws ResourceNotFoundException, UserException;
 
   Ride findRideById(Long rideId) throws ResourceNotFoundException;
 
@@ -1,7 +1,15 @@
 package com.ridefast.ride_fast_backend.service;
 
+import com.ridefast.ride_fast_backend.model.Ride;
+
 public interface ShortCodeService {
   String generateUserCode();
   String generateDriverCode();
   String generateRideCode();
+
+  /**
+   * Give a finished ride's code back to the pool (clearing it on the ride)
+   * when ride code recycling is enabled; otherwise a no-op.
+   */
+  void recycleRideCode(Ride ride);
 }
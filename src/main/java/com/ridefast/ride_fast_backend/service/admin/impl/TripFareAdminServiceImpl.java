@@ -10,6 +10,7 @@ import com.ridefast.ride_fast_backend.repository.v2.TripFareRepository;
 import com.ridefast.ride_fast_backend.repository.v2.VehicleCategoryRepository;
 import com.ridefast.ride_fast_backend.repository.v2.ZoneV2Repository;
 import com.ridefast.ride_fast_backend.service.admin.TripFareAdminService;
+import com.ridefast.ride_fast_backend.service.pricing.PricingSnapshotService;
 import java.time.LocalDateTime;
 import java.util.Optional;
 import lombok.RequiredArgsConstructor;
@@ -27,6 +28,7 @@ public class TripFareAdminServiceImpl implements TripFareAdminService {
   private final ZoneV2Repository zoneV2Repository;
   private final ZoneRepository zoneRepository; // Old Zone table
   private final VehicleCategoryRepository vehicleCategoryRepository;
+  private final PricingSnapshotService pricingSnapshotService;
 
   @Override
   public Page<TripFare> list(Pageable pageable) {
@@ -116,6 +118,7 @@ public class TripFareAdminServiceImpl implements TripFareAdminService {
     
     try {
       TripFare saved = tripFareRepository.save(tf);
+      pricingSnapshotService.refresh();
       log.info("Trip fare saved successfully: id={}, zone={}, category={}", saved.getId(), zone.getName(), category.getName());
       return saved;
     } catch (Exception e) {
@@ -127,6 +130,7 @@ public class TripFareAdminServiceImpl implements TripFareAdminService {
   @Override
   public void delete(String tripFareId) {
     tripFareRepository.deleteById(tripFareId);
+    pricingSnapshotService.refresh();
   }
 
   private ZoneV2 resolveZone(TripFareUpsertRequest req) {
@@ -0,0 +1,136 @@
+package com.ridefast.ride_fast_backend.service.code;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Human-readable reference codes (booking and trip codes) derived from a
+ * database sequence, so no existence checks are needed.
+ *
+ * Each sequence value reserves a block of {@value #BLOCK_SIZE} ids for this
+ * instance, making codes unique across instances with one sequence call per
+ * block. An id is scrambled by a keyed bijection over 40 bits (so
+ * consecutive codes look unrelated), written as 8 Crockford base32
+ * characters and followed by a Luhn mod 32 check character, e.g.
+ * {@code IC7K2M9QXRB}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReferenceCodeGenerator {
+
+  // Fixed: changing it would make blocks from old and new sequence values overlap
+  private static final long BLOCK_SIZE = 100;
+  private static final int BITS = 40;
+  private static final long MASK = (1L << BITS) - 1;
+  private static final int CHARS = BITS / 5;
+  private static final long MULTIPLIER_1 = 0x9E3779B97FL;
+  private static final long MULTIPLIER_2 = 0xC2B2AE3D27L;
+  private static final String ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ";
+  private static final Pattern SEQUENCE_NAME = Pattern.compile("[a-z_]+");
+
+  private final JdbcTemplate jdbcTemplate;
+  private final PlatformTransactionManager transactionManager;
+
+  // Must not change once codes have been issued
+  @Value("${app.codes.obfuscation-key:742871390551}")
+  private long obfuscationKey;
+
+  private final Map<String, Block> blocks = new ConcurrentHashMap<>();
+
+  private static final class Block {
+    private long next;
+    private long end;
+  }
+
+  /**
+   * Next code of the series backed by {@code sequenceName}.
+   */
+  public String next(String sequenceName, String prefix) {
+    return prefix + encode(scramble(nextId(sequenceName)));
+  }
+
+  /**
+   * True when {@code code} has the shape of a generated code of this series
+   * but its check character is wrong (a mistyped code). Codes of any other
+   * shape, such as ones issued before this generator, return false.
+   */
+  public boolean hasBadChecksum(String prefix, String code) {
+    if (code == null || code.length() != prefix.length() + CHARS + 1 || !code.startsWith(prefix)) {
+      return false;
+    }
+    String body = code.substring(prefix.length()).toUpperCase();
+    for (int i = 0; i < body.length(); i++) {
+      if (ALPHABET.indexOf(body.charAt(i)) < 0) {
+        return false;
+      }
+    }
+    return checkChar(body.substring(0, CHARS)) != body.charAt(CHARS);
+  }
+
+  private long nextId(String sequenceName) {
+    Block block = blocks.computeIfAbsent(sequenceName, name -> {
+      createSequence(name);
+      return new Block();
+    });
+    synchronized (block) {
+      if (block.next >= block.end) {
+        long blockNumber = jdbcTemplate.queryForObject("SELECT nextval('" + sequenceName + "')", Long.class);
+        block.next = blockNumber * BLOCK_SIZE;
+        block.end = block.next + BLOCK_SIZE;
+      }
+      return block.next++;
+    }
+  }
+
+  private void createSequence(String name) {
+    if (!SEQUENCE_NAME.matcher(name).matches()) {
+      throw new IllegalArgumentException("Invalid sequence name: " + name);
+    }
+    // Own transaction, so a rollback of the caller's transaction does not drop the sequence
+    TransactionTemplate template = new TransactionTemplate(transactionManager);
+    template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    template.executeWithoutResult(status -> jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS " + name));
+    log.info("Reference code sequence {} ready", name);
+  }
+
+  // Keyed bijection on 40-bit values: odd multiplications and an xor-shift are invertible mod 2^40
+  private long scramble(long id) {
+    long x = (id * MULTIPLIER_1) & MASK;
+    x ^= x >>> 21;
+    x = (x * MULTIPLIER_2) & MASK;
+    return x ^ (obfuscationKey & MASK);
+  }
+
+  private static String encode(long value) {
+    char[] chars = new char[CHARS];
+    for (int i = CHARS - 1; i >= 0; i--) {
+      chars[i] = ALPHABET.charAt((int) (value & 31));
+      value >>>= 5;
+    }
+    String body = new String(chars);
+    return body + checkChar(body);
+  }
+
+  // Luhn mod 32 check character over the body
+  private static char checkChar(String body) {
+    int factor = 2;
+    int sum = 0;
+    for (int i = body.length() - 1; i >= 0; i--) {
+      int addend = factor * ALPHABET.indexOf(body.charAt(i));
+      factor = factor == 2 ? 1 : 2;
+      sum += addend / 32 + addend % 32;
+    }
+    return ALPHABET.charAt((32 - sum % 32) % 32);
+  }
+}
@@ -0,0 +1,268 @@
+package com.ridefast.ride_fast_backend.service.dispatch;
+
+import com.ridefast.ride_fast_backend.enums.ServiceType;
+import com.ridefast.ride_fast_backend.service.routing.RoutingService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Window-based ride-to-driver matching.
+ *
+ * Ride requests are queued per zone (a coarse grid cell of
+ * {@code app.dispatch.batch.zone-size-km}) and, every
+ * {@code app.dispatch.batch.window-ms}, each zone's batch is solved as one
+ * assignment problem over the union of its candidate drivers, minimizing the
+ * total pickup ETA instead of giving every request its own nearest driver.
+ * Zones are solved one after another and a driver claimed in one zone is
+ * excluded from the next, so a driver is never matched twice per window.
+ *
+ * A matched driver stays reserved for {@code app.dispatch.batch.reservation-ms}
+ * (by default one offer ring), so later windows do not hand the same driver
+ * to another ride while it is still on offer. The reservation is released
+ * earlier when the driver accepts or declines, or the ride is cancelled
+ * ({@link #release}).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BatchDispatchEngine {
+
+  private static final double KM_PER_DEGREE = 111.32;
+  private static final double INFEASIBLE = 1e9;
+
+  private final DriverLocationStore driverLocationStore;
+  private final MeterRegistry meterRegistry;
+  private final RoutingService routingService;
+
+  @Value("${app.dispatch.batch.window-ms:2000}")
+  private long windowMs;
+
+  @Value("${app.dispatch.batch.zone-size-km:5.0}")
+  private double zoneSizeKm;
+
+  @Value("${app.dispatch.batch.max-batch-size:200}")
+  private int maxBatchSize;
+
+  @Value("${app.dispatch.batch.max-wait-ms:2500}")
+  private long maxWaitMs;
+
+  @Value("${app.dispatch.batch.reservation-ms:15000}")
+  private long reservationMs;
+
+  @Value("${app.dispatch.search-radius-km:10}")
+  private double searchRadiusKm;
+
+  @Value("${app.dispatch.candidate-limit:20}")
+  private int candidateLimit;
+
+  @Value("${app.dispatch.pickup-speed-kmh:25}")
+  private double pickupSpeedKmh;
+
+  private final Map<Long, Queue<PendingRequest>> pendingByZone = new ConcurrentHashMap<>();
+  private final AtomicInteger pendingCount = new AtomicInteger();
+  // Matched driver -> epoch millis until which later windows skip it
+  private final Map<Long, Long> reservedUntil = new ConcurrentHashMap<>();
+
+  private ScheduledExecutorService scheduler;
+  private DistributionSummary batchSize;
+  private Timer solveTimer;
+
+  private record PendingRequest(double latitude, double longitude, ServiceType serviceType,
+      Collection<Long> excluded, CompletableFuture<DriverCandidate> result) {
+  }
+
+  @PostConstruct
+  void start() {
+    batchSize = DistributionSummary.builder("dispatch.batch.size")
+        .description("Ride requests solved together in one zone batch")
+        .register(meterRegistry);
+    solveTimer = Timer.builder("dispatch.batch.solve")
+        .description("Candidate generation plus assignment time per zone batch")
+        .register(meterRegistry);
+    meterRegistry.gauge("dispatch.batch.pending", pendingCount);
+    meterRegistry.gaugeMapSize("dispatch.batch.reserved", List.of(), reservedUntil);
+
+    // Own thread so matching is not delayed by other @Scheduled jobs
+    scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, "dispatch-batch");
+      t.setDaemon(true);
+      return t;
+    });
+    scheduler.scheduleWithFixedDelay(this::flush, windowMs, windowMs, TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  void stop() {
+    scheduler.shutdownNow();
+    pendingByZone.values().forEach(queue -> queue.forEach(request -> request.result().complete(null)));
+    pendingByZone.clear();
+  }
+
+  /**
+   * Queue a pickup for the next matching window. The future completes with the
+   * assigned driver, or null when no driver could be matched.
+   */
+  public CompletableFuture<DriverCandidate> submit(double latitude, double longitude, ServiceType serviceType,
+      Collection<Long> excluded) {
+    PendingRequest request = new PendingRequest(latitude, longitude, serviceType, excluded,
+        new CompletableFuture<>());
+    pendingByZone.compute(zoneKey(latitude, longitude), (zone, queue) -> {
+      Queue<PendingRequest> target = queue != null ? queue : new ConcurrentLinkedQueue<>();
+      target.add(request);
+      return target;
+    });
+    pendingCount.incrementAndGet();
+    return request.result();
+  }
+
+  /**
+   * Longest a caller should wait for its match ({@code app.dispatch.batch.max-wait-ms}):
+   * about a window plus solving time, after which it falls back to greedy selection.
+   */
+  public long maxWaitMs() {
+    return maxWaitMs;
+  }
+
+  /**
+   * Drop a driver's reservation (accepted, declined or the ride was cancelled).
+   */
+  public void release(Long driverId) {
+    if (driverId != null) {
+      reservedUntil.remove(driverId);
+    }
+  }
+
+  public int pendingCount() {
+    return pendingCount.get();
+  }
+
+  void flush() {
+    try {
+      Set<Long> claimed = activeReservations(System.currentTimeMillis());
+      for (Long zone : new ArrayList<>(pendingByZone.keySet())) {
+        Queue<PendingRequest> queue = pendingByZone.get(zone);
+        if (queue == null) {
+          continue;
+        }
+        List<PendingRequest> batch = new ArrayList<>();
+        PendingRequest next;
+        while (batch.size() < maxBatchSize && (next = queue.poll()) != null) {
+          batch.add(next);
+        }
+        pendingCount.addAndGet(-batch.size());
+        pendingByZone.computeIfPresent(zone, (k, q) -> q.isEmpty() ? null : q);
+
+        // Requests abandoned by a timed-out caller are skipped
+        batch.removeIf(request -> request.result().isDone());
+        if (!batch.isEmpty()) {
+          solveTimer.record(() -> solve(batch, claimed));
+          batchSize.record(batch.size());
+        }
+      }
+    } catch (Exception e) {
+      log.error("Batch dispatch flush failed: {}", e.getMessage(), e);
+    }
+  }
+
+  private void solve(List<PendingRequest> batch, Set<Long> claimed) {
+    List<List<DriverCandidate>> candidates = new ArrayList<>(batch.size());
+    Map<Long, Integer> columns = new HashMap<>();
+    for (PendingRequest request : batch) {
+      Set<Long> excluded = new HashSet<>(claimed);
+      if (request.excluded() != null) {
+        excluded.addAll(request.excluded());
+      }
+      List<DriverCandidate> options;
+      try {
+        options = driverLocationStore.findNearest(request.latitude(), request.longitude(), request.serviceType(),
+            searchRadiusKm, candidateLimit, excluded);
+      } catch (RuntimeException e) {
+        log.warn("Candidate lookup failed for batched request: {}", e.getMessage());
+        options = List.of();
+      }
+      candidates.add(options);
+      for (DriverCandidate option : options) {
+        columns.putIfAbsent(option.driverId(), columns.size());
+      }
+    }
+
+    if (columns.isEmpty()) {
+      batch.forEach(request -> request.result().complete(null));
+      return;
+    }
+
+    // Pairs that are not candidates of each other stay infeasible
+    double[][] cost = new double[batch.size()][columns.size()];
+    for (int i = 0; i < batch.size(); i++) {
+      Arrays.fill(cost[i], INFEASIBLE);
+      for (DriverCandidate option : candidates.get(i)) {
+        cost[i][columns.get(option.driverId())] = pickupEtaMinutes(option, batch.get(i));
+      }
+    }
+
+    int[] assignment = HungarianAssignment.solve(cost);
+    for (int i = 0; i < batch.size(); i++) {
+      int col = assignment[i];
+      DriverCandidate match = null;
+      if (col >= 0 && cost[i][col] < INFEASIBLE) {
+        for (DriverCandidate option : candidates.get(i)) {
+          if (columns.get(option.driverId()) == col) {
+            match = option;
+            break;
+          }
+        }
+      }
+      // A caller that already gave up does not hold on to its driver
+      if (batch.get(i).result().complete(match) && match != null) {
+        claimed.add(match.driverId());
+        reservedUntil.put(match.driverId(), System.currentTimeMillis() + reservationMs);
+      }
+    }
+  }
+
+  // Drivers still reserved by earlier windows; expired reservations are dropped
+  private Set<Long> activeReservations(long now) {
+    Set<Long> reserved = new HashSet<>();
+    reservedUntil.entrySet().removeIf(e -> e.getValue() <= now);
+    reservedUntil.keySet().forEach(reserved::add);
+    return reserved;
+  }
+
+  // Road travel time from driver to pickup when routing is available, else straight line at average speed
+  private double pickupEtaMinutes(DriverCandidate option, PendingRequest request) {
+    return routingService.route(option.latitude(), option.longitude(), request.latitude(), request.longitude(), false)
+        .map(route -> route.durationMin())
+        .orElse(option.distanceKm() / pickupSpeedKmh * 60.0);
+  }
+
+  private long zoneKey(double latitude, double longitude) {
+    double zoneDegrees = zoneSizeKm / KM_PER_DEGREE;
+    long row = (long) Math.floor(latitude / zoneDegrees);
+    long col = (long) Math.floor(longitude / zoneDegrees);
+    return (row << 32) | (col & 0xffffffffL);
+  }
+}
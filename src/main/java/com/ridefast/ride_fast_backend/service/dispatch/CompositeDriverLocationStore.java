@@ -0,0 +1,132 @@
+package com.ridefast.ride_fast_backend.service.dispatch;
+
+import com.ridefast.ride_fast_backend.enums.ServiceType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Primary {@link DriverLocationStore}: every write goes to the in-process
+ * index and, while it is reachable, to Redis; reads are served from Redis so
+ * all instances see the same drivers, and from the local index otherwise.
+ *
+ * After an outage the locally known drivers are re-published to Redis once,
+ * since writes made while it was down were dropped. A move or busy change
+ * for a driver whose Redis state has expired re-publishes that driver from
+ * the local index, and a heartbeat keeps the Redis state of locally known
+ * online drivers from expiring while they are silent.
+ */
+@Slf4j
+@Primary
+@Component
+@RequiredArgsConstructor
+public class CompositeDriverLocationStore implements DriverLocationStore {
+
+  private final DriverSpatialIndex localIndex;
+  private final RedisDriverLocationStore redisStore;
+
+  private volatile boolean resyncNeeded = false;
+
+  @Override
+  public void upsert(long driverId, ServiceType serviceType, double latitude, double longitude, boolean busy) {
+    localIndex.upsert(driverId, serviceType, latitude, longitude, busy);
+    writeShared(() -> redisStore.upsert(driverId, serviceType, latitude, longitude, busy));
+  }
+
+  @Override
+  public void updateLocation(long driverId, double latitude, double longitude) {
+    localIndex.updateLocation(driverId, latitude, longitude);
+    writeShared(() -> {
+      if (!redisStore.moveIfTracked(driverId, latitude, longitude)) {
+        republish(driverId);
+      }
+    });
+  }
+
+  @Override
+  public void setBusy(long driverId, boolean busy) {
+    localIndex.setBusy(driverId, busy);
+    writeShared(() -> {
+      if (!redisStore.setBusyIfTracked(driverId, busy)) {
+        republish(driverId);
+      }
+    });
+  }
+
+  /**
+   * Extend the Redis state of every locally known driver (interval below the Redis TTL).
+   */
+  @Scheduled(fixedDelayString = "${app.dispatch.redis.heartbeat-interval-ms:40000}")
+  public void heartbeat() {
+    if (localIndex.size() == 0) {
+      return;
+    }
+    writeShared(() -> redisStore.touchAll(localIndex.entries().stream()
+        .map(DriverSpatialIndex.Entry::driverId)
+        .collect(Collectors.toList())));
+  }
+
+  // Redis lost the driver's state (expired): write it again in full from the local index
+  private void republish(long driverId) {
+    localIndex.get(driverId).ifPresent(e ->
+        redisStore.upsert(e.driverId(), e.serviceType(), e.latitude(), e.longitude(), e.busy()));
+  }
+
+  @Override
+  public void remove(long driverId) {
+    localIndex.remove(driverId);
+    writeShared(() -> redisStore.remove(driverId));
+  }
+
+  @Override
+  public List<DriverCandidate> findNearest(double latitude, double longitude, ServiceType serviceType,
+      double radiusKm, int limit, Collection<Long> excluded) {
+    if (redisReady()) {
+      try {
+        return redisStore.findNearest(latitude, longitude, serviceType, radiusKm, limit, excluded);
+      } catch (RuntimeException e) {
+        redisDown(e);
+      }
+    }
+    return localIndex.findNearest(latitude, longitude, serviceType, radiusKm, limit, excluded);
+  }
+
+  private void writeShared(Runnable write) {
+    if (!redisReady()) {
+      return;
+    }
+    try {
+      write.run();
+    } catch (RuntimeException e) {
+      redisDown(e);
+    }
+  }
+
+  private boolean redisReady() {
+    if (!redisStore.isAvailable()) {
+      return false;
+    }
+    if (resyncNeeded) {
+      resyncNeeded = false;
+      try {
+        redisStore.upsertAll(localIndex.entries());
+        log.info("Re-published {} drivers to Redis after outage", localIndex.size());
+      } catch (RuntimeException e) {
+        redisDown(e);
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void redisDown(RuntimeException e) {
+    resyncNeeded = true;
+    redisStore.markUnavailable(e);
+  }
+}
@@ -0,0 +1,11 @@
+package com.ridefast.ride_fast_backend.service.dispatch;
+
+/**
+ * How ride requests are matched to drivers.
+ */
+public enum DispatchMode {
+  /** Each request immediately gets its own nearest available driver. */
+  GREEDY,
+  /** Requests are collected per zone for a short window and matched together. */
+  BATCHED
+}
@@ -0,0 +1,160 @@
+package com.ridefast.ride_fast_backend.service.dispatch;
+
+import com.ridefast.ride_fast_backend.model.Driver;
+import com.ridefast.ride_fast_backend.model.Ride;
+import com.ridefast.ride_fast_backend.repository.DriverRepository;
+import com.ridefast.ride_fast_backend.service.CalculatorService;
+import com.ridefast.ride_fast_backend.service.DriverService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Picks the driver for a ride request, either greedily (nearest available
+ * driver right away) or through the {@link BatchDispatchEngine}. The mode can
+ * be switched at runtime so both strategies can be compared under load via
+ * the {@code dispatch.*} metrics.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DispatchService {
+
+  private final DriverService driverService;
+  private final DriverRepository driverRepository;
+  private final BatchDispatchEngine batchDispatchEngine;
+  private final CalculatorService calculatorService;
+  private final MeterRegistry meterRegistry;
+
+  @Value("${app.dispatch.mode:greedy}")
+  private String configuredMode;
+
+  private volatile DispatchMode mode;
+
+  public DispatchMode getMode() {
+    DispatchMode current = mode;
+    if (current == null) {
+      current = DispatchMode.valueOf(configuredMode.trim().toUpperCase());
+      mode = current;
+    }
+    return current;
+  }
+
+  public void setMode(DispatchMode mode) {
+    log.info("Dispatch mode changed from {} to {}", getMode(), mode);
+    this.mode = mode;
+  }
+
+  /**
+   * Select a driver for the ride's pickup point, or null when none is available.
+   * Drivers in {@code ride.getDeclinedDrivers()} are never selected.
+   */
+  public Driver selectDriver(Ride ride) {
+    DispatchMode current = getMode();
+    String tag = tag(current);
+    long start = System.nanoTime();
+
+    Driver driver = current == DispatchMode.BATCHED ? selectBatched(ride) : selectGreedy(ride);
+
+    meterRegistry.timer("dispatch.assign", "mode", tag).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    meterRegistry.counter("dispatch.assign.result", "mode", tag, "outcome", driver != null ? "matched" : "unmatched")
+        .increment();
+    if (driver != null && driver.getLatitude() != null && driver.getLongitude() != null) {
+      double pickupKm = calculatorService.calculateDistance(driver.getLatitude(), driver.getLongitude(),
+          ride.getPickupLatitude(), ride.getPickupLongitude());
+      meterRegistry.summary("dispatch.pickup.distance.km", "mode", tag).record(pickupKm);
+    }
+    return driver;
+  }
+
+  /**
+   * Free a driver matched by batched dispatch for other rides (accepted,
+   * declined, or the ride was cancelled).
+   */
+  public void release(Long driverId) {
+    batchDispatchEngine.release(driverId);
+  }
+
+  /**
+   * Snapshot of the dispatch metrics per mode, for the admin dashboard.
+   */
+  public Map<String, Object> getStats() {
+    Map<String, Object> stats = new LinkedHashMap<>();
+    stats.put("mode", getMode().name());
+    for (DispatchMode m : DispatchMode.values()) {
+      String tag = tag(m);
+      Map<String, Object> modeStats = new LinkedHashMap<>();
+      Timer timer = meterRegistry.find("dispatch.assign").tag("mode", tag).timer();
+      Counter matched = meterRegistry.find("dispatch.assign.result").tags("mode", tag, "outcome", "matched").counter();
+      Counter unmatched = meterRegistry.find("dispatch.assign.result").tags("mode", tag, "outcome", "unmatched")
+          .counter();
+      DistributionSummary pickup = meterRegistry.find("dispatch.pickup.distance.km").tag("mode", tag).summary();
+      modeStats.put("requests", timer != null ? timer.count() : 0L);
+      modeStats.put("matched", matched != null ? (long) matched.count() : 0L);
+      modeStats.put("unmatched", unmatched != null ? (long) unmatched.count() : 0L);
+      modeStats.put("meanLatencyMs", timer != null ? timer.mean(TimeUnit.MILLISECONDS) : 0.0);
+      modeStats.put("maxLatencyMs", timer != null ? timer.max(TimeUnit.MILLISECONDS) : 0.0);
+      modeStats.put("meanPickupKm", pickup != null ? pickup.mean() : 0.0);
+      stats.put(tag, modeStats);
+    }
+    Timer solve = meterRegistry.find("dispatch.batch.solve").timer();
+    DistributionSummary size = meterRegistry.find("dispatch.batch.size").summary();
+    stats.put("batch", Map.of(
+        "pending", batchDispatchEngine.pendingCount(),
+        "batches", solve != null ? solve.count() : 0L,
+        "meanBatchSize", size != null ? size.mean() : 0.0,
+        "meanSolveMs", solve != null ? solve.mean(TimeUnit.MILLISECONDS) : 0.0));
+    return stats;
+  }
+
+  private Driver selectGreedy(Ride ride) {
+    List<Driver> availableDrivers = driverService.getAvailableDrivers(ride.getPickupLatitude(),
+        ride.getPickupLongitude(), ride);
+    return driverService.getNearestDriver(availableDrivers, ride.getPickupLatitude(), ride.getPickupLongitude());
+  }
+
+  private Driver selectBatched(Ride ride) {
+    CompletableFuture<DriverCandidate> future = batchDispatchEngine.submit(ride.getPickupLatitude(),
+        ride.getPickupLongitude(), ride.getServiceType(), ride.getDeclinedDrivers());
+    DriverCandidate candidate;
+    try {
+      candidate = future.get(batchDispatchEngine.maxWaitMs(), TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      future.cancel(false);
+      return null;
+    } catch (ExecutionException | TimeoutException e) {
+      log.warn("Batched dispatch did not answer in time, falling back to greedy: {}", e.toString());
+      future.cancel(false);
+      return selectGreedy(ride);
+    }
+    if (candidate == null) {
+      return null;
+    }
+
+    // The location store can lag behind the database (driver went offline meanwhile)
+    Driver driver = driverRepository.findById(candidate.driverId()).orElse(null);
+    if (driver == null || !Boolean.TRUE.equals(driver.getIsOnline())) {
+      batchDispatchEngine.release(candidate.driverId());
+      return selectGreedy(ride);
+    }
+    return driver;
+  }
+
+  private static String tag(DispatchMode mode) {
+    return mode.name().toLowerCase();
+  }
+}
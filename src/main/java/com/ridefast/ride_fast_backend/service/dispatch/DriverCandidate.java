@@ -0,0 +1,8 @@
+package com.ridefast.ride_fast_backend.service.dispatch;
+
+/**
+ * A driver returned by a proximity search, with its straight-line distance
+ * (km) from the query point.
+ */
+public record DriverCandidate(long driverId, double latitude, double longitude, double distanceKm) {
+}
@@ -0,0 +1,222 @@
+package com.ridefast.ride_fast_backend.service.dispatch;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ingest path for high-rate driver location pings (REST batches and the
+ * WebSocket {@code location} event).
+ *
+ * Only the latest fix per driver is kept: it feeds the dispatch
+ * {@link DriverLocationStore} right away, and is written to
+ * {@code Driver.latitude/longitude} by {@link #flush()} in one JDBC batch
+ * every {@code app.dispatch.ingest.flush-interval-ms}, so a driver pinging at
+ * 5 Hz costs one row update per flush instead of five per second. Memory is
+ * bounded by {@code app.dispatch.ingest.max-drivers} entries; a driver's slot
+ * is freed when they go offline or stop pinging for
+ * {@code app.dispatch.ingest.fix-ttl-ms}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DriverLocationIngestService {
+
+  private static final String UPDATE_SQL = "UPDATE driver SET latitude = ?, longitude = ? WHERE id = ?";
+
+  private final DriverLocationStore driverLocationStore;
+  private final JdbcTemplate jdbcTemplate;
+  private final MeterRegistry meterRegistry;
+
+  @Value("${app.dispatch.ingest.max-drivers:200000}")
+  private int maxDrivers;
+
+  @Value("${app.dispatch.ingest.batch-size:500}")
+  private int batchSize;
+
+  @Value("${app.dispatch.ingest.fix-ttl-ms:600000}")
+  private long fixTtlMs;
+
+  /** Latest accepted fix per driver */
+  private final Map<Long, Fix> latest = new ConcurrentHashMap<>();
+
+  /** Fixes not yet written to the database, coalesced per driver */
+  private final Map<Long, Fix> pending = new ConcurrentHashMap<>();
+
+  private Counter accepted;
+  private Counter stale;
+  private Counter invalid;
+  private Counter overflow;
+  private DistributionSummary flushRows;
+  private Timer flushTimer;
+
+  /**
+   * A location fix; {@code timestamp} is epoch millis as reported by the device.
+   */
+  public record Fix(double latitude, double longitude, Integer heading, long timestamp) {
+  }
+
+  @PostConstruct
+  void registerMeters() {
+    accepted = pingCounter("accepted");
+    stale = pingCounter("stale");
+    invalid = pingCounter("invalid");
+    overflow = pingCounter("overflow");
+    flushRows = DistributionSummary.builder("location.ingest.flush.rows")
+        .description("Driver rows written per location flush")
+        .register(meterRegistry);
+    flushTimer = Timer.builder("location.ingest.flush")
+        .description("Time to write coalesced driver locations")
+        .register(meterRegistry);
+    meterRegistry.gaugeMapSize("location.ingest.pending", List.of(), pending);
+  }
+
+  /**
+   * Accept one ping. Pings older than the driver's latest fix and
+   * out-of-range coordinates are dropped.
+   *
+   * @param timestamp device time in epoch seconds or millis (at most now), or null for now
+   * @return true when the ping became the driver's latest fix
+   */
+  public boolean ingest(long driverId, double latitude, double longitude, Integer heading, Long timestamp) {
+    if (!isValid(latitude, longitude)) {
+      invalid.increment();
+      return false;
+    }
+    if (latest.size() >= maxDrivers && !latest.containsKey(driverId)) {
+      overflow.increment();
+      return false;
+    }
+
+    Fix fix = new Fix(latitude, longitude, heading, toMillis(timestamp));
+    if (latest.merge(driverId, fix, DriverLocationIngestService::newer) != fix) {
+      stale.increment();
+      return false;
+    }
+    pending.merge(driverId, fix, DriverLocationIngestService::newer);
+    accepted.increment();
+
+    try {
+      driverLocationStore.updateLocation(driverId, latitude, longitude);
+    } catch (RuntimeException e) {
+      log.warn("Dispatch index update failed for driver {}: {}", driverId, e.getMessage());
+    }
+    return true;
+  }
+
+  /**
+   * Latest known fix of a driver, or null.
+   */
+  public Fix getLatest(long driverId) {
+    return latest.get(driverId);
+  }
+
+  /**
+   * Free a driver's slot when they go offline. A fix not yet flushed is still
+   * written.
+   */
+  public void offline(long driverId) {
+    latest.remove(driverId);
+  }
+
+  /**
+   * Forget a driver (deleted account), so its slot is freed.
+   */
+  public void forget(long driverId) {
+    latest.remove(driverId);
+    pending.remove(driverId);
+  }
+
+  /**
+   * Write the coalesced fixes to the driver table.
+   */
+  @Scheduled(fixedDelayString = "${app.dispatch.ingest.flush-interval-ms:3000}")
+  public void flush() {
+    if (pending.isEmpty()) {
+      return;
+    }
+    List<Map.Entry<Long, Fix>> drained = new ArrayList<>(pending.size());
+    for (Long driverId : pending.keySet()) {
+      Fix fix = pending.remove(driverId);
+      if (fix != null) {
+        drained.add(Map.entry(driverId, fix));
+      }
+    }
+    flushTimer.record(() -> write(drained));
+  }
+
+  /**
+   * Free the slots of drivers that stopped pinging without going offline
+   * (app killed, lost connectivity).
+   */
+  @Scheduled(fixedDelayString = "${app.dispatch.ingest.evict-interval-ms:60000}")
+  public void evictStale() {
+    long cutoff = System.currentTimeMillis() - fixTtlMs;
+    latest.values().removeIf(fix -> fix.timestamp() < cutoff);
+  }
+
+  @PreDestroy
+  void flushOnShutdown() {
+    flush();
+  }
+
+  private void write(List<Map.Entry<Long, Fix>> drained) {
+    for (int from = 0; from < drained.size(); from += batchSize) {
+      List<Map.Entry<Long, Fix>> chunk = drained.subList(from, Math.min(drained.size(), from + batchSize));
+      List<Object[]> rows = new ArrayList<>(chunk.size());
+      for (Map.Entry<Long, Fix> e : chunk) {
+        rows.add(new Object[] { e.getValue().latitude(), e.getValue().longitude(), e.getKey() });
+      }
+      try {
+        jdbcTemplate.batchUpdate(UPDATE_SQL, rows);
+        flushRows.record(rows.size());
+      } catch (RuntimeException ex) {
+        // Put the unwritten fixes back unless a newer one arrived meanwhile
+        List<Map.Entry<Long, Fix>> unwritten = drained.subList(from, drained.size());
+        unwritten.forEach(e -> pending.merge(e.getKey(), e.getValue(), DriverLocationIngestService::newer));
+        log.error("Failed to write {} driver locations, retrying next flush: {}", unwritten.size(),
+            ex.getMessage());
+        return;
+      }
+    }
+  }
+
+  private Counter pingCounter(String outcome) {
+    return Counter.builder("location.ingest.pings")
+        .tag("outcome", outcome)
+        .register(meterRegistry);
+  }
+
+  private static Fix newer(Fix current, Fix candidate) {
+    return candidate.timestamp() >= current.timestamp() ? candidate : current;
+  }
+
+  private static boolean isValid(double latitude, double longitude) {
+    return latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180
+        && !(latitude == 0 && longitude == 0);
+  }
+
+  // Clients send either epoch seconds or millis; a future time (skewed or forged) is clamped to now,
+  // so it cannot make the driver's later pings look stale
+  private static long toMillis(Long timestamp) {
+    long now = System.currentTimeMillis();
+    if (timestamp == null || timestamp <= 0) {
+      return now;
+    }
+    return Math.min(timestamp < 100_000_000_000L ? timestamp * 1000 : timestamp, now);
+  }
+}
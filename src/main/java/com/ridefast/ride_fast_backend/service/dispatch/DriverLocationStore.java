@@ -0,0 +1,46 @@
+package com.ridefast.ride_fast_backend.service.dispatch;
+
+import com.ridefast.ride_fast_backend.enums.ServiceType;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Live positions of online drivers, used for dispatch candidate generation.
+ *
+ * Implementations: {@link DriverSpatialIndex} (in-process),
+ * {@link RedisDriverLocationStore} (shared across instances) and
+ * {@link CompositeDriverLocationStore}, the primary bean that writes to both
+ * and reads from Redis while it is reachable.
+ */
+public interface DriverLocationStore {
+
+  /**
+   * Add or replace an online driver. {@code serviceType} may be null.
+   */
+  void upsert(long driverId, ServiceType serviceType, double latitude, double longitude, boolean busy);
+
+  /**
+   * Move a driver that is already tracked; pings from untracked drivers are ignored.
+   */
+  void updateLocation(long driverId, double latitude, double longitude);
+
+  /**
+   * Mark a tracked driver as on a trip (busy) or idle again.
+   */
+  void setBusy(long driverId, boolean busy);
+
+  /**
+   * Stop tracking a driver (went offline or was deleted).
+   */
+  void remove(long driverId);
+
+  /**
+   * Up to {@code limit} idle drivers within {@code radiusKm}, nearest first.
+   * A null {@code serviceType} matches every driver, and drivers without a
+   * service type match every {@code serviceType}; drivers in
+   * {@code excluded} are skipped.
+   */
+  List<DriverCandidate> findNearest(double latitude, double longitude, ServiceType serviceType, double radiusKm,
+      int limit, Collection<Long> excluded);
+}
@@ -0,0 +1,293 @@
+package com.ridefast.ride_fast_backend.service.dispatch;
+
+import com.ridefast.ride_fast_backend.enums.ServiceType;
+import com.ridefast.ride_fast_backend.service.CalculatorService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory grid index of online drivers used for dispatch.
+ *
+ * The map is cut into square cells of {@code app.dispatch.index.cell-size-km}
+ * (in latitude degrees), each holding the ids of the drivers inside it.
+ * Nearest-driver queries walk rings of cells outwards from the pickup point
+ * and stop as soon as the k best candidates are provably found, so a lookup
+ * touches a handful of cells instead of every driver row in the database.
+ *
+ * The index is kept current by {@code DriverService.updateOnlineStatus},
+ * location pings and ride state transitions; it is warmed from the database
+ * on startup by {@code DriverIndexWarmupRunner}. It is also the local fallback
+ * of {@link CompositeDriverLocationStore} when Redis is unavailable.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DriverSpatialIndex implements DriverLocationStore {
+
+  private static final double KM_PER_DEGREE = 111.32;
+
+  private final CalculatorService calculatorService;
+
+  @Value("${app.dispatch.index.cell-size-km:1.0}")
+  private double cellSizeKm;
+
+  // driverId -> latest indexed position
+  private final Map<Long, Entry> drivers = new ConcurrentHashMap<>();
+
+  // cellKey -> driver ids currently inside that cell
+  private final Map<Long, Set<Long>> cells = new ConcurrentHashMap<>();
+
+  /**
+   * Immutable snapshot of an indexed driver. {@code busy} drivers stay in the
+   * index (so location pings keep them positioned) but are never returned as
+   * dispatch candidates. {@code serviceType} is null when the driver's vehicle
+   * has no service type; such drivers match searches for every type.
+   */
+  public record Entry(long driverId, ServiceType serviceType, double latitude, double longitude, long cellKey,
+      boolean busy, long updatedAt) {
+  }
+
+  @Override
+  public void upsert(long driverId, ServiceType serviceType, double latitude, double longitude, boolean busy) {
+    long cell = cellKey(latitude, longitude);
+    drivers.compute(driverId, (id, previous) -> {
+      moveCell(id, previous, cell);
+      return new Entry(id, serviceType, latitude, longitude, cell, busy, System.currentTimeMillis());
+    });
+  }
+
+  @Override
+  public void updateLocation(long driverId, double latitude, double longitude) {
+    long cell = cellKey(latitude, longitude);
+    drivers.computeIfPresent(driverId, (id, previous) -> {
+      moveCell(id, previous, cell);
+      return new Entry(id, previous.serviceType(), latitude, longitude, cell, previous.busy(),
+          System.currentTimeMillis());
+    });
+  }
+
+  @Override
+  public void setBusy(long driverId, boolean busy) {
+    drivers.computeIfPresent(driverId, (id, previous) -> previous.busy() == busy ? previous
+        : new Entry(id, previous.serviceType(), previous.latitude(), previous.longitude(), previous.cellKey(), busy,
+            previous.updatedAt()));
+  }
+
+  @Override
+  public void remove(long driverId) {
+    drivers.computeIfPresent(driverId, (id, previous) -> {
+      removeFromCell(previous.cellKey(), id);
+      return null;
+    });
+  }
+
+  public Optional<Entry> get(long driverId) {
+    return Optional.ofNullable(drivers.get(driverId));
+  }
+
+  public Collection<Entry> entries() {
+    return List.copyOf(drivers.values());
+  }
+
+  public int size() {
+    return drivers.size();
+  }
+
+  public int cellCount() {
+    return cells.size();
+  }
+
+  /**
+   * Key of the grid cell containing the point.
+   */
+  public long cellOf(double latitude, double longitude) {
+    return cellKey(latitude, longitude);
+  }
+
+  /**
+   * Keys of every cell overlapping the box, or null when that is more than
+   * {@code maxCells} cells.
+   */
+  public long[] cellsCovering(double minLat, double minLng, double maxLat, double maxLng, int maxCells) {
+    double cellDegrees = cellDegrees();
+    int minRow = (int) Math.floor(minLat / cellDegrees);
+    int maxRow = (int) Math.floor(maxLat / cellDegrees);
+    int minCol = (int) Math.floor(minLng / cellDegrees);
+    int maxCol = (int) Math.floor(maxLng / cellDegrees);
+    long count = (long) (maxRow - minRow + 1) * (maxCol - minCol + 1);
+    if (count <= 0 || count > maxCells) {
+      return null;
+    }
+    long[] keys = new long[(int) count];
+    int i = 0;
+    for (int row = minRow; row <= maxRow; row++) {
+      for (int col = minCol; col <= maxCol; col++) {
+        keys[i++] = cellKey(row, col);
+      }
+    }
+    return keys;
+  }
+
+  /**
+   * Indexed drivers (busy or not) inside the box, optionally of one service type.
+   */
+  public List<Entry> within(double minLat, double minLng, double maxLat, double maxLng, ServiceType serviceType) {
+    List<Entry> result = new ArrayList<>();
+    long[] keys = cellsCovering(minLat, minLng, maxLat, maxLng, cells.size());
+    Collection<Entry> candidates;
+    if (keys == null) {
+      // Box spans more cells than are occupied: scanning the drivers is cheaper
+      candidates = drivers.values();
+    } else {
+      candidates = new ArrayList<>();
+      for (long key : keys) {
+        Set<Long> ids = cells.get(key);
+        if (ids != null) {
+          for (Long id : ids) {
+            Entry entry = drivers.get(id);
+            if (entry != null) {
+              candidates.add(entry);
+            }
+          }
+        }
+      }
+    }
+    for (Entry entry : candidates) {
+      if (entry.latitude() >= minLat && entry.latitude() <= maxLat
+          && entry.longitude() >= minLng && entry.longitude() <= maxLng
+          && serves(entry, serviceType)) {
+        result.add(entry);
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public List<DriverCandidate> findNearest(double latitude, double longitude, ServiceType serviceType,
+      double radiusKm, int limit, Collection<Long> excluded) {
+    if (limit <= 0 || radiusKm <= 0 || drivers.isEmpty()) {
+      return List.of();
+    }
+
+    double cellDegrees = cellDegrees();
+    int row = (int) Math.floor(latitude / cellDegrees);
+    int col = (int) Math.floor(longitude / cellDegrees);
+
+    // Cells are square in degrees, so they shrink east-west away from the equator
+    double cellHeightKm = cellDegrees * KM_PER_DEGREE;
+    double cellWidthKm = cellHeightKm * Math.max(Math.cos(Math.toRadians(latitude)), 0.01);
+    int maxRows = (int) Math.ceil(radiusKm / cellHeightKm);
+    int maxCols = (int) Math.ceil(radiusKm / cellWidthKm);
+    int maxRing = Math.max(maxRows, maxCols);
+    double ringStepKm = Math.min(cellHeightKm, cellWidthKm);
+
+    // Max-heap on distance holding the best `limit` candidates seen so far
+    PriorityQueue<DriverCandidate> best = new PriorityQueue<>(limit + 1,
+        Comparator.comparingDouble(DriverCandidate::distanceKm).reversed());
+
+    for (int ring = 0; ring <= maxRing; ring++) {
+      for (int dr = -ring; dr <= ring; dr++) {
+        if (Math.abs(dr) > maxRows) {
+          continue;
+        }
+        // Top and bottom rows of the ring are scanned fully, the rest only at both ends
+        int step = (Math.abs(dr) == ring) ? 1 : 2 * ring;
+        for (int dc = -ring; dc <= ring; dc += step) {
+          if (Math.abs(dc) > maxCols) {
+            continue;
+          }
+          Set<Long> ids = cells.get(cellKey(row + dr, col + dc));
+          if (ids != null) {
+            collect(ids, latitude, longitude, serviceType, radiusKm, limit, excluded, best);
+          }
+        }
+      }
+      // Every driver closer than ring * ringStepKm lives in a ring already visited
+      if (best.size() >= limit && best.peek().distanceKm() <= ring * ringStepKm) {
+        break;
+      }
+    }
+
+    List<DriverCandidate> result = new ArrayList<>(best);
+    result.sort(Comparator.comparingDouble(DriverCandidate::distanceKm));
+    return result;
+  }
+
+  // An untyped search matches every driver, an untyped driver every search
+  private static boolean serves(Entry entry, ServiceType serviceType) {
+    return serviceType == null || entry.serviceType() == null || entry.serviceType() == serviceType;
+  }
+
+  private void collect(Set<Long> ids, double latitude, double longitude, ServiceType serviceType,
+      double radiusKm, int limit, Collection<Long> excluded, PriorityQueue<DriverCandidate> best) {
+    for (Long id : ids) {
+      Entry entry = drivers.get(id);
+      if (entry == null || entry.busy()) {
+        continue;
+      }
+      if (!serves(entry, serviceType)) {
+        continue;
+      }
+      if (excluded != null && excluded.contains(id)) {
+        continue;
+      }
+      double distance = calculatorService.calculateDistance(latitude, longitude, entry.latitude(),
+          entry.longitude());
+      if (distance > radiusKm) {
+        continue;
+      }
+      if (best.size() < limit) {
+        best.add(new DriverCandidate(id, entry.latitude(), entry.longitude(), distance));
+      } else if (distance < best.peek().distanceKm()) {
+        best.poll();
+        best.add(new DriverCandidate(id, entry.latitude(), entry.longitude(), distance));
+      }
+    }
+  }
+
+  private void moveCell(long driverId, Entry previous, long cell) {
+    if (previous != null) {
+      if (previous.cellKey() == cell) {
+        return;
+      }
+      removeFromCell(previous.cellKey(), driverId);
+    }
+    cells.compute(cell, (k, ids) -> {
+      Set<Long> target = ids != null ? ids : ConcurrentHashMap.newKeySet();
+      target.add(driverId);
+      return target;
+    });
+  }
+
+  private void removeFromCell(long cell, long driverId) {
+    cells.computeIfPresent(cell, (k, ids) -> {
+      ids.remove(driverId);
+      return ids.isEmpty() ? null : ids;
+    });
+  }
+
+  private double cellDegrees() {
+    return cellSizeKm / KM_PER_DEGREE;
+  }
+
+  private long cellKey(double latitude, double longitude) {
+    double cellDegrees = cellDegrees();
+    return cellKey((int) Math.floor(latitude / cellDegrees), (int) Math.floor(longitude / cellDegrees));
+  }
+
+  private static long cellKey(int row, int col) {
+    return ((long) row << 32) | (col & 0xffffffffL);
+  }
+}
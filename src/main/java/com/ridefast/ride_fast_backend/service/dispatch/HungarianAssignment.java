@@ -0,0 +1,110 @@
+package com.ridefast.ride_fast_backend.service.dispatch;
+
+import java.util.Arrays;
+
+/**
+ * Minimum-cost assignment (Hungarian algorithm, O(n^2 m)) over a rectangular
+ * cost matrix of requests (rows) by drivers (columns).
+ */
+public final class HungarianAssignment {
+
+  private HungarianAssignment() {
+  }
+
+  /**
+   * Solve the assignment problem for {@code cost[row][col]}.
+   *
+   * @return for every row the assigned column, or -1 when there are more rows
+   *         than columns and the row was left unassigned
+   */
+  public static int[] solve(double[][] cost) {
+    int rows = cost.length;
+    if (rows == 0) {
+      return new int[0];
+    }
+    int cols = cost[0].length;
+    int[] result = new int[rows];
+    Arrays.fill(result, -1);
+    if (cols == 0) {
+      return result;
+    }
+
+    // The algorithm below needs n <= m, so solve the transpose when there are more requests than drivers
+    boolean transposed = rows > cols;
+    double[][] a = transposed ? transpose(cost) : cost;
+    int n = a.length;
+    int m = a[0].length;
+
+    double[] u = new double[n + 1];
+    double[] v = new double[m + 1];
+    int[] p = new int[m + 1];
+    int[] way = new int[m + 1];
+    double[] minv = new double[m + 1];
+    boolean[] used = new boolean[m + 1];
+
+    for (int i = 1; i <= n; i++) {
+      p[0] = i;
+      int j0 = 0;
+      Arrays.fill(minv, Double.POSITIVE_INFINITY);
+      Arrays.fill(used, false);
+      do {
+        used[j0] = true;
+        int i0 = p[j0];
+        int j1 = 0;
+        double delta = Double.POSITIVE_INFINITY;
+        for (int j = 1; j <= m; j++) {
+          if (!used[j]) {
+            double cur = a[i0 - 1][j - 1] - u[i0] - v[j];
+            if (cur < minv[j]) {
+              minv[j] = cur;
+              way[j] = j0;
+            }
+            if (minv[j] < delta) {
+              delta = minv[j];
+              j1 = j;
+            }
+          }
+        }
+        for (int j = 0; j <= m; j++) {
+          if (used[j]) {
+            u[p[j]] += delta;
+            v[j] -= delta;
+          } else {
+            minv[j] -= delta;
+          }
+        }
+        j0 = j1;
+      } while (p[j0] != 0);
+      do {
+        int j1 = way[j0];
+        p[j0] = p[j1];
+        j0 = j1;
+      } while (j0 != 0);
+    }
+
+    // p[j] is the (1-based) row of `a` matched to column j
+    for (int j = 1; j <= m; j++) {
+      if (p[j] == 0) {
+        continue;
+      }
+      if (transposed) {
+        result[j - 1] = p[j] - 1;
+      } else {
+        result[p[j] - 1] = j - 1;
+      }
+    }
+    return result;
+  }
+
+  private static double[][] transpose(double[][] cost) {
+    int rows = cost.length;
+    int cols = cost[0].length;
+    double[][] t = new double[cols][rows];
+    for (int i = 0; i < rows; i++) {
+      for (int j = 0; j < cols; j++) {
+        t[j][i] = cost[i][j];
+      }
+    }
+    return t;
+  }
+}
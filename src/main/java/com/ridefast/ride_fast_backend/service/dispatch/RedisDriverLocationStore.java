@@ -0,0 +1,379 @@
+package com.ridefast.ride_fast_backend.service.dispatch;
+
+import com.ridefast.ride_fast_backend.enums.ServiceType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResult;
+import org.springframework.data.geo.GeoResults;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.geo.Point;
+import org.springframework.data.redis.connection.RedisGeoCommands.GeoLocation;
+import org.springframework.data.redis.connection.RedisGeoCommands.GeoSearchCommandArgs;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.domain.geo.GeoReference;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Driver positions shared by all app instances, stored in Redis GEO sets.
+ *
+ * Keys (one hash slot thanks to the {@code {drivers}} hash tag):
+ * <ul>
+ *   <li>{@code dispatch:{drivers}:geo:all} - idle online drivers of every type</li>
+ *   <li>{@code dispatch:{drivers}:geo:<SERVICE_TYPE>} - idle drivers of one service type</li>
+ *   <li>{@code dispatch:{drivers}:geo:untyped} - idle drivers without a service type, returned by
+ *   searches for every type</li>
+ *   <li>{@code dispatch:{drivers}:state:<driverId>} - hash of lat/lng/type/busy, expires after the TTL</li>
+ *   <li>{@code dispatch:{drivers}:seen} - zset of last-seen epoch millis, used to evict silent drivers</li>
+ * </ul>
+ * GEO members cannot expire individually, so {@link #evictStale()} removes
+ * drivers that have not been seen within the TTL. Instances keep their
+ * online drivers seen with a periodic {@link #touchAll} (see
+ * {@link CompositeDriverLocationStore}), so a driver that is online but idle
+ * and silent does not drop out of dispatch.
+ *
+ * Failures trip a short circuit breaker ({@link #isAvailable()}) so callers
+ * can fall back to the in-process {@link DriverSpatialIndex}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RedisDriverLocationStore implements DriverLocationStore {
+
+  private static final String PREFIX = "dispatch:{drivers}:";
+  private static final String GEO_PREFIX = PREFIX + "geo:";
+  private static final String GEO_ALL = GEO_PREFIX + "all";
+  // Must match the 'untyped' fallback in the scripts below
+  private static final String GEO_UNTYPED = GEO_PREFIX + "untyped";
+  private static final String SEEN = PREFIX + "seen";
+
+  // KEYS: state, geo:all, seen  ARGV: lat, lng, ttlMillis, nowMillis, member, geo key prefix
+  private static final RedisScript<Long> UPDATE_LOCATION = RedisScript.of("""
+      if redis.call('EXISTS', KEYS[1]) == 0 then return 0 end
+      redis.call('HSET', KEYS[1], 'lat', ARGV[1], 'lng', ARGV[2])
+      redis.call('PEXPIRE', KEYS[1], ARGV[3])
+      redis.call('ZADD', KEYS[3], ARGV[4], ARGV[5])
+      if redis.call('HGET', KEYS[1], 'busy') == '0' then
+        redis.call('GEOADD', KEYS[2], ARGV[2], ARGV[1], ARGV[5])
+        local t = redis.call('HGET', KEYS[1], 'type')
+        if not t or t == '' then t = 'untyped' end
+        redis.call('GEOADD', ARGV[6] .. t, ARGV[2], ARGV[1], ARGV[5])
+      end
+      return 1
+      """, Long.class);
+
+  // KEYS: state, geo:all  ARGV: busy flag ('1'/'0'), member, geo key prefix
+  private static final RedisScript<Long> SET_BUSY = RedisScript.of("""
+      if redis.call('EXISTS', KEYS[1]) == 0 then return 0 end
+      redis.call('HSET', KEYS[1], 'busy', ARGV[1])
+      local t = redis.call('HGET', KEYS[1], 'type')
+      if not t or t == '' then t = 'untyped' end
+      if ARGV[1] == '1' then
+        redis.call('ZREM', KEYS[2], ARGV[2])
+        redis.call('ZREM', ARGV[3] .. t, ARGV[2])
+      else
+        local lat = redis.call('HGET', KEYS[1], 'lat')
+        local lng = redis.call('HGET', KEYS[1], 'lng')
+        redis.call('GEOADD', KEYS[2], lng, lat, ARGV[2])
+        redis.call('GEOADD', ARGV[3] .. t, lng, lat, ARGV[2])
+      end
+      return 1
+      """, Long.class);
+
+  // KEYS: seen, state...  ARGV: ttlMillis, nowMillis, member...  Extends drivers whose state still exists
+  private static final RedisScript<Long> TOUCH = RedisScript.of("""
+      local touched = 0
+      for i = 2, #KEYS do
+        if redis.call('PEXPIRE', KEYS[i], ARGV[1]) == 1 then
+          redis.call('ZADD', KEYS[1], ARGV[2], ARGV[i + 1])
+          touched = touched + 1
+        end
+      end
+      return touched
+      """, Long.class);
+
+  // Drivers per TOUCH or GEOPOS call
+  private static final int BATCH = 500;
+
+  private final StringRedisTemplate stringRedisTemplate;
+
+  @Value("${app.dispatch.redis.enabled:true}")
+  private boolean enabled;
+
+  @Value("${app.dispatch.redis.ttl-seconds:120}")
+  private long ttlSeconds;
+
+  @Value("${app.dispatch.redis.retry-after-ms:30000}")
+  private long retryAfterMs;
+
+  private volatile long unavailableUntil = 0L;
+
+  /**
+   * True when the store is enabled and not inside a post-failure back-off window.
+   */
+  public boolean isAvailable() {
+    return enabled && System.currentTimeMillis() >= unavailableUntil;
+  }
+
+  /**
+   * Open the circuit breaker for {@code app.dispatch.redis.retry-after-ms}.
+   */
+  public void markUnavailable(RuntimeException e) {
+    long now = System.currentTimeMillis();
+    boolean wasAvailable = now >= unavailableUntil;
+    unavailableUntil = now + retryAfterMs;
+    if (wasAvailable) {
+      log.warn("Redis driver location store unavailable, falling back to in-process index for {} ms: {}",
+          retryAfterMs, e.getMessage());
+    }
+  }
+
+  @Override
+  public void upsert(long driverId, ServiceType serviceType, double latitude, double longitude, boolean busy) {
+    long now = System.currentTimeMillis();
+    stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+      writeDriver((StringRedisConnection) connection, driverId, serviceType, latitude, longitude, busy, now);
+      return null;
+    });
+  }
+
+  /**
+   * Re-publish a batch of locally known drivers in one pipeline (used after a Redis outage).
+   */
+  public void upsertAll(Collection<DriverSpatialIndex.Entry> entries) {
+    if (entries.isEmpty()) {
+      return;
+    }
+    long now = System.currentTimeMillis();
+    stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+      StringRedisConnection redis = (StringRedisConnection) connection;
+      for (DriverSpatialIndex.Entry e : entries) {
+        writeDriver(redis, e.driverId(), e.serviceType(), e.latitude(), e.longitude(), e.busy(), now);
+      }
+      return null;
+    });
+  }
+
+  @Override
+  public void updateLocation(long driverId, double latitude, double longitude) {
+    moveIfTracked(driverId, latitude, longitude);
+  }
+
+  /**
+   * Move a driver whose state is in Redis; false when it is missing (expired
+   * or never written), in which case the caller should {@link #upsert} it.
+   */
+  public boolean moveIfTracked(long driverId, double latitude, double longitude) {
+    Long result = stringRedisTemplate.execute(UPDATE_LOCATION, List.of(stateKey(driverId), GEO_ALL, SEEN),
+        Double.toString(latitude), Double.toString(longitude), Long.toString(ttlMillis()),
+        Long.toString(System.currentTimeMillis()), String.valueOf(driverId), GEO_PREFIX);
+    return result != null && result == 1L;
+  }
+
+  @Override
+  public void setBusy(long driverId, boolean busy) {
+    setBusyIfTracked(driverId, busy);
+  }
+
+  /**
+   * Like {@link #moveIfTracked}: false when the driver's state is missing.
+   */
+  public boolean setBusyIfTracked(long driverId, boolean busy) {
+    Long result = stringRedisTemplate.execute(SET_BUSY, List.of(stateKey(driverId), GEO_ALL),
+        busy ? "1" : "0", String.valueOf(driverId), GEO_PREFIX);
+    return result != null && result == 1L;
+  }
+
+  /**
+   * Positions of all idle online drivers (every instance's), e.g. for
+   * supply metrics; read in batches.
+   */
+  public List<Point> idlePositions() {
+    Set<String> members = stringRedisTemplate.opsForZSet().range(GEO_ALL, 0, -1);
+    if (members == null || members.isEmpty()) {
+      return List.of();
+    }
+    List<String> ids = new ArrayList<>(members);
+    List<Point> positions = new ArrayList<>(ids.size());
+    for (int from = 0; from < ids.size(); from += BATCH) {
+      List<Point> batch = stringRedisTemplate.opsForGeo()
+          .position(GEO_ALL, ids.subList(from, Math.min(from + BATCH, ids.size())).toArray(new String[0]));
+      if (batch != null) {
+        batch.stream().filter(Objects::nonNull).forEach(positions::add);
+      }
+    }
+    return positions;
+  }
+
+  /**
+   * Keep online drivers that have not pinged from expiring: extends the state
+   * TTL and last-seen time of those whose state still exists. Never recreates
+   * state, so a driver removed by another instance stays removed.
+   */
+  public int touchAll(Collection<Long> driverIds) {
+    int touched = 0;
+    List<Long> ids = new ArrayList<>(driverIds);
+    for (int from = 0; from < ids.size(); from += BATCH) {
+      List<Long> batch = ids.subList(from, Math.min(from + BATCH, ids.size()));
+      List<String> keys = new ArrayList<>(batch.size() + 1);
+      List<String> args = new ArrayList<>(batch.size() + 2);
+      keys.add(SEEN);
+      args.add(Long.toString(ttlMillis()));
+      args.add(Long.toString(System.currentTimeMillis()));
+      for (Long id : batch) {
+        keys.add(stateKey(id));
+        args.add(String.valueOf(id));
+      }
+      Long result = stringRedisTemplate.execute(TOUCH, keys, args.toArray());
+      touched += result != null ? result.intValue() : 0;
+    }
+    return touched;
+  }
+
+  @Override
+  public void remove(long driverId) {
+    String member = String.valueOf(driverId);
+    stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+      StringRedisConnection redis = (StringRedisConnection) connection;
+      redis.del(stateKey(driverId));
+      removeFromGeoSets(redis, null, member);
+      redis.zRem(SEEN, member);
+      return null;
+    });
+  }
+
+  @Override
+  public List<DriverCandidate> findNearest(double latitude, double longitude, ServiceType serviceType,
+      double radiusKm, int limit, Collection<Long> excluded) {
+    if (limit <= 0 || radiusKm <= 0) {
+      return List.of();
+    }
+    int excludedCount = excluded != null ? excluded.size() : 0;
+    List<GeoResult<GeoLocation<String>>> results = new ArrayList<>();
+    if (serviceType == null) {
+      search(GEO_ALL, latitude, longitude, radiusKm, limit + excludedCount, results);
+    } else {
+      // Drivers without a service type serve every type: merge them in by distance
+      search(geoKey(serviceType), latitude, longitude, radiusKm, limit + excludedCount, results);
+      search(GEO_UNTYPED, latitude, longitude, radiusKm, limit + excludedCount, results);
+      results.sort(Comparator.comparingDouble(result -> result.getDistance().getValue()));
+    }
+
+    List<DriverCandidate> candidates = new ArrayList<>(limit);
+    for (GeoResult<GeoLocation<String>> result : results) {
+      long id = Long.parseLong(result.getContent().getName());
+      if (excluded != null && excluded.contains(id)) {
+        continue;
+      }
+      Point point = result.getContent().getPoint();
+      candidates.add(new DriverCandidate(id, point.getY(), point.getX(), result.getDistance().getValue()));
+      if (candidates.size() >= limit) {
+        break;
+      }
+    }
+    return candidates;
+  }
+
+  private void search(String key, double latitude, double longitude, double radiusKm, int count,
+      List<GeoResult<GeoLocation<String>>> into) {
+    GeoSearchCommandArgs args = GeoSearchCommandArgs.newGeoSearchArgs()
+        .includeDistance()
+        .includeCoordinates()
+        .sortAscending()
+        .limit(count);
+    GeoResults<GeoLocation<String>> results = stringRedisTemplate.opsForGeo().search(key,
+        GeoReference.fromCoordinate(longitude, latitude),
+        new Distance(radiusKm, Metrics.KILOMETERS),
+        args);
+    if (results != null) {
+      into.addAll(results.getContent());
+    }
+  }
+
+  /**
+   * Remove drivers that have not been seen within the TTL from every GEO set.
+   */
+  @Scheduled(fixedDelayString = "${app.dispatch.redis.sweep-interval-ms:15000}")
+  public void evictStale() {
+    if (!isAvailable()) {
+      return;
+    }
+    try {
+      long cutoff = System.currentTimeMillis() - ttlMillis();
+      Set<String> stale = stringRedisTemplate.opsForZSet().rangeByScore(SEEN, 0, cutoff);
+      if (stale == null || stale.isEmpty()) {
+        return;
+      }
+      String[] members = stale.toArray(new String[0]);
+      stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+        StringRedisConnection redis = (StringRedisConnection) connection;
+        removeFromGeoSets(redis, null, members);
+        redis.zRem(SEEN, members);
+        return null;
+      });
+      log.debug("Evicted {} stale drivers from Redis GEO sets", members.length);
+    } catch (RuntimeException e) {
+      markUnavailable(e);
+    }
+  }
+
+  private void writeDriver(StringRedisConnection redis, long driverId, ServiceType serviceType, double latitude,
+      double longitude, boolean busy, long now) {
+    String member = String.valueOf(driverId);
+    String stateKey = stateKey(driverId);
+    redis.hMSet(stateKey, Map.of(
+        "lat", Double.toString(latitude),
+        "lng", Double.toString(longitude),
+        "type", serviceType != null ? serviceType.name() : "",
+        "busy", busy ? "1" : "0"));
+    redis.pExpire(stateKey, ttlMillis());
+    redis.zAdd(SEEN, now, member);
+    if (busy) {
+      removeFromGeoSets(redis, null, member);
+    } else {
+      // Drop from partitions the driver no longer belongs to, then (re)position
+      removeFromGeoSets(redis, serviceType, member);
+      Point point = new Point(longitude, latitude);
+      redis.geoAdd(GEO_ALL, point, member);
+      redis.geoAdd(serviceType != null ? geoKey(serviceType) : GEO_UNTYPED, point, member);
+    }
+  }
+
+  // Removes members from geo:untyped, geo:all (unless keepType is set) and every per-type set except keepType
+  private void removeFromGeoSets(StringRedisConnection redis, ServiceType keepType, String... members) {
+    if (keepType == null) {
+      redis.zRem(GEO_ALL, members);
+    }
+    redis.zRem(GEO_UNTYPED, members);
+    for (ServiceType type : ServiceType.values()) {
+      if (type != keepType) {
+        redis.zRem(geoKey(type), members);
+      }
+    }
+  }
+
+  private long ttlMillis() {
+    return ttlSeconds * 1000L;
+  }
+
+  private static String geoKey(ServiceType serviceType) {
+    return GEO_PREFIX + serviceType.name();
+  }
+
+  private static String stateKey(long driverId) {
+    return PREFIX + "state:" + driverId;
+  }
+}
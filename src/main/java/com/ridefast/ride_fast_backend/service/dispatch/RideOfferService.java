@@ -0,0 +1,331 @@
+package com.ridefast.ride_fast_backend.service.dispatch;
+
+import com.ridefast.ride_fast_backend.dto.RideDto;
+import com.ridefast.ride_fast_backend.enums.RideStatus;
+import com.ridefast.ride_fast_backend.model.Ride;
+import com.ridefast.ride_fast_backend.repository.RideRepository;
+import com.ridefast.ride_fast_backend.service.RealtimeService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Targeted ride offers.
+ *
+ * Instead of pushing every new ride to the whole {@code drivers:available}
+ * room, the nearest candidates are ranked once and split into rings of
+ * {@code app.dispatch.offer.ring-sizes} (the assigned driver first). Each ring
+ * is offered through the drivers' own {@code driver:{id}} rooms and given
+ * {@code app.dispatch.offer.ring-timeout-ms} to accept; the next ring is only
+ * offered when nobody in the current one accepted, or all of them declined.
+ *
+ * The offer round runs in memory on the instance that created the ride.
+ * With {@code app.dispatch.offer.shared} the offered and declined drivers
+ * are mirrored to Redis and declines / closes made elsewhere are relayed to
+ * that instance (see {@link SharedRideOffers}), so accepts, declines and
+ * cancels work through any instance.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RideOfferService {
+
+  private final DriverLocationStore driverLocationStore;
+  private final RideRepository rideRepository;
+  private final RealtimeService realtimeService;
+  private final MeterRegistry meterRegistry;
+  private final SharedRideOffers sharedOffers;
+
+  @Value("${app.dispatch.offer.ring-sizes:1,3,6}")
+  private int[] ringSizes;
+
+  @Value("${app.dispatch.offer.ring-timeout-ms:15000}")
+  private long ringTimeoutMs;
+
+  @Value("${app.dispatch.offer.broadcast-fallback:false}")
+  private boolean broadcastFallback;
+
+  @Value("${app.dispatch.search-radius-km:10}")
+  private double searchRadiusKm;
+
+  private final Map<Long, OfferRound> rounds = new ConcurrentHashMap<>();
+
+  private ScheduledExecutorService scheduler;
+
+  private static final class OfferRound {
+    private final Ride ride;
+    private final RideDto rideDto;
+    private final List<List<Long>> rings;
+    private final Set<Long> offered = new LinkedHashSet<>();
+    private final Set<Long> declined = new HashSet<>();
+    private int ring = -1;
+    private ScheduledFuture<?> timeout;
+
+    private OfferRound(Ride ride, RideDto rideDto, List<List<Long>> rings) {
+      this.ride = ride;
+      this.rideDto = rideDto;
+      this.rings = rings;
+    }
+
+    private void cancelTimeout() {
+      if (timeout != null) {
+        timeout.cancel(false);
+      }
+    }
+  }
+
+  @PostConstruct
+  void start() {
+    sharedOffers.setRemoteEvents(new SharedRideOffers.RemoteEvents() {
+      @Override
+      public void declined(Long rideId, Long driverId, Long reassignedDriverId) {
+        OfferRound round = rounds.get(rideId);
+        if (round != null) {
+          decline(round, driverId, reassignedDriverId);
+        }
+      }
+
+      @Override
+      public void closed(Long rideId, Long acceptedDriverId) {
+        OfferRound round = rounds.remove(rideId);
+        if (round != null) {
+          close(round, acceptedDriverId);
+        }
+      }
+    });
+    scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, "ride-offers");
+      t.setDaemon(true);
+      return t;
+    });
+  }
+
+  @PreDestroy
+  void stop() {
+    scheduler.shutdownNow();
+  }
+
+  /**
+   * Start offering a freshly created ride, beginning with its assigned driver.
+   */
+  public void open(Ride ride, RideDto rideDto) {
+    if (ride == null || ride.getId() == null) {
+      return;
+    }
+    List<Long> ranked = new ArrayList<>();
+    if (ride.getDriver() != null && ride.getDriver().getId() != null) {
+      ranked.add(ride.getDriver().getId());
+    }
+    if (ride.getPickupLatitude() != null && ride.getPickupLongitude() != null) {
+      try {
+        List<DriverCandidate> candidates = driverLocationStore.findNearest(ride.getPickupLatitude(),
+            ride.getPickupLongitude(), ride.getServiceType(), searchRadiusKm, Arrays.stream(ringSizes).sum(),
+            ride.getDeclinedDrivers());
+        for (DriverCandidate candidate : candidates) {
+          if (!ranked.contains(candidate.driverId())) {
+            ranked.add(candidate.driverId());
+          }
+        }
+      } catch (RuntimeException e) {
+        log.warn("Candidate lookup failed for ride {} offers: {}", ride.getId(), e.getMessage());
+      }
+    }
+
+    OfferRound round = new OfferRound(ride, rideDto, toRings(ranked));
+    if (ride.getDeclinedDrivers() != null) {
+      round.declined.addAll(ride.getDeclinedDrivers());
+    }
+    OfferRound previous = rounds.put(ride.getId(), round);
+    if (previous != null) {
+      synchronized (previous) {
+        previous.cancelTimeout();
+      }
+    }
+    synchronized (round) {
+      advance(round);
+    }
+  }
+
+  /**
+   * Record a decline. The new assigned driver (if any) is offered the ride
+   * right away, and the next ring is offered early when every driver offered
+   * so far has declined.
+   */
+  public void onDeclined(Long rideId, Long driverId, Long reassignedDriverId) {
+    sharedOffers.declined(rideId, driverId, sharedTtlMillis());
+    OfferRound round = rounds.get(rideId);
+    if (round == null) {
+      sharedOffers.publishDeclined(rideId, driverId, reassignedDriverId);
+      return;
+    }
+    decline(round, driverId, reassignedDriverId);
+  }
+
+  private void decline(OfferRound round, Long driverId, Long reassignedDriverId) {
+    synchronized (round) {
+      round.declined.add(driverId);
+      if (reassignedDriverId != null && !round.declined.contains(reassignedDriverId)
+          && round.offered.add(reassignedDriverId)) {
+        sharedOffers.offered(round.ride.getId(), List.of(reassignedDriverId), sharedTtlMillis());
+        realtimeService.sendRideOffer(round.ride, round.rideDto, List.of(reassignedDriverId),
+            Math.max(round.ring, 0) + 1, System.currentTimeMillis() + ringTimeoutMs);
+        meterRegistry.counter("dispatch.offer.sent").increment();
+      }
+      if (round.declined.containsAll(round.offered)) {
+        round.cancelTimeout();
+        advance(round);
+      }
+    }
+  }
+
+  /**
+   * Stop offering a ride (accepted or cancelled) and withdraw the offers still
+   * open on other drivers' screens.
+   *
+   * @param acceptedDriverId the driver that got the ride, or null when it was cancelled
+   */
+  public void close(Long rideId, Long acceptedDriverId) {
+    sharedOffers.clear(rideId);
+    OfferRound round = rounds.remove(rideId);
+    if (round == null) {
+      sharedOffers.publishClosed(rideId, acceptedDriverId);
+      return;
+    }
+    close(round, acceptedDriverId);
+  }
+
+  private void close(OfferRound round, Long acceptedDriverId) {
+    Long rideId = round.ride.getId();
+    synchronized (round) {
+      round.cancelTimeout();
+      Set<Long> withdrawn = new LinkedHashSet<>(round.offered);
+      withdrawn.removeAll(round.declined);
+      if (acceptedDriverId != null) {
+        withdrawn.remove(acceptedDriverId);
+      }
+      realtimeService.withdrawRideOffer(rideId, withdrawn);
+      meterRegistry.counter("dispatch.offer.result", "outcome", acceptedDriverId != null ? "accepted" : "cancelled")
+          .increment();
+      if (acceptedDriverId != null) {
+        meterRegistry.summary("dispatch.offer.accepted.ring").record(round.ring + 1);
+      }
+    }
+  }
+
+  /**
+   * Whether the ride is currently on offer to the given driver.
+   */
+  public boolean isOffered(Long rideId, Long driverId) {
+    OfferRound round = rounds.get(rideId);
+    if (round == null) {
+      // Offered by another instance
+      return sharedOffers.isOffered(rideId, driverId);
+    }
+    synchronized (round) {
+      return round.offered.contains(driverId) && !round.declined.contains(driverId);
+    }
+  }
+
+  public int openCount() {
+    return rounds.size();
+  }
+
+  private void onTimeout(Long rideId, int ring) {
+    OfferRound round = rounds.get(rideId);
+    if (round == null) {
+      return;
+    }
+    try {
+      synchronized (round) {
+        if (round.ring != ring) {
+          return;
+        }
+        RideStatus status = rideRepository.findById(rideId).map(Ride::getStatus).orElse(null);
+        if (status != RideStatus.REQUESTED) {
+          rounds.remove(rideId, round);
+          sharedOffers.clear(rideId);
+          return;
+        }
+        advance(round);
+      }
+    } catch (Exception e) {
+      log.error("Ride offer escalation failed for ride {}: {}", rideId, e.getMessage(), e);
+    }
+  }
+
+  // Caller holds the round's lock
+  private void advance(OfferRound round) {
+    while (++round.ring < round.rings.size()) {
+      List<Long> targets = new ArrayList<>(round.rings.get(round.ring));
+      targets.removeAll(round.declined);
+      targets.removeAll(round.offered);
+      if (targets.isEmpty()) {
+        continue;
+      }
+      round.offered.addAll(targets);
+      sharedOffers.offered(round.ride.getId(), targets, sharedTtlMillis());
+      realtimeService.sendRideOffer(round.ride, round.rideDto, targets, round.ring + 1,
+          System.currentTimeMillis() + ringTimeoutMs);
+      meterRegistry.counter("dispatch.offer.sent").increment(targets.size());
+
+      int ring = round.ring;
+      Long rideId = round.ride.getId();
+      round.timeout = scheduler.schedule(() -> onTimeout(rideId, ring), ringTimeoutMs, TimeUnit.MILLISECONDS);
+      return;
+    }
+    expire(round);
+  }
+
+  private void expire(OfferRound round) {
+    rounds.remove(round.ride.getId(), round);
+    sharedOffers.clear(round.ride.getId());
+    meterRegistry.counter("dispatch.offer.result", "outcome", "expired").increment();
+    if (broadcastFallback) {
+      log.info("No targeted driver accepted ride {}, broadcasting to all available drivers", round.ride.getId());
+      realtimeService.broadcastNewRideRequest(round.ride, round.rideDto);
+    } else {
+      log.info("No driver accepted ride {} after {} offers", round.ride.getId(), round.offered.size());
+      realtimeService.broadcastNoDriverFound(round.ride);
+    }
+  }
+
+  // Shared offer keys outlive every ring of the round
+  private long sharedTtlMillis() {
+    return ringTimeoutMs * (ringSizes.length + 2);
+  }
+
+  private List<List<Long>> toRings(List<Long> ranked) {
+    List<List<Long>> rings = new ArrayList<>();
+    int from = 0;
+    for (int size : ringSizes) {
+      if (from >= ranked.size()) {
+        break;
+      }
+      int to = Math.min(ranked.size(), from + size);
+      rings.add(List.copyOf(ranked.subList(from, to)));
+      from = to;
+    }
+    // The assigned driver is always offered, even when the ring sizes add up to less
+    if (rings.isEmpty() && !ranked.isEmpty()) {
+      rings.add(List.of(ranked.get(0)));
+    }
+    return rings;
+  }
+}
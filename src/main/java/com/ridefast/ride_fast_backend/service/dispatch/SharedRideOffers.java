@@ -0,0 +1,210 @@
+package com.ridefast.ride_fast_backend.service.dispatch;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Ride offer state shared by all instances through Redis, so a ride offered
+ * by one instance can be accepted, declined or cancelled through any other
+ * ({@code app.dispatch.offer.shared}).
+ *
+ * <ul>
+ *   <li>{@code dispatch:offer:<rideId>:offered} / {@code :declined} - sets of driver ids, expiring with the offer</li>
+ *   <li>{@code dispatch:offers} channel - declines and closes made on an instance that does not run the
+ *   ride's offer round, applied by the one that does</li>
+ * </ul>
+ * Offer rounds (ring escalation and timers) stay on the instance that created
+ * the ride. Redis failures are logged and the caller falls back to its local state.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SharedRideOffers implements MessageListener {
+
+  private static final String KEY_PREFIX = "dispatch:offer:";
+  private static final String CHANNEL = "dispatch:offers";
+
+  private final StringRedisTemplate stringRedisTemplate;
+  private final RedisConnectionFactory connectionFactory;
+
+  @Value("${app.dispatch.offer.shared:false}")
+  private boolean enabled;
+
+  private volatile RemoteEvents remoteEvents;
+  private RedisMessageListenerContainer container;
+  private ExecutorService deliveryExecutor;
+
+  /**
+   * Applies declines and closes relayed from other instances to a local offer round.
+   */
+  public interface RemoteEvents {
+    void declined(Long rideId, Long driverId, Long reassignedDriverId);
+
+    void closed(Long rideId, Long acceptedDriverId);
+  }
+
+  @PostConstruct
+  void start() {
+    if (!enabled) {
+      return;
+    }
+    deliveryExecutor = Executors.newSingleThreadExecutor(r -> {
+      Thread t = new Thread(r, "ride-offers-in");
+      t.setDaemon(true);
+      return t;
+    });
+    container = new RedisMessageListenerContainer();
+    container.setConnectionFactory(connectionFactory);
+    container.setTaskExecutor(deliveryExecutor);
+    container.addMessageListener(this, new ChannelTopic(CHANNEL));
+    container.afterPropertiesSet();
+    container.start();
+  }
+
+  @PreDestroy
+  void stop() {
+    if (!enabled) {
+      return;
+    }
+    try {
+      container.destroy();
+    } catch (Exception e) {
+      log.debug("Error stopping ride offer listener: {}", e.getMessage());
+    }
+    deliveryExecutor.shutdownNow();
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setRemoteEvents(RemoteEvents remoteEvents) {
+    this.remoteEvents = remoteEvents;
+  }
+
+  /**
+   * Record drivers the ride was offered to; the keys live for {@code ttlMillis}.
+   */
+  public void offered(Long rideId, Collection<Long> driverIds, long ttlMillis) {
+    if (!enabled || driverIds.isEmpty()) {
+      return;
+    }
+    try {
+      String key = key(rideId, "offered");
+      stringRedisTemplate.opsForSet().add(key, driverIds.stream().map(String::valueOf).toArray(String[]::new));
+      stringRedisTemplate.expire(key, Duration.ofMillis(ttlMillis));
+      stringRedisTemplate.expire(key(rideId, "declined"), Duration.ofMillis(ttlMillis));
+    } catch (RuntimeException e) {
+      log.warn("Could not share offers of ride {}: {}", rideId, e.getMessage());
+    }
+  }
+
+  public void declined(Long rideId, Long driverId, long ttlMillis) {
+    if (!enabled) {
+      return;
+    }
+    try {
+      String key = key(rideId, "declined");
+      stringRedisTemplate.opsForSet().add(key, String.valueOf(driverId));
+      stringRedisTemplate.expire(key, Duration.ofMillis(ttlMillis));
+    } catch (RuntimeException e) {
+      log.warn("Could not share decline of ride {}: {}", rideId, e.getMessage());
+    }
+  }
+
+  /**
+   * Whether any instance has the ride on offer to the driver.
+   */
+  public boolean isOffered(Long rideId, Long driverId) {
+    if (!enabled) {
+      return false;
+    }
+    try {
+      String member = String.valueOf(driverId);
+      return Boolean.TRUE.equals(stringRedisTemplate.opsForSet().isMember(key(rideId, "offered"), member))
+          && !Boolean.TRUE.equals(stringRedisTemplate.opsForSet().isMember(key(rideId, "declined"), member));
+    } catch (RuntimeException e) {
+      log.warn("Could not read shared offers of ride {}: {}", rideId, e.getMessage());
+      return false;
+    }
+  }
+
+  public void clear(Long rideId) {
+    if (!enabled) {
+      return;
+    }
+    try {
+      stringRedisTemplate.delete(List.of(key(rideId, "offered"), key(rideId, "declined")));
+    } catch (RuntimeException e) {
+      log.warn("Could not clear shared offers of ride {}: {}", rideId, e.getMessage());
+    }
+  }
+
+  /**
+   * Relay a decline to the instance running the ride's offer round.
+   */
+  public void publishDeclined(Long rideId, Long driverId, Long reassignedDriverId) {
+    publish("declined|" + rideId + "|" + driverId + "|" + (reassignedDriverId == null ? "" : reassignedDriverId));
+  }
+
+  /**
+   * Relay an accept or cancel to the instance running the ride's offer round.
+   */
+  public void publishClosed(Long rideId, Long acceptedDriverId) {
+    publish("closed|" + rideId + "|" + (acceptedDriverId == null ? "" : acceptedDriverId));
+  }
+
+  @Override
+  public void onMessage(Message message, byte[] pattern) {
+    RemoteEvents events = remoteEvents;
+    if (events == null) {
+      return;
+    }
+    String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", -1);
+    try {
+      if (parts.length == 4 && "declined".equals(parts[0])) {
+        events.declined(Long.valueOf(parts[1]), Long.valueOf(parts[2]), optionalId(parts[3]));
+      } else if (parts.length == 3 && "closed".equals(parts[0])) {
+        events.closed(Long.valueOf(parts[1]), optionalId(parts[2]));
+      }
+    } catch (RuntimeException e) {
+      log.error("Could not apply relayed ride offer event {}: {}", String.join("|", parts), e.getMessage(), e);
+    }
+  }
+
+  private void publish(String body) {
+    if (!enabled) {
+      return;
+    }
+    try {
+      stringRedisTemplate.convertAndSend(CHANNEL, body);
+    } catch (RuntimeException e) {
+      log.warn("Could not relay ride offer event {}: {}", body, e.getMessage());
+    }
+  }
+
+  private static Long optionalId(String value) {
+    return value.isEmpty() ? null : Long.valueOf(value);
+  }
+
+  private static String key(Long rideId, String set) {
+    return KEY_PREFIX + rideId + ":" + set;
+  }
+}
@@ -23,6 +23,121 @@ public class CalculatorServiceImpl implements CalculatorService {
     return AppConstants.EARTH_RADIUS * c;
   }
 
+  @Override
+  public double[] calculateDistances(double latitude, double longitude, double[] latitudes, double[] longitudes) {
+    double[] distances = new double[latitudes.length];
+    // Query point terms are computed once for the whole batch
+    double cosLatitude = Math.cos(Math.toRadians(latitude));
+    for (int i = 0; i < distances.length; i++) {
+      double sinHalfDLat = Math.sin(Math.toRadians(latitudes[i] - latitude) / 2);
+      double sinHalfDLng = Math.sin(Math.toRadians(longitudes[i] - longitude) / 2);
+      double a = sinHalfDLat * sinHalfDLat
+          + cosLatitude * Math.cos(Math.toRadians(latitudes[i])) * sinHalfDLng * sinHalfDLng;
+      distances[i] = AppConstants.EARTH_RADIUS * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+    return distances;
+  }
+
+  @Override
+  public double[] approximateDistances(double latitude, double longitude, double[] latitudes, double[] longitudes) {
+    double[] distances = new double[latitudes.length];
+    Equirectangular projection = new Equirectangular(latitude, longitude);
+    for (int i = 0; i < distances.length; i++) {
+      distances[i] = AppConstants.EARTH_RADIUS * Math.sqrt(projection.squaredAngle(latitudes[i], longitudes[i]));
+    }
+    return distances;
+  }
+
+  @Override
+  public int[] nearestIndices(double latitude, double longitude, double[] latitudes, double[] longitudes, int k) {
+    if (k <= 0 || latitudes.length == 0) {
+      return new int[0];
+    }
+    Equirectangular projection = new Equirectangular(latitude, longitude);
+    // Bounded max-heap on squared distance: the root is the farthest of the best k so far
+    int[] heapIndex = new int[Math.min(k, latitudes.length)];
+    double[] heapKey = new double[heapIndex.length];
+    int size = 0;
+    for (int i = 0; i < latitudes.length; i++) {
+      double key = projection.squaredAngle(latitudes[i], longitudes[i]);
+      if (Double.isNaN(key)) {
+        continue;
+      }
+      if (size < heapIndex.length) {
+        // Sift up
+        int child = size++;
+        while (child > 0 && heapKey[(child - 1) / 2] < key) {
+          int parent = (child - 1) / 2;
+          heapKey[child] = heapKey[parent];
+          heapIndex[child] = heapIndex[parent];
+          child = parent;
+        }
+        heapKey[child] = key;
+        heapIndex[child] = i;
+      } else if (key < heapKey[0]) {
+        siftDown(heapKey, heapIndex, size, key, i);
+      }
+    }
+    // Pop the farthest into the back until the heap is empty
+    int[] nearest = new int[size];
+    for (int end = size - 1; end >= 0; end--) {
+      nearest[end] = heapIndex[0];
+      siftDown(heapKey, heapIndex, end, heapKey[end], heapIndex[end]);
+    }
+    return nearest;
+  }
+
+  // Place (key, index) at the root of a max-heap of the given size and restore order
+  private static void siftDown(double[] heapKey, int[] heapIndex, int size, double key, int index) {
+    int parent = 0;
+    while (true) {
+      int child = 2 * parent + 1;
+      if (child >= size) {
+        break;
+      }
+      if (child + 1 < size && heapKey[child + 1] > heapKey[child]) {
+        child++;
+      }
+      if (heapKey[child] <= key) {
+        break;
+      }
+      heapKey[parent] = heapKey[child];
+      heapIndex[parent] = heapIndex[child];
+      parent = child;
+    }
+    if (size > 0) {
+      heapKey[parent] = key;
+      heapIndex[parent] = index;
+    }
+  }
+
+  /**
+   * Flat projection around a query point. The longitude scale uses the
+   * cosine of the mean latitude, expanded to first order around the query
+   * latitude so no trig is needed per point.
+   */
+  private static final class Equirectangular {
+    private final double latitude;
+    private final double longitude;
+    private final double cosLatitude;
+    private final double halfSinLatitude;
+
+    Equirectangular(double latitude, double longitude) {
+      this.latitude = latitude;
+      this.longitude = longitude;
+      double radians = Math.toRadians(latitude);
+      this.cosLatitude = Math.cos(radians);
+      this.halfSinLatitude = Math.sin(radians) / 2;
+    }
+
+    // Squared central angle (radians^2) to the point
+    double squaredAngle(double pointLatitude, double pointLongitude) {
+      double dLat = Math.toRadians(pointLatitude - latitude);
+      double dLng = Math.toRadians(pointLongitude - longitude) * (cosLatitude - halfSinLatitude * dLat);
+      return dLat * dLat + dLng * dLng;
+    }
+  }
+
   @Override
   public Long calculateDuration(LocalDateTime startTime, LocalDateTime endTime) {
     Duration duration = Duration.between(startTime, endTime);
@@ -35,4 +150,9 @@ public class CalculatorServiceImpl implements CalculatorService {
     double totalFair = fair * distance;
     return totalFair;
   }
+
+  @Override
+  public double calculateFair(double distance, double surgeMultiplier) {
+    return calculateFair(distance) * Math.max(1.0, surgeMultiplier);
+  }
 }
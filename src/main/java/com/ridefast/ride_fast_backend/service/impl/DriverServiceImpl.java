@@ -5,6 +5,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -13,6 +14,7 @@ import com.ridefast.ride_fast_backend.dto.UpdateBankDetailsRequest;
 import com.ridefast.ride_fast_backend.dto.UpdateDriverProfileRequest;
 import com.ridefast.ride_fast_backend.exception.ResourceNotFoundException;
 import com.ridefast.ride_fast_backend.enums.RideStatus;
+import com.ridefast.ride_fast_backend.enums.ServiceType;
 import com.ridefast.ride_fast_backend.enums.UserRole;
 import com.ridefast.ride_fast_backend.enums.VerificationStatus;
 import com.ridefast.ride_fast_backend.model.Driver;
@@ -28,11 +30,18 @@ import com.ridefast.ride_fast_backend.service.CalculatorService;
 import com.ridefast.ride_fast_backend.service.DriverService;
 import com.ridefast.ride_fast_backend.service.ShortCodeService;
 import com.ridefast.ride_fast_backend.service.RealtimeService;
+import com.ridefast.ride_fast_backend.service.dispatch.DriverCandidate;
+import com.ridefast.ride_fast_backend.service.dispatch.DriverLocationIngestService;
+import com.ridefast.ride_fast_backend.service.dispatch.DriverLocationStore;
 import com.ridefast.ride_fast_backend.util.JwtTokenHelper;
 import com.ridefast.ride_fast_backend.model.DriverKyc;
 import com.ridefast.ride_fast_backend.repository.DriverKycRepository;
 import com.ridefast.ride_fast_backend.enums.KycStatus;
 import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -55,6 +64,17 @@ public class DriverServiceImpl implements DriverService {
   private final PasswordEncoder passwordEncoder;
   private final ModelMapper modelMapper;
   private final ShortCodeService shortCodeService;
+  private final DriverLocationStore driverLocationStore;
+  private final DriverLocationIngestService driverLocationIngestService;
+
+  @Value("${app.dispatch.search-radius-km:10}")
+  private double searchRadiusKm;
+
+  @Value("${app.dispatch.candidate-limit:20}")
+  private int candidateLimit;
+
+  // email -> driver id for getRequestedDriverId; ids never change, so entries never go stale
+  private final Map<String, Long> driverIdsByEmail = new ConcurrentHashMap<>();
 
   @Override
   public Driver registerDriver(DriverSignUpRequest request) {
@@ -124,27 +144,30 @@ public class DriverServiceImpl implements DriverService {
 
   @Override
   public List<Driver> getAvailableDrivers(double pickupLatitude, double pickupLongitude, Ride ride) {
-    List<Driver> allDrivers = driverRepository.findAll();
+    // Candidate generation is answered by the driver location store (Redis GEO
+    // or the in-memory index); only the few nearest drivers are loaded from the database.
+    List<DriverCandidate> candidates = driverLocationStore.findNearest(pickupLatitude, pickupLongitude,
+        ride.getServiceType(), searchRadiusKm, candidateLimit, ride.getDeclinedDrivers());
+    if (candidates.isEmpty()) {
+      return new ArrayList<>();
+    }
+
+    List<Long> ids = candidates.stream().map(DriverCandidate::driverId).toList();
+    Map<Long, Driver> byId = driverRepository.findAllById(ids).stream()
+        .collect(Collectors.toMap(Driver::getId, Function.identity()));
+
     List<Driver> availableDrivers = new ArrayList<>();
-    for (Driver driver : allDrivers) {
-      // Check if driver is online (primary check on Driver model)
-      if (driver.getIsOnline() == null || !driver.getIsOnline()) {
-        continue; // Skip offline drivers
-      }
-      
-      // Check if driver has active ride
-      if (driver.getCurrentRide() != null && driver.getCurrentRide().getStatus() != RideStatus.COMPLETED)
-        continue;
-      
-      // Check if driver declined this ride
-      if (ride.getDeclinedDrivers().contains(driver.getId()))
+    for (Long id : ids) {
+      Driver driver = byId.get(id);
+      // Index entry is stale (driver deleted, went offline or got a ride elsewhere)
+      if (driver == null || !isDispatchable(driver)) {
+        if (driver == null) {
+          driverLocationStore.remove(id);
+        } else {
+          syncDispatchIndex(driver);
+        }
         continue;
-      
-      // double driverLatitude = driver.getLatitude();
-      // double driverLongitude = driver.getLongitude();
-      // double distance = calculatorService.calculateDistance(driverLatitude,
-      // driverLongitude, pickupLatitude,
-      // pickupLongitude);
+      }
       availableDrivers.add(driver);
     }
     return availableDrivers;
@@ -152,20 +175,15 @@ public class DriverServiceImpl implements DriverService {
 
   @Override
   public Driver getNearestDriver(List<Driver> availableDrivers, double pickupLatitude, double pickupLongitude) {
-    double min = Double.MAX_VALUE;
-    Driver nearestDriver = null;
-    for (Driver driver : availableDrivers) {
-      double driverLatitude = driver.getLatitude();
-      double driverLongitude = driver.getLongitude();
-      double distance = calculatorService.calculateDistance(driverLatitude,
-          driverLongitude, pickupLatitude,
-          pickupLongitude);
-      if (min > distance) {
-        min = distance;
-        nearestDriver = driver;
-      }
+    double[] latitudes = new double[availableDrivers.size()];
+    double[] longitudes = new double[availableDrivers.size()];
+    for (int i = 0; i < latitudes.length; i++) {
+      Driver driver = availableDrivers.get(i);
+      latitudes[i] = driver.getLatitude() != null ? driver.getLatitude() : Double.NaN;
+      longitudes[i] = driver.getLongitude() != null ? driver.getLongitude() : Double.NaN;
     }
-    return nearestDriver;
+    int[] nearest = calculatorService.nearestIndices(pickupLatitude, pickupLongitude, latitudes, longitudes, 1);
+    return nearest.length > 0 ? availableDrivers.get(nearest[0]) : null;
   }
 
   @Override
@@ -176,6 +194,21 @@ public class DriverServiceImpl implements DriverService {
     return driver;
   }
 
+  @Override
+  public Long getRequestedDriverId(String jwtToken) throws ResourceNotFoundException {
+    String email = tokenHelper.getUsernameFromToken(jwtToken);
+    Long driverId = driverIdsByEmail.get(email);
+    if (driverId == null) {
+      driverId = driverRepository.findIdByEmail(email)
+          .orElseThrow(() -> new ResourceNotFoundException("Driver", "username", email));
+      if (driverIdsByEmail.size() >= 100_000) {
+        driverIdsByEmail.clear();
+      }
+      driverIdsByEmail.put(email, driverId);
+    }
+    return driverId;
+  }
+
   @Override
   public List<Ride> getDriverCurrentRide(Long driverId) throws ResourceNotFoundException {
     // Driver driver = driverRepository.findById(driverId)
@@ -273,6 +306,10 @@ public class DriverServiceImpl implements DriverService {
     // Update online status directly on Driver
     driver.setIsOnline(isOnline);
     Driver savedDriver = driverRepository.save(driver);
+    syncDispatchIndex(savedDriver);
+    if (!isOnline) {
+      driverLocationIngestService.offline(savedDriver.getId());
+    }
     
     // Broadcast driver status update
     try {
@@ -304,4 +341,29 @@ public class DriverServiceImpl implements DriverService {
     }
   }
 
+  @Override
+  public void syncDispatchIndex(Driver driver) {
+    if (driver == null || driver.getId() == null) {
+      return;
+    }
+    boolean online = Boolean.TRUE.equals(driver.getIsOnline());
+    if (!online || driver.getLatitude() == null || driver.getLongitude() == null) {
+      driverLocationStore.remove(driver.getId());
+      return;
+    }
+    ServiceType serviceType = driver.getVehicle() != null ? driver.getVehicle().getServiceType() : null;
+    driverLocationStore.upsert(driver.getId(), serviceType, driver.getLatitude(), driver.getLongitude(),
+        isOnTrip(driver));
+  }
+
+  private boolean isDispatchable(Driver driver) {
+    return Boolean.TRUE.equals(driver.getIsOnline()) && !isOnTrip(driver);
+  }
+
+  private boolean isOnTrip(Driver driver) {
+    Ride currentRide = driver.getCurrentRide();
+    return currentRide != null
+        && (currentRide.getStatus() == RideStatus.ACCEPTED || currentRide.getStatus() == RideStatus.STARTED);
+  }
+
 }
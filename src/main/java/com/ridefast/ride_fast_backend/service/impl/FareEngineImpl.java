@@ -4,22 +4,23 @@ import com.ridefast.ride_fast_backend.dto.FareEstimateRequest;
 import com.ridefast.ride_fast_backend.dto.FareEstimateResponse;
 import com.ridefast.ride_fast_backend.enums.ExtraFareStatus;
 import com.ridefast.ride_fast_backend.enums.ServiceType;
-import com.ridefast.ride_fast_backend.model.PricingProfile;
-import com.ridefast.ride_fast_backend.model.ServiceConfig;
-import com.ridefast.ride_fast_backend.model.ServiceRate;
-import com.ridefast.ride_fast_backend.model.v2.ZoneV2;
-import com.ridefast.ride_fast_backend.model.v2.VehicleCategory;
-import com.ridefast.ride_fast_backend.model.v2.TripFare;
-import com.ridefast.ride_fast_backend.repository.PricingProfileRepository;
-import com.ridefast.ride_fast_backend.repository.ServiceConfigRepository;
-import com.ridefast.ride_fast_backend.repository.ServiceRateRepository;
-import com.ridefast.ride_fast_backend.repository.v2.ZoneV2Repository;
-import com.ridefast.ride_fast_backend.repository.v2.VehicleCategoryRepository;
-import com.ridefast.ride_fast_backend.repository.v2.TripFareRepository;
 import com.ridefast.ride_fast_backend.service.FareEngine;
 import com.ridefast.ride_fast_backend.service.CalculatorService;
+import com.ridefast.ride_fast_backend.service.pricing.PricingSnapshot;
+import com.ridefast.ride_fast_backend.service.pricing.PricingSnapshotService;
 import com.ridefast.ride_fast_backend.service.promo.CouponService;
+import com.ridefast.ride_fast_backend.service.routing.RouteResult;
+import com.ridefast.ride_fast_backend.service.routing.RoutingService;
+import com.ridefast.ride_fast_backend.service.surge.SurgePricingService;
+import com.ridefast.ride_fast_backend.service.zone.ZoneIndexService;
+import com.ridefast.ride_fast_backend.service.zone.ZoneMatch;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.function.UnaryOperator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -29,129 +30,103 @@ import org.springframework.stereotype.Service;
 @RequiredArgsConstructor
 public class FareEngineImpl implements FareEngine {
 
-  private final PricingProfileRepository pricingProfileRepository;
-  private final ServiceRateRepository serviceRateRepository;
-  private final ServiceConfigRepository serviceConfigRepository;
-  private final ZoneV2Repository zoneRepository;
-  private final VehicleCategoryRepository vehicleCategoryRepository;
-  private final TripFareRepository tripFareRepository;
+  private final PricingSnapshotService pricingSnapshotService;
   private final CouponService couponService;
   private final CalculatorService calculatorService;
+  private final RoutingService routingService;
+  private final ZoneIndexService zoneIndexService;
+  private final SurgePricingService surgePricingService;
+
+  private record Trip(double distanceKm, double durationMin) {
+  }
+
+  // pickup: where surge is measured; override: zone whose trip fares apply (pickup, else drop)
+  private record Zones(String pickup, String override) {
+  }
 
   @Override
   public FareEstimateResponse estimate(FareEstimateRequest req) {
-    // Calculate distance and duration from coordinates if not provided
-    double distanceKm = req.getDistanceKm();
-    double durationMin = req.getDurationMin();
-    
-    // If distance/duration not provided but coordinates are available, calculate them
-    if ((distanceKm <= 0 || durationMin <= 0) && 
-        req.getPickupLat() != null && req.getPickupLng() != null &&
-        req.getDropLat() != null && req.getDropLng() != null) {
-      
-      // Calculate straight-line distance using Haversine formula
-      double calculatedDistance = calculatorService.calculateDistance(
-          req.getPickupLat(), 
-          req.getPickupLng(), 
-          req.getDropLat(), 
-          req.getDropLng()
-      );
-      
-      if (distanceKm <= 0) {
-        distanceKm = calculatedDistance;
-        log.debug("Calculated distance from coordinates: {} km", distanceKm);
-      }
-      
-      // Estimate duration based on average speed (assuming 30 km/h average city speed)
-      // This is a rough estimate - for accurate duration, use Google Maps Directions API
-      if (durationMin <= 0) {
-        double averageSpeedKmh = 30.0; // Average city speed
-        durationMin = Math.round((distanceKm / averageSpeedKmh) * 60);
-        log.debug("Estimated duration from distance: {} min", durationMin);
-      }
+    Trip trip = resolveTrip(req);
+    PricingSnapshot pricing = pricingSnapshotService.current();
+    if (pricing == null || !pricing.hasActiveProfile()) {
+      throw new IllegalStateException("No active pricing profile configured");
     }
-    
-    // Validate that we have distance and duration
-    if (distanceKm <= 0 || durationMin <= 0) {
-      throw new IllegalArgumentException("Distance and duration must be provided or calculable from coordinates");
+    ServiceType type = req.getServiceType() != null ? req.getServiceType() : ServiceType.MEGA;
+    return quote(pricing, type, trip, resolveZones(pricing, req), discountPolicy(req), req.getCouponCode());
+  }
+
+  @Override
+  public List<FareEstimateResponse> estimateAll(FareEstimateRequest req) {
+    // Trip, zone and coupon are resolved once and shared by every quote
+    Trip trip = resolveTrip(req);
+    PricingSnapshot pricing = pricingSnapshotService.current();
+    if (pricing == null) {
+      return List.of();
     }
-    
-    PricingProfile profile = pricingProfileRepository.findFirstByActiveTrue()
-        .orElseThrow(() -> new IllegalStateException("No active pricing profile configured"));
+    Zones zones = resolveZones(pricing, req);
+    UnaryOperator<BigDecimal> discount = discountPolicy(req);
 
-    ServiceType type = req.getServiceType() != null ? req.getServiceType() : ServiceType.MEGA;
-    Optional<ServiceRate> rateOpt = serviceRateRepository.findByPricingProfileAndServiceType(profile, type);
+    List<FareEstimateResponse> quotes = new ArrayList<>(pricing.activeServices().size());
+    for (PricingSnapshot.ServiceOption option : pricing.activeServices()) {
+      if (option.type() == null) {
+        quotes.add(quote(pricing, option, trip, zones, discount, req.getCouponCode()));
+      } else if (pricing.hasActiveProfile()) {
+        quotes.add(quote(pricing, option.type(), trip, zones, discount, req.getCouponCode()));
+      }
+    }
+    // Cheapest first
+    quotes.sort(Comparator.comparingDouble(FareEstimateResponse::getFinalTotal));
+    return quotes;
+  }
 
-    double baseFare = rateOpt.map(ServiceRate::getBaseFare).orElse(profile.getBaseFare());
-    double perKmRate = rateOpt.map(ServiceRate::getPerKmRate).orElse(profile.getPerKmRate());
-    double timeRatePerMin = rateOpt.map(ServiceRate::getTimeRatePerMin)
-        .filter(v -> v > 0)
-        .orElse(profile.getTimeRatePerMin());
+  private FareEstimateResponse quote(PricingSnapshot pricing, ServiceType type, Trip trip, Zones zones,
+      UnaryOperator<BigDecimal> discountPolicy, String couponCode) {
+    double baseFare = pricing.baseFare(type);
+    double perKmRate = pricing.perKmRate(type);
+    double timeRatePerMin = pricing.timeRatePerMin(type);
 
     // Zone overrides (admin-managed). Pickup zone takes precedence.
     ExtraFareStatus extraStatus = ExtraFareStatus.NONE;
     String extraReason = null;
 
-    ZoneV2 pickupZone = null;
-    if (req.getPickupZoneReadableId() != null) {
-      pickupZone = zoneRepository.findByNameAndIsActiveTrue(req.getPickupZoneReadableId()).orElse(null);
-      if (pickupZone != null) {
-        applyZoneOverride(profile, pickupZone);
-      }
-    }
-    ZoneV2 dropZone = null;
-    if (extraStatus == ExtraFareStatus.NONE && req.getDropZoneReadableId() != null) {
-      dropZone = zoneRepository.findByNameAndIsActiveTrue(req.getDropZoneReadableId()).orElse(null);
-    }
-
     // Apply trip_fares overrides if available (zone + category)
-    ZoneV2 zoneForOverride = pickupZone != null ? pickupZone : dropZone;
-    if (zoneForOverride != null) {
-      String categoryType = type.name();
-      Optional<VehicleCategory> catOpt = vehicleCategoryRepository.findByType(categoryType);
-      if (catOpt.isPresent()) {
-        Optional<TripFare> tfOpt = tripFareRepository.findFirstByZoneAndVehicleCategory(zoneForOverride, catOpt.get());
-        if (tfOpt.isPresent()) {
-          TripFare tf = tfOpt.get();
-          if (tf.getBaseFare() != null) baseFare = tf.getBaseFare().doubleValue();
-          if (tf.getBaseFarePerKm() != null) perKmRate = tf.getBaseFarePerKm().doubleValue();
-          if (tf.getTimeRatePerMinOverride() != null) timeRatePerMin = tf.getTimeRatePerMinOverride().doubleValue();
-        }
-      }
+    PricingSnapshot.ZoneFares zoneFares = pricing.zoneFares(zones.override());
+    if (zoneFares != null) {
+      int t = type.ordinal();
+      if (!Double.isNaN(zoneFares.baseFare()[t])) baseFare = zoneFares.baseFare()[t];
+      if (!Double.isNaN(zoneFares.perKmRate()[t])) perKmRate = zoneFares.perKmRate()[t];
+      if (!Double.isNaN(zoneFares.timeRatePerMin()[t])) timeRatePerMin = zoneFares.timeRatePerMin()[t];
     }
 
-    double distanceFare = round2(distanceKm * perKmRate);
-    double timeFare = round2(durationMin * timeRatePerMin);
+    double distanceFare = round2(trip.distanceKm() * perKmRate);
+    double timeFare = round2(trip.durationMin() * timeRatePerMin);
 
     double cancellationFee = 0.0; // estimates ignore unless you want flags
     double returnFee = 0.0; // estimates ignore unless you want flags
 
-    double total = round2(baseFare + distanceFare + timeFare + cancellationFee + returnFee);
-
-    double discount = 0.0;
-    String appliedCoupon = null;
-    if (req.getCouponCode() != null && !req.getCouponCode().isBlank() && req.getUserId() != null) {
-      try {
-        discount = couponService
-            .computeDiscount(req.getCouponCode(), req.getUserId(), java.math.BigDecimal.valueOf(total))
-            .doubleValue();
-        appliedCoupon = discount > 0 ? req.getCouponCode() : null;
-      } catch (Exception ignored) {
-        // invalid coupon -> treat as no discount
-      }
+    // Dynamic pricing from pickup zone supply/demand
+    double surge = surgePricingService.multiplier(zones.pickup());
+    if (surge > 1.0) {
+      extraStatus = ExtraFareStatus.SURGE;
+      extraReason = surgeReason(surge);
     }
+
+    double total = round2((baseFare + distanceFare + timeFare) * surge + cancellationFee + returnFee);
+
+    double discount = discount(discountPolicy, total);
+    String appliedCoupon = discount > 0 ? couponCode : null;
     double finalTotal = round2(Math.max(0.0, total - discount));
 
-    // Build vehicle info from ServiceConfig
-    FareEstimateResponse.VehicleInfo vehicleInfo = buildVehicleInfo(type);
+    // Vehicle info from ServiceConfig (or defaults), precompiled in the snapshot
+    FareEstimateResponse.VehicleInfo vehicleInfo = pricing.vehicle(type);
 
     return FareEstimateResponse.builder()
-        .currency(profile.getCurrency())
+        .currency(pricing.currency())
         .baseFare(baseFare)
-        .distanceKm(distanceKm)
+        .distanceKm(trip.distanceKm())
         .perKmRate(perKmRate)
         .distanceFare(distanceFare)
-        .durationMin(durationMin)
+        .durationMin(trip.durationMin())
         .timeRatePerMin(timeRatePerMin)
         .timeFare(timeFare)
         .cancellationFee(cancellationFee)
@@ -162,86 +137,166 @@ public class FareEngineImpl implements FareEngine {
         .appliedCoupon(appliedCoupon)
         .extraFareStatus(extraStatus)
         .extraFareReason(extraReason)
+        .surgeMultiplier(surge)
         .vehicle(vehicleInfo)
         .build();
   }
 
   /**
-   * Build vehicle info from ServiceConfig based on service type
+   * Quote for an active service that is not a {@link ServiceType}, priced from
+   * its own service config rates and minimum fare.
    */
-  private FareEstimateResponse.VehicleInfo buildVehicleInfo(ServiceType type) {
-    String serviceId = type.name();
-    Optional<ServiceConfig> configOpt = serviceConfigRepository.findByServiceId(serviceId);
+  private FareEstimateResponse quote(PricingSnapshot pricing, PricingSnapshot.ServiceOption option, Trip trip,
+      Zones zones, UnaryOperator<BigDecimal> discountPolicy, String couponCode) {
+    double baseFare = option.baseFare();
+    double perKmRate = option.perKmRate();
+    double perMinRate = option.perMinRate();
+
+    double[] override = zones.override() == null ? null : option.zoneOverrides().get(zones.override());
+    if (override != null) {
+      if (!Double.isNaN(override[0])) baseFare = override[0];
+      if (!Double.isNaN(override[1])) perKmRate = override[1];
+      if (!Double.isNaN(override[2])) perMinRate = override[2];
+    }
+
+    double distanceFare = round2(trip.distanceKm() * perKmRate);
+    double timeFare = round2(trip.durationMin() * perMinRate);
+    double surge = surgePricingService.multiplier(zones.pickup());
+    double total = round2((baseFare + distanceFare + timeFare) * surge);
+
+    // Apply minimum fare if configured
+    if (option.minimumFare() > 0 && total < option.minimumFare()) {
+      total = option.minimumFare();
+    }
+
+    double discount = discount(discountPolicy, total);
+    return FareEstimateResponse.builder()
+        .currency(pricing.currency() != null ? pricing.currency() : "INR")
+        .baseFare(baseFare)
+        .distanceKm(trip.distanceKm())
+        .perKmRate(perKmRate)
+        .distanceFare(distanceFare)
+        .durationMin(trip.durationMin())
+        .timeRatePerMin(perMinRate)
+        .timeFare(timeFare)
+        .cancellationFee(option.cancellationFee())
+        .returnFee(0.0)
+        .total(total)
+        .discount(discount)
+        .finalTotal(round2(Math.max(0.0, total - discount)))
+        .appliedCoupon(discount > 0 ? couponCode : null)
+        .extraFareStatus(surge > 1.0 ? ExtraFareStatus.SURGE : ExtraFareStatus.NONE)
+        .extraFareReason(surge > 1.0 ? surgeReason(surge) : null)
+        .surgeMultiplier(surge)
+        .vehicle(option.vehicle())
+        .build();
+  }
+
+  private Trip resolveTrip(FareEstimateRequest req) {
+    // Calculate distance and duration from coordinates if not provided
+    double distanceKm = req.getDistanceKm();
+    double durationMin = req.getDurationMin();
     
-    if (configOpt.isPresent()) {
-      ServiceConfig config = configOpt.get();
-      return FareEstimateResponse.VehicleInfo.builder()
-          .serviceId(config.getServiceId())
-          .name(config.getName())
-          .displayName(config.getDisplayName())
-          .icon(config.getIcon())
-          .iconUrl(config.getIconUrl())
-          .capacity(config.getCapacity())
-          .vehicleType(config.getVehicleType())
-          .category(config.getCategory())
-          .estimatedArrival(config.getEstimatedArrival())
-          .description(config.getDescription())
-          .build();
+    // If distance/duration not provided but coordinates are available, calculate them
+    if ((distanceKm <= 0 || durationMin <= 0) && 
+        req.getPickupLat() != null && req.getPickupLng() != null &&
+        req.getDropLat() != null && req.getDropLng() != null) {
+      
+      // Road distance and duration from the embedded routing engine when a graph is loaded
+      Optional<RouteResult> route = routingService.route(
+          req.getPickupLat(), req.getPickupLng(), req.getDropLat(), req.getDropLng(), false);
+      if (route.isPresent()) {
+        if (distanceKm <= 0) {
+          distanceKm = round2(route.get().distanceKm());
+        }
+        if (durationMin <= 0) {
+          durationMin = Math.max(1, Math.round(route.get().durationMin()));
+        }
+        log.debug("Routed distance {} km, duration {} min", distanceKm, durationMin);
+      }
+    }
+
+    // Fallback when routing is unavailable or the points could not be snapped to a road
+    if ((distanceKm <= 0 || durationMin <= 0) && 
+        req.getPickupLat() != null && req.getPickupLng() != null &&
+        req.getDropLat() != null && req.getDropLng() != null) {
+      
+      // Calculate straight-line distance using Haversine formula
+      double calculatedDistance = calculatorService.calculateDistance(
+          req.getPickupLat(), 
+          req.getPickupLng(), 
+          req.getDropLat(), 
+          req.getDropLng()
+      );
+      
+      if (distanceKm <= 0) {
+        distanceKm = calculatedDistance;
+        log.debug("Calculated distance from coordinates: {} km", distanceKm);
+      }
+      
+      // Estimate duration based on average speed (assuming 30 km/h average city speed)
+      // This is a rough estimate - routed durations above are used when a road graph is loaded
+      if (durationMin <= 0) {
+        double averageSpeedKmh = 30.0; // Average city speed
+        durationMin = Math.round((distanceKm / averageSpeedKmh) * 60);
+        log.debug("Estimated duration from distance: {} min", durationMin);
+      }
     }
     
-    // Default fallback if not configured
-    return FareEstimateResponse.VehicleInfo.builder()
-        .serviceId(serviceId)
-        .name(getDefaultName(type))
-        .displayName(getDefaultName(type))
-        .icon(getDefaultIcon(type))
-        .iconUrl(null)
-        .capacity(getDefaultCapacity(type))
-        .vehicleType(getDefaultVehicleType(type))
-        .category("standard")
-        .estimatedArrival("5-10 mins")
-        .description(null)
-        .build();
+    // Validate that we have distance and duration
+    if (distanceKm <= 0 || durationMin <= 0) {
+      throw new IllegalArgumentException("Distance and duration must be provided or calculable from coordinates");
+    }
+    return new Trip(distanceKm, durationMin);
   }
 
-  private String getDefaultName(ServiceType type) {
-    return switch (type) {
-      case BIKE -> "Bike";
-      case CAR -> "Car";
-      case SMALL_SEDAN -> "Sedan";
-      case MEGA -> "Premium";
-    };
+  private Zones resolveZones(PricingSnapshot pricing, FareEstimateRequest req) {
+    // Zones not given by the client are resolved from the coordinates
+    String pickupZoneName = req.getPickupZoneReadableId() != null ? req.getPickupZoneReadableId()
+        : zoneNameAt(req.getPickupLat(), req.getPickupLng());
+    if (pricing.zoneFares(pickupZoneName) != null) {
+      return new Zones(pickupZoneName, pickupZoneName);
+    }
+    String dropZoneName = req.getDropZoneReadableId() != null ? req.getDropZoneReadableId()
+        : zoneNameAt(req.getDropLat(), req.getDropLng());
+    return new Zones(pickupZoneName, pricing.zoneFares(dropZoneName) != null ? dropZoneName : null);
   }
 
-  private String getDefaultIcon(ServiceType type) {
-    return switch (type) {
-      case BIKE -> "🏍️";
-      case CAR -> "🚗";
-      case SMALL_SEDAN -> "🚙";
-      case MEGA -> "🚘";
-    };
+  private UnaryOperator<BigDecimal> discountPolicy(FareEstimateRequest req) {
+    if (req.getCouponCode() == null || req.getCouponCode().isBlank() || req.getUserId() == null) {
+      return null;
+    }
+    try {
+      return couponService.discountFor(req.getCouponCode(), req.getUserId());
+    } catch (Exception ignored) {
+      // invalid coupon -> treat as no discount
+      return null;
+    }
   }
 
-  private int getDefaultCapacity(ServiceType type) {
-    return switch (type) {
-      case BIKE -> 1;
-      case CAR, SMALL_SEDAN -> 4;
-      case MEGA -> 6;
-    };
+  private static double discount(UnaryOperator<BigDecimal> policy, double total) {
+    if (policy == null) {
+      return 0.0;
+    }
+    try {
+      return policy.apply(BigDecimal.valueOf(total)).doubleValue();
+    } catch (Exception ignored) {
+      return 0.0;
+    }
   }
 
-  private String getDefaultVehicleType(ServiceType type) {
-    return switch (type) {
-      case BIKE -> "two_wheeler";
-      case CAR, SMALL_SEDAN, MEGA -> "four_wheeler";
-    };
+  private static String surgeReason(double multiplier) {
+    return String.format(Locale.ROOT, "High demand in your area (%.1fx)", multiplier);
   }
 
   private static double round2(double v) {
     return Math.round(v * 100.0) / 100.0;
   }
 
-  // placeholder for future side-effects when applying zone (e.g., logs)
-  private void applyZoneOverride(PricingProfile profile, ZoneV2 zone) {
+  private String zoneNameAt(Double lat, Double lng) {
+    if (lat == null || lng == null) {
+      return null;
+    }
+    return zoneIndexService.findZone(lat, lng).map(ZoneMatch::name).orElse(null);
   }
 }
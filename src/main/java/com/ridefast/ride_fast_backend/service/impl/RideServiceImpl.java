@@ -2,14 +2,21 @@ package com.ridefast.ride_fast_backend.service.impl;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.List;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.Random;
+import java.util.Set;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.ridefast.ride_fast_backend.dto.RideRequest;
 import com.ridefast.ride_fast_backend.enums.RideStatus;
+import com.ridefast.ride_fast_backend.enums.ServiceType;
 import com.ridefast.ride_fast_backend.exception.ResourceNotFoundException;
+import com.ridefast.ride_fast_backend.exception.RideStateConflictException;
 import com.ridefast.ride_fast_backend.exception.UserException;
 import com.ridefast.ride_fast_backend.model.Driver;
 import com.ridefast.ride_fast_backend.model.Ride;
@@ -17,10 +24,13 @@ import com.ridefast.ride_fast_backend.model.MyUser;
 import com.ridefast.ride_fast_backend.repository.DriverRepository;
 import com.ridefast.ride_fast_backend.repository.RideRepository;
 import com.ridefast.ride_fast_backend.service.CalculatorService;
-import com.ridefast.ride_fast_backend.service.DriverService;
 import com.ridefast.ride_fast_backend.service.RideService;
 import com.ridefast.ride_fast_backend.service.ShortCodeService;
 import com.ridefast.ride_fast_backend.service.RealtimeService;
+import com.ridefast.ride_fast_backend.service.dispatch.DispatchService;
+import com.ridefast.ride_fast_backend.service.dispatch.DriverLocationStore;
+import com.ridefast.ride_fast_backend.service.dispatch.RideOfferService;
+import com.ridefast.ride_fast_backend.service.surge.SurgePricingService;
 import com.ridefast.ride_fast_backend.dto.RideDto;
 import org.modelmapper.ModelMapper;
 
@@ -30,13 +40,21 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class RideServiceImpl implements RideService {
 
-  private final DriverService driverService;
+  private static final Set<RideStatus> CANCELLABLE = EnumSet.copyOf(Arrays.stream(RideStatus.values())
+      .filter(status -> status.canTransitionTo(RideStatus.CANCELLED))
+      .toList());
+
   private final RideRepository rideRepository;
   private final CalculatorService calculatorService;
   private final DriverRepository driverRepository;
   private final ShortCodeService shortCodeService;
   private final RealtimeService realtimeService;
   private final ModelMapper modelMapper;
+  private final DriverLocationStore driverLocationStore;
+  private final DispatchService dispatchService;
+  private final RideOfferService rideOfferService;
+  private final SurgePricingService surgePricingService;
+  private final TransactionTemplate transactionTemplate;
 
   @Override
   public Ride requestRide(RideRequest request, MyUser user) throws UserException {
@@ -47,23 +65,29 @@ public class RideServiceImpl implements RideService {
     String pickupArea = request.getPickupArea();
     String destinationArea = request.getDestinationArea();
 
+    // Demand signal for surge pricing, counted whether or not a driver is found
+    surgePricingService.recordRequest(pickupLatitude, pickupLongitude);
+
     Ride existingRide = new Ride();
+    existingRide.setPickupLatitude(pickupLatitude);
+    existingRide.setPickupLongitude(pickupLongitude);
+    existingRide.setServiceType(request.getServiceType());
 
-    List<Driver> availableDrivers = driverService.getAvailableDrivers(pickupLatitude, pickupLongitude, existingRide);
-    Driver nearestDriver = driverService.getNearestDriver(availableDrivers, pickupLatitude, pickupLongitude);
+    Driver nearestDriver = dispatchService.selectDriver(existingRide);
 
     if (nearestDriver == null)
       throw new UserException("Driver not available");
 
     Ride ride = createRide(user, nearestDriver, pickupLatitude, pickupLongitude, destinationLatitude,
-        destinationLongitude, pickupArea, destinationArea);
+        destinationLongitude, pickupArea, destinationArea, request.getServiceType());
 
     return ride;
   }
 
   @Override
   public Ride createRide(MyUser user, Driver nearestDriver, double pickupLatitude, double pickupLongitude,
-      double destinationLatitude, double destinationLongitude, String pickupArea, String destinationArea) {
+      double destinationLatitude, double destinationLongitude, String pickupArea, String destinationArea,
+      ServiceType serviceType) {
 
     // Ensure driver is a managed entity (refresh from database if needed)
     // This prevents "detached entity passed to persist" error
@@ -80,6 +104,8 @@ public class RideServiceImpl implements RideService {
         .status(RideStatus.REQUESTED)
         .pickupArea(pickupArea)
         .destinationArea(destinationArea)
+        .serviceType(serviceType)
+        .surgeMultiplier(surgePricingService.multiplierAt(pickupLatitude, pickupLongitude))
         .build();
 
     if (ride.getShortCode() == null || ride.getShortCode().isBlank()) {
@@ -88,10 +114,10 @@ public class RideServiceImpl implements RideService {
 
     Ride savedRide = rideRepository.save(ride);
     
-    // Broadcast new ride request to all drivers
+    // Offer the ride to the nearest drivers, ring by ring
     try {
       RideDto rideDto = modelMapper.map(savedRide, RideDto.class);
-      realtimeService.broadcastNewRideRequest(savedRide, rideDto);
+      rideOfferService.open(savedRide, rideDto);
       realtimeService.broadcastRideStatusUpdate(savedRide, rideDto);
     } catch (Exception e) {
       // Log but don't fail the ride creation
@@ -102,18 +128,43 @@ public class RideServiceImpl implements RideService {
   }
 
   @Override
-  public Ride acceptRide(Long rideId) throws ResourceNotFoundException {
-    Ride ride = rideRepository.findById(rideId)
-        .orElseThrow(() -> new ResourceNotFoundException("Ride", "rideId", rideId));
-    ride.setStatus(RideStatus.ACCEPTED);
+  @Transactional
+  public Ride acceptRide(Long rideId, Long driverId) throws ResourceNotFoundException, UserException {
+    Ride ride = findRideById(rideId);
     Driver driver = ride.getDriver();
-    driver.setCurrentRide(ride);
+    Long acceptingDriverId = driverId != null ? driverId : driver != null ? driver.getId() : null;
+    if (ride.getStatus() == RideStatus.ACCEPTED && isRideDriver(ride, acceptingDriverId)) {
+      return ride; // repeated accept
+    }
+    requireTransition(ride, RideStatus.ACCEPTED);
+
+    // Any driver the ride was offered to may take it, not only the assigned one
+    if (driverId != null && (driver == null || !driverId.equals(driver.getId()))) {
+      if (!rideOfferService.isOffered(rideId, driverId)) {
+        throw new UserException("Ride was not offered to this driver");
+      }
+      driver = driverRepository.findById(driverId)
+          .orElseThrow(() -> new ResourceNotFoundException("Driver", "driverId", driverId));
+    }
+    if (driver == null) {
+      throw new UserException("No driver assigned to this ride");
+    }
     Random random = new Random();
     int otp = random.nextInt(9000) + 1000;
-    ride.setOtp(otp);
 
-    driverRepository.save(driver);
-    Ride savedRide = rideRepository.save(ride);
+    // Only one accept can move the ride out of REQUESTED; the others get a conflict
+    if (rideRepository.casAccept(rideId, driver, otp, RideStatus.REQUESTED, RideStatus.ACCEPTED) == 0) {
+      return afterLostRace(rideId, RideStatus.ACCEPTED, driver.getId());
+    }
+    driverRepository.assignCurrentRide(driver.getId(), ride);
+    Ride savedRide = findRideById(rideId);
+    driverLocationStore.setBusy(driver.getId(), true);
+    rideOfferService.close(rideId, driver.getId());
+    // The driver is busy now; a different driver matched to the ride is free for other rides
+    dispatchService.release(driver.getId());
+    if (ride.getDriver() != null && !ride.getDriver().getId().equals(driver.getId())) {
+      dispatchService.release(ride.getDriver().getId());
+    }
     
     // Broadcast ride accepted status
     try {
@@ -128,37 +179,68 @@ public class RideServiceImpl implements RideService {
 
   @Override
   public Ride declineRide(Long rideId, Long driverId) throws ResourceNotFoundException {
-    Ride ride = rideRepository.findById(rideId)
-        .orElseThrow(() -> new ResourceNotFoundException("Ride", "rideId", rideId));
+    Ride ride = findRideById(rideId);
+    if (ride.getStatus() != RideStatus.REQUESTED) {
+      return ride;
+    }
+    if (ride.getDeclinedDrivers() == null) {
+      ride.setDeclinedDrivers(new ArrayList<>());
+    }
     ride.getDeclinedDrivers().add(driverId);
-    List<Driver> availableDrivers = driverService.getAvailableDrivers(ride.getPickupLatitude(),
-        ride.getPickupLongitude(), ride);
-    Driver nearestDriver = driverService.getNearestDriver(availableDrivers, ride.getPickupLatitude(),
-        ride.getPickupLongitude());
-    
-    // Ensure driver is a managed entity (refresh from database if needed)
-    if (nearestDriver != null) {
-      Driver managedDriver = driverRepository.findById(nearestDriver.getId())
-          .orElseThrow(() -> new RuntimeException("Driver not found: " + nearestDriver.getId()));
-      ride.setDriver(managedDriver);
-    } else {
-      ride.setDriver(null);
+    // Only the assigned driver's decline picks a replacement; other ring drivers just drop out of the offer
+    boolean assigned = isRideDriver(ride, driverId);
+    // Pick the next driver before taking the row lock (batched dispatch can wait a few seconds)
+    Driver nearestDriver = assigned ? dispatchService.selectDriver(ride) : null;
+
+    // Short row lock so a concurrent accept is never overwritten by this reassignment
+    boolean[] reassigned = { false };
+    Ride savedRide = transactionTemplate.execute(status -> {
+      Ride locked = rideRepository.findByIdForUpdate(rideId).orElse(null);
+      if (locked == null || locked.getStatus() != RideStatus.REQUESTED) {
+        return locked;
+      }
+      if (locked.getDeclinedDrivers() == null) {
+        locked.setDeclinedDrivers(new ArrayList<>());
+      }
+      if (!locked.getDeclinedDrivers().contains(driverId)) {
+        locked.getDeclinedDrivers().add(driverId);
+      }
+      // Still assigned to the decliner (not reassigned by a concurrent decline meanwhile)
+      if (assigned && isRideDriver(locked, driverId)) {
+        locked.setDriver(nearestDriver != null ? driverRepository.getReferenceById(nearestDriver.getId()) : null);
+        reassigned[0] = true;
+      }
+      return rideRepository.save(locked);
+    });
+    if (savedRide == null) {
+      throw new ResourceNotFoundException("Ride", "rideId", rideId);
+    }
+    dispatchService.release(driverId);
+    if (nearestDriver != null && !reassigned[0]) {
+      dispatchService.release(nearestDriver.getId());
+    }
+    if (savedRide.getStatus() == RideStatus.REQUESTED) {
+      rideOfferService.onDeclined(rideId, driverId,
+          reassigned[0] && nearestDriver != null ? nearestDriver.getId() : null);
     }
-    
-    Ride savedRide = rideRepository.save(ride);
     return savedRide;
   }
 
   @Override
+  @Transactional
   public Ride startRide(Long rideId, int OTP) throws ResourceNotFoundException, UserException {
-    Ride ride = rideRepository.findById(rideId)
-        .orElseThrow(() -> new ResourceNotFoundException("Ride", "rideId", rideId));
-    if (OTP != ride.getOtp()) {
+    Ride ride = findRideById(rideId);
+    if (ride.getStatus() == RideStatus.STARTED) {
+      return ride; // repeated start
+    }
+    requireTransition(ride, RideStatus.STARTED);
+    if (ride.getOtp() == null || OTP != ride.getOtp()) {
       throw new UserException("Please provide a valid OTP");
     }
-    ride.setStatus(RideStatus.STARTED);
-    ride.setStartTime(LocalDateTime.now());
-    Ride savedRide = rideRepository.save(ride);
+    if (rideRepository.casStart(rideId, LocalDateTime.now(), RideStatus.ACCEPTED, RideStatus.STARTED) == 0) {
+      return afterLostRace(rideId, RideStatus.STARTED, null);
+    }
+    Ride savedRide = findRideById(rideId);
     
     // Broadcast ride started status
     try {
@@ -172,37 +254,37 @@ public class RideServiceImpl implements RideService {
   }
 
   @Override
-  public Ride completeRide(Long rideId) throws ResourceNotFoundException {
-    Ride ride = rideRepository.findById(rideId)
-        .orElseThrow(() -> new ResourceNotFoundException("Ride", "rideId", rideId));
-    ride.setStatus(RideStatus.COMPLETED);
-    ride.setEndTime(LocalDateTime.now());
+  @Transactional
+  public Ride completeRide(Long rideId) throws ResourceNotFoundException, UserException {
+    Ride ride = findRideById(rideId);
+    if (ride.getStatus() == RideStatus.COMPLETED) {
+      return ride; // repeated complete, the fare is not booked twice
+    }
+    requireTransition(ride, RideStatus.COMPLETED);
 
     double distance = calculatorService.calculateDistance(ride.getDestinationLatitude(), ride.getDestinationLongitude(),
         ride.getPickupLatitude(), ride.getPickupLongitude());
 
     LocalDateTime startTime = ride.getStartTime();
-    LocalDateTime endTime = ride.getEndTime();
-
-    Duration duration = Duration.between(startTime, endTime);
+    LocalDateTime endTime = LocalDateTime.now();
 
-    long seconds = duration.toSeconds();
+    long seconds = startTime != null ? Duration.between(startTime, endTime).toSeconds() : 0L;
 
-    double fare = calculatorService.calculateFair(distance);
+    double fare = calculatorService.calculateFair(distance,
+        ride.getSurgeMultiplier() != null ? ride.getSurgeMultiplier() : 1.0);
 
-    ride.setDistance(Math.round(distance * 100.0) / 100.0);
-    ride.setFare((double) Math.round(fare));
-    ride.setDuration(seconds);
-    ride.setEndTime(LocalDateTime.now());
+    if (rideRepository.casComplete(rideId, endTime, Math.round(distance * 100.0) / 100.0, (double) Math.round(fare),
+        seconds, RideStatus.STARTED, RideStatus.COMPLETED) == 0) {
+      return afterLostRace(rideId, RideStatus.COMPLETED, null);
+    }
 
     Driver driver = ride.getDriver();
-    driver.getRides().add(ride);
-    driver.setCurrentRide(null);
-
-    long totalRevenue = driver.getTotalRevenue() + Math.round(fare * 0.8); // means driver get 80% only
-    driver.setTotalRevenue(totalRevenue);
-    driverRepository.save(driver);
-    Ride savedRide = rideRepository.save(ride);
+    if (driver != null) {
+      driverRepository.releaseCurrentRide(driver.getId(), rideId);
+      driverRepository.addRevenue(driver.getId(), Math.round(fare * 0.8)); // means driver get 80% only
+      driverLocationStore.setBusy(driver.getId(), false);
+    }
+    Ride savedRide = findRideById(rideId);
     
     // Broadcast ride completed status
     try {
@@ -211,16 +293,32 @@ public class RideServiceImpl implements RideService {
     } catch (Exception e) {
       System.err.println("Error broadcasting ride completed: " + e.getMessage());
     }
+    shortCodeService.recycleRideCode(savedRide);
     
     return savedRide;
   }
 
   @Override
-  public Ride cancelRide(Long rideId) throws ResourceNotFoundException {
-    Ride ride = rideRepository.findById(rideId)
-        .orElseThrow(() -> new ResourceNotFoundException("Ride", "rideId", rideId));
-    ride.setStatus(RideStatus.CANCELLED);
-    Ride savedRide = rideRepository.save(ride);
+  @Transactional
+  public Ride cancelRide(Long rideId) throws ResourceNotFoundException, UserException {
+    Ride ride = findRideById(rideId);
+    if (ride.getStatus() == RideStatus.CANCELLED) {
+      return ride; // repeated cancel
+    }
+    requireTransition(ride, RideStatus.CANCELLED);
+    if (rideRepository.casCancel(rideId, CANCELLABLE, RideStatus.CANCELLED) == 0) {
+      return afterLostRace(rideId, RideStatus.CANCELLED, null);
+    }
+    Ride savedRide = findRideById(rideId);
+    rideOfferService.close(rideId, null);
+    if (savedRide.getDriver() != null) {
+      dispatchService.release(savedRide.getDriver().getId());
+    }
+    // Only free the driver if this ride was the trip they were on
+    if (savedRide.getDriver() != null
+        && driverRepository.releaseCurrentRide(savedRide.getDriver().getId(), rideId) > 0) {
+      driverLocationStore.setBusy(savedRide.getDriver().getId(), false);
+    }
     
     // Broadcast ride cancelled status
     try {
@@ -229,6 +327,7 @@ public class RideServiceImpl implements RideService {
     } catch (Exception e) {
       System.err.println("Error broadcasting ride cancelled: " + e.getMessage());
     }
+    shortCodeService.recycleRideCode(savedRide);
     
     return savedRide;
   }
@@ -238,4 +337,27 @@ public class RideServiceImpl implements RideService {
     return rideRepository.findById(rideId).orElseThrow(() -> new ResourceNotFoundException("Ride", "rideId", rideId));
   }
 
+  private static void requireTransition(Ride ride, RideStatus target) throws RideStateConflictException {
+    if (ride.getStatus() == null || !ride.getStatus().canTransitionTo(target)) {
+      throw new RideStateConflictException(ride.getId(), ride.getStatus(), target);
+    }
+  }
+
+  /**
+   * A compare-and-set transition changed nothing: either an identical request
+   * got there first (answered as if it were this one), or the ride moved on.
+   */
+  private Ride afterLostRace(Long rideId, RideStatus target, Long driverId)
+      throws ResourceNotFoundException, RideStateConflictException {
+    Ride current = findRideById(rideId);
+    if (current.getStatus() == target && (driverId == null || isRideDriver(current, driverId))) {
+      return current;
+    }
+    throw new RideStateConflictException(rideId, current.getStatus(), target);
+  }
+
+  private static boolean isRideDriver(Ride ride, Long driverId) {
+    return driverId != null && ride.getDriver() != null && driverId.equals(ride.getDriver().getId());
+  }
+
 }
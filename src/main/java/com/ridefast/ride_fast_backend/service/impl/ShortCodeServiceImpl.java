@@ -1,18 +1,65 @@
 package com.ridefast.ride_fast_backend.service.impl;
 
+import com.ridefast.ride_fast_backend.model.Ride;
 import com.ridefast.ride_fast_backend.repository.DriverRepository;
 import com.ridefast.ride_fast_backend.repository.RideRepository;
 import com.ridefast.ride_fast_backend.repository.UserRepository;
 import com.ridefast.ride_fast_backend.service.ShortCodeService;
+import com.ridefast.ride_fast_backend.service.shortcode.ShortCodePool;
 import java.security.SecureRandom;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+/**
+ * Hands out short codes from in-memory occupancy pools, one per entity
+ * type, loaded from the database on first use. No existence queries are
+ * made per code.
+ *
+ * Each instance allocates only from its own partition of the code space
+ * ({@code app.short-codes.instance-index} of {@code instance-count}), so
+ * instances cannot issue the same code. Codes handed out inside a
+ * transaction that rolls back are returned to the pool. Pools are rebuilt
+ * from the database periodically, which picks up codes set outside this
+ * service (backfills, manual edits) and frees codes recycled by other
+ * instances; the unique constraint on the columns stays the final guard.
+ */
+@Slf4j
 @Service
 public class ShortCodeServiceImpl implements ShortCodeService {
+  // Column length of the short_code columns
+  private static final int MAX_COLUMN_LENGTH = 8;
+
   private final UserRepository userRepository;
   private final DriverRepository driverRepository;
   private final RideRepository rideRepository;
   private final SecureRandom random = new SecureRandom();
+  private final Map<String, ShortCodePool> pools = new ConcurrentHashMap<>();
+
+  @Value("${app.short-codes.min-length:4}")
+  private int minLength;
+
+  @Value("${app.short-codes.max-length:6}")
+  private int maxLength;
+
+  @Value("${app.short-codes.max-occupancy:0.7}")
+  private double maxOccupancy;
+
+  @Value("${app.short-codes.recycle-ride-codes:false}")
+  private boolean recycleRideCodes;
+
+  @Value("${app.short-codes.instance-index:0}")
+  private int instanceIndex;
+
+  @Value("${app.short-codes.instance-count:1}")
+  private int instanceCount;
 
   public ShortCodeServiceImpl(UserRepository userRepository,
                               DriverRepository driverRepository,
@@ -22,31 +69,93 @@ public class ShortCodeServiceImpl implements ShortCodeService {
     this.rideRepository = rideRepository;
   }
 
-  private String nextCode() {
-    int n = random.nextInt(10000); // 0..9999
-    return String.format("%04d", n);
-  }
-
-  private String generateUnique(java.util.function.Predicate<String> exists) {
-    for (int i = 0; i < 200; i++) { // try up to 200 attempts
-      String code = nextCode();
-      if (!exists.test(code)) return code;
-    }
-    throw new IllegalStateException("Unable to generate unique 4-digit code");
-  }
-
   @Override
   public String generateUserCode() {
-    return generateUnique(userRepository::existsByShortCode);
+    return allocate(pool("user", userRepository::findAllShortCodes));
   }
 
   @Override
   public String generateDriverCode() {
-    return generateUnique(driverRepository::existsByShortCode);
+    return allocate(pool("driver", driverRepository::findAllShortCodes));
   }
 
   @Override
   public String generateRideCode() {
-    return generateUnique(rideRepository::existsByShortCode);
+    return allocate(pool("ride", rideRepository::findAllShortCodes));
+  }
+
+  // The row holding the code is never written if the transaction rolls back: free the code again
+  private String allocate(ShortCodePool pool) {
+    String code = pool.allocate(random);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCompletion(int status) {
+          if (status == STATUS_ROLLED_BACK) {
+            pool.release(code);
+          } else {
+            pool.settle(code);
+          }
+        }
+      });
+    } else {
+      pool.settle(code);
+    }
+    return code;
+  }
+
+  @Override
+  public void recycleRideCode(Ride ride) {
+    String code = ride.getShortCode();
+    if (!recycleRideCodes || code == null || code.isBlank()) {
+      return;
+    }
+    rideRepository.clearShortCode(ride.getId());
+    ShortCodePool pool = pool("ride", rideRepository::findAllShortCodes);
+    // Reissue the code only once the ride no longer holds it. A code of another instance's
+    // partition is ignored here and freed by that instance's next resync
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          pool.release(code);
+        }
+      });
+    } else {
+      pool.release(code);
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${app.short-codes.resync-interval-ms:300000}",
+      initialDelayString = "${app.short-codes.resync-interval-ms:300000}")
+  void resync() {
+    resync("user", userRepository::findAllShortCodes);
+    resync("driver", driverRepository::findAllShortCodes);
+    resync("ride", rideRepository::findAllShortCodes);
+  }
+
+  private ShortCodePool pool(String type, Supplier<List<String>> usedCodes) {
+    return pools.computeIfAbsent(type, key -> {
+      ShortCodePool pool = new ShortCodePool(minLength, Math.min(maxLength, MAX_COLUMN_LENGTH), maxOccupancy,
+          instanceIndex, instanceCount);
+      usedCodes.get().forEach(pool::markUsed);
+      log.info("Loaded {} short code pool (partition {} of {}): {} codes in use", type, instanceIndex,
+          instanceCount, pool.size());
+      return pool;
+    });
+  }
+
+  // Rebuilds the pool from the database; codes issued here but not yet committed stay taken
+  private void resync(String type, Supplier<List<String>> usedCodes) {
+    ShortCodePool pool = pools.get(type);
+    if (pool == null) {
+      return;
+    }
+    try {
+      pool.startReload();
+      pool.reload(usedCodes.get());
+    } catch (Exception e) {
+      log.warn("Short code resync failed for {}: {}", type, e.getMessage());
+    }
   }
 }
@@ -56,7 +56,7 @@ public class WalletServiceImpl implements WalletService {
     // Broadcast wallet update
     try {
       realtimeService.broadcastWalletUpdate(ownerId, ownerType, wallet.getBalance(), 
-          referenceType, notes != null ? notes : "Credit: " + amount);
+          referenceType, notes != null ? notes : "Credit: " + amount, savedTx.getId());
     } catch (Exception e) {
       log.warn("Failed to broadcast wallet update: {}", e.getMessage());
     }
@@ -87,7 +87,7 @@ public class WalletServiceImpl implements WalletService {
     // Broadcast wallet update
     try {
       realtimeService.broadcastWalletUpdate(ownerId, ownerType, wallet.getBalance(), 
-          referenceType, notes != null ? notes : "Debit: " + amount);
+          referenceType, notes != null ? notes : "Debit: " + amount, savedTx.getId());
     } catch (Exception e) {
       log.warn("Failed to broadcast wallet update: {}", e.getMessage());
     }
@@ -8,6 +8,7 @@ import com.ridefast.ride_fast_backend.model.intercity.*;
 import com.ridefast.ride_fast_backend.repository.UserRepository;
 import com.ridefast.ride_fast_backend.repository.DriverRepository;
 import com.ridefast.ride_fast_backend.repository.intercity.*;
+import com.ridefast.ride_fast_backend.service.code.ReferenceCodeGenerator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -18,7 +19,6 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
 import java.util.stream.Collectors;
 
 /**
@@ -42,6 +42,8 @@ public class IntercityBookingService {
     private final IntercityPricingService pricingService;
     private final IntercityPricingConfigService pricingConfigService;
     private final com.ridefast.ride_fast_backend.service.WalletService walletService;
+    private final com.ridefast.ride_fast_backend.service.RealtimeService realtimeService;
+    private final ReferenceCodeGenerator codeGenerator;
     
     /** Lock expiry time in minutes */
     private static final int SEAT_LOCK_MINUTES = 10;
@@ -52,6 +54,10 @@ public class IntercityBookingService {
     /** Minimum driver wallet balance: ₹200 */
     private static final BigDecimal MIN_DRIVER_BALANCE = new BigDecimal("200");
     
+    /** Booking codes: "IC" + sequence-derived code */
+    private static final String BOOKING_CODE_PREFIX = "IC";
+    private static final String BOOKING_CODE_SEQUENCE = "intercity_booking_code_seq";
+    
     /**
      * Search for available trips and vehicle options
      */
@@ -313,6 +319,7 @@ public class IntercityBookingService {
         checkAndAutoConfirmTrip(booking.getTrip());
         
         log.info("Confirmed booking {}", booking.getBookingCode());
+        realtimeService.broadcastBookingStatusUpdate(booking);
         
         return toResponse(booking);
     }
@@ -402,6 +409,7 @@ public class IntercityBookingService {
         bookingRepository.save(booking);
         
         log.info("Cancelled booking {}: {}", booking.getBookingCode(), reason);
+        realtimeService.broadcastBookingStatusUpdate(booking);
         
         return toResponse(booking);
     }
@@ -479,6 +487,7 @@ public class IntercityBookingService {
         checkAndAutoConfirmTrip(booking.getTrip());
         
         log.info("Admin confirmed booking {} - Driver phone number is now visible", booking.getBookingCode());
+        realtimeService.broadcastBookingStatusUpdate(booking);
         
         return toResponse(booking);
     }
@@ -526,6 +535,9 @@ public class IntercityBookingService {
      * Get booking by code
      */
     public IntercityBooking getBookingByCode(String bookingCode) throws ResourceNotFoundException {
+        if (codeGenerator.hasBadChecksum(BOOKING_CODE_PREFIX, bookingCode)) {
+            throw new ResourceNotFoundException("Booking", "code", bookingCode);
+        }
         return bookingRepository.findByBookingCode(bookingCode)
             .orElseThrow(() -> new ResourceNotFoundException("Booking", "code", bookingCode));
     }
@@ -802,11 +814,7 @@ public class IntercityBookingService {
     // ============== Private Helper Methods ==============
     
     private String generateBookingCode() {
-        String code;
-        do {
-            code = "IC" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
-        } while (bookingRepository.existsByBookingCode(code));
-        return code;
+        return codeGenerator.next(BOOKING_CODE_SEQUENCE, BOOKING_CODE_PREFIX);
     }
 }
 
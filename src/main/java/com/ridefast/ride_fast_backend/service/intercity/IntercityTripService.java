@@ -11,6 +11,7 @@ import com.ridefast.ride_fast_backend.repository.intercity.IntercityBookingRepos
 import com.ridefast.ride_fast_backend.repository.intercity.IntercityRouteRepository;
 import com.ridefast.ride_fast_backend.repository.intercity.IntercityTripRepository;
 import com.ridefast.ride_fast_backend.repository.intercity.IntercityVehicleConfigRepository;
+import com.ridefast.ride_fast_backend.service.code.ReferenceCodeGenerator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -21,7 +22,6 @@ import java.math.BigDecimal;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.UUID;
 import java.util.stream.Collectors;
 
 /**
@@ -37,10 +37,15 @@ public class IntercityTripService {
     private final IntercityVehicleConfigRepository vehicleConfigRepository;
     private final IntercityBookingRepository bookingRepository;
     private final IntercityPricingService pricingService;
+    private final ReferenceCodeGenerator codeGenerator;
     
     /** Default countdown duration in minutes */
     private static final int DEFAULT_COUNTDOWN_MINUTES = 10;
     
+    /** Trip codes: "T" + sequence-derived code */
+    private static final String TRIP_CODE_PREFIX = "T";
+    private static final String TRIP_CODE_SEQUENCE = "intercity_trip_code_seq";
+    
     /**
      * Create a new trip for booking
      */
@@ -280,6 +285,9 @@ public class IntercityTripService {
      * Get trip by code
      */
     public IntercityTrip getTripByCode(String tripCode) throws ResourceNotFoundException {
+        if (codeGenerator.hasBadChecksum(TRIP_CODE_PREFIX, tripCode)) {
+            throw new ResourceNotFoundException("Trip", "code", tripCode);
+        }
         return tripRepository.findByTripCode(tripCode)
             .orElseThrow(() -> new ResourceNotFoundException("Trip", "code", tripCode));
     }
@@ -457,11 +465,7 @@ public class IntercityTripService {
     // ============== Private Helper Methods ==============
     
     private String generateTripCode() {
-        String code;
-        do {
-            code = "T" + UUID.randomUUID().toString().substring(0, 7).toUpperCase();
-        } while (tripRepository.existsByTripCode(code));
-        return code;
+        return codeGenerator.next(TRIP_CODE_SEQUENCE, TRIP_CODE_PREFIX);
     }
 }
 
@@ -0,0 +1,44 @@
+package com.ridefast.ride_fast_backend.service.maps;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Google Maps web service client (Directions, Geocoding).
+ */
+@Slf4j
+@Component
+public class GoogleMapsUpstreamClient implements MapsUpstreamClient {
+
+  private final RestTemplate restTemplate = new RestTemplate();
+
+  @Override
+  public Map<?, ?> directions(double originLat, double originLng, double destinationLat, double destinationLng,
+      String waypoints, String language, String apiKey) {
+    StringBuilder url = new StringBuilder("https://maps.googleapis.com/maps/api/directions/json");
+    url.append("?origin=").append(originLat).append(",").append(originLng);
+    url.append("&destination=").append(destinationLat).append(",").append(destinationLng);
+    if (waypoints != null && !waypoints.isBlank()) {
+      url.append("&waypoints=").append(URLEncoder.encode(waypoints, StandardCharsets.UTF_8));
+    }
+    url.append("&language=").append(URLEncoder.encode(language, StandardCharsets.UTF_8));
+    url.append("&key=").append(URLEncoder.encode(apiKey, StandardCharsets.UTF_8));
+
+    log.debug("Calling Google Maps Directions API: {}", url.toString().replace(apiKey, "***"));
+    return restTemplate.getForObject(URI.create(url.toString()), Map.class);
+  }
+
+  @Override
+  public Map<?, ?> reverseGeocode(double lat, double lng, String apiKey) {
+    StringBuilder url = new StringBuilder("https://maps.googleapis.com/maps/api/geocode/json");
+    url.append("?latlng=").append(lat).append(",").append(lng);
+    url.append("&key=").append(URLEncoder.encode(apiKey, StandardCharsets.UTF_8));
+    return restTemplate.getForObject(URI.create(url.toString()), Map.class);
+  }
+}
@@ -0,0 +1,226 @@
+package com.ridefast.ride_fast_backend.service.maps;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Cache in front of {@link MapsUpstreamClient} for directions and reverse
+ * geocoding.
+ *
+ * Coordinates are snapped to a grid ({@code app.maps.cache.*-grid-meters})
+ * so requests a few metres apart share an entry, and the snapped point is
+ * what goes upstream. Lookups go to a size-bounded in-process LRU first, then
+ * (optionally) Redis so instances share results; concurrent misses for the
+ * same key wait on a single upstream call. Only responses with status OK are
+ * cached.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MapsResponseCache {
+
+  private static final double METERS_PER_DEGREE = 111_320.0;
+  private static final String REDIS_PREFIX = "maps:cache:";
+
+  private final MapsUpstreamClient upstream;
+  private final StringRedisTemplate redisTemplate;
+  private final ObjectMapper objectMapper;
+  private final MeterRegistry meterRegistry;
+
+  @Value("${app.maps.cache.max-entries:50000}")
+  private int maxEntries;
+
+  @Value("${app.maps.cache.directions-grid-meters:100}")
+  private double directionsGridMeters;
+
+  @Value("${app.maps.cache.directions-ttl-seconds:900}")
+  private long directionsTtlSeconds;
+
+  @Value("${app.maps.cache.geocode-grid-meters:25}")
+  private double geocodeGridMeters;
+
+  @Value("${app.maps.cache.geocode-ttl-seconds:86400}")
+  private long geocodeTtlSeconds;
+
+  @Value("${app.maps.cache.redis-enabled:true}")
+  private boolean redisEnabled;
+
+  private final Map<String, CompletableFuture<Map<?, ?>>> inFlight = new ConcurrentHashMap<>();
+  private LruCache local;
+
+  private record Entry(Map<?, ?> value, long expiresAt) {
+  }
+
+  /**
+   * Access-ordered map evicting the least recently used entry beyond capacity.
+   */
+  private static final class LruCache extends LinkedHashMap<String, Entry> {
+    private final int capacity;
+
+    LruCache(int capacity) {
+      super(Math.min(capacity, 1024), 0.75f, true);
+      this.capacity = capacity;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+      return size() > capacity;
+    }
+  }
+
+  @PostConstruct
+  void init() {
+    local = new LruCache(maxEntries);
+    meterRegistry.gauge("maps.cache.size", this, cache -> cache.localSize());
+  }
+
+  public Map<?, ?> directions(double originLat, double originLng, double destinationLat, double destinationLng,
+      String waypoints, String language, String apiKey) {
+    double oLat = snap(originLat, directionsGridMeters);
+    double oLng = snap(originLng, directionsGridMeters);
+    double dLat = snap(destinationLat, directionsGridMeters);
+    double dLng = snap(destinationLng, directionsGridMeters);
+    String key = String.format(Locale.ROOT, "dir:%.6f,%.6f:%.6f,%.6f:%s:%s", oLat, oLng, dLat, dLng,
+        waypoints == null ? "" : waypoints, language);
+    return lookup("directions", key, directionsTtlSeconds,
+        () -> upstream.directions(oLat, oLng, dLat, dLng, waypoints, language, apiKey));
+  }
+
+  public Map<?, ?> reverseGeocode(double lat, double lng, String apiKey) {
+    double sLat = snap(lat, geocodeGridMeters);
+    double sLng = snap(lng, geocodeGridMeters);
+    String key = String.format(Locale.ROOT, "geo:%.6f,%.6f", sLat, sLng);
+    return lookup("geocode", key, geocodeTtlSeconds, () -> upstream.reverseGeocode(sLat, sLng, apiKey));
+  }
+
+  /**
+   * Drop all locally cached responses (Redis entries expire on their own).
+   */
+  public void clear() {
+    synchronized (local) {
+      local.clear();
+    }
+  }
+
+  private Map<?, ?> lookup(String api, String key, long ttlSeconds, Supplier<Map<?, ?>> loader) {
+    Map<?, ?> cached = getLocal(key);
+    if (cached != null) {
+      count(api, "hit_local");
+      return cached;
+    }
+
+    CompletableFuture<Map<?, ?>> mine = new CompletableFuture<>();
+    CompletableFuture<Map<?, ?>> running = inFlight.putIfAbsent(key, mine);
+    if (running != null) {
+      count(api, "coalesced");
+      try {
+        return running.join();
+      } catch (CompletionException e) {
+        throw e.getCause() instanceof RuntimeException re ? re : e;
+      }
+    }
+
+    try {
+      Map<?, ?> value = getRedis(key);
+      if (value != null) {
+        count(api, "hit_redis");
+        putLocal(key, value, ttlSeconds);
+      } else {
+        count(api, "miss");
+        value = loader.get();
+        if (value != null && "OK".equals(value.get("status"))) {
+          putLocal(key, value, ttlSeconds);
+          putRedis(key, value, ttlSeconds);
+        }
+      }
+      mine.complete(value);
+      return value;
+    } catch (RuntimeException e) {
+      mine.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key, mine);
+    }
+  }
+
+  private Map<?, ?> getLocal(String key) {
+    synchronized (local) {
+      Entry entry = local.get(key);
+      if (entry == null) {
+        return null;
+      }
+      if (entry.expiresAt() < System.currentTimeMillis()) {
+        local.remove(key);
+        return null;
+      }
+      return entry.value();
+    }
+  }
+
+  private void putLocal(String key, Map<?, ?> value, long ttlSeconds) {
+    synchronized (local) {
+      local.put(key, new Entry(value, System.currentTimeMillis() + ttlSeconds * 1000));
+    }
+  }
+
+  private int localSize() {
+    synchronized (local) {
+      return local.size();
+    }
+  }
+
+  private Map<?, ?> getRedis(String key) {
+    if (!redisEnabled) {
+      return null;
+    }
+    try {
+      String json = redisTemplate.opsForValue().get(REDIS_PREFIX + key);
+      return json == null ? null : objectMapper.readValue(json, Map.class);
+    } catch (Exception e) {
+      log.debug("Maps cache Redis read failed for {}: {}", key, e.getMessage());
+      return null;
+    }
+  }
+
+  private void putRedis(String key, Map<?, ?> value, long ttlSeconds) {
+    if (!redisEnabled) {
+      return;
+    }
+    try {
+      redisTemplate.opsForValue().set(REDIS_PREFIX + key, objectMapper.writeValueAsString(value),
+          Duration.ofSeconds(ttlSeconds));
+    } catch (Exception e) {
+      log.debug("Maps cache Redis write failed for {}: {}", key, e.getMessage());
+    }
+  }
+
+  private void count(String api, String result) {
+    Counter.builder("maps.cache.requests")
+        .tag("api", api)
+        .tag("result", result)
+        .register(meterRegistry)
+        .increment();
+  }
+
+  // Centre of the grid cell containing the value
+  private static double snap(double degrees, double gridMeters) {
+    double cell = gridMeters / METERS_PER_DEGREE;
+    return (Math.floor(degrees / cell) + 0.5) * cell;
+  }
+}
@@ -0,0 +1,24 @@
+package com.ridefast.ride_fast_backend.service.maps;
+
+import java.util.Map;
+
+/**
+ * Upstream maps provider behind {@link MapsResponseCache}. The default
+ * implementation calls Google; tests can replace it with a {@code @Primary}
+ * or mocked bean.
+ */
+public interface MapsUpstreamClient {
+
+  /**
+   * Directions API response, or null when the provider returned nothing.
+   *
+   * @param waypoints optional, "lat1,lng1|lat2,lng2"
+   */
+  Map<?, ?> directions(double originLat, double originLng, double destinationLat, double destinationLng,
+      String waypoints, String language, String apiKey);
+
+  /**
+   * Reverse geocoding response, or null when the provider returned nothing.
+   */
+  Map<?, ?> reverseGeocode(double lat, double lng, String apiKey);
+}
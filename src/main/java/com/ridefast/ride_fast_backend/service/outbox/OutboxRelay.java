@@ -0,0 +1,235 @@
+package com.ridefast.ride_fast_backend.service.outbox;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ridefast.ride_fast_backend.enums.OutboxStatus;
+import com.ridefast.ride_fast_backend.model.OutboxEvent;
+import com.ridefast.ride_fast_backend.repository.OutboxEventRepository;
+import com.ridefast.ride_fast_backend.service.notification.PushNotificationService;
+import com.ridefast.ride_fast_backend.websocket.RealtimeWebSocketHandler;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Relays committed outbox events to WebSocket rooms (and through them to
+ * other instances over Redis when clustering is on) and to push.
+ *
+ * Events are claimed in id order in batches: a claim locks the due rows
+ * ({@code FOR UPDATE SKIP LOCKED}, so instances share the work), counts the
+ * attempt and leases the rows for {@code app.outbox.lease-ms}. Only the
+ * oldest pending event of an aggregate (ride, wallet, booking) can be
+ * claimed, so its events go out one at a time and in order on whichever
+ * instance picks them up. Relayed events are then marked published in one
+ * update; failed ones are retried with exponential backoff (holding back
+ * the aggregate's later events) and parked as FAILED after
+ * {@code app.outbox.max-attempts}. An instance that dies mid-batch leaves
+ * its rows to be claimed again once the lease runs out.
+ *
+ * The guarantee is at-least-once hand-off, not delivery to devices: an
+ * event counts as relayed once it is queued to the local sessions of its
+ * rooms and published to the cluster bus. A socket write that fails later,
+ * or a client that is offline, is not retried; clients resync state from
+ * the REST API on reconnect and drop duplicates by {@code eventId}. Push
+ * notifications are likewise handed to {@link PushNotificationService}
+ * once. All relaying runs on one thread per instance, woken after each
+ * commit that recorded an event and by a fallback poll.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OutboxRelay {
+
+  // Batches per wake-up before yielding to the next wake-up or poll
+  private static final int MAX_BATCHES_PER_RUN = 50;
+
+  private final OutboxEventRepository outboxEventRepository;
+  private final RealtimeWebSocketHandler webSocketHandler;
+  private final PushNotificationService pushNotificationService;
+  private final ObjectMapper objectMapper;
+  private final PlatformTransactionManager transactionManager;
+
+  @Value("${app.outbox.enabled:true}")
+  private boolean enabled;
+
+  @Value("${app.outbox.batch-size:200}")
+  private int batchSize;
+
+  @Value("${app.outbox.lease-ms:30000}")
+  private long leaseMs;
+
+  @Value("${app.outbox.max-attempts:10}")
+  private int maxAttempts;
+
+  @Value("${app.outbox.backoff-ms:1000}")
+  private long backoffMs;
+
+  @Value("${app.outbox.max-backoff-ms:300000}")
+  private long maxBackoffMs;
+
+  @Value("${app.outbox.retention-hours:24}")
+  private long retentionHours;
+
+  @Value("${app.outbox.prune-batch-size:5000}")
+  private int pruneBatchSize;
+
+  private final AtomicBoolean scheduled = new AtomicBoolean();
+  private ExecutorService executor;
+  private TransactionTemplate transactionTemplate;
+
+  @PostConstruct
+  void start() {
+    transactionTemplate = new TransactionTemplate(transactionManager);
+    executor = Executors.newSingleThreadExecutor(r -> {
+      Thread t = new Thread(r, "outbox-relay");
+      t.setDaemon(true);
+      return t;
+    });
+  }
+
+  @PreDestroy
+  void stop() {
+    executor.shutdown();
+    try {
+      if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+        executor.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      executor.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Schedule a relay run; wake-ups while one is pending are coalesced.
+   */
+  public void wake() {
+    if (!enabled || !scheduled.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      executor.execute(this::run);
+    } catch (RejectedExecutionException e) {
+      // Shutting down: the events stay pending for the next start
+      scheduled.set(false);
+    }
+  }
+
+  // Picks up events whose wake-up was lost (other instance, restart) and retries
+  @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:1000}")
+  public void poll() {
+    wake();
+  }
+
+  @Scheduled(fixedDelayString = "${app.outbox.prune-interval-ms:300000}")
+  public void prune() {
+    if (!enabled) {
+      return;
+    }
+    LocalDateTime cutoff = LocalDateTime.now().minusHours(retentionHours);
+    int total = 0;
+    int deleted;
+    do {
+      Integer count = transactionTemplate.execute(
+          status -> outboxEventRepository.deletePublishedBefore(cutoff, pruneBatchSize));
+      deleted = count != null ? count : 0;
+      total += deleted;
+    } while (deleted == pruneBatchSize);
+    if (total > 0) {
+      log.info("Pruned {} published outbox events", total);
+    }
+  }
+
+  private void run() {
+    scheduled.set(false);
+    try {
+      for (int batch = 0; batch < MAX_BATCHES_PER_RUN; batch++) {
+        List<OutboxEvent> events = claim();
+        if (events.isEmpty()) {
+          return;
+        }
+        // Relaying may have released the next event of an aggregate: claim again until nothing is due
+        relay(events);
+      }
+      // Backlog left: continue after other wake-ups
+      wake();
+    } catch (Exception e) {
+      log.error("Outbox relay failed: {}", e.getMessage(), e);
+    }
+  }
+
+  private List<OutboxEvent> claim() {
+    LocalDateTime now = LocalDateTime.now();
+    List<OutboxEvent> events = transactionTemplate.execute(status -> {
+      List<OutboxEvent> due = outboxEventRepository.lockDue(now, batchSize);
+      for (OutboxEvent event : due) {
+        event.setAttempts(event.getAttempts() + 1);
+        event.setNextAttemptAt(now.plus(Duration.ofMillis(leaseMs)));
+      }
+      return due;
+    });
+    return events != null ? events : List.of();
+  }
+
+  private void relay(List<OutboxEvent> events) {
+    List<Long> published = new ArrayList<>(events.size());
+    for (OutboxEvent event : events) {
+      try {
+        publish(event);
+        published.add(event.getId());
+      } catch (Exception e) {
+        log.warn("Outbox event {} ({}) failed on attempt {}: {}", event.getId(), event.getEventKey(),
+            event.getAttempts(), e.getMessage());
+        retryLater(event, e);
+      }
+    }
+    if (!published.isEmpty()) {
+      LocalDateTime now = LocalDateTime.now();
+      transactionTemplate.executeWithoutResult(
+          status -> outboxEventRepository.markPublished(published, OutboxStatus.PUBLISHED, now));
+    }
+  }
+
+  private void publish(OutboxEvent event) throws Exception {
+    JsonNode payload = objectMapper.readTree(event.getPayload());
+    if (event.getRooms() != null && !event.getRooms().isBlank()) {
+      for (String room : event.getRooms().split(",")) {
+        webSocketHandler.broadcastToRoom(room, event.getEventType(), payload);
+      }
+    }
+    if (event.getPushToken() != null) {
+      pushNotificationService.sendToToken(event.getPushToken(), event.getPushTitle(), event.getPushBody(),
+          Map.of("type", event.getEventType(), "eventId", event.getEventKey()));
+    }
+  }
+
+  private void retryLater(OutboxEvent event, Exception error) {
+    boolean exhausted = event.getAttempts() >= maxAttempts;
+    long delay = Math.min(backoffMs << Math.min(event.getAttempts() - 1, 20), maxBackoffMs);
+    String message = error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+    String truncated = message.length() > 500 ? message.substring(0, 500) : message;
+    transactionTemplate.executeWithoutResult(status -> outboxEventRepository.reschedule(event.getId(),
+        exhausted ? OutboxStatus.FAILED : OutboxStatus.PENDING,
+        LocalDateTime.now().plus(Duration.ofMillis(delay)), truncated));
+    if (exhausted) {
+      log.error("Outbox event {} ({}) gave up after {} attempts", event.getId(), event.getEventKey(),
+          event.getAttempts());
+    }
+  }
+}
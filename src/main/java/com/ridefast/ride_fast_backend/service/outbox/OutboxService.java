@@ -0,0 +1,85 @@
+package com.ridefast.ride_fast_backend.service.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ridefast.ride_fast_backend.repository.OutboxEventRepository;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Records realtime events in the outbox as part of the caller's transaction.
+ *
+ * The event commits or rolls back with the business change, and the
+ * {@link OutboxRelay} is woken once the transaction commits. The event key is
+ * the idempotency key: a key that is already recorded is ignored (an
+ * {@code ON CONFLICT DO NOTHING} insert, so a concurrent duplicate never fails
+ * the caller's transaction), and clients receive it as {@code "eventId"} to
+ * drop redelivered events.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+
+  private final OutboxEventRepository outboxEventRepository;
+  private final OutboxRelay outboxRelay;
+  private final ObjectMapper objectMapper;
+
+  @Value("${app.outbox.enabled:true}")
+  private boolean enabled;
+
+  /**
+   * Optional push notification delivered with the event.
+   */
+  public record Push(String token, String title, String body) {
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Record {@code eventType} for {@code rooms}; {@code payload} gets an
+   * {@code "eventId"} entry. Joins the caller's transaction: the event
+   * commits or rolls back with it. Events of one aggregate are relayed in
+   * the order they were recorded.
+   */
+  @Transactional
+  public void record(String aggregateType, Object aggregateId, String eventKey, String eventType,
+      Collection<String> rooms, Map<String, Object> payload, Push push) {
+    payload.put("eventId", eventKey);
+    String json;
+    try {
+      json = objectMapper.writeValueAsString(payload);
+    } catch (JsonProcessingException e) {
+      // Not thrown: that would mark the caller's transaction rollback-only
+      log.error("Cannot serialize outbox event {}: {}", eventKey, e.getMessage());
+      return;
+    }
+
+    boolean withPush = push != null && push.token() != null && !push.token().isBlank();
+    int inserted = outboxEventRepository.insertIfAbsent(eventKey, aggregateType,
+        aggregateId != null ? aggregateId.toString() : null, eventType, String.join(",", rooms), json,
+        withPush ? push.token() : null, withPush ? push.title() : null, withPush ? push.body() : null,
+        LocalDateTime.now());
+    if (inserted == 0) {
+      log.debug("Outbox event {} already recorded", eventKey);
+      return;
+    }
+
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        outboxRelay.wake();
+      }
+    });
+  }
+}
@@ -0,0 +1,110 @@
+package com.ridefast.ride_fast_backend.service.pricing;
+
+import com.ridefast.ride_fast_backend.dto.FareEstimateResponse;
+import com.ridefast.ride_fast_backend.enums.ServiceType;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, precompiled view of the pricing tables used by fare estimation:
+ * the active profile, its per-service rates, zone/category trip-fare
+ * overrides and vehicle display info. Per-service values are arrays indexed
+ * by {@link ServiceType#ordinal()}; NaN marks "not configured" so callers
+ * fall back to the next level, as the repository lookups did.
+ */
+public final class PricingSnapshot {
+
+  /**
+   * Trip-fare overrides of one active zone, indexed by service type ordinal
+   * (all NaN when the zone has none).
+   */
+  public record ZoneFares(double[] baseFare, double[] perKmRate, double[] timeRatePerMin) {
+  }
+
+  /**
+   * An active service in display order. Services whose id is a
+   * {@link ServiceType} ({@code type} non-null) are priced from the profile
+   * tables; others from their own service config rates, with
+   * {@code zoneOverrides} holding base/per-km/per-min trip-fare overrides
+   * (NaN = none) by zone name.
+   */
+  public record ServiceOption(String serviceId, ServiceType type, FareEstimateResponse.VehicleInfo vehicle,
+      double baseFare, double perKmRate, double perMinRate, double minimumFare, double cancellationFee,
+      Map<String, double[]> zoneOverrides) {
+  }
+
+  private final boolean hasProfile;
+  private final String currency;
+  private final double profileBaseFare;
+  private final double profilePerKmRate;
+  private final double profileTimeRatePerMin;
+  private final double[] rateBaseFare;
+  private final double[] ratePerKmRate;
+  private final double[] rateTimeRatePerMin;
+  private final Map<String, ZoneFares> zoneFaresByName;
+  private final FareEstimateResponse.VehicleInfo[] vehicles;
+  private final List<ServiceOption> activeServices;
+
+  PricingSnapshot(boolean hasProfile, String currency, double profileBaseFare, double profilePerKmRate,
+      double profileTimeRatePerMin, double[] rateBaseFare, double[] ratePerKmRate, double[] rateTimeRatePerMin,
+      Map<String, ZoneFares> zoneFaresByName, FareEstimateResponse.VehicleInfo[] vehicles,
+      List<ServiceOption> activeServices) {
+    this.hasProfile = hasProfile;
+    this.currency = currency;
+    this.profileBaseFare = profileBaseFare;
+    this.profilePerKmRate = profilePerKmRate;
+    this.profileTimeRatePerMin = profileTimeRatePerMin;
+    this.rateBaseFare = rateBaseFare;
+    this.ratePerKmRate = ratePerKmRate;
+    this.rateTimeRatePerMin = rateTimeRatePerMin;
+    this.zoneFaresByName = Map.copyOf(zoneFaresByName);
+    this.vehicles = vehicles;
+    this.activeServices = List.copyOf(activeServices);
+  }
+
+  public boolean hasActiveProfile() {
+    return hasProfile;
+  }
+
+  public String currency() {
+    return currency;
+  }
+
+  /**
+   * Service rate base fare, else the profile's.
+   */
+  public double baseFare(ServiceType type) {
+    double v = rateBaseFare[type.ordinal()];
+    return Double.isNaN(v) ? profileBaseFare : v;
+  }
+
+  public double perKmRate(ServiceType type) {
+    double v = ratePerKmRate[type.ordinal()];
+    return Double.isNaN(v) ? profilePerKmRate : v;
+  }
+
+  /**
+   * Service rate time rate when positive, else the profile's.
+   */
+  public double timeRatePerMin(ServiceType type) {
+    double v = rateTimeRatePerMin[type.ordinal()];
+    return Double.isNaN(v) || v <= 0 ? profileTimeRatePerMin : v;
+  }
+
+  /**
+   * Trip-fare overrides of an active zone by name, or null when there is no
+   * such active zone.
+   */
+  public ZoneFares zoneFares(String zoneName) {
+    return zoneName == null ? null : zoneFaresByName.get(zoneName);
+  }
+
+  public FareEstimateResponse.VehicleInfo vehicle(ServiceType type) {
+    return vehicles[type.ordinal()];
+  }
+
+  public List<ServiceOption> activeServices() {
+    return activeServices;
+  }
+}
@@ -0,0 +1,323 @@
+package com.ridefast.ride_fast_backend.service.pricing;
+
+import com.ridefast.ride_fast_backend.dto.FareEstimateResponse;
+import com.ridefast.ride_fast_backend.enums.ServiceType;
+import com.ridefast.ride_fast_backend.model.PricingProfile;
+import com.ridefast.ride_fast_backend.model.ServiceConfig;
+import com.ridefast.ride_fast_backend.model.ServiceRate;
+import com.ridefast.ride_fast_backend.model.v2.TripFare;
+import com.ridefast.ride_fast_backend.model.v2.VehicleCategory;
+import com.ridefast.ride_fast_backend.model.v2.ZoneV2;
+import com.ridefast.ride_fast_backend.repository.PricingProfileRepository;
+import com.ridefast.ride_fast_backend.repository.ServiceConfigRepository;
+import com.ridefast.ride_fast_backend.repository.ServiceRateRepository;
+import com.ridefast.ride_fast_backend.repository.v2.TripFareRepository;
+import com.ridefast.ride_fast_backend.repository.v2.VehicleCategoryRepository;
+import com.ridefast.ride_fast_backend.repository.v2.ZoneV2Repository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Holds the current {@link PricingSnapshot} and rebuilds it from the pricing
+ * tables. Admin endpoints that change pricing data call {@link #refresh()};
+ * a periodic reload picks up changes made through other instances.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PricingSnapshotService {
+
+  private static final int TYPES = ServiceType.values().length;
+
+  private final PricingProfileRepository pricingProfileRepository;
+  private final ServiceRateRepository serviceRateRepository;
+  private final ServiceConfigRepository serviceConfigRepository;
+  private final ZoneV2Repository zoneRepository;
+  private final VehicleCategoryRepository vehicleCategoryRepository;
+  private final TripFareRepository tripFareRepository;
+
+  private volatile PricingSnapshot snapshot;
+
+  @PostConstruct
+  void init() {
+    reload();
+  }
+
+  @Scheduled(fixedDelayString = "${app.pricing.refresh-interval-ms:60000}",
+      initialDelayString = "${app.pricing.refresh-interval-ms:60000}")
+  void scheduledRefresh() {
+    reload();
+  }
+
+  public PricingSnapshot current() {
+    return snapshot;
+  }
+
+  /**
+   * Rebuild the snapshot; inside a transaction, once it has committed.
+   */
+  public void refresh() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          reload();
+        }
+      });
+    } else {
+      reload();
+    }
+  }
+
+  private void reload() {
+    try {
+      snapshot = build();
+    } catch (Exception e) {
+      log.error("Pricing snapshot rebuild failed, keeping previous snapshot: {}", e.getMessage(), e);
+    }
+  }
+
+  private PricingSnapshot build() {
+    PricingProfile profile = pricingProfileRepository.findFirstByActiveTrue().orElse(null);
+
+    double[] rateBase = nanArray();
+    double[] ratePerKm = nanArray();
+    double[] rateTime = nanArray();
+    if (profile != null) {
+      for (ServiceRate rate : serviceRateRepository.findAll()) {
+        if (rate.getPricingProfile() == null || !profile.getId().equals(rate.getPricingProfile().getId())
+            || rate.getServiceType() == null) {
+          continue;
+        }
+        int t = rate.getServiceType().ordinal();
+        rateBase[t] = rate.getBaseFare();
+        ratePerKm[t] = rate.getPerKmRate();
+        rateTime[t] = rate.getTimeRatePerMin();
+      }
+    }
+
+    // Category used for each service type (the one whose type equals the service type name)
+    List<VehicleCategory> categories = vehicleCategoryRepository.findAll();
+    Map<String, ServiceType> typeByCategoryId = new HashMap<>();
+    Set<ServiceType> categorised = new HashSet<>();
+    for (VehicleCategory category : categories) {
+      ServiceType type = serviceType(category.getType());
+      if (type != null && categorised.add(type)) {
+        typeByCategoryId.put(category.getId(), type);
+      }
+    }
+
+    Map<String, String> activeZoneNames = new HashMap<>();
+    for (ZoneV2 zone : zoneRepository.findAll()) {
+      if (Boolean.TRUE.equals(zone.getIsActive())) {
+        activeZoneNames.put(zone.getId(), zone.getName());
+      }
+    }
+
+    // Every active zone gets an entry, so a zone without overrides still takes precedence
+    Map<String, PricingSnapshot.ZoneFares> zoneFares = new HashMap<>();
+    for (String zoneName : activeZoneNames.values()) {
+      zoneFares.put(zoneName, new PricingSnapshot.ZoneFares(nanArray(), nanArray(), nanArray()));
+    }
+    List<TripFare> tripFares = tripFareRepository.findAll();
+    Set<String> seen = new HashSet<>();
+    for (TripFare tf : tripFares) {
+      String zoneName = tf.getZone() == null ? null : activeZoneNames.get(tf.getZone().getId());
+      ServiceType type = tf.getVehicleCategory() == null ? null : typeByCategoryId.get(tf.getVehicleCategory().getId());
+      // First trip fare per zone and category wins
+      if (zoneName == null || type == null || !seen.add(zoneName + '|' + type)) {
+        continue;
+      }
+      PricingSnapshot.ZoneFares fares = zoneFares.get(zoneName);
+      fares.baseFare()[type.ordinal()] = toDouble(tf.getBaseFare());
+      fares.perKmRate()[type.ordinal()] = toDouble(tf.getBaseFarePerKm());
+      fares.timeRatePerMin()[type.ordinal()] = toDouble(tf.getTimeRatePerMinOverride());
+    }
+
+    FareEstimateResponse.VehicleInfo[] vehicles = new FareEstimateResponse.VehicleInfo[TYPES];
+    List<ServiceConfig> configs = serviceConfigRepository.findAllByOrderByDisplayOrderAsc();
+    for (ServiceConfig config : configs) {
+      ServiceType type = serviceType(config.getServiceId());
+      if (type != null && vehicles[type.ordinal()] == null) {
+        vehicles[type.ordinal()] = vehicleInfo(config);
+      }
+    }
+    for (ServiceType type : ServiceType.values()) {
+      if (vehicles[type.ordinal()] == null) {
+        vehicles[type.ordinal()] = defaultVehicleInfo(type);
+      }
+    }
+
+    List<PricingSnapshot.ServiceOption> activeServices = new ArrayList<>();
+    for (ServiceConfig config : configs) {
+      if (!Boolean.TRUE.equals(config.getIsActive()) || config.getServiceId() == null) {
+        continue;
+      }
+      ServiceType type = serviceType(config.getServiceId().toUpperCase());
+      activeServices.add(type != null
+          ? new PricingSnapshot.ServiceOption(config.getServiceId(), type, vehicles[type.ordinal()],
+              0, 0, 0, 0, 0, Map.of())
+          : configOption(config, categories, tripFares, activeZoneNames));
+    }
+
+    return new PricingSnapshot(profile != null, profile != null ? profile.getCurrency() : null,
+        profile != null ? profile.getBaseFare() : 0, profile != null ? profile.getPerKmRate() : 0,
+        profile != null ? profile.getTimeRatePerMin() : 0, rateBase, ratePerKm, rateTime, zoneFares, vehicles,
+        activeServices);
+  }
+
+  // Service without a ServiceType: its own rates, plus trip fares of the category matching its id or vehicle type
+  private static PricingSnapshot.ServiceOption configOption(ServiceConfig config, List<VehicleCategory> categories,
+      List<TripFare> tripFares, Map<String, String> activeZoneNames) {
+    VehicleCategory category = findCategory(categories, c -> config.getServiceId().equals(c.getType()));
+    if (category == null) {
+      category = findCategory(categories, c -> config.getServiceId().equals(c.getName()));
+    }
+    if (category == null && config.getVehicleType() != null) {
+      category = findCategory(categories, c -> config.getVehicleType().toUpperCase().equals(c.getType()));
+    }
+
+    Map<String, double[]> overrides = new HashMap<>();
+    if (category != null) {
+      for (TripFare tf : tripFares) {
+        String zoneName = tf.getZone() == null ? null : activeZoneNames.get(tf.getZone().getId());
+        if (zoneName != null && tf.getVehicleCategory() != null
+            && category.getId().equals(tf.getVehicleCategory().getId())) {
+          overrides.putIfAbsent(zoneName, new double[] { toDouble(tf.getBaseFare()),
+              toDouble(tf.getBaseFarePerKm()), toDouble(tf.getTimeRatePerMinOverride()) });
+        }
+      }
+    }
+
+    FareEstimateResponse.VehicleInfo vehicle = FareEstimateResponse.VehicleInfo.builder()
+        .serviceId(config.getServiceId())
+        .name(config.getName())
+        .displayName(config.getDisplayName() != null ? config.getDisplayName() : config.getName())
+        .icon(config.getIcon())
+        .iconUrl(config.getIconUrl())
+        .capacity(config.getCapacity() != null ? config.getCapacity() : 1)
+        .vehicleType(config.getVehicleType())
+        .category(config.getCategory())
+        .estimatedArrival(config.getEstimatedArrival())
+        .description(config.getDescription())
+        .build();
+
+    return new PricingSnapshot.ServiceOption(config.getServiceId(), null, vehicle,
+        orZero(config.getBaseFare()), orZero(config.getPerKmRate()), orZero(config.getPerMinRate()),
+        orZero(config.getMinimumFare()), orZero(config.getCancellationFee()), Map.copyOf(overrides));
+  }
+
+  private static VehicleCategory findCategory(List<VehicleCategory> categories,
+      Predicate<VehicleCategory> match) {
+    for (VehicleCategory category : categories) {
+      if (match.test(category)) {
+        return category;
+      }
+    }
+    return null;
+  }
+
+  private static double orZero(Double value) {
+    return value != null ? value : 0.0;
+  }
+
+  private static FareEstimateResponse.VehicleInfo vehicleInfo(ServiceConfig config) {
+    return FareEstimateResponse.VehicleInfo.builder()
+        .serviceId(config.getServiceId())
+        .name(config.getName())
+        .displayName(config.getDisplayName())
+        .icon(config.getIcon())
+        .iconUrl(config.getIconUrl())
+        .capacity(config.getCapacity())
+        .vehicleType(config.getVehicleType())
+        .category(config.getCategory())
+        .estimatedArrival(config.getEstimatedArrival())
+        .description(config.getDescription())
+        .build();
+  }
+
+  // Default fallback if not configured
+  private static FareEstimateResponse.VehicleInfo defaultVehicleInfo(ServiceType type) {
+    return FareEstimateResponse.VehicleInfo.builder()
+        .serviceId(type.name())
+        .name(getDefaultName(type))
+        .displayName(getDefaultName(type))
+        .icon(getDefaultIcon(type))
+        .iconUrl(null)
+        .capacity(getDefaultCapacity(type))
+        .vehicleType(getDefaultVehicleType(type))
+        .category("standard")
+        .estimatedArrival("5-10 mins")
+        .description(null)
+        .build();
+  }
+
+  private static String getDefaultName(ServiceType type) {
+    return switch (type) {
+      case BIKE -> "Bike";
+      case CAR -> "Car";
+      case SMALL_SEDAN -> "Sedan";
+      case MEGA -> "Premium";
+    };
+  }
+
+  private static String getDefaultIcon(ServiceType type) {
+    return switch (type) {
+      case BIKE -> "🏍️";
+      case CAR -> "🚗";
+      case SMALL_SEDAN -> "🚙";
+      case MEGA -> "🚘";
+    };
+  }
+
+  private static int getDefaultCapacity(ServiceType type) {
+    return switch (type) {
+      case BIKE -> 1;
+      case CAR, SMALL_SEDAN -> 4;
+      case MEGA -> 6;
+    };
+  }
+
+  private static String getDefaultVehicleType(ServiceType type) {
+    return switch (type) {
+      case BIKE -> "two_wheeler";
+      case CAR, SMALL_SEDAN, MEGA -> "four_wheeler";
+    };
+  }
+
+  private static ServiceType serviceType(String name) {
+    if (name == null) {
+      return null;
+    }
+    try {
+      return ServiceType.valueOf(name);
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  private static double toDouble(BigDecimal value) {
+    return value == null ? Double.NaN : value.doubleValue();
+  }
+
+  private static double[] nanArray() {
+    double[] values = new double[TYPES];
+    Arrays.fill(values, Double.NaN);
+    return values;
+  }
+}
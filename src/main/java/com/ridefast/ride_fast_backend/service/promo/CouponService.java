@@ -1,9 +1,17 @@
 package com.ridefast.ride_fast_backend.service.promo;
 
 import java.math.BigDecimal;
+import java.util.function.UnaryOperator;
 
 public interface CouponService {
     BigDecimal computeDiscount(String code, Long userId, BigDecimal baseFare);
+
+    /**
+     * Checks everything that does not depend on the fare once and returns the
+     * discount as a function of the fare, for pricing several quotes.
+     */
+    UnaryOperator<BigDecimal> discountFor(String code, Long userId);
+
     void redeem(String code, Long userId, Long rideId);
 }
 
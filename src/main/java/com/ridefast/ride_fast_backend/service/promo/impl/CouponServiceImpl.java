@@ -15,6 +15,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.function.UnaryOperator;
 
 @Service
 @RequiredArgsConstructor
@@ -27,26 +28,33 @@ public class CouponServiceImpl implements CouponService {
 
     @Override
     public BigDecimal computeDiscount(String code, Long userId, BigDecimal baseFare) {
+        return discountFor(code, userId).apply(baseFare);
+    }
+
+    @Override
+    public UnaryOperator<BigDecimal> discountFor(String code, Long userId) {
         Coupon c = couponRepo.findByCodeIgnoreCase(code).orElseThrow();
-        if (c.getActive() == null || !c.getActive()) return BigDecimal.ZERO;
+        if (c.getActive() == null || !c.getActive()) return fare -> BigDecimal.ZERO;
         LocalDateTime now = LocalDateTime.now();
-        if (c.getStartsAt() != null && now.isBefore(c.getStartsAt())) return BigDecimal.ZERO;
-        if (c.getEndsAt() != null && now.isAfter(c.getEndsAt())) return BigDecimal.ZERO;
-        if (c.getMinFare() != null && baseFare.compareTo(c.getMinFare()) < 0) return BigDecimal.ZERO;
-        if (c.getMaxRedemptions() != null && redemptionRepo.countByCoupon(c) >= c.getMaxRedemptions()) return BigDecimal.ZERO;
+        if (c.getStartsAt() != null && now.isBefore(c.getStartsAt())) return fare -> BigDecimal.ZERO;
+        if (c.getEndsAt() != null && now.isAfter(c.getEndsAt())) return fare -> BigDecimal.ZERO;
+        if (c.getMaxRedemptions() != null && redemptionRepo.countByCoupon(c) >= c.getMaxRedemptions()) return fare -> BigDecimal.ZERO;
         MyUser u = userRepo.findById(String.valueOf(userId)).orElseThrow();
-        if (c.getMaxRedemptionsPerUser() != null && redemptionRepo.countByCouponAndUser(c, u) >= c.getMaxRedemptionsPerUser()) return BigDecimal.ZERO;
+        if (c.getMaxRedemptionsPerUser() != null && redemptionRepo.countByCouponAndUser(c, u) >= c.getMaxRedemptionsPerUser()) return fare -> BigDecimal.ZERO;
 
-        if ("PERCENT".equalsIgnoreCase(c.getType())) {
-            BigDecimal pct = c.getValue();
-            if (pct.compareTo(BigDecimal.ZERO) <= 0) return BigDecimal.ZERO;
-            if (pct.compareTo(new BigDecimal("100")) > 0) pct = new BigDecimal("100");
-            return baseFare.multiply(pct).divide(new BigDecimal("100"));
-        } else {
-            BigDecimal flat = c.getValue();
-            if (flat.compareTo(BigDecimal.ZERO) <= 0) return BigDecimal.ZERO;
-            return flat.min(baseFare);
-        }
+        return baseFare -> {
+            if (c.getMinFare() != null && baseFare.compareTo(c.getMinFare()) < 0) return BigDecimal.ZERO;
+            if ("PERCENT".equalsIgnoreCase(c.getType())) {
+                BigDecimal pct = c.getValue();
+                if (pct.compareTo(BigDecimal.ZERO) <= 0) return BigDecimal.ZERO;
+                if (pct.compareTo(new BigDecimal("100")) > 0) pct = new BigDecimal("100");
+                return baseFare.multiply(pct).divide(new BigDecimal("100"));
+            } else {
+                BigDecimal flat = c.getValue();
+                if (flat.compareTo(BigDecimal.ZERO) <= 0) return BigDecimal.ZERO;
+                return flat.min(baseFare);
+            }
+        };
     }
 
     @Override
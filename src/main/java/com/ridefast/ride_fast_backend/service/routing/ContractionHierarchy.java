@@ -0,0 +1,661 @@
+package com.ridefast.ride_fast_backend.service.routing;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Contraction hierarchy over a {@link RoadGraph} for fast exact shortest
+ * (fastest) path queries.
+ *
+ * Preprocessing contracts nodes one by one in order of importance (edge
+ * difference, contracted neighbours and level, updated lazily) and adds shortcut
+ * edges where no witness path exists. A query is then a bidirectional
+ * Dijkstra that only relaxes edges towards more important nodes, which
+ * settles a few hundred nodes even on city-sized graphs. Shortcuts remember
+ * the contracted node they bypass, so paths are unpacked to road geometry.
+ *
+ * Instances are immutable and thread-safe; per-query scratch arrays are pooled.
+ */
+public final class ContractionHierarchy {
+
+  private static final int INF = Integer.MAX_VALUE;
+  // Witness searches are cut off early when only estimating a node's priority
+  private static final int WITNESS_SETTLE_LIMIT = 500;
+  private static final int ESTIMATE_SETTLE_LIMIT = 60;
+  private static final long PRIORITY_OFFSET = 1L << 30;
+
+  private final RoadGraph graph;
+  private final int[] rank;
+
+  // Upward edges u -> v (rank[u] < rank[v]), grouped by u
+  private final int[] upFirst;
+  private final int[] upTarget;
+  private final int[] upMillis;
+  private final int[] upMeters;
+  private final int[] upMiddle;
+
+  // Downward edges u -> v (rank[u] > rank[v]), grouped by v, for the backward search
+  private final int[] downFirst;
+  private final int[] downSource;
+  private final int[] downMillis;
+  private final int[] downMeters;
+  private final int[] downMiddle;
+
+  private final Queue<SearchSpace> searchSpaces = new ConcurrentLinkedQueue<>();
+
+  /**
+   * Result of a query: travel time, length and (optionally) the road nodes passed.
+   */
+  public record Path(long millis, long meters, int[] nodes) {
+  }
+
+  private ContractionHierarchy(RoadGraph graph, int[] rank, Adjacency[] out) {
+    this.graph = graph;
+    this.rank = rank;
+    int n = graph.nodeCount();
+
+    int[] upCount = new int[n + 1];
+    int[] downCount = new int[n + 1];
+    for (int u = 0; u < n; u++) {
+      Adjacency a = out[u];
+      for (int i = 0; i < a.size; i++) {
+        if (rank[u] < rank[a.node[i]]) {
+          upCount[u + 1]++;
+        } else {
+          downCount[a.node[i] + 1]++;
+        }
+      }
+    }
+    for (int u = 0; u < n; u++) {
+      upCount[u + 1] += upCount[u];
+      downCount[u + 1] += downCount[u];
+    }
+    upFirst = upCount.clone();
+    downFirst = downCount.clone();
+    upTarget = new int[upFirst[n]];
+    upMillis = new int[upFirst[n]];
+    upMeters = new int[upFirst[n]];
+    upMiddle = new int[upFirst[n]];
+    downSource = new int[downFirst[n]];
+    downMillis = new int[downFirst[n]];
+    downMeters = new int[downFirst[n]];
+    downMiddle = new int[downFirst[n]];
+
+    for (int u = 0; u < n; u++) {
+      Adjacency a = out[u];
+      for (int i = 0; i < a.size; i++) {
+        int v = a.node[i];
+        if (rank[u] < rank[v]) {
+          int slot = upCount[u]++;
+          upTarget[slot] = v;
+          upMillis[slot] = a.millis[i];
+          upMeters[slot] = a.meters[i];
+          upMiddle[slot] = a.middle[i];
+        } else {
+          int slot = downCount[v]++;
+          downSource[slot] = u;
+          downMillis[slot] = a.millis[i];
+          downMeters[slot] = a.meters[i];
+          downMiddle[slot] = a.middle[i];
+        }
+      }
+    }
+  }
+
+  /**
+   * Preprocess the graph. Takes seconds to minutes depending on graph size.
+   */
+  public static ContractionHierarchy build(RoadGraph graph) {
+    int n = graph.nodeCount();
+    Adjacency[] out = new Adjacency[n];
+    Adjacency[] in = new Adjacency[n];
+    for (int v = 0; v < n; v++) {
+      out[v] = new Adjacency();
+      in[v] = new Adjacency();
+    }
+    for (int e = 0; e < graph.edgeCount(); e++) {
+      addOrImprove(out, in, graph.edgeFrom(e), graph.edgeTo(e), graph.edgeMillis(e), graph.edgeMeters(e), -1);
+    }
+
+    boolean[] contracted = new boolean[n];
+    int[] contractedNeighbours = new int[n];
+    int[] level = new int[n];
+    int[] rank = new int[n];
+    Witness witness = new Witness(n, out, contracted);
+
+    LongHeap queue = new LongHeap(n);
+    for (int v = 0; v < n; v++) {
+      queue.push(pack(priority(v, out, in, contracted, contractedNeighbours, level, witness)), v);
+    }
+
+    int order = 0;
+    while (!queue.isEmpty()) {
+      long top = queue.pop();
+      int v = (int) top;
+      // Lazy update: re-evaluate and put back if it is no longer the least important node
+      long current = pack(priority(v, out, in, contracted, contractedNeighbours, level, witness));
+      if (!queue.isEmpty() && current > (queue.peek() >>> 32)) {
+        queue.push(current, v);
+        continue;
+      }
+
+      contract(v, out, in, contracted, witness, true);
+      contracted[v] = true;
+      rank[v] = order++;
+      for (int i = 0; i < out[v].size; i++) {
+        contractedNeighbours[out[v].node[i]]++;
+        level[out[v].node[i]] = Math.max(level[out[v].node[i]], level[v] + 1);
+      }
+      for (int i = 0; i < in[v].size; i++) {
+        contractedNeighbours[in[v].node[i]]++;
+        level[in[v].node[i]] = Math.max(level[in[v].node[i]], level[v] + 1);
+      }
+    }
+    return new ContractionHierarchy(graph, rank, out);
+  }
+
+  public RoadGraph graph() {
+    return graph;
+  }
+
+  /**
+   * Number of edges (original plus shortcuts) in the search graphs.
+   */
+  public int edgeCount() {
+    return upTarget.length + downSource.length;
+  }
+
+  /**
+   * Fastest path from {@code source} to {@code target}, or null when unreachable.
+   *
+   * @param withNodes whether to unpack the node sequence (for geometry)
+   */
+  public Path route(int source, int target, boolean withNodes) {
+    if (source == target) {
+      return new Path(0, 0, withNodes ? new int[] { source } : null);
+    }
+    SearchSpace space = searchSpaces.poll();
+    if (space == null) {
+      space = new SearchSpace(graph.nodeCount());
+    }
+    try {
+      return search(space, source, target, withNodes);
+    } finally {
+      space.reset();
+      searchSpaces.offer(space);
+    }
+  }
+
+  private Path search(SearchSpace s, int source, int target, boolean withNodes) {
+    s.touchForward(source, 0, 0, -1);
+    s.forwardHeap.push(0, source);
+    s.touchBackward(target, 0, 0, -1);
+    s.backwardHeap.push(0, target);
+
+    long best = INF;
+    int meet = -1;
+    while (true) {
+      long minForward = s.forwardHeap.isEmpty() ? INF : s.forwardHeap.peek() >>> 32;
+      long minBackward = s.backwardHeap.isEmpty() ? INF : s.backwardHeap.peek() >>> 32;
+      if (Math.min(minForward, minBackward) >= best) {
+        break;
+      }
+      if (minForward <= minBackward) {
+        long entry = s.forwardHeap.pop();
+        int x = (int) entry;
+        int d = (int) (entry >>> 32);
+        if (d > s.forwardDist[x]) {
+          continue;
+        }
+        if (s.backwardDist[x] != INF && (long) d + s.backwardDist[x] < best) {
+          best = (long) d + s.backwardDist[x];
+          meet = x;
+        }
+        if (stalledForward(s, x, d)) {
+          continue;
+        }
+        for (int i = upFirst[x]; i < upFirst[x + 1]; i++) {
+          int y = upTarget[i];
+          int nd = d + upMillis[i];
+          if (nd < s.forwardDist[y]) {
+            s.touchForward(y, nd, s.forwardMeters[x] + upMeters[i], x);
+            s.forwardHeap.push(nd, y);
+          }
+        }
+      } else {
+        long entry = s.backwardHeap.pop();
+        int x = (int) entry;
+        int d = (int) (entry >>> 32);
+        if (d > s.backwardDist[x]) {
+          continue;
+        }
+        if (s.forwardDist[x] != INF && (long) d + s.forwardDist[x] < best) {
+          best = (long) d + s.forwardDist[x];
+          meet = x;
+        }
+        if (stalledBackward(s, x, d)) {
+          continue;
+        }
+        for (int i = downFirst[x]; i < downFirst[x + 1]; i++) {
+          int y = downSource[i];
+          int nd = d + downMillis[i];
+          if (nd < s.backwardDist[y]) {
+            s.touchBackward(y, nd, s.backwardMeters[x] + downMeters[i], x);
+            s.backwardHeap.push(nd, y);
+          }
+        }
+      }
+    }
+    if (meet < 0) {
+      return null;
+    }
+
+    long meters = (long) s.forwardMeters[meet] + s.backwardMeters[meet];
+    if (!withNodes) {
+      return new Path(best, meters, null);
+    }
+
+    // Search-graph path: source .. meet via forward parents, meet .. target via backward parents
+    IntList hops = new IntList(64);
+    for (int x = meet; x >= 0; x = s.forwardParent[x]) {
+      hops.add(x);
+    }
+    hops.reverse();
+    for (int x = s.backwardParent[meet]; x >= 0; x = s.backwardParent[x]) {
+      hops.add(x);
+    }
+
+    IntList nodes = new IntList(hops.size * 4);
+    nodes.add(hops.get(0));
+    IntList stack = new IntList(32);
+    for (int i = 1; i < hops.size; i++) {
+      unpack(hops.get(i - 1), hops.get(i), nodes, stack);
+    }
+    return new Path(best, meters, nodes.toArray());
+  }
+
+  // Stall-on-demand: x cannot be on a shortest up-path if a more important node reaches it cheaper
+  private boolean stalledForward(SearchSpace s, int x, int d) {
+    for (int i = downFirst[x]; i < downFirst[x + 1]; i++) {
+      int y = downSource[i];
+      if (s.forwardDist[y] != INF && (long) s.forwardDist[y] + downMillis[i] < d) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean stalledBackward(SearchSpace s, int x, int d) {
+    for (int i = upFirst[x]; i < upFirst[x + 1]; i++) {
+      int y = upTarget[i];
+      if (s.backwardDist[y] != INF && (long) s.backwardDist[y] + upMillis[i] < d) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // Appends the original nodes after `from` up to and including `to`
+  private void unpack(int from, int to, IntList nodes, IntList stack) {
+    stack.add(from);
+    stack.add(to);
+    while (stack.size > 0) {
+      int b = stack.pop();
+      int a = stack.pop();
+      int middle = middleOf(a, b);
+      if (middle < 0) {
+        nodes.add(b);
+      } else {
+        // Second half is pushed first so the first half is unpacked first
+        stack.add(middle);
+        stack.add(b);
+        stack.add(a);
+        stack.add(middle);
+      }
+    }
+  }
+
+  private int middleOf(int a, int b) {
+    if (rank[a] < rank[b]) {
+      for (int i = upFirst[a]; i < upFirst[a + 1]; i++) {
+        if (upTarget[i] == b) {
+          return upMiddle[i];
+        }
+      }
+    } else {
+      for (int i = downFirst[b]; i < downFirst[b + 1]; i++) {
+        if (downSource[i] == a) {
+          return downMiddle[i];
+        }
+      }
+    }
+    throw new IllegalStateException("Missing edge " + a + " -> " + b);
+  }
+
+  // ==================== PREPROCESSING ====================
+
+  private static int priority(int v, Adjacency[] out, Adjacency[] in, boolean[] contracted,
+      int[] contractedNeighbours, int[] level, Witness witness) {
+    int shortcuts = contract(v, out, in, contracted, witness, false);
+    int removed = 0;
+    for (int i = 0; i < out[v].size; i++) {
+      if (!contracted[out[v].node[i]]) {
+        removed++;
+      }
+    }
+    for (int i = 0; i < in[v].size; i++) {
+      if (!contracted[in[v].node[i]]) {
+        removed++;
+      }
+    }
+    return 2 * (shortcuts - removed) + contractedNeighbours[v] + level[v];
+  }
+
+  /**
+   * Count (and with {@code apply}, add) the shortcuts needed to remove v.
+   */
+  private static int contract(int v, Adjacency[] out, Adjacency[] in, boolean[] contracted, Witness witness,
+      boolean apply) {
+    int shortcuts = 0;
+    Adjacency incoming = in[v];
+    Adjacency outgoing = out[v];
+    for (int i = 0; i < incoming.size; i++) {
+      int u = incoming.node[i];
+      if (contracted[u]) {
+        continue;
+      }
+      int costIn = incoming.millis[i];
+      long maxCost = 0;
+      for (int j = 0; j < outgoing.size; j++) {
+        int w = outgoing.node[j];
+        if (w != u && !contracted[w]) {
+          maxCost = Math.max(maxCost, (long) costIn + outgoing.millis[j]);
+        }
+      }
+      if (maxCost == 0) {
+        continue;
+      }
+      witness.search(u, v, maxCost, apply ? WITNESS_SETTLE_LIMIT : ESTIMATE_SETTLE_LIMIT);
+      for (int j = 0; j < outgoing.size; j++) {
+        int w = outgoing.node[j];
+        if (w == u || contracted[w]) {
+          continue;
+        }
+        long via = (long) costIn + outgoing.millis[j];
+        if (witness.dist(w) <= via) {
+          continue;
+        }
+        shortcuts++;
+        if (apply) {
+          addOrImprove(out, in, u, w, (int) via, incoming.meters[i] + outgoing.meters[j], v);
+        }
+      }
+    }
+    return shortcuts;
+  }
+
+  private static void addOrImprove(Adjacency[] out, Adjacency[] in, int u, int w, int millis, int meters,
+      int middle) {
+    int i = out[u].indexOf(w);
+    if (i < 0) {
+      out[u].add(w, millis, meters, middle);
+      in[w].add(u, millis, meters, middle);
+    } else if (millis < out[u].millis[i]) {
+      out[u].set(i, millis, meters, middle);
+      in[w].set(in[w].indexOf(u), millis, meters, middle);
+    }
+  }
+
+  private static long pack(int priority) {
+    return priority + PRIORITY_OFFSET;
+  }
+
+  /** Growable adjacency list used while contracting */
+  private static final class Adjacency {
+    private int[] node = new int[4];
+    private int[] millis = new int[4];
+    private int[] meters = new int[4];
+    private int[] middle = new int[4];
+    private int size;
+
+    private int indexOf(int target) {
+      for (int i = 0; i < size; i++) {
+        if (node[i] == target) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    private void add(int target, int cost, int length, int via) {
+      if (size == node.length) {
+        node = Arrays.copyOf(node, size * 2);
+        millis = Arrays.copyOf(millis, size * 2);
+        meters = Arrays.copyOf(meters, size * 2);
+        middle = Arrays.copyOf(middle, size * 2);
+      }
+      node[size] = target;
+      set(size, cost, length, via);
+      size++;
+    }
+
+    private void set(int i, int cost, int length, int via) {
+      millis[i] = cost;
+      meters[i] = length;
+      middle[i] = via;
+    }
+  }
+
+  /** Bounded local Dijkstra looking for paths that make a shortcut unnecessary */
+  private static final class Witness {
+    private final Adjacency[] out;
+    private final boolean[] contracted;
+    private final long[] dist;
+    private final IntList touched = new IntList(64);
+    private final LongHeap heap = new LongHeap(64);
+
+    private Witness(int n, Adjacency[] out, boolean[] contracted) {
+      this.out = out;
+      this.contracted = contracted;
+      this.dist = new long[n];
+      Arrays.fill(dist, Long.MAX_VALUE);
+    }
+
+    private void search(int source, int skip, long maxCost, int settleLimit) {
+      for (int i = 0; i < touched.size; i++) {
+        dist[touched.get(i)] = Long.MAX_VALUE;
+      }
+      touched.clear();
+      heap.clear();
+      dist[source] = 0;
+      touched.add(source);
+      heap.push(0, source);
+      int settled = 0;
+      while (!heap.isEmpty()) {
+        long entry = heap.pop();
+        int x = (int) entry;
+        long d = entry >>> 32;
+        if (d > dist[x]) {
+          continue;
+        }
+        if (d > maxCost || ++settled > settleLimit) {
+          break;
+        }
+        Adjacency a = out[x];
+        for (int i = 0; i < a.size; i++) {
+          int y = a.node[i];
+          if (y == skip || contracted[y]) {
+            continue;
+          }
+          long nd = d + a.millis[i];
+          if (nd < dist[y]) {
+            if (dist[y] == Long.MAX_VALUE) {
+              touched.add(y);
+            }
+            dist[y] = nd;
+            heap.push(nd, y);
+          }
+        }
+      }
+    }
+
+    private long dist(int node) {
+      return dist[node];
+    }
+  }
+
+  /** Per-query scratch state; reset touches only the nodes the query reached */
+  private static final class SearchSpace {
+    private final int[] forwardDist;
+    private final int[] forwardMeters;
+    private final int[] forwardParent;
+    private final int[] backwardDist;
+    private final int[] backwardMeters;
+    private final int[] backwardParent;
+    private final IntList touched = new IntList(256);
+    private final LongHeap forwardHeap = new LongHeap(256);
+    private final LongHeap backwardHeap = new LongHeap(256);
+
+    private SearchSpace(int n) {
+      forwardDist = new int[n];
+      forwardMeters = new int[n];
+      forwardParent = new int[n];
+      backwardDist = new int[n];
+      backwardMeters = new int[n];
+      backwardParent = new int[n];
+      Arrays.fill(forwardDist, INF);
+      Arrays.fill(backwardDist, INF);
+    }
+
+    private void touchForward(int node, int dist, int meters, int parent) {
+      if (forwardDist[node] == INF && backwardDist[node] == INF) {
+        touched.add(node);
+      }
+      forwardDist[node] = dist;
+      forwardMeters[node] = meters;
+      forwardParent[node] = parent;
+    }
+
+    private void touchBackward(int node, int dist, int meters, int parent) {
+      if (forwardDist[node] == INF && backwardDist[node] == INF) {
+        touched.add(node);
+      }
+      backwardDist[node] = dist;
+      backwardMeters[node] = meters;
+      backwardParent[node] = parent;
+    }
+
+    private void reset() {
+      for (int i = 0; i < touched.size; i++) {
+        int node = touched.get(i);
+        forwardDist[node] = INF;
+        backwardDist[node] = INF;
+      }
+      touched.clear();
+      forwardHeap.clear();
+      backwardHeap.clear();
+    }
+  }
+
+  /** Binary min-heap of (key, node) packed into longs: key in the high 32 bits */
+  private static final class LongHeap {
+    private long[] items;
+    private int size;
+
+    private LongHeap(int capacity) {
+      items = new long[Math.max(capacity, 16)];
+    }
+
+    private void push(long key, int node) {
+      if (size == items.length) {
+        items = Arrays.copyOf(items, size * 2);
+      }
+      long item = (key << 32) | (node & 0xffffffffL);
+      int i = size++;
+      while (i > 0) {
+        int parent = (i - 1) >>> 1;
+        if (items[parent] <= item) {
+          break;
+        }
+        items[i] = items[parent];
+        i = parent;
+      }
+      items[i] = item;
+    }
+
+    private long peek() {
+      return items[0];
+    }
+
+    private long pop() {
+      long top = items[0];
+      long last = items[--size];
+      int i = 0;
+      int half = size >>> 1;
+      while (i < half) {
+        int child = 2 * i + 1;
+        if (child + 1 < size && items[child + 1] < items[child]) {
+          child++;
+        }
+        if (last <= items[child]) {
+          break;
+        }
+        items[i] = items[child];
+        i = child;
+      }
+      if (size > 0) {
+        items[i] = last;
+      }
+      return top;
+    }
+
+    private boolean isEmpty() {
+      return size == 0;
+    }
+
+    private void clear() {
+      size = 0;
+    }
+  }
+
+  private static final class IntList {
+    private int[] items;
+    private int size;
+
+    private IntList(int capacity) {
+      items = new int[capacity];
+    }
+
+    private void add(int value) {
+      if (size == items.length) {
+        items = Arrays.copyOf(items, size * 2);
+      }
+      items[size++] = value;
+    }
+
+    private int get(int i) {
+      return items[i];
+    }
+
+    private int pop() {
+      return items[--size];
+    }
+
+    private void reverse() {
+      for (int i = 0, j = size - 1; i < j; i++, j--) {
+        int t = items[i];
+        items[i] = items[j];
+        items[j] = t;
+      }
+    }
+
+    private void clear() {
+      size = 0;
+    }
+
+    private int[] toArray() {
+      return Arrays.copyOf(items, size);
+    }
+  }
+}
@@ -0,0 +1,86 @@
+package com.ridefast.ride_fast_backend.service.routing;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Snaps coordinates to the nearest road graph node using a fixed grid of
+ * node indices (built once, read-only afterwards).
+ */
+final class NodeLocator {
+
+  private static final double METERS_PER_DEGREE = 111_320.0;
+
+  private final RoadGraph graph;
+  private final double cellDegrees;
+  private final Map<Long, int[]> cells;
+
+  NodeLocator(RoadGraph graph, double cellMeters) {
+    this.graph = graph;
+    this.cellDegrees = cellMeters / METERS_PER_DEGREE;
+
+    Map<Long, int[]> building = new HashMap<>();
+    Map<Long, Integer> sizes = new HashMap<>();
+    for (int node = 0; node < graph.nodeCount(); node++) {
+      long key = cellKey(row(graph.latitude(node)), col(graph.longitude(node)));
+      int size = sizes.merge(key, 1, Integer::sum);
+      int[] members = building.get(key);
+      if (members == null) {
+        members = new int[4];
+        building.put(key, members);
+      } else if (size > members.length) {
+        members = Arrays.copyOf(members, members.length * 2);
+        building.put(key, members);
+      }
+      members[size - 1] = node;
+    }
+    building.replaceAll((key, members) -> Arrays.copyOf(members, sizes.get(key)));
+    this.cells = building;
+  }
+
+  /**
+   * Nearest node within {@code maxMeters}, or -1.
+   */
+  int nearest(double latitude, double longitude, double maxMeters) {
+    double cellMeters = cellDegrees * METERS_PER_DEGREE;
+    double cosLat = Math.cos(Math.toRadians(latitude));
+    int rowRings = (int) Math.ceil(maxMeters / cellMeters);
+    // Columns are narrower by cos(lat), so more of them cover the same east-west distance
+    int colRings = (int) Math.ceil(maxMeters / (cellMeters * Math.max(cosLat, 0.01)));
+    long row = row(latitude);
+    long col = col(longitude);
+    double bestSq = maxMeters * maxMeters;
+    int best = -1;
+    for (long r = row - rowRings; r <= row + rowRings; r++) {
+      for (long c = col - colRings; c <= col + colRings; c++) {
+        int[] members = cells.get(cellKey(r, c));
+        if (members == null) {
+          continue;
+        }
+        for (int node : members) {
+          double dy = (graph.latitude(node) - latitude) * METERS_PER_DEGREE;
+          double dx = (graph.longitude(node) - longitude) * METERS_PER_DEGREE * cosLat;
+          double sq = dx * dx + dy * dy;
+          if (sq < bestSq) {
+            bestSq = sq;
+            best = node;
+          }
+        }
+      }
+    }
+    return best;
+  }
+
+  private long row(double latitude) {
+    return (long) Math.floor(latitude / cellDegrees);
+  }
+
+  private long col(double longitude) {
+    return (long) Math.floor(longitude / cellDegrees);
+  }
+
+  private static long cellKey(long row, long col) {
+    return (row << 32) | (col & 0xffffffffL);
+  }
+}
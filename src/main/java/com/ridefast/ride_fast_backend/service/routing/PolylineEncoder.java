@@ -0,0 +1,35 @@
+package com.ridefast.ride_fast_backend.service.routing;
+
+/**
+ * Google encoded polyline format (precision 1e5), as used in Directions
+ * API {@code overview_polyline.points}.
+ */
+public final class PolylineEncoder {
+
+  private PolylineEncoder() {
+  }
+
+  public static String encode(double[] latitudes, double[] longitudes) {
+    StringBuilder sb = new StringBuilder(latitudes.length * 6);
+    long lastLat = 0;
+    long lastLng = 0;
+    for (int i = 0; i < latitudes.length; i++) {
+      long lat = Math.round(latitudes[i] * 1e5);
+      long lng = Math.round(longitudes[i] * 1e5);
+      encodeValue(lat - lastLat, sb);
+      encodeValue(lng - lastLng, sb);
+      lastLat = lat;
+      lastLng = lng;
+    }
+    return sb.toString();
+  }
+
+  private static void encodeValue(long value, StringBuilder sb) {
+    long v = value < 0 ? ~(value << 1) : value << 1;
+    while (v >= 0x20) {
+      sb.append((char) ((0x20 | (v & 0x1f)) + 63));
+      v >>= 5;
+    }
+    sb.append((char) (v + 63));
+  }
+}
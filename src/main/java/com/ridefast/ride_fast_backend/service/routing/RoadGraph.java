@@ -0,0 +1,58 @@
+package com.ridefast.ride_fast_backend.service.routing;
+
+/**
+ * Directed road graph with dense node indices, as read by
+ * {@link RoadGraphLoader}. Edge costs are travel times in milliseconds and
+ * lengths in meters.
+ */
+public final class RoadGraph {
+
+  private final double[] latitudes;
+  private final double[] longitudes;
+  private final int[] edgeFrom;
+  private final int[] edgeTo;
+  private final int[] edgeMillis;
+  private final int[] edgeMeters;
+
+  public RoadGraph(double[] latitudes, double[] longitudes, int[] edgeFrom, int[] edgeTo, int[] edgeMillis,
+      int[] edgeMeters) {
+    this.latitudes = latitudes;
+    this.longitudes = longitudes;
+    this.edgeFrom = edgeFrom;
+    this.edgeTo = edgeTo;
+    this.edgeMillis = edgeMillis;
+    this.edgeMeters = edgeMeters;
+  }
+
+  public int nodeCount() {
+    return latitudes.length;
+  }
+
+  public int edgeCount() {
+    return edgeFrom.length;
+  }
+
+  public double latitude(int node) {
+    return latitudes[node];
+  }
+
+  public double longitude(int node) {
+    return longitudes[node];
+  }
+
+  public int edgeFrom(int edge) {
+    return edgeFrom[edge];
+  }
+
+  public int edgeTo(int edge) {
+    return edgeTo[edge];
+  }
+
+  public int edgeMillis(int edge) {
+    return edgeMillis[edge];
+  }
+
+  public int edgeMeters(int edge) {
+    return edgeMeters[edge];
+  }
+}
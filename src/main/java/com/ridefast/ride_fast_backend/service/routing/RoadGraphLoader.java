@@ -0,0 +1,135 @@
+package com.ridefast.ride_fast_backend.service.routing;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads a road graph exported from OSM data (e.g. an osmium/pyrosm export of
+ * the drivable ways of a PBF extract) in a simple line format, optionally
+ * gzip-compressed:
+ *
+ * <pre>
+ * # comment
+ * n &lt;nodeId&gt; &lt;lat&gt; &lt;lng&gt;
+ * e &lt;fromNodeId&gt; &lt;toNodeId&gt; &lt;lengthMeters&gt; &lt;speedKmh&gt; [oneway 0|1]
+ * </pre>
+ *
+ * Node ids may be sparse (OSM ids); they are remapped to dense indices and
+ * nodes that no edge references are dropped. Edges without the oneway flag
+ * are added in both directions.
+ */
+public final class RoadGraphLoader {
+
+  private RoadGraphLoader() {
+  }
+
+  public static RoadGraph load(Path file) throws IOException {
+    try (InputStream raw = Files.newInputStream(file);
+        InputStream in = file.toString().endsWith(".gz") ? new GZIPInputStream(raw, 1 << 16) : raw;
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16)) {
+      return read(reader);
+    }
+  }
+
+  static RoadGraph read(BufferedReader reader) throws IOException {
+    Map<Long, Integer> rawIndex = new HashMap<>();
+    double[] lat = new double[1024];
+    double[] lng = new double[1024];
+    int nodes = 0;
+
+    int[] from = new int[4096];
+    int[] to = new int[4096];
+    int[] millis = new int[4096];
+    int[] meters = new int[4096];
+    int edges = 0;
+
+    String line;
+    int lineNo = 0;
+    while ((line = reader.readLine()) != null) {
+      lineNo++;
+      if (line.isBlank() || line.charAt(0) == '#') {
+        continue;
+      }
+      String[] f = line.trim().split("\\s+");
+      try {
+        if ("n".equals(f[0])) {
+          if (nodes == lat.length) {
+            lat = Arrays.copyOf(lat, nodes * 2);
+            lng = Arrays.copyOf(lng, nodes * 2);
+          }
+          rawIndex.put(Long.parseLong(f[1]), nodes);
+          lat[nodes] = Double.parseDouble(f[2]);
+          lng[nodes] = Double.parseDouble(f[3]);
+          nodes++;
+        } else if ("e".equals(f[0])) {
+          Integer a = rawIndex.get(Long.parseLong(f[1]));
+          Integer b = rawIndex.get(Long.parseLong(f[2]));
+          double lengthMeters = Double.parseDouble(f[3]);
+          double speedKmh = Double.parseDouble(f[4]);
+          boolean oneway = f.length > 5 && "1".equals(f[5]);
+          if (a == null || b == null || a.equals(b) || speedKmh <= 0) {
+            continue;
+          }
+          int cost = (int) Math.max(1, Math.round(lengthMeters / (speedKmh / 3.6) * 1000));
+          int length = (int) Math.round(lengthMeters);
+          if (edges + 2 > from.length) {
+            from = Arrays.copyOf(from, from.length * 2);
+            to = Arrays.copyOf(to, to.length * 2);
+            millis = Arrays.copyOf(millis, millis.length * 2);
+            meters = Arrays.copyOf(meters, meters.length * 2);
+          }
+          from[edges] = a;
+          to[edges] = b;
+          millis[edges] = cost;
+          meters[edges] = length;
+          edges++;
+          if (!oneway) {
+            from[edges] = b;
+            to[edges] = a;
+            millis[edges] = cost;
+            meters[edges] = length;
+            edges++;
+          }
+        }
+      } catch (RuntimeException e) {
+        throw new IOException("Malformed road graph line " + lineNo + ": " + line, e);
+      }
+    }
+
+    // Keep only nodes that are part of the road network
+    int[] dense = new int[nodes];
+    Arrays.fill(dense, -1);
+    int used = 0;
+    for (int i = 0; i < edges; i++) {
+      if (dense[from[i]] < 0) {
+        dense[from[i]] = used++;
+      }
+      if (dense[to[i]] < 0) {
+        dense[to[i]] = used++;
+      }
+    }
+    double[] usedLat = new double[used];
+    double[] usedLng = new double[used];
+    for (int i = 0; i < nodes; i++) {
+      if (dense[i] >= 0) {
+        usedLat[dense[i]] = lat[i];
+        usedLng[dense[i]] = lng[i];
+      }
+    }
+    for (int i = 0; i < edges; i++) {
+      from[i] = dense[from[i]];
+      to[i] = dense[to[i]];
+    }
+    return new RoadGraph(usedLat, usedLng, Arrays.copyOf(from, edges), Arrays.copyOf(to, edges),
+        Arrays.copyOf(millis, edges), Arrays.copyOf(meters, edges));
+  }
+}
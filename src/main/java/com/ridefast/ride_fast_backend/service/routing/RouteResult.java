@@ -0,0 +1,9 @@
+package com.ridefast.ride_fast_backend.service.routing;
+
+/**
+ * Road route between two points. {@code polyline} is a Google encoded
+ * polyline, or null when geometry was not requested.
+ */
+public record RouteResult(double distanceKm, double durationMin, String polyline,
+    double startLatitude, double startLongitude, double endLatitude, double endLongitude) {
+}
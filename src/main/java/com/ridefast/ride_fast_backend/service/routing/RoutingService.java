@@ -0,0 +1,123 @@
+package com.ridefast.ride_fast_backend.service.routing;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Embedded road routing for ETAs, fare estimates and directions.
+ *
+ * The road graph ({@code app.routing.graph-file}, see {@link RoadGraphLoader})
+ * is loaded and contracted on a background thread at startup; until that
+ * finishes, or when no graph is configured, {@link #isReady()} is false and
+ * callers keep their previous behaviour (straight-line estimates, Google).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RoutingService {
+
+  private final MeterRegistry meterRegistry;
+
+  @Value("${app.routing.graph-file:}")
+  private String graphFile;
+
+  @Value("${app.routing.max-snap-meters:300}")
+  private double maxSnapMeters;
+
+  @Value("${app.routing.snap-cell-meters:250}")
+  private double snapCellMeters;
+
+  private volatile ContractionHierarchy hierarchy;
+  private volatile NodeLocator locator;
+  private Timer queryTimer;
+
+  @PostConstruct
+  void init() {
+    queryTimer = Timer.builder("routing.query")
+        .description("Point-to-point road route computation")
+        .register(meterRegistry);
+    if (graphFile == null || graphFile.isBlank()) {
+      log.info("Routing disabled: app.routing.graph-file not set");
+      return;
+    }
+    Path path = Path.of(graphFile);
+    if (!Files.isReadable(path)) {
+      log.warn("Routing disabled: road graph {} not readable", path);
+      return;
+    }
+    Thread loader = new Thread(() -> load(path), "routing-preprocess");
+    loader.setDaemon(true);
+    loader.start();
+  }
+
+  private void load(Path path) {
+    try {
+      long started = System.currentTimeMillis();
+      RoadGraph graph = RoadGraphLoader.load(path);
+      log.info("Road graph loaded: {} nodes, {} edges in {} ms", graph.nodeCount(), graph.edgeCount(),
+          System.currentTimeMillis() - started);
+      ContractionHierarchy built = ContractionHierarchy.build(graph);
+      locator = new NodeLocator(graph, snapCellMeters);
+      hierarchy = built;
+      log.info("Routing ready: {} search edges, preprocessing took {} ms", built.edgeCount(),
+          System.currentTimeMillis() - started);
+    } catch (Exception e) {
+      log.error("Routing disabled: failed to load road graph {}: {}", path, e.getMessage(), e);
+    }
+  }
+
+  public boolean isReady() {
+    return hierarchy != null;
+  }
+
+  /**
+   * Fastest road route between two coordinates, or empty when routing is not
+   * ready, either point is farther than {@code app.routing.max-snap-meters}
+   * from a road, or the points are not connected.
+   */
+  public Optional<RouteResult> route(double fromLat, double fromLng, double toLat, double toLng,
+      boolean withGeometry) {
+    ContractionHierarchy ch = hierarchy;
+    if (ch == null) {
+      return Optional.empty();
+    }
+    long started = System.nanoTime();
+    try {
+      int source = locator.nearest(fromLat, fromLng, maxSnapMeters);
+      int target = locator.nearest(toLat, toLng, maxSnapMeters);
+      if (source < 0 || target < 0) {
+        return Optional.empty();
+      }
+      ContractionHierarchy.Path path = ch.route(source, target, withGeometry);
+      if (path == null) {
+        return Optional.empty();
+      }
+      RoadGraph graph = ch.graph();
+      String polyline = null;
+      if (withGeometry) {
+        int[] nodes = path.nodes();
+        double[] lats = new double[nodes.length];
+        double[] lngs = new double[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+          lats[i] = graph.latitude(nodes[i]);
+          lngs[i] = graph.longitude(nodes[i]);
+        }
+        polyline = PolylineEncoder.encode(lats, lngs);
+      }
+      return Optional.of(new RouteResult(path.meters() / 1000.0, path.millis() / 60_000.0, polyline,
+          graph.latitude(source), graph.longitude(source), graph.latitude(target), graph.longitude(target)));
+    } finally {
+      queryTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+    }
+  }
+}
@@ -14,9 +14,12 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -64,23 +67,21 @@ public class BusAlertService {
 
 		log.debug("Found {} students to check", students.size());
 
-		for (Student student : students) {
+		// One location lookup and one batched distance computation per bus
+		Map<Long, List<Student>> studentsByBus = students.stream()
+			.collect(Collectors.groupingBy(s -> s.getBus().getId(), LinkedHashMap::new, Collectors.toList()));
+
+		for (List<Student> busStudents : studentsByBus.values()) {
 			try {
-				checkStudentAlert(student);
+				checkBusAlerts(busStudents);
 			} catch (Exception e) {
-				log.error("Error checking alert for student {}: {}", student.getId(), e.getMessage());
+				log.error("Error checking alerts for bus {}: {}", busStudents.get(0).getBus().getId(), e.getMessage());
 			}
 		}
 	}
 
-	private void checkStudentAlert(Student student) {
-		Bus bus = student.getBus();
-		Stop stop = student.getStop();
-		MyUser parent = student.getParentUser();
-
-		if (bus == null || stop == null || parent == null) {
-			return;
-		}
+	private void checkBusAlerts(List<Student> busStudents) {
+		Bus bus = busStudents.get(0).getBus();
 
 		// Get latest bus location
 		var lastPingOpt = trackingPingRepository.findFirstByBusOrderByCreatedAtDesc(bus);
@@ -96,27 +97,44 @@ public class BusAlertService {
 			log.debug("Tracking data too old for bus {}", bus.getId());
 			return;
 		}
-
-		// Get stop location
-		Double stopLat = stop.getLatitude();
-		Double stopLng = stop.getLongitude();
-
-		if (stopLat == null || stopLng == null) {
-			log.debug("Stop {} has no coordinates", stop.getId());
+		if (lastPing.getLatitude() == null || lastPing.getLongitude() == null) {
 			return;
 		}
 
-		// Calculate ETA
-		int etaMinutes = calculateETA(
-			lastPing.getLatitude(),
-			lastPing.getLongitude(),
-			stopLat,
-			stopLng
-		);
+		// Stops with coordinates, parallel to the student list
+		List<Student> located = new ArrayList<>(busStudents.size());
+		for (Student student : busStudents) {
+			Stop stop = student.getStop();
+			if (stop.getLatitude() == null || stop.getLongitude() == null) {
+				log.debug("Stop {} has no coordinates", stop.getId());
+				continue;
+			}
+			located.add(student);
+		}
+		double[] stopLatitudes = new double[located.size()];
+		double[] stopLongitudes = new double[located.size()];
+		for (int i = 0; i < stopLatitudes.length; i++) {
+			stopLatitudes[i] = located.get(i).getStop().getLatitude();
+			stopLongitudes[i] = located.get(i).getStop().getLongitude();
+		}
+		double[] distancesKm = calculatorService.calculateDistances(lastPing.getLatitude(), lastPing.getLongitude(),
+			stopLatitudes, stopLongitudes);
 
-		if (etaMinutes < 0) {
-			return;
+		for (int i = 0; i < distancesKm.length; i++) {
+			// Calculate time in minutes: distance (km) / speed (km/h) * 60
+			int etaMinutes = (int) Math.round(distancesKm[i] / AVERAGE_BUS_SPEED_KMH * 60);
+			try {
+				checkStudentAlert(located.get(i), etaMinutes);
+			} catch (Exception e) {
+				log.error("Error checking alert for student {}: {}", located.get(i).getId(), e.getMessage());
+			}
 		}
+	}
+
+	private void checkStudentAlert(Student student, int etaMinutes) {
+		Bus bus = student.getBus();
+		Stop stop = student.getStop();
+		MyUser parent = student.getParentUser();
 
 		// Check if we should send alert (ETA is around threshold)
 		if (etaMinutes <= ALERT_THRESHOLD_MINUTES + 1 && etaMinutes >= ALERT_THRESHOLD_MINUTES - 1) {
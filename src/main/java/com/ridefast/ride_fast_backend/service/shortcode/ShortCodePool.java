@@ -0,0 +1,209 @@
+package com.ridefast.ride_fast_backend.service.shortcode;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Occupancy bitmap of numeric short codes for one entity type.
+ *
+ * Codes of each length n (zero-padded, 0 .. 10^n - 1) have their own
+ * bitmap. New codes come from the shortest length still below the
+ * occupancy limit, so the code space widens once it fills up and narrows
+ * again as codes are released. A code is picked by a random start and
+ * {@link BitSet#nextClearBit}, which at bounded occupancy is a scan of a
+ * few words.
+ *
+ * With several instances each one owns a partition of every length: the
+ * codes whose value is {@code partition} modulo {@code partitions}. Two
+ * instances therefore never hand out the same code, however stale their
+ * view of the other's codes. The bitmaps and counts only cover the own
+ * partition, so a code freed on another instance is only reclaimed here by
+ * {@link #reload}.
+ */
+public final class ShortCodePool {
+
+  private final int minLength;
+  private final int maxLength;
+  private final double maxOccupancy;
+  private final int partition;
+  private final int partitions;
+  private final BitSet[] used;
+  private final int[] counts;
+  /** Allocated codes not yet {@link #settle settled} (their row may not be committed) */
+  private final Set<String> unsettled = new HashSet<>();
+  /** Codes allocated since {@link #startReload}, which the reload's snapshot may miss */
+  private final Set<String> sinceSnapshot = new HashSet<>();
+  private boolean reloading;
+
+  public ShortCodePool(int minLength, int maxLength, double maxOccupancy) {
+    this(minLength, maxLength, maxOccupancy, 0, 1);
+  }
+
+  public ShortCodePool(int minLength, int maxLength, double maxOccupancy, int partition, int partitions) {
+    if (partitions < 1 || partition < 0 || partition >= partitions || partitions > capacity(minLength)) {
+      throw new IllegalArgumentException("Invalid short code partition " + partition + " of " + partitions);
+    }
+    this.minLength = minLength;
+    this.maxLength = maxLength;
+    this.maxOccupancy = maxOccupancy;
+    this.partition = partition;
+    this.partitions = partitions;
+    this.used = new BitSet[maxLength + 1];
+    this.counts = new int[maxLength + 1];
+  }
+
+  /**
+   * Mark an existing code as taken; codes outside the pool's lengths or
+   * partition, or not all digits, are ignored.
+   */
+  public synchronized void markUsed(String code) {
+    int slot = slot(code);
+    if (slot < 0) {
+      return;
+    }
+    int length = code.length();
+    BitSet bits = bits(length);
+    if (!bits.get(slot)) {
+      bits.set(slot);
+      counts[length]++;
+    }
+  }
+
+  public synchronized String allocate(Random random) {
+    for (int length = minLength; length <= maxLength; length++) {
+      int capacity = slots(length);
+      boolean last = length == maxLength;
+      if (counts[length] >= capacity || (!last && counts[length] >= capacity * maxOccupancy)) {
+        continue;
+      }
+      BitSet bits = bits(length);
+      int slot = bits.nextClearBit(random.nextInt(capacity));
+      if (slot >= capacity) {
+        slot = bits.nextClearBit(0);
+      }
+      bits.set(slot);
+      counts[length]++;
+      String code = format(slot * partitions + partition, length);
+      unsettled.add(code);
+      if (reloading) {
+        sinceSnapshot.add(code);
+      }
+      return code;
+    }
+    throw new IllegalStateException("Short code space exhausted at " + maxLength + " digits");
+  }
+
+  /**
+   * The allocated code is now stored (or will be by the caller), so a reload
+   * no longer needs to keep it.
+   */
+  public synchronized void settle(String code) {
+    unsettled.remove(code);
+  }
+
+  public synchronized void release(String code) {
+    unsettled.remove(code);
+    sinceSnapshot.remove(code);
+    int slot = slot(code);
+    if (slot < 0 || used[code.length()] == null) {
+      return;
+    }
+    int length = code.length();
+    if (used[length].get(slot)) {
+      used[length].clear(slot);
+      counts[length]--;
+    }
+  }
+
+  /**
+   * Call before reading the snapshot of used codes passed to {@link #reload}.
+   */
+  public synchronized void startReload() {
+    reloading = true;
+    sinceSnapshot.clear();
+  }
+
+  /**
+   * Rebuild the bitmaps from {@code usedCodes}, a snapshot read after
+   * {@link #startReload}. Codes allocated but not yet settled, or allocated
+   * while the snapshot was read, stay taken; every other code missing from
+   * the snapshot is freed.
+   */
+  public synchronized void reload(Collection<String> usedCodes) {
+    for (int length = 0; length <= maxLength; length++) {
+      used[length] = null;
+      counts[length] = 0;
+    }
+    usedCodes.forEach(this::markUsed);
+    unsettled.forEach(this::markUsed);
+    sinceSnapshot.forEach(this::markUsed);
+    sinceSnapshot.clear();
+    reloading = false;
+  }
+
+  /**
+   * Codes in use in this pool's partition.
+   */
+  public synchronized int size() {
+    int total = 0;
+    for (int count : counts) {
+      total += count;
+    }
+    return total;
+  }
+
+  // Length of a well-formed code, or -1
+  private int length(String code) {
+    if (code == null || code.length() < minLength || code.length() > maxLength) {
+      return -1;
+    }
+    for (int i = 0; i < code.length(); i++) {
+      char c = code.charAt(i);
+      if (c < '0' || c > '9') {
+        return -1;
+      }
+    }
+    return code.length();
+  }
+
+  // Bit index of a well-formed code in the own partition, or -1
+  private int slot(String code) {
+    if (length(code) < 0) {
+      return -1;
+    }
+    int value = Integer.parseInt(code);
+    return value % partitions == partition ? value / partitions : -1;
+  }
+
+  // Codes of this length in the own partition
+  private int slots(int length) {
+    return (capacity(length) - partition + partitions - 1) / partitions;
+  }
+
+  private BitSet bits(int length) {
+    if (used[length] == null) {
+      used[length] = new BitSet(slots(length));
+    }
+    return used[length];
+  }
+
+  private static int capacity(int length) {
+    int capacity = 1;
+    for (int i = 0; i < length; i++) {
+      capacity *= 10;
+    }
+    return capacity;
+  }
+
+  private static String format(int value, int length) {
+    StringBuilder sb = new StringBuilder(length);
+    String digits = Integer.toString(value);
+    for (int i = digits.length(); i < length; i++) {
+      sb.append('0');
+    }
+    return sb.append(digits).toString();
+  }
+}
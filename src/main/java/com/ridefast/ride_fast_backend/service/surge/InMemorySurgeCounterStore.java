@@ -0,0 +1,78 @@
+package com.ridefast.ride_fast_backend.service.surge;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Single-node {@link SurgeCounterStore}: a ring of request buckets per zone.
+ */
+@Component
+public class InMemorySurgeCounterStore implements SurgeCounterStore {
+
+  @Value("${app.surge.window-seconds:300}")
+  private int windowSeconds;
+
+  @Value("${app.surge.bucket-seconds:10}")
+  private int bucketSeconds;
+
+  private final Map<String, BucketRing> requests = new ConcurrentHashMap<>();
+
+  private static final class BucketRing {
+    private final long[] epochs;
+    private final int[] counts;
+
+    private BucketRing(int size) {
+      epochs = new long[size];
+      counts = new int[size];
+    }
+
+    private synchronized void add(long epoch) {
+      int slot = (int) (epoch % counts.length);
+      if (epochs[slot] != epoch) {
+        epochs[slot] = epoch;
+        counts[slot] = 0;
+      }
+      counts[slot]++;
+    }
+
+    private synchronized int sum(long currentEpoch) {
+      int total = 0;
+      for (int i = 0; i < counts.length; i++) {
+        if (currentEpoch - epochs[i] < counts.length) {
+          total += counts[i];
+        }
+      }
+      return total;
+    }
+  }
+
+  @Override
+  public void recordRequest(String zone, long nowMillis) {
+    requests.computeIfAbsent(zone, z -> new BucketRing(bucketCount())).add(epoch(nowMillis));
+  }
+
+  @Override
+  public Map<String, Integer> requests(long nowMillis) {
+    long epoch = epoch(nowMillis);
+    Map<String, Integer> counts = new HashMap<>();
+    requests.forEach((zone, ring) -> {
+      int count = ring.sum(epoch);
+      if (count > 0) {
+        counts.put(zone, count);
+      }
+    });
+    return counts;
+  }
+
+  private long epoch(long nowMillis) {
+    return nowMillis / (bucketSeconds * 1000L);
+  }
+
+  private int bucketCount() {
+    return Math.max(1, windowSeconds / bucketSeconds);
+  }
+}
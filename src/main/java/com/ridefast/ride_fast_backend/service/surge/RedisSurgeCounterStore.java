@@ -0,0 +1,53 @@
+package com.ridefast.ride_fast_backend.service.surge;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link SurgeCounterStore} shared by all instances through Redis: one hash
+ * of zone to request count per bucket, {@code surge:req:<bucket>}, expiring
+ * after the window.
+ */
+@Component
+@RequiredArgsConstructor
+public class RedisSurgeCounterStore implements SurgeCounterStore {
+
+  private static final String REQUESTS = "surge:req:";
+
+  private final StringRedisTemplate redisTemplate;
+
+  @Value("${app.surge.window-seconds:300}")
+  private int windowSeconds;
+
+  @Value("${app.surge.bucket-seconds:10}")
+  private int bucketSeconds;
+
+  @Override
+  public void recordRequest(String zone, long nowMillis) {
+    String key = REQUESTS + epoch(nowMillis);
+    redisTemplate.opsForHash().increment(key, zone, 1);
+    redisTemplate.expire(key, Duration.ofSeconds(windowSeconds + bucketSeconds));
+  }
+
+  @Override
+  public Map<String, Integer> requests(long nowMillis) {
+    Map<String, Integer> counts = new HashMap<>();
+    long epoch = epoch(nowMillis);
+    int buckets = Math.max(1, windowSeconds / bucketSeconds);
+    for (long b = epoch - buckets + 1; b <= epoch; b++) {
+      Map<Object, Object> bucket = redisTemplate.opsForHash().entries(REQUESTS + b);
+      bucket.forEach((zone, count) -> counts.merge((String) zone, Integer.parseInt((String) count), Integer::sum));
+    }
+    return counts;
+  }
+
+  private long epoch(long nowMillis) {
+    return nowMillis / (bucketSeconds * 1000L);
+  }
+}
@@ -0,0 +1,17 @@
+package com.ridefast.ride_fast_backend.service.surge;
+
+import java.util.Map;
+
+/**
+ * Per-zone ride request counters behind {@link SurgePricingService}, kept in
+ * time buckets over a sliding window.
+ */
+public interface SurgeCounterStore {
+
+  void recordRequest(String zone, long nowMillis);
+
+  /**
+   * Requests per zone within the window ending at {@code nowMillis}.
+   */
+  Map<String, Integer> requests(long nowMillis);
+}
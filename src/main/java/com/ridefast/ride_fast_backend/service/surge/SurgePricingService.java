@@ -0,0 +1,201 @@
+package com.ridefast.ride_fast_backend.service.surge;
+
+import com.ridefast.ride_fast_backend.service.dispatch.DriverSpatialIndex;
+import com.ridefast.ride_fast_backend.service.dispatch.RedisDriverLocationStore;
+import com.ridefast.ride_fast_backend.service.zone.ZoneIndexService;
+import com.ridefast.ride_fast_backend.service.zone.ZoneMatch;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.geo.Point;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Zone surge multipliers from live supply and demand.
+ *
+ * Ride requests are counted per pickup zone over a sliding window
+ * ({@code app.surge.store}: memory for a single node, redis across nodes).
+ * Every tick each zone's multiplier moves towards
+ * {@code 1 + sensitivity * (requests / idle drivers - threshold)},
+ * exponentially smoothed and capped. Idle drivers are counted once from
+ * the shared Redis driver store when the counters are shared (every
+ * instance's local index holds all drivers, so summing instances would
+ * overcount), else from the local index. The fare path reads the published
+ * map with one lookup per quote; rides keep the multiplier they were
+ * requested at, which the completion fare applies.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SurgePricingService {
+
+  private final ZoneIndexService zoneIndexService;
+  private final DriverSpatialIndex driverSpatialIndex;
+  private final RedisDriverLocationStore redisDriverStore;
+  private final InMemorySurgeCounterStore memoryStore;
+  private final RedisSurgeCounterStore redisStore;
+  private final MeterRegistry meterRegistry;
+
+  @Value("${app.surge.enabled:false}")
+  private boolean enabled;
+
+  @Value("${app.surge.store:memory}")
+  private String storeName;
+
+  @Value("${app.surge.min-requests:3}")
+  private int minRequests;
+
+  @Value("${app.surge.threshold:1.0}")
+  private double threshold;
+
+  @Value("${app.surge.sensitivity:0.5}")
+  private double sensitivity;
+
+  @Value("${app.surge.max-multiplier:2.5}")
+  private double maxMultiplier;
+
+  @Value("${app.surge.smoothing:0.3}")
+  private double smoothing;
+
+  @Value("${app.surge.step:0.1}")
+  private double step;
+
+  // Smoothed values (tick thread only) and the rounded multipliers > 1 served to the fare path
+  private final Map<String, Double> smoothed = new HashMap<>();
+  private volatile Map<String, Double> published = Map.of();
+
+  @PostConstruct
+  void init() {
+    meterRegistry.gauge("surge.zones.active", this, s -> s.published.size());
+  }
+
+  /**
+   * Count a ride request at its pickup point.
+   */
+  public void recordRequest(double lat, double lng) {
+    if (!enabled) {
+      return;
+    }
+    Optional<ZoneMatch> zone = zoneIndexService.findZone(lat, lng);
+    if (zone.isEmpty()) {
+      return;
+    }
+    try {
+      store().recordRequest(zone.get().name(), System.currentTimeMillis());
+    } catch (RuntimeException e) {
+      log.debug("Surge request counter update failed: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * Current multiplier for a zone; 1.0 when there is no surge.
+   */
+  public double multiplier(String zoneName) {
+    if (zoneName == null) {
+      return 1.0;
+    }
+    return published.getOrDefault(zoneName, 1.0);
+  }
+
+  /**
+   * Current multiplier at a pickup point; 1.0 when there is no surge.
+   */
+  public double multiplierAt(double lat, double lng) {
+    if (published.isEmpty()) {
+      return 1.0;
+    }
+    return multiplier(zoneIndexService.findZone(lat, lng).map(ZoneMatch::name).orElse(null));
+  }
+
+  public Map<String, Double> multipliers() {
+    return published;
+  }
+
+  @Scheduled(fixedDelayString = "${app.surge.tick-ms:15000}")
+  void tick() {
+    if (!enabled) {
+      published = Map.of();
+      return;
+    }
+    Map<String, Integer> requests;
+    try {
+      requests = store().requests(System.currentTimeMillis());
+    } catch (RuntimeException e) {
+      // Keep the previous multipliers rather than dropping surge on a counter outage
+      log.warn("Surge counters unavailable, keeping previous multipliers: {}", e.getMessage());
+      return;
+    }
+    Map<String, Integer> idle = idleDrivers();
+    Map<String, ZoneLoad> loads = new HashMap<>();
+    requests.forEach((zone, count) -> loads.put(zone, new ZoneLoad(count, idle.getOrDefault(zone, 0))));
+
+    // Zones that lost all load keep decaying towards 1.0
+    Set<String> zones = new HashSet<>(loads.keySet());
+    zones.addAll(smoothed.keySet());
+    Map<String, Double> next = new HashMap<>();
+    for (String zone : zones) {
+      ZoneLoad load = loads.get(zone);
+      double target = load == null ? 1.0 : target(load);
+      double previous = smoothed.getOrDefault(zone, 1.0);
+      double value = previous + smoothing * (target - previous);
+      if (value > 1.0 + step / 2) {
+        smoothed.put(zone, value);
+        double rounded = Math.floor(value / step + 1e-9) * step;
+        if (rounded > 1.0) {
+          next.put(zone, Math.round(rounded * 100.0) / 100.0);
+        }
+      } else {
+        smoothed.remove(zone);
+      }
+    }
+    published = Map.copyOf(next);
+  }
+
+  private double target(ZoneLoad load) {
+    if (load.requests() < minRequests) {
+      return 1.0;
+    }
+    double ratio = (double) load.requests() / Math.max(1, load.idleDrivers());
+    double raw = 1.0 + sensitivity * Math.max(0.0, ratio - threshold);
+    return Math.min(maxMultiplier, raw);
+  }
+
+  // Idle drivers per zone: from the shared Redis store with redis counters, else (or while it is down) locally
+  private Map<String, Integer> idleDrivers() {
+    Map<String, Integer> idle = new HashMap<>();
+    if (store() == redisStore && redisDriverStore.isAvailable()) {
+      try {
+        for (Point position : redisDriverStore.idlePositions()) {
+          countZone(idle, position.getY(), position.getX());
+        }
+        return idle;
+      } catch (RuntimeException e) {
+        log.debug("Shared driver positions unavailable, counting idle drivers locally: {}", e.getMessage());
+        idle.clear();
+      }
+    }
+    for (DriverSpatialIndex.Entry driver : driverSpatialIndex.entries()) {
+      if (!driver.busy()) {
+        countZone(idle, driver.latitude(), driver.longitude());
+      }
+    }
+    return idle;
+  }
+
+  private void countZone(Map<String, Integer> counts, double lat, double lng) {
+    zoneIndexService.findZone(lat, lng).ifPresent(zone -> counts.merge(zone.name(), 1, Integer::sum));
+  }
+
+  private SurgeCounterStore store() {
+    return "redis".equalsIgnoreCase(storeName) ? redisStore : memoryStore;
+  }
+}
@@ -0,0 +1,8 @@
+package com.ridefast.ride_fast_backend.service.surge;
+
+/**
+ * Demand and supply of one zone: ride requests within the sliding window
+ * and idle online drivers.
+ */
+public record ZoneLoad(int requests, int idleDrivers) {
+}
@@ -0,0 +1,142 @@
+package com.ridefast.ride_fast_backend.service.zone;
+
+import com.ridefast.ride_fast_backend.model.Zone;
+import com.ridefast.ride_fast_backend.model.v2.ZoneV2;
+import com.ridefast.ride_fast_backend.repository.ZoneRepository;
+import com.ridefast.ride_fast_backend.repository.v2.ZoneV2Repository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.PrecisionModel;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
+import org.locationtech.jts.index.strtree.STRtree;
+import org.locationtech.jts.io.WKTReader;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Point-in-zone lookups over all active zone polygons.
+ *
+ * Polygons are parsed once into prepared geometries inside an STR-tree; a
+ * lookup is an envelope query plus a prepared {@code covers} test on the few
+ * candidates. {@link #refresh()} rebuilds the tree off to the side and swaps
+ * it in, so readers never see a half-built index. Admin zone edits refresh
+ * immediately; the periodic refresh picks up edits made on other instances.
+ *
+ * Zones from the {@code zone} table ({@code polygonWkt}) are indexed first;
+ * v2 {@code zones} rows with WKT coordinates are added when no zone of the
+ * same name exists. Where polygons overlap, the zone loaded first wins, as
+ * with the previous linear scan.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ZoneIndexService {
+
+  private final ZoneRepository zoneRepository;
+  private final ZoneV2Repository zoneV2Repository;
+
+  private final GeometryFactory geometryFactory = new GeometryFactory(new PrecisionModel(), 4326);
+
+  private volatile STRtree index = emptyIndex();
+
+  private record IndexedZone(int order, ZoneMatch match, PreparedGeometry polygon) {
+  }
+
+  @PostConstruct
+  void init() {
+    refresh();
+  }
+
+  @Scheduled(fixedDelayString = "${app.zones.refresh-interval-ms:300000}",
+      initialDelayString = "${app.zones.refresh-interval-ms:300000}")
+  void scheduledRefresh() {
+    refresh();
+  }
+
+  /**
+   * Reload all active zones and atomically replace the index.
+   */
+  public void refresh() {
+    try {
+      WKTReader reader = new WKTReader(geometryFactory);
+      STRtree tree = new STRtree();
+      Set<String> names = new HashSet<>();
+      int order = 0;
+      int skipped = 0;
+
+      for (Zone z : zoneRepository.findAll()) {
+        if (z == null || z.getActive() == null || !z.getActive()) continue;
+        Geometry polygon = parse(reader, z.getPolygonWkt());
+        if (polygon == null) {
+          skipped++;
+          continue;
+        }
+        insert(tree, order++, new ZoneMatch(z.getId(), z.getReadableId(), z.getName()), polygon);
+        names.add(z.getName());
+      }
+      for (ZoneV2 z : zoneV2Repository.findAll()) {
+        if (z == null || !Boolean.TRUE.equals(z.getIsActive()) || names.contains(z.getName())) continue;
+        Geometry polygon = parse(reader, z.getCoordinates());
+        if (polygon == null) {
+          skipped++;
+          continue;
+        }
+        insert(tree, order++, new ZoneMatch(null, null, z.getName()), polygon);
+      }
+
+      tree.build();
+      index = tree;
+      log.info("Zone index refreshed: {} polygons, {} skipped (missing or invalid WKT)", order, skipped);
+    } catch (Exception e) {
+      log.error("Zone index refresh failed, keeping previous index: {}", e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Zone covering the point, if any.
+   */
+  public Optional<ZoneMatch> findZone(double lat, double lng) {
+    Point point = geometryFactory.createPoint(new Coordinate(lng, lat)); // x=lng, y=lat
+    IndexedZone best = null;
+    @SuppressWarnings("unchecked")
+    List<IndexedZone> candidates = index.query(new Envelope(lng, lng, lat, lat));
+    for (IndexedZone candidate : candidates) {
+      if ((best == null || candidate.order() < best.order()) && candidate.polygon().covers(point)) {
+        best = candidate;
+      }
+    }
+    return best == null ? Optional.empty() : Optional.of(best.match());
+  }
+
+  private void insert(STRtree tree, int order, ZoneMatch match, Geometry polygon) {
+    tree.insert(polygon.getEnvelopeInternal(), new IndexedZone(order, match, PreparedGeometryFactory.prepare(polygon)));
+  }
+
+  private static Geometry parse(WKTReader reader, String wkt) {
+    if (wkt == null || wkt.isBlank()) return null;
+    try {
+      Geometry geometry = reader.read(wkt);
+      return geometry == null || geometry.isEmpty() || geometry.getDimension() < 2 ? null : geometry;
+    } catch (Exception ignore) {
+      return null;
+    }
+  }
+
+  private static STRtree emptyIndex() {
+    STRtree tree = new STRtree();
+    tree.build();
+    return tree;
+  }
+}
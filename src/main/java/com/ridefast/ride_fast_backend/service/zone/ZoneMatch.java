@@ -0,0 +1,8 @@
+package com.ridefast.ride_fast_backend.service.zone;
+
+/**
+ * Zone containing a point. {@code zoneId} and {@code readableId} are null
+ * when the polygon only exists in the v2 {@code zones} table.
+ */
+public record ZoneMatch(Long zoneId, String readableId, String name) {
+}
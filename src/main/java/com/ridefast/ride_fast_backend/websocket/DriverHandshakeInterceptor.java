@@ -0,0 +1,67 @@
+package com.ridefast.ride_fast_backend.websocket;
+
+import com.ridefast.ride_fast_backend.repository.DriverRepository;
+import com.ridefast.ride_fast_backend.util.JwtTokenHelper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.Map;
+
+/**
+ * Binds the driver identity of a WebSocket session at handshake.
+ *
+ * The JWT is read from the {@code Authorization: Bearer} header or, for
+ * clients that cannot set headers, the {@code token} query parameter. When it
+ * is valid and belongs to a driver, the driver id is stored in the session
+ * attribute {@link #DRIVER_ID}; location updates are only accepted from such
+ * sessions. Connections without a driver token are still accepted (riders and
+ * fleet monitoring).
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class DriverHandshakeInterceptor implements HandshakeInterceptor {
+
+    public static final String DRIVER_ID = "driverId";
+
+    private final JwtTokenHelper jwtTokenHelper;
+    private final DriverRepository driverRepository;
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+            WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        String token = token(request);
+        if (token == null) {
+            return true;
+        }
+        try {
+            String email = jwtTokenHelper.getUsernameFromToken(token);
+            driverRepository.findIdByEmail(email).ifPresent(id -> attributes.put(DRIVER_ID, id));
+        } catch (RuntimeException e) {
+            // Expired, malformed or badly signed: connect without a driver identity
+            log.debug("Ignoring WebSocket handshake token: {}", e.getMessage());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+            WebSocketHandler wsHandler, Exception exception) {
+    }
+
+    private static String token(ServerHttpRequest request) {
+        String header = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.startsWith("Bearer ")) {
+            return header.substring(7);
+        }
+        String query = UriComponentsBuilder.fromUri(request.getURI()).build().getQueryParams().getFirst("token");
+        return query != null && !query.isBlank() ? query : null;
+    }
+}
@@ -0,0 +1,80 @@
+package com.ridefast.ride_fast_backend.websocket;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Latest position per driver for the fleet monitoring stream.
+ *
+ * Location pings overwrite each other here and {@link #drain()} hands back
+ * one entry per driver that moved since the previous drain, so monitoring
+ * egress per flush is bounded by the number of drivers rather than the ping
+ * rate. Coordinates are rounded to {@code quantize-decimals} places when
+ * that is non-negative (5 ≈ 1 m, 4 ≈ 11 m).
+ */
+@Component
+public class FleetLocationConflator {
+
+    @Value("${app.realtime.fleet-locations.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.realtime.fleet-locations.quantize-decimals:-1}")
+    private int quantizeDecimals;
+
+    private final Map<String, Position> latest = new ConcurrentHashMap<>();
+
+    private record Position(Object driverId, Object rideId, double lat, double lng, Number heading, long ts) {
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Record a driver position; an older fix than the one pending is ignored.
+     */
+    public void offer(Object driverId, Object rideId, double lat, double lng, Number heading, long ts) {
+        Position position = new Position(driverId, rideId, lat, lng, heading, ts);
+        latest.merge(String.valueOf(driverId), position, (pending, fresh) -> fresh.ts() >= pending.ts() ? fresh : pending);
+    }
+
+    public int pendingCount() {
+        return latest.size();
+    }
+
+    /**
+     * Remove and return the pending positions as frame entries.
+     */
+    public List<Map<String, Object>> drain() {
+        List<Map<String, Object>> drivers = new ArrayList<>(latest.size());
+        for (String key : latest.keySet()) {
+            Position p = latest.remove(key);
+            if (p == null) {
+                continue;
+            }
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("driverId", p.driverId());
+            if (p.rideId() != null) entry.put("rideId", p.rideId());
+            entry.put("lat", quantize(p.lat()));
+            entry.put("lng", quantize(p.lng()));
+            if (p.heading() != null) entry.put("heading", p.heading());
+            entry.put("ts", p.ts());
+            drivers.add(entry);
+        }
+        return drivers;
+    }
+
+    private double quantize(double degrees) {
+        if (quantizeDecimals < 0) {
+            return degrees;
+        }
+        double scale = Math.pow(10, quantizeDecimals);
+        return Math.round(degrees * scale) / scale;
+    }
+}
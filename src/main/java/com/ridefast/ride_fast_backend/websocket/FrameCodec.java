@@ -0,0 +1,210 @@
+package com.ridefast.ride_fast_backend.websocket;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Wire formats for the realtime WebSocket.
+ *
+ * JSON text frames ({@code {"event", "data", "timestamp"}}) are the default.
+ * Clients that offer the {@value #PROTOCOL_CBOR} subprotocol at handshake get
+ * binary CBOR frames instead: {@code {"e": eventCode, "d": data, "t": epochMillis}},
+ * with {@link LocalDateTime} values in the payload written as epoch millis.
+ * Events without a code carry their name in {@code "e"}. Binary frames from
+ * such clients are decoded to the same map the JSON path produces, and may
+ * name the event by code in {@code "e"}.
+ */
+@Slf4j
+@Component
+public class FrameCodec {
+
+    public static final String PROTOCOL_CBOR = "ridefast-cbor-v1";
+    public static final String PROTOCOL_JSON = "ridefast-json-v1";
+
+    private static final Map<String, Integer> EVENT_CODES = Map.ofEntries(
+        Map.entry("connected", 1),
+        Map.entry("joined", 2),
+        Map.entry("error", 3),
+        Map.entry("pong", 4),
+        Map.entry("ping", 5),
+        Map.entry("join", 6),
+        Map.entry("leave", 7),
+        Map.entry("viewport", 8),
+        Map.entry("viewport_clear", 9),
+        Map.entry("ride_status", 10),
+        Map.entry("new_ride_request", 11),
+        Map.entry("ride_offer_withdrawn", 12),
+        Map.entry("no_driver_found", 13),
+        Map.entry("driver_location", 20),
+        Map.entry("fleet_locations", 21),
+        Map.entry("driver_status", 22),
+        Map.entry("fleet_stats", 23),
+        Map.entry("fleet_drivers", 24),
+        Map.entry("location", 25),
+        Map.entry("wallet_update", 30),
+        Map.entry("booking_status", 31),
+        Map.entry("chat_message", 40),
+        Map.entry("chat", 41)
+    );
+
+    private static final Map<Integer, String> EVENT_NAMES = new HashMap<>();
+
+    static {
+        EVENT_CODES.forEach((name, code) -> EVENT_NAMES.put(code, name));
+    }
+
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper cborMapper;
+    private final RealtimeMetrics metrics;
+
+    public FrameCodec(ObjectMapper objectMapper, RealtimeMetrics metrics) {
+        this.jsonMapper = objectMapper;
+        this.metrics = metrics;
+        SimpleModule epochMillis = new SimpleModule("realtime-epoch-millis");
+        epochMillis.addSerializer(LocalDateTime.class, new StdSerializer<>(LocalDateTime.class) {
+            @Override
+            public void serialize(LocalDateTime value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+                gen.writeNumber(value.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+            }
+        });
+        this.cborMapper = objectMapper.copyWith(new CBORFactory())
+            .registerModule(epochMillis)
+            .enable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(SerializationFeature.WRITE_DATE_TIMESTAMPS_AS_NANOSECONDS);
+    }
+
+    public boolean isBinary(WebSocketSession session) {
+        return PROTOCOL_CBOR.equals(session.getAcceptedProtocol());
+    }
+
+    /**
+     * Event envelope for {@code data}, encoded lazily per format.
+     */
+    public OutboundFrame encode(String event, Object data) {
+        long timestamp = System.currentTimeMillis();
+        return new OutboundFrame(
+            () -> toText(event, Map.of("event", event, "data", data, "timestamp", timestamp)),
+            () -> toBinary(event, binaryEnvelope(event, data, timestamp)));
+    }
+
+    /**
+     * Error frame; the JSON form keeps its historical flat shape.
+     */
+    public OutboundFrame encodeError(String message) {
+        long timestamp = System.currentTimeMillis();
+        return new OutboundFrame(
+            () -> toText("error", Map.of("event", "error", "message", message, "timestamp", timestamp)),
+            () -> toBinary("error", binaryEnvelope("error", Map.of("message", message), timestamp)));
+    }
+
+    /**
+     * Frame from an already encoded JSON envelope (e.g. relayed by another
+     * node); the CBOR form is converted from the JSON tree, so payload
+     * timestamps stay as the JSON strings.
+     */
+    public OutboundFrame fromJson(String json) {
+        TextMessage text = new TextMessage(json);
+        return new OutboundFrame(() -> text, () -> {
+            try {
+                JsonNode envelope = jsonMapper.readTree(json);
+                String event = envelope.path("event").asText();
+                JsonNode data = envelope.has("data") ? envelope.get("data") : envelope;
+                return toBinary(event, binaryEnvelope(event, data, envelope.path("timestamp").asLong()));
+            } catch (IOException e) {
+                metrics.error("encode");
+                log.error("Error converting relayed frame to CBOR: {}", e.getMessage());
+                return null;
+            }
+        });
+    }
+
+    /**
+     * The frame in the session's negotiated format, or null if it cannot be encoded.
+     */
+    public WebSocketMessage<?> select(OutboundFrame frame, WebSocketSession session) {
+        if (isBinary(session)) {
+            byte[] bytes = frame.binary();
+            return bytes != null ? new BinaryMessage(bytes) : null;
+        }
+        return frame.text();
+    }
+
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> decodeText(String payload) throws IOException {
+        return jsonMapper.readValue(payload, Map.class);
+    }
+
+    /**
+     * Decode a client CBOR frame; a numeric {@code "e"} is mapped to {@code "event"}.
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> decodeBinary(ByteBuffer payload) throws IOException {
+        byte[] bytes = new byte[payload.remaining()];
+        payload.get(bytes);
+        Map<String, Object> data = cborMapper.readValue(bytes, Map.class);
+        if (!data.containsKey("event") && data.get("e") != null) {
+            Object e = data.get("e");
+            data.put("event", e instanceof Number code ? EVENT_NAMES.get(code.intValue()) : e.toString());
+        }
+        return data;
+    }
+
+    public static Integer eventCode(String event) {
+        return EVENT_CODES.get(event);
+    }
+
+    private Map<String, Object> binaryEnvelope(String event, Object data, long timestamp) {
+        Map<String, Object> envelope = new LinkedHashMap<>(4);
+        Integer code = EVENT_CODES.get(event);
+        envelope.put("e", code != null ? code : event);
+        envelope.put("d", data);
+        envelope.put("t", timestamp);
+        return envelope;
+    }
+
+    private TextMessage toText(String event, Map<String, Object> envelope) {
+        long start = System.nanoTime();
+        try {
+            TextMessage message = new TextMessage(jsonMapper.writeValueAsString(envelope));
+            metrics.encoded(event, "json", System.nanoTime() - start);
+            return message;
+        } catch (IOException e) {
+            metrics.error("encode");
+            log.error("Error serializing {} event: {}", event, e.getMessage());
+            return null;
+        }
+    }
+
+    private byte[] toBinary(String event, Map<String, Object> envelope) {
+        long start = System.nanoTime();
+        try {
+            byte[] bytes = cborMapper.writeValueAsBytes(envelope);
+            metrics.encoded(event, "cbor", System.nanoTime() - start);
+            return bytes;
+        } catch (IOException e) {
+            metrics.error("encode");
+            log.error("Error serializing {} event as CBOR: {}", event, e.getMessage());
+            return null;
+        }
+    }
+}
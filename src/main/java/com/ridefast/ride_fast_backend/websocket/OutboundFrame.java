@@ -0,0 +1,47 @@
+package com.ridefast.ride_fast_backend.websocket;
+
+import org.springframework.web.socket.TextMessage;
+
+import java.util.function.Supplier;
+
+/**
+ * One outbound event, encoded at most once per wire format.
+ *
+ * The JSON text and CBOR bytes are produced on first use, so a broadcast
+ * whose room only holds JSON sessions never pays for CBOR and vice versa.
+ * An encoder returns null when the payload cannot be encoded.
+ */
+public final class OutboundFrame {
+
+    private final Supplier<TextMessage> textEncoder;
+    private final Supplier<byte[]> binaryEncoder;
+    private volatile TextMessage text;
+    private volatile byte[] binary;
+
+    OutboundFrame(Supplier<TextMessage> textEncoder, Supplier<byte[]> binaryEncoder) {
+        this.textEncoder = textEncoder;
+        this.binaryEncoder = binaryEncoder;
+    }
+
+    public TextMessage text() {
+        TextMessage result = text;
+        if (result == null) {
+            result = textEncoder.get();
+            text = result;
+        }
+        return result;
+    }
+
+    /**
+     * CBOR encoding; callers wrap it per send since a BinaryMessage buffer is
+     * consumed when written.
+     */
+    public byte[] binary() {
+        byte[] result = binary;
+        if (result == null) {
+            result = binaryEncoder.get();
+            binary = result;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,269 @@
+package com.ridefast.ride_fast_backend.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Fans room broadcasts out to the other app instances over Redis pub/sub.
+ *
+ * Each room maps to channel {@code <channel-prefix><room>}; a node is
+ * subscribed only to the channels of rooms that have a local session, so it
+ * receives just the traffic it can deliver. Subscribe/unsubscribe calls run
+ * on a single background thread (they block while Redis is unreachable) and
+ * always reconcile against the current room state, so quick open/close
+ * churn settles on the right subscription set; a periodic resync retries
+ * changes that failed while Redis was down.
+ *
+ * Messages carry the frame's JSON encoding (converted on receipt for CBOR
+ * sessions), prefixed by the origin node id and conflation key; a node
+ * ignores its own messages because the sender delivers locally before
+ * publishing. Received messages are handed to local sessions on a single
+ * thread, so frames of a room keep their publish order across nodes. Publish failures trip a circuit
+ * breaker for {@code app.realtime.cluster.retry-after-ms} during which
+ * delivery is local-only.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RealtimeClusterBus implements RoomRegistry.RoomListener, MessageListener {
+
+    private static final char SEPARATOR = '\n';
+
+    private final RedisConnectionFactory connectionFactory;
+    private final StringRedisTemplate redisTemplate;
+    private final RoomRegistry roomRegistry;
+    private final SessionSender sessionSender;
+    private final FrameCodec frameCodec;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.realtime.cluster.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.realtime.cluster.channel-prefix:realtime:room:}")
+    private String channelPrefix;
+
+    @Value("${app.realtime.cluster.retry-after-ms:30000}")
+    private long retryAfterMs;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    // Changed only on the interest thread
+    private final Set<String> subscribed = ConcurrentHashMap.newKeySet();
+
+    private volatile RemoteDelivery remoteDelivery = this::deliverToRoom;
+    private RedisMessageListenerContainer container;
+    private ExecutorService interestExecutor;
+    private ExecutorService deliveryExecutor;
+    private volatile long unavailableUntil = 0L;
+    private Counter published;
+    private Counter received;
+    private Counter publishFailures;
+
+    /**
+     * Hands a frame relayed from another node to this node's sessions.
+     */
+    public interface RemoteDelivery {
+        void deliver(String room, String json, String conflationKey);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            log.info("Realtime cluster bus disabled, WebSocket delivery is local-only");
+            return;
+        }
+        published = meterRegistry.counter("realtime.cluster.messages", "direction", "out");
+        received = meterRegistry.counter("realtime.cluster.messages", "direction", "in");
+        publishFailures = meterRegistry.counter("realtime.cluster.publish.failures");
+        meterRegistry.gauge("realtime.cluster.subscriptions", subscribed, Set::size);
+
+        interestExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "realtime-cluster");
+            t.setDaemon(true);
+            return t;
+        });
+        // One delivery thread keeps relayed frames in the order Redis delivered them, as local
+        // broadcasts are; the default executor starts a thread per message and could reorder a room
+        deliveryExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "realtime-cluster-in");
+            t.setDaemon(true);
+            return t;
+        });
+        container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.setTaskExecutor(deliveryExecutor);
+        container.afterPropertiesSet();
+        container.start();
+        roomRegistry.addListener(this);
+        // Rooms joined before the listener was registered
+        roomRegistry.roomNames().forEach(this::submitReconcile);
+        log.info("Realtime cluster bus started on node {}", nodeId);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (!enabled) {
+            return;
+        }
+        interestExecutor.shutdownNow();
+        try {
+            container.destroy();
+        } catch (Exception e) {
+            log.debug("Error stopping realtime cluster listener: {}", e.getMessage());
+        }
+        deliveryExecutor.shutdownNow();
+    }
+
+    /**
+     * True when broadcasts should also be published to other nodes.
+     */
+    public boolean isActive() {
+        return enabled && System.currentTimeMillis() >= unavailableUntil;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Publish an encoded frame for remote nodes holding the room (the caller
+     * delivers to local sessions itself).
+     */
+    public void publish(String room, OutboundFrame frame, String conflationKey) {
+        TextMessage text = frame.text();
+        if (!isActive() || text == null) {
+            return;
+        }
+        String body = nodeId + SEPARATOR + (conflationKey == null ? "" : conflationKey) + SEPARATOR + text.getPayload();
+        try {
+            redisTemplate.convertAndSend(channelPrefix + room, body);
+            published.increment();
+        } catch (RuntimeException e) {
+            publishFailures.increment();
+            markUnavailable(e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+        if (!channel.startsWith(channelPrefix)) {
+            return;
+        }
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int first = body.indexOf(SEPARATOR);
+        int second = first < 0 ? -1 : body.indexOf(SEPARATOR, first + 1);
+        if (second < 0 || (first == nodeId.length() && body.startsWith(nodeId))) {
+            return;
+        }
+        received.increment();
+        String conflationKey = second == first + 1 ? null : body.substring(first + 1, second);
+        remoteDelivery.deliver(channel.substring(channelPrefix.length()), body.substring(second + 1), conflationKey);
+    }
+
+    /**
+     * Replace how relayed frames reach local sessions (default: every session in the room).
+     */
+    public void setRemoteDelivery(RemoteDelivery remoteDelivery) {
+        this.remoteDelivery = remoteDelivery;
+    }
+
+    /**
+     * Queue a relayed JSON frame to every local session in the room.
+     */
+    public void deliverToRoom(String room, String json, String conflationKey) {
+        OutboundFrame frame = frameCodec.fromJson(json);
+        for (WebSocketSession session : roomRegistry.sessions(room)) {
+            WebSocketMessage<?> encoded = frameCodec.select(frame, session);
+            if (encoded != null) {
+                sessionSender.send(session, encoded, conflationKey);
+            }
+        }
+    }
+
+    /**
+     * Retry subscription changes that failed while Redis was unreachable.
+     */
+    @Scheduled(fixedDelayString = "${app.realtime.cluster.resync-interval-ms:60000}")
+    public void resync() {
+        if (!enabled) {
+            return;
+        }
+        Set<String> rooms = new HashSet<>(roomRegistry.roomNames());
+        rooms.addAll(subscribed);
+        rooms.forEach(this::submitReconcile);
+    }
+
+    @Override
+    public void roomOpened(String room) {
+        submitReconcile(room);
+    }
+
+    @Override
+    public void roomClosed(String room) {
+        submitReconcile(room);
+    }
+
+    private void submitReconcile(String room) {
+        try {
+            interestExecutor.execute(() -> reconcile(room));
+        } catch (RejectedExecutionException e) {
+            log.debug("Realtime cluster bus is shut down");
+        }
+    }
+
+    // Subscribe iff the room currently has local sessions
+    private void reconcile(String room) {
+        boolean wanted = roomRegistry.sessionCount(room) > 0;
+        if (wanted == subscribed.contains(room)) {
+            return;
+        }
+        ChannelTopic topic = new ChannelTopic(channelPrefix + room);
+        try {
+            if (wanted) {
+                container.addMessageListener(this, topic);
+                subscribed.add(room);
+            } else {
+                container.removeMessageListener(this, topic);
+                subscribed.remove(room);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Realtime cluster subscription change failed for {}: {}", room, e.getMessage());
+        }
+    }
+
+    private void markUnavailable(RuntimeException e) {
+        long now = System.currentTimeMillis();
+        boolean wasAvailable = now >= unavailableUntil;
+        unavailableUntil = now + retryAfterMs;
+        if (wasAvailable) {
+            log.warn("Realtime cluster bus unavailable, delivering locally only for {} ms: {}",
+                retryAfterMs, e.getMessage());
+        }
+    }
+}
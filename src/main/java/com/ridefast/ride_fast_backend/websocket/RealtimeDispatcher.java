@@ -0,0 +1,216 @@
+package com.ridefast.ride_fast_backend.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs realtime broadcasts off the calling (request) thread.
+ *
+ * Tasks are ordered per key (the target room): each key has a FIFO queue
+ * drained by at most one worker at a time, so two events for the same room
+ * are always delivered in the order they were dispatched, while different
+ * rooms proceed in parallel. Called inside a transaction, the task is handed
+ * over only after commit and dropped on rollback, so clients never see
+ * state that did not persist.
+ *
+ * Workers are virtual threads when the JVM has them (Java 21+) and
+ * {@code app.realtime.dispatch.virtual-threads} is on; otherwise a bounded
+ * platform pool that runs overflow on the caller.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RealtimeDispatcher {
+
+    // Tasks run per drain before yielding the worker to other keys
+    private static final int DRAIN_BATCH = 64;
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.realtime.dispatch.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.realtime.dispatch.virtual-threads:true}")
+    private boolean virtualThreads;
+
+    @Value("${app.realtime.dispatch.threads:4}")
+    private int threads;
+
+    @Value("${app.realtime.dispatch.queue-capacity:10000}")
+    private int queueCapacity;
+
+    private final Map<String, KeyQueue> queues = new ConcurrentHashMap<>();
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private ExecutorService executor;
+    private Counter failures;
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            log.info("Realtime dispatch is synchronous");
+            return;
+        }
+        executor = createExecutor();
+        meterRegistry.gauge("realtime.dispatch.pending", pending);
+        meterRegistry.gauge("realtime.dispatch.keys", queues, Map::size);
+        failures = meterRegistry.counter("realtime.dispatch.failures");
+    }
+
+    @PreDestroy
+    void stop() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            // Let queued broadcasts go out on a graceful shutdown
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Run {@code task} asynchronously after the tasks already dispatched for
+     * {@code key}; deferred to after commit inside a transaction.
+     */
+    public void dispatch(String key, Runnable task) {
+        if (!enabled) {
+            runSafely(key, task);
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(key, task);
+                }
+            });
+            return;
+        }
+        enqueue(key, task);
+    }
+
+    public int pendingCount() {
+        return pending.get();
+    }
+
+    private void enqueue(String key, Runnable task) {
+        KeyQueue[] toSchedule = new KeyQueue[1];
+        pending.incrementAndGet();
+        queues.compute(key, (k, queue) -> {
+            KeyQueue q = queue != null ? queue : new KeyQueue(k);
+            q.tasks.addLast(task);
+            if (!q.scheduled) {
+                q.scheduled = true;
+                toSchedule[0] = q;
+            }
+            return q;
+        });
+        if (toSchedule[0] != null) {
+            submit(toSchedule[0]);
+        }
+    }
+
+    private void submit(KeyQueue queue) {
+        try {
+            executor.execute(queue);
+        } catch (RejectedExecutionException e) {
+            // Shut down: deliver on the caller rather than lose the events
+            queue.run();
+        }
+    }
+
+    private void runSafely(String key, Runnable task) {
+        try {
+            task.run();
+        } catch (Exception e) {
+            if (failures != null) {
+                failures.increment();
+            }
+            log.error("Realtime dispatch for {} failed: {}", key, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * FIFO of one key; state is only changed inside {@code queues.compute} for the key.
+     */
+    private final class KeyQueue implements Runnable {
+        private final String key;
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        private boolean scheduled;
+
+        KeyQueue(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public void run() {
+            for (int done = 0; done < DRAIN_BATCH; done++) {
+                Runnable[] next = new Runnable[1];
+                queues.compute(key, (k, queue) -> {
+                    next[0] = tasks.pollFirst();
+                    if (next[0] == null) {
+                        // Drained: drop the key so idle rooms hold no memory
+                        scheduled = false;
+                        return null;
+                    }
+                    return queue;
+                });
+                if (next[0] == null) {
+                    return;
+                }
+                pending.decrementAndGet();
+                runSafely(key, next[0]);
+            }
+            // More pending: requeue behind other keys
+            submit(this);
+        }
+    }
+
+    private ExecutorService createExecutor() {
+        if (virtualThreads) {
+            try {
+                // Java 21+: resolved reflectively so the code still builds and runs on 17
+                Method factory = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                ExecutorService virtual = (ExecutorService) factory.invoke(null);
+                log.info("Realtime dispatch on virtual threads");
+                return virtual;
+            } catch (ReflectiveOperationException e) {
+                log.info("Virtual threads unavailable on Java {}, realtime dispatch uses {} platform threads",
+                        Runtime.version().feature(), threads);
+            }
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "realtime-dispatch-" + threadNumber.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+}
@@ -0,0 +1,136 @@
+package com.ridefast.ride_fast_backend.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer meters of the realtime WebSocket layer (exported at /actuator/prometheus).
+ *
+ * <ul>
+ *   <li>{@code realtime.sessions}, {@code realtime.rooms}: open sessions and non-empty rooms</li>
+ *   <li>{@code realtime.connections{action}}: sessions opened / closed</li>
+ *   <li>{@code realtime.messages.in{event}}, {@code realtime.messages.out{event}}: frames received and queued</li>
+ *   <li>{@code realtime.broadcast.fanout{event}}: local sessions reached per broadcast (histogram)</li>
+ *   <li>{@code realtime.events{event,path}}: events emitted by RealtimeService, via the dispatcher or the outbox</li>
+ *   <li>{@code realtime.encode{event,format}}: serialization time per frame and format</li>
+ *   <li>{@code realtime.send{format}}, {@code realtime.bytes.out{format}}: socket write latency (histogram) and bytes</li>
+ *   <li>{@code realtime.errors{stage}}: failures while encoding, sending, handling inbound frames, etc.</li>
+ * </ul>
+ *
+ * Meters are cached per tag value; event tags on inbound frames are limited
+ * to the known event names, since clients choose them.
+ */
+@Component
+@RequiredArgsConstructor
+public class RealtimeMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Counter> messagesIn = new ConcurrentHashMap<>();
+    private final Map<String, Counter> messagesOut = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> fanout = new ConcurrentHashMap<>();
+    private final Map<String, Counter> events = new ConcurrentHashMap<>();
+    private final Map<String, Timer> encode = new ConcurrentHashMap<>();
+    private final Map<String, Counter> errors = new ConcurrentHashMap<>();
+    private final Map<String, Counter> connections = new ConcurrentHashMap<>();
+
+    private Timer sendText;
+    private Timer sendBinary;
+    private Counter bytesText;
+    private Counter bytesBinary;
+
+    @PostConstruct
+    void start() {
+        sendText = sendTimer("json");
+        sendBinary = sendTimer("cbor");
+        bytesText = meterRegistry.counter("realtime.bytes.out", "format", "json");
+        bytesBinary = meterRegistry.counter("realtime.bytes.out", "format", "cbor");
+    }
+
+    /**
+     * Register the session and room gauges; called once by the handler.
+     */
+    public void bind(Map<String, ?> sessions, RoomRegistry roomRegistry) {
+        meterRegistry.gaugeMapSize("realtime.sessions", Tags.empty(), sessions);
+        meterRegistry.gauge("realtime.rooms", roomRegistry, RoomRegistry::roomCount);
+    }
+
+    public void connection(String action) {
+        connections.computeIfAbsent(action, a -> meterRegistry.counter("realtime.connections", "action", a))
+                .increment();
+    }
+
+    public void received(String event) {
+        String tag = event != null && FrameCodec.eventCode(event) != null ? event : "unknown";
+        messagesIn.computeIfAbsent(tag, e -> meterRegistry.counter("realtime.messages.in", "event", e)).increment();
+    }
+
+    /**
+     * A frame for {@code event} queued to {@code sessions} local sessions by one broadcast.
+     */
+    public void broadcast(String event, int sessions) {
+        fanout.computeIfAbsent(event, e -> DistributionSummary.builder("realtime.broadcast.fanout")
+                .tag("event", e)
+                .baseUnit("sessions")
+                .publishPercentileHistogram()
+                .maximumExpectedValue(100_000.0)
+                .register(meterRegistry))
+                .record(sessions);
+        queued(event, sessions);
+    }
+
+    /**
+     * Frames for {@code event} queued outside a room broadcast (direct replies, viewport frames).
+     */
+    public void queued(String event, int frames) {
+        if (frames > 0) {
+            messagesOut.computeIfAbsent(event, e -> meterRegistry.counter("realtime.messages.out", "event", e))
+                    .increment(frames);
+        }
+    }
+
+    public void emitted(String event, String path) {
+        events.computeIfAbsent(event + '|' + path,
+                k -> meterRegistry.counter("realtime.events", "event", event, "path", path)).increment();
+    }
+
+    public void encoded(String event, String format, long nanos) {
+        encode.computeIfAbsent(event + '|' + format,
+                k -> meterRegistry.timer("realtime.encode", "event", event, "format", format))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * A frame of {@code payloadLength} written to a socket in {@code nanos}
+     * (taken before the write, which consumes a binary payload; text frames
+     * count characters as bytes).
+     */
+    public void sent(WebSocketMessage<?> message, int payloadLength, long nanos) {
+        boolean binary = message instanceof BinaryMessage;
+        (binary ? sendBinary : sendText).record(nanos, TimeUnit.NANOSECONDS);
+        (binary ? bytesBinary : bytesText).increment(payloadLength);
+    }
+
+    public void error(String stage) {
+        errors.computeIfAbsent(stage, s -> meterRegistry.counter("realtime.errors", "stage", s)).increment();
+    }
+
+    private Timer sendTimer(String format) {
+        return Timer.builder("realtime.send")
+                .tag("format", format)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
@@ -1,42 +1,71 @@
 package com.ridefast.ride_fast_backend.websocket;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ridefast.ride_fast_backend.enums.ServiceType;
+import com.ridefast.ride_fast_backend.service.dispatch.DriverLocationIngestService;
+import com.ridefast.ride_fast_backend.service.dispatch.DriverSpatialIndex;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
-import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArraySet;
 
 /**
  * WebSocket handler for real-time communication with Flutter clients
  * Handles connections, disconnections, and message routing
+ * Sessions that negotiated the CBOR subprotocol exchange binary frames (see {@link FrameCodec})
  */
 @Component
 @Slf4j
+@RequiredArgsConstructor
 public class RealtimeWebSocketHandler extends TextWebSocketHandler {
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private static final String FLEET_ROOM = "fleet:monitoring";
+
+    private final DriverLocationIngestService driverLocationIngestService;
+    private final DriverSpatialIndex driverSpatialIndex;
+    private final ViewportRegistry viewportRegistry;
+    private final SessionSender sessionSender;
+    private final RoomRegistry roomRegistry;
+    private final RealtimeClusterBus clusterBus;
+    private final FleetLocationConflator fleetLocationConflator;
+    private final FrameCodec frameCodec;
+    private final RealtimeMetrics metrics;
     
     // Store active sessions by session ID
     private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
     
-    // Store sessions by room (e.g., "ride:123", "user:userId", "driver:driverId")
-    private final Map<String, CopyOnWriteArraySet<WebSocketSession>> rooms = new ConcurrentHashMap<>();
-    
     // Store user/driver IDs for each session
     private final Map<String, String> sessionUserIds = new ConcurrentHashMap<>();
     private final Map<String, String> sessionDriverIds = new ConcurrentHashMap<>();
 
+    @PostConstruct
+    void init() {
+        // Relayed fleet driver frames are filtered by viewport like local ones
+        clusterBus.setRemoteDelivery(this::deliverRemote);
+        metrics.bind(sessions, roomRegistry);
+    }
+
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
         sessions.put(session.getId(), session);
-        log.info("WebSocket client connected: {}", session.getId());
+        sessionSender.register(session);
+        metrics.connection("opened");
+        log.info("WebSocket client connected: {} (protocol: {})", session.getId(),
+                frameCodec.isBinary(session) ? FrameCodec.PROTOCOL_CBOR : "json");
         
         // Send welcome message
         sendMessage(session, "connected", Map.of(
@@ -49,9 +78,12 @@ public class RealtimeWebSocketHandler extends TextWebSocketHandler {
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
         String sessionId = session.getId();
         sessions.remove(sessionId);
+        sessionSender.unregister(sessionId);
+        metrics.connection("closed");
         
-        // Remove from all rooms
-        rooms.values().forEach(roomSessions -> roomSessions.remove(session));
+        // Remove from the rooms this session joined (empty rooms are dropped)
+        roomRegistry.removeSession(session);
+        viewportRegistry.unsubscribe(sessionId);
         
         // Clean up user/driver mappings
         sessionUserIds.remove(sessionId);
@@ -65,9 +97,36 @@ public class RealtimeWebSocketHandler extends TextWebSocketHandler {
         try {
             String payload = message.getPayload();
             log.debug("Received message from {}: {}", session.getId(), payload);
-            
-            Map<String, Object> data = objectMapper.readValue(payload, Map.class);
+            handleEvent(session, frameCodec.decodeText(payload));
+        } catch (Exception e) {
+            metrics.error("inbound");
+            log.error("Error handling WebSocket message: {}", e.getMessage(), e);
+            sendError(session, "Error processing message: " + e.getMessage());
+        }
+    }
+
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) {
+        try {
+            log.debug("Received {} byte binary message from {}", message.getPayloadLength(), session.getId());
+            handleEvent(session, frameCodec.decodeBinary(message.getPayload()));
+        } catch (Exception e) {
+            metrics.error("inbound");
+            log.error("Error handling WebSocket message: {}", e.getMessage(), e);
+            sendError(session, "Error processing message: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) {
+        metrics.error("transport");
+        log.debug("WebSocket transport error on session {}: {}", session.getId(), exception.getMessage());
+    }
+
+    private void handleEvent(WebSocketSession session, Map<String, Object> data) {
+        try {
             String event = (String) data.get("event");
+            metrics.received(event);
             
             if (event == null) {
                 sendError(session, "Missing 'event' field in message");
@@ -87,6 +146,12 @@ public class RealtimeWebSocketHandler extends TextWebSocketHandler {
                 case "chat":
                     handleChatMessage(session, data);
                     break;
+                case "viewport":
+                    handleViewport(session, data);
+                    break;
+                case "viewport_clear":
+                    viewportRegistry.unsubscribe(session.getId());
+                    break;
                 case "ping":
                     sendMessage(session, "pong", Map.of("timestamp", System.currentTimeMillis()));
                     break;
@@ -95,6 +160,7 @@ public class RealtimeWebSocketHandler extends TextWebSocketHandler {
                     sendError(session, "Unknown event type: " + event);
             }
         } catch (Exception e) {
+            metrics.error("inbound");
             log.error("Error handling WebSocket message: {}", e.getMessage(), e);
             sendError(session, "Error processing message: " + e.getMessage());
         }
@@ -114,7 +180,12 @@ public class RealtimeWebSocketHandler extends TextWebSocketHandler {
         }
         
         String room = buildRoomName(type, idObj.toString());
-        rooms.computeIfAbsent(room, k -> new CopyOnWriteArraySet<>()).add(session);
+        roomRegistry.join(session, room);
+        if (!sessions.containsKey(session.getId())) {
+            // Closed while joining: don't leave the membership behind
+            roomRegistry.removeSession(session);
+            return;
+        }
         
         // Store user/driver ID for this session
         if ("user".equals(type)) {
@@ -136,9 +207,7 @@ public class RealtimeWebSocketHandler extends TextWebSocketHandler {
         
         if (type != null && idObj != null) {
             String room = buildRoomName(type, idObj.toString());
-            CopyOnWriteArraySet<WebSocketSession> roomSessions = rooms.get(room);
-            if (roomSessions != null) {
-                roomSessions.remove(session);
+            if (roomRegistry.leave(session, room)) {
                 log.info("Session {} left room: {}", session.getId(), room);
             }
         }
@@ -146,29 +215,91 @@ public class RealtimeWebSocketHandler extends TextWebSocketHandler {
 
     /**
      * Handle location update from driver
-     * Expected format: {"event": "location", "rideId": 123, "driverId": 456, "lat": 17.5, "lng": 78.3, "heading": 90}
+     * Expected format: {"event": "location", "rideId": 123, "lat": 17.5, "lng": 78.3, "heading": 90}
+     * Only sessions that connected with a driver JWT may send it; "driverId" is taken from the token and
+     * "ts" is set to the server receive time, whatever the client sent.
+     * "rideId" is optional: idle drivers send pings without it, which only update their position
      */
     private void handleLocationUpdate(WebSocketSession session, Map<String, Object> data) {
+        if (!(session.getAttributes().get(DriverHandshakeInterceptor.DRIVER_ID) instanceof Long driverId)) {
+            sendError(session, "Location updates require a driver token at connection");
+            return;
+        }
         Object rideIdObj = data.get("rideId");
-        Object driverIdObj = data.get("driverId");
+        long ts = System.currentTimeMillis();
+        data.put("driverId", driverId);
+        data.put("ts", ts);
+        
+        if (data.get("lat") instanceof Number lat && data.get("lng") instanceof Number lng) {
+            Integer heading = data.get("heading") instanceof Number h ? h.intValue() : null;
+            driverLocationIngestService.ingest(driverId, lat.doubleValue(), lng.doubleValue(), heading, ts);
+        }
         
         if (rideIdObj == null) {
-            sendError(session, "Missing 'rideId' in location update");
             return;
         }
         
-        // Broadcast to ride room
-        String rideRoom = "ride:" + rideIdObj.toString();
-        broadcastToRoom(rideRoom, "driver_location", data);
+        // Queued positions of the same driver supersede each other
+        String conflationKey = locationConflationKey(driverId);
         
-        // Broadcast to driver room if driverId provided
-        if (driverIdObj != null) {
-            String driverRoom = "driver:" + driverIdObj.toString();
-            broadcastToRoom(driverRoom, "driver_location", data);
-        }
+        // Broadcast to the ride and driver rooms
+        broadcastToRoom("ride:" + rideIdObj, "driver_location", data, conflationKey);
+        broadcastToRoom("driver:" + driverId, "driver_location", data, conflationKey);
         
-        // Broadcast to fleet monitoring
-        broadcastToRoom("fleet:monitoring", "driver_location", data);
+        // Fleet monitoring gets the conflated fleet_locations stream
+        if (fleetLocationConflator.isEnabled()
+                && data.get("lat") instanceof Number lat && data.get("lng") instanceof Number lng) {
+            Number heading = data.get("heading") instanceof Number h ? h : null;
+            fleetLocationConflator.offer(driverId, rideIdObj, lat.doubleValue(), lng.doubleValue(), heading, ts);
+        } else {
+            broadcastFleetDriverEvent("driver_location", data, conflationKey);
+        }
+    }
+
+    /**
+     * Handle fleet viewport subscription; replaces the session's previous viewport
+     * Expected format: {"event": "viewport", "minLat": 12.9, "minLng": 77.5, "maxLat": 13.1, "maxLng": 77.7, "vehicleType": "BIKE"}
+     * "vehicleType" is optional. The session joins fleet monitoring, its driver location/status frames are
+     * limited to the viewport, and it gets a "fleet_locations" snapshot ("snapshot": true) of the drivers inside
+     */
+    private void handleViewport(WebSocketSession session, Map<String, Object> data) {
+        if (!(data.get("minLat") instanceof Number minLat) || !(data.get("minLng") instanceof Number minLng)
+                || !(data.get("maxLat") instanceof Number maxLat) || !(data.get("maxLng") instanceof Number maxLng)) {
+            sendError(session, "Missing 'minLat', 'minLng', 'maxLat' or 'maxLng' in viewport request");
+            return;
+        }
+        if (minLat.doubleValue() > maxLat.doubleValue() || minLng.doubleValue() > maxLng.doubleValue()) {
+            sendError(session, "Viewport minimum must not exceed maximum");
+            return;
+        }
+        ServiceType vehicleType = null;
+        Object vehicleTypeObj = data.get("vehicleType");
+        if (vehicleTypeObj != null && !vehicleTypeObj.toString().isBlank()) {
+            try {
+                vehicleType = ServiceType.valueOf(vehicleTypeObj.toString().trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                sendError(session, "Unknown vehicleType: " + vehicleTypeObj);
+                return;
+            }
+        }
+
+        viewportRegistry.subscribe(session, minLat.doubleValue(), minLng.doubleValue(), maxLat.doubleValue(),
+                maxLng.doubleValue(), vehicleType);
+        roomRegistry.join(session, FLEET_ROOM);
+
+        List<Map<String, Object>> drivers = new ArrayList<>();
+        for (DriverSpatialIndex.Entry entry : driverSpatialIndex.within(minLat.doubleValue(), minLng.doubleValue(),
+                maxLat.doubleValue(), maxLng.doubleValue(), vehicleType)) {
+            Map<String, Object> driver = new LinkedHashMap<>();
+            driver.put("driverId", entry.driverId());
+            driver.put("lat", entry.latitude());
+            driver.put("lng", entry.longitude());
+            driver.put("busy", entry.busy());
+            if (entry.serviceType() != null) driver.put("vehicleType", entry.serviceType().name());
+            driver.put("ts", entry.updatedAt());
+            drivers.add(driver);
+        }
+        sendMessage(session, "fleet_locations", Map.of("drivers", drivers, "count", drivers.size(), "snapshot", true));
     }
 
     /**
@@ -192,24 +323,164 @@ public class RealtimeWebSocketHandler extends TextWebSocketHandler {
      * Broadcast message to a specific room
      */
     public void broadcastToRoom(String room, String event, Object data) {
-        CopyOnWriteArraySet<WebSocketSession> roomSessions = rooms.get(room);
-        if (roomSessions == null || roomSessions.isEmpty()) {
+        broadcastToRoom(room, event, data, null);
+    }
+
+    /**
+     * Broadcast message to a specific room. The frame is serialized once and
+     * queued to every local session, then published to the other nodes when
+     * the cluster bus is active; frames sharing a non-null {@code conflationKey}
+     * may replace each other when a session's queue overflows.
+     */
+    public void broadcastToRoom(String room, String event, Object data, String conflationKey) {
+        Set<WebSocketSession> roomSessions = roomRegistry.sessions(room);
+        boolean clustered = clusterBus.isActive();
+        if (roomSessions.isEmpty() && !clustered) {
             return;
         }
         
-        Map<String, Object> message = Map.of(
-            "event", event,
-            "data", data,
-            "timestamp", System.currentTimeMillis()
-        );
-        
-        roomSessions.forEach(session -> {
-            try {
-                sendMessage(session, event, data);
-            } catch (Exception e) {
-                log.error("Error broadcasting to session {}: {}", session.getId(), e.getMessage());
+        OutboundFrame frame = frameCodec.encode(event, data);
+        roomSessions.forEach(session -> enqueue(session, frame, conflationKey));
+        metrics.broadcast(event, roomSessions.size());
+        if (clustered) {
+            clusterBus.publish(room, frame, conflationKey);
+        }
+    }
+
+    /**
+     * Conflation key for driver location frames
+     */
+    public static String locationConflationKey(Object driverId) {
+        return "driver_location:" + driverId;
+    }
+
+    /**
+     * Flush the latest position of every driver that moved since the last
+     * flush to fleet monitoring as one "fleet_locations" frame.
+     * Format: {"drivers": [{"driverId", "rideId", "lat", "lng", "heading", "ts"}], "count": n}
+     */
+    @Scheduled(fixedRateString = "${app.realtime.fleet-locations.flush-interval-ms:1000}")
+    public void flushFleetLocations() {
+        if (fleetLocationConflator.pendingCount() == 0) {
+            return;
+        }
+        List<Map<String, Object>> drivers = fleetLocationConflator.drain();
+        if (drivers.isEmpty()) {
+            return;
+        }
+        broadcastFleetDriverEvent("fleet_locations", Map.of("drivers", drivers, "count", drivers.size()),
+                "fleet_locations");
+    }
+
+    /**
+     * Broadcast a driver event ("driver_location", "driver_status" or a
+     * "fleet_locations" batch) to fleet monitoring. Sessions with a viewport
+     * only receive the drivers inside it; the rest of the room gets the frame
+     * unchanged. Driver position is read from "lat"/"lng" or "latitude"/"longitude".
+     */
+    public void broadcastFleetDriverEvent(String event, Map<String, Object> data, String conflationKey) {
+        if (viewportRegistry.isEmpty()) {
+            broadcastToRoom(FLEET_ROOM, event, data, conflationKey);
+            return;
+        }
+        OutboundFrame frame = frameCodec.encode(event, data);
+        deliverFleetDriverEvent(event, data, frame, conflationKey);
+        if (clusterBus.isActive()) {
+            clusterBus.publish(FLEET_ROOM, frame, conflationKey);
+        }
+    }
+
+    /**
+     * Conflation key for driver status frames
+     */
+    public static String statusConflationKey(Object driverId) {
+        return "driver_status:" + driverId;
+    }
+
+    // Frames relayed by other nodes: fleet driver events go through the viewport filter
+    private void deliverRemote(String room, String json, String conflationKey) {
+        if (!FLEET_ROOM.equals(room) || viewportRegistry.isEmpty() || !isFleetDriverKey(conflationKey)) {
+            clusterBus.deliverToRoom(room, json, conflationKey);
+            return;
+        }
+        try {
+            Map<String, Object> envelope = frameCodec.decodeText(json);
+            if (envelope.get("event") instanceof String event && envelope.get("data") instanceof Map<?, ?> data) {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> payload = (Map<String, Object>) data;
+                deliverFleetDriverEvent(event, payload, frameCodec.fromJson(json), conflationKey);
+                return;
+            }
+        } catch (Exception e) {
+            metrics.error("relay");
+            log.debug("Could not route relayed fleet frame by viewport: {}", e.getMessage());
+        }
+        clusterBus.deliverToRoom(room, json, conflationKey);
+    }
+
+    private static boolean isFleetDriverKey(String conflationKey) {
+        return conflationKey != null && (conflationKey.equals("fleet_locations")
+                || conflationKey.startsWith("driver_location:") || conflationKey.startsWith("driver_status:"));
+    }
+
+    private void deliverFleetDriverEvent(String event, Map<String, Object> data, OutboundFrame frame,
+            String conflationKey) {
+        int delivered = 0;
+        for (WebSocketSession session : roomRegistry.sessions(FLEET_ROOM)) {
+            if (!viewportRegistry.isSubscribed(session.getId())) {
+                enqueue(session, frame, conflationKey);
+                delivered++;
+            }
+        }
+
+        if (!"fleet_locations".equals(event)) {
+            Double lat = coordinate(data, "lat", "latitude");
+            Double lng = coordinate(data, "lng", "longitude");
+            if (lat != null && lng != null) {
+                for (WebSocketSession session : viewportRegistry.match(lat, lng, serviceTypeOf(data.get("driverId")))) {
+                    enqueue(session, frame, conflationKey);
+                    delivered++;
+                }
+            }
+            metrics.broadcast(event, delivered);
+            return;
+        }
+
+        // Batch: each viewport session gets a frame with just its drivers
+        Map<WebSocketSession, List<Object>> perSession = new LinkedHashMap<>();
+        if (data.get("drivers") instanceof List<?> drivers) {
+            for (Object item : drivers) {
+                if (!(item instanceof Map<?, ?> driver)
+                        || !(driver.get("lat") instanceof Number lat) || !(driver.get("lng") instanceof Number lng)) {
+                    continue;
+                }
+                ServiceType serviceType = serviceTypeOf(driver.get("driverId"));
+                for (WebSocketSession session : viewportRegistry.match(lat.doubleValue(), lng.doubleValue(), serviceType)) {
+                    perSession.computeIfAbsent(session, k -> new ArrayList<>()).add(driver);
+                }
             }
-        });
+        }
+        perSession.forEach((session, inView) -> enqueue(session,
+                frameCodec.encode(event, Map.of("drivers", inView, "count", inView.size())), conflationKey));
+        metrics.broadcast(event, delivered + perSession.size());
+    }
+
+    private static Double coordinate(Map<String, Object> data, String key, String alternateKey) {
+        Object value = data.containsKey(key) ? data.get(key) : data.get(alternateKey);
+        return value instanceof Number n ? n.doubleValue() : null;
+    }
+
+    // Vehicle type from the dispatch index; null (matches any filter) when the driver is not indexed
+    private ServiceType serviceTypeOf(Object driverId) {
+        long id;
+        if (driverId instanceof Number n) {
+            id = n.longValue();
+        } else if (driverId instanceof String text && !text.isEmpty() && text.chars().allMatch(Character::isDigit)) {
+            id = Long.parseLong(text);
+        } else {
+            return null;
+        }
+        return driverSpatialIndex.get(id).map(DriverSpatialIndex.Entry::serviceType).orElse(null);
     }
 
     /**
@@ -223,37 +494,28 @@ public class RealtimeWebSocketHandler extends TextWebSocketHandler {
     }
 
     /**
-     * Send message to all sessions in a room
+     * Send message to a single session
      */
     private void sendMessage(WebSocketSession session, String event, Object data) {
-        try {
-            Map<String, Object> message = Map.of(
-                "event", event,
-                "data", data,
-                "timestamp", System.currentTimeMillis()
-            );
-            
-            String json = objectMapper.writeValueAsString(message);
-            session.sendMessage(new TextMessage(json));
-        } catch (IOException e) {
-            log.error("Error sending message to session {}: {}", session.getId(), e.getMessage());
-        }
+        enqueue(session, frameCodec.encode(event, data), null);
+        metrics.queued(event, 1);
     }
 
     /**
      * Send error message to session
      */
     private void sendError(WebSocketSession session, String errorMessage) {
-        try {
-            Map<String, Object> error = Map.of(
-                "event", "error",
-                "message", errorMessage,
-                "timestamp", System.currentTimeMillis()
-            );
-            String json = objectMapper.writeValueAsString(error);
-            session.sendMessage(new TextMessage(json));
-        } catch (IOException e) {
-            log.error("Error sending error message: {}", e.getMessage());
+        enqueue(session, frameCodec.encodeError(errorMessage), null);
+        metrics.queued("error", 1);
+    }
+
+    /**
+     * Queue the frame in the session's negotiated format (skipped if it cannot be encoded)
+     */
+    private void enqueue(WebSocketSession session, OutboundFrame frame, String conflationKey) {
+        WebSocketMessage<?> message = frameCodec.select(frame, session);
+        if (message != null) {
+            sessionSender.send(session, message, conflationKey);
         }
     }
 
@@ -288,8 +550,27 @@ public class RealtimeWebSocketHandler extends TextWebSocketHandler {
      * Get sessions in a room
      */
     public int getRoomSessionCount(String room) {
-        CopyOnWriteArraySet<WebSocketSession> roomSessions = rooms.get(room);
-        return roomSessions != null ? roomSessions.size() : 0;
+        return roomRegistry.sessionCount(room);
+    }
+
+    /**
+     * Get number of non-empty rooms
+     */
+    public int getRoomCount() {
+        return roomRegistry.roomCount();
+    }
+
+    /**
+     * Session, room and outbound queue figures (for monitoring)
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(roomRegistry.getStats());
+        stats.put("sessions", sessions.size());
+        stats.put("queuedFrames", sessionSender.queuedFrames());
+        stats.put("viewports", viewportRegistry.size());
+        stats.put("node", clusterBus.getNodeId());
+        stats.put("clusterActive", clusterBus.isActive());
+        return stats;
     }
 }
 
@@ -0,0 +1,158 @@
+package com.ridefast.ride_fast_backend.websocket;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Bidirectional session ↔ room membership index.
+ *
+ * Rooms map to their sessions for broadcasts and sessions map to their
+ * rooms for cleanup, so a disconnect touches only the rooms the session was
+ * in. A room is removed as soon as its last session leaves; creation and
+ * removal happen inside {@code compute} on the room entry, so a concurrent
+ * join never lands in a room that is being reclaimed.
+ *
+ * {@link RoomListener}s hear when a room gets its first session and when
+ * it is reclaimed (after the map update, outside any lock).
+ */
+@Component
+public class RoomRegistry {
+
+    // Rough heap cost per map entry (node + key/value references) and per empty set
+    private static final int ENTRY_BYTES = 32;
+    private static final int SET_BYTES = 128;
+    private static final int STRING_BYTES = 40;
+
+    private final Map<String, Set<WebSocketSession>> rooms = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> sessionRooms = new ConcurrentHashMap<>();
+    private final List<RoomListener> listeners = new CopyOnWriteArrayList<>();
+
+    public interface RoomListener {
+        void roomOpened(String room);
+
+        void roomClosed(String room);
+    }
+
+    public void addListener(RoomListener listener) {
+        listeners.add(listener);
+    }
+
+    public void join(WebSocketSession session, String room) {
+        boolean[] opened = new boolean[1];
+        rooms.compute(room, (k, members) -> {
+            Set<WebSocketSession> set = members;
+            if (set == null) {
+                set = ConcurrentHashMap.newKeySet();
+                opened[0] = true;
+            }
+            set.add(session);
+            return set;
+        });
+        sessionRooms.computeIfAbsent(session.getId(), k -> ConcurrentHashMap.newKeySet()).add(room);
+        if (opened[0]) {
+            listeners.forEach(l -> l.roomOpened(room));
+        }
+    }
+
+    /**
+     * @return true if the session was in the room
+     */
+    public boolean leave(WebSocketSession session, String room) {
+        Set<String> joined = sessionRooms.get(session.getId());
+        if (joined != null) {
+            joined.remove(room);
+        }
+        return removeMember(room, session);
+    }
+
+    /**
+     * Remove the session from every room it joined.
+     */
+    public void removeSession(WebSocketSession session) {
+        Set<String> joined = sessionRooms.remove(session.getId());
+        if (joined == null) {
+            return;
+        }
+        for (String room : joined) {
+            removeMember(room, session);
+        }
+    }
+
+    /**
+     * Live view of the sessions in a room (empty if the room does not exist)
+     */
+    public Set<WebSocketSession> sessions(String room) {
+        Set<WebSocketSession> members = rooms.get(room);
+        return members != null ? members : Collections.emptySet();
+    }
+
+    public Set<String> roomsOf(String sessionId) {
+        Set<String> joined = sessionRooms.get(sessionId);
+        return joined != null ? Collections.unmodifiableSet(joined) : Collections.emptySet();
+    }
+
+    public int roomCount() {
+        return rooms.size();
+    }
+
+    public int sessionCount(String room) {
+        Set<WebSocketSession> members = rooms.get(room);
+        return members != null ? members.size() : 0;
+    }
+
+    /**
+     * Snapshot of the names of all non-empty rooms
+     */
+    public Set<String> roomNames() {
+        return Set.copyOf(rooms.keySet());
+    }
+
+    /**
+     * Room counts by type ("ride", "driver", ...), total memberships and an
+     * estimate of the heap held by the index.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Integer> byType = new LinkedHashMap<>();
+        long memberships = 0;
+        long bytes = 0;
+        for (Map.Entry<String, Set<WebSocketSession>> entry : rooms.entrySet()) {
+            String room = entry.getKey();
+            int colon = room.indexOf(':');
+            byType.merge(colon > 0 ? room.substring(0, colon) : room, 1, Integer::sum);
+            int size = entry.getValue().size();
+            memberships += size;
+            // Room entry + set on one side, the room name in each member's reverse set on the other
+            bytes += ENTRY_BYTES + STRING_BYTES + room.length() + SET_BYTES + 2L * size * ENTRY_BYTES;
+        }
+        bytes += (long) sessionRooms.size() * (ENTRY_BYTES + STRING_BYTES + SET_BYTES);
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("rooms", rooms.size());
+        stats.put("roomsByType", byType);
+        stats.put("sessionsInRooms", sessionRooms.size());
+        stats.put("memberships", memberships);
+        stats.put("estimatedBytes", bytes);
+        return stats;
+    }
+
+    private boolean removeMember(String room, WebSocketSession session) {
+        boolean[] removed = new boolean[2];
+        rooms.computeIfPresent(room, (k, members) -> {
+            removed[0] = members.remove(session);
+            removed[1] = members.isEmpty();
+            return removed[1] ? null : members;
+        });
+        if (removed[1]) {
+            listeners.forEach(l -> l.roomClosed(room));
+        }
+        return removed[0];
+    }
+}
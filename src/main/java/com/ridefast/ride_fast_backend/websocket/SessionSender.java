@@ -0,0 +1,305 @@
+package com.ridefast.ride_fast_backend.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.NativeWebSocketSession;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Writes outbound WebSocket frames off the caller's thread.
+ *
+ * Every session has a bounded queue drained by a shared writer pool, one
+ * drain task per session at a time, so frames to a session stay in order
+ * and a slow client only backs up its own queue. When a queue is full the
+ * configured policy applies: {@code drop-oldest} discards the oldest frame,
+ * {@code conflate} replaces a queued frame with the same conflation key
+ * (falling back to drop-oldest), {@code disconnect} closes the session.
+ *
+ * A socket write blocks while the client's TCP buffer is full, so each write
+ * is bounded by {@code app.realtime.outbound.send-time-limit-ms}: the
+ * container's blocking send timeout is set to it, and a watchdog closes
+ * sessions whose write runs longer (for containers that ignore the
+ * timeout). A session whose write fails or times out is closed, so a
+ * stalled client holds a writer thread for at most one limit.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SessionSender {
+
+    // Frames written per drain task before yielding the writer thread to other sessions
+    private static final int DRAIN_BATCH = 64;
+
+    // Tomcat's per-session limit on a blocking send (millis)
+    private static final String BLOCKING_SEND_TIMEOUT = "org.apache.tomcat.websocket.BLOCKING_SEND_TIMEOUT";
+
+    private final MeterRegistry meterRegistry;
+    private final RealtimeMetrics realtimeMetrics;
+
+    @Value("${app.realtime.outbound.queue-capacity:256}")
+    private int queueCapacity;
+
+    @Value("${app.realtime.outbound.overflow-policy:drop-oldest}")
+    private String overflowPolicyName;
+
+    @Value("${app.realtime.outbound.writer-threads:4}")
+    private int writerThreads;
+
+    @Value("${app.realtime.outbound.send-time-limit-ms:5000}")
+    private long sendTimeLimitMs;
+
+    private final Map<String, OutboundQueue> queues = new ConcurrentHashMap<>();
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private OverflowPolicy overflowPolicy;
+    private ExecutorService writers;
+    private ScheduledExecutorService watchdog;
+    private Counter dropped;
+    private Counter conflated;
+    private Counter disconnected;
+    private Counter stalled;
+
+    enum OverflowPolicy {
+        DROP_OLDEST,
+        CONFLATE,
+        DISCONNECT
+    }
+
+    private record Frame(WebSocketMessage<?> message, String conflationKey) {
+    }
+
+    @PostConstruct
+    void start() {
+        overflowPolicy = OverflowPolicy.valueOf(overflowPolicyName.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+        AtomicInteger threadNumber = new AtomicInteger();
+        writers = Executors.newFixedThreadPool(writerThreads, r -> {
+            Thread t = new Thread(r, "ws-writer-" + threadNumber.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        meterRegistry.gauge("realtime.outbound.queued", queued);
+        meterRegistry.gauge("realtime.outbound.sessions", queues, Map::size);
+        dropped = meterRegistry.counter("realtime.outbound.overflow", "action", "dropped");
+        conflated = meterRegistry.counter("realtime.outbound.overflow", "action", "conflated");
+        disconnected = meterRegistry.counter("realtime.outbound.overflow", "action", "disconnected");
+        stalled = meterRegistry.counter("realtime.outbound.overflow", "action", "send-timeout");
+        watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ws-send-watchdog");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(100, sendTimeLimitMs / 2);
+        watchdog.scheduleAtFixedRate(this::closeStalledSessions, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        watchdog.shutdownNow();
+        writers.shutdownNow();
+    }
+
+    public void register(WebSocketSession session) {
+        if (session instanceof NativeWebSocketSession nativeSession) {
+            jakarta.websocket.Session standard = nativeSession.getNativeSession(jakarta.websocket.Session.class);
+            if (standard != null) {
+                standard.getUserProperties().put(BLOCKING_SEND_TIMEOUT, sendTimeLimitMs);
+            }
+        }
+        queues.put(session.getId(), new OutboundQueue(session));
+    }
+
+    public void unregister(String sessionId) {
+        OutboundQueue queue = queues.remove(sessionId);
+        if (queue != null) {
+            queue.close();
+        }
+    }
+
+    /**
+     * Queue a frame for the session. {@code conflationKey} identifies frames
+     * that supersede each other (e.g. one driver's location); may be null.
+     */
+    public void send(WebSocketSession session, WebSocketMessage<?> message, String conflationKey) {
+        OutboundQueue queue = queues.get(session.getId());
+        if (queue != null) {
+            queue.offer(new Frame(message, conflationKey));
+        }
+    }
+
+    public int queuedFrames() {
+        return queued.get();
+    }
+
+    // Sessions whose current write has exceeded the send time limit
+    private void closeStalledSessions() {
+        long now = System.nanoTime();
+        for (OutboundQueue queue : queues.values()) {
+            long since = queue.sendingSince;
+            if (since != 0 && now - since > TimeUnit.MILLISECONDS.toNanos(sendTimeLimitMs)) {
+                queue.abandon("send exceeded " + sendTimeLimitMs + " ms");
+            }
+        }
+    }
+
+    private final class OutboundQueue implements Runnable {
+        private final WebSocketSession session;
+        private final ArrayDeque<Frame> frames = new ArrayDeque<>();
+        private boolean scheduled;
+        private boolean closed;
+        // System.nanoTime() when the write in progress started, 0 when idle
+        private volatile long sendingSince;
+
+        OutboundQueue(WebSocketSession session) {
+            this.session = session;
+        }
+
+        void offer(Frame frame) {
+            boolean schedule;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                if (frames.size() >= queueCapacity && !makeRoom(frame)) {
+                    disconnectSlowClient();
+                    return;
+                }
+                frames.addLast(frame);
+                queued.incrementAndGet();
+                schedule = !scheduled;
+                scheduled = true;
+            }
+            if (schedule) {
+                submit(this);
+            }
+        }
+
+        // Called with the queue full; false means the session is to be dropped
+        private boolean makeRoom(Frame frame) {
+            if (overflowPolicy == OverflowPolicy.DISCONNECT) {
+                return false;
+            }
+            if (overflowPolicy == OverflowPolicy.CONFLATE && frame.conflationKey() != null) {
+                Iterator<Frame> it = frames.iterator();
+                while (it.hasNext()) {
+                    if (frame.conflationKey().equals(it.next().conflationKey())) {
+                        it.remove();
+                        queued.decrementAndGet();
+                        conflated.increment();
+                        return true;
+                    }
+                }
+            }
+            frames.pollFirst();
+            queued.decrementAndGet();
+            dropped.increment();
+            return true;
+        }
+
+        private void disconnectSlowClient() {
+            closeQueue();
+            disconnected.increment();
+            log.warn("Closing slow WebSocket session {}: outbound queue full", session.getId());
+            submit(() -> {
+                try {
+                    session.close(CloseStatus.SESSION_NOT_RELIABLE);
+                } catch (Exception e) {
+                    log.debug("Error closing session {}: {}", session.getId(), e.getMessage());
+                }
+            });
+        }
+
+        void close() {
+            synchronized (this) {
+                closeQueue();
+            }
+        }
+
+        // The client stopped reading: drop its queue and close the session (unblocks a pending write)
+        void abandon(String reason) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closeQueue();
+            }
+            stalled.increment();
+            log.warn("Closing stalled WebSocket session {}: {}", session.getId(), reason);
+            try {
+                session.close(CloseStatus.SESSION_NOT_RELIABLE);
+            } catch (Exception e) {
+                log.debug("Error closing session {}: {}", session.getId(), e.getMessage());
+            }
+        }
+
+        private void closeQueue() {
+            closed = true;
+            queued.addAndGet(-frames.size());
+            frames.clear();
+        }
+
+        @Override
+        public void run() {
+            for (int written = 0; written < DRAIN_BATCH; written++) {
+                Frame frame;
+                synchronized (this) {
+                    frame = frames.pollFirst();
+                    if (frame == null) {
+                        scheduled = false;
+                        return;
+                    }
+                    queued.decrementAndGet();
+                }
+                try {
+                    if (session.isOpen()) {
+                        int length = frame.message().getPayloadLength();
+                        long start = System.nanoTime();
+                        sendingSince = start;
+                        session.sendMessage(frame.message());
+                        realtimeMetrics.sent(frame.message(), length, System.nanoTime() - start);
+                    }
+                } catch (Exception e) {
+                    realtimeMetrics.error("send");
+                    log.error("Error sending message to session {}: {}", session.getId(), e.getMessage());
+                    // Timed out or broken: later frames would block the same way
+                    abandon("send failed");
+                    synchronized (this) {
+                        scheduled = false;
+                    }
+                    return;
+                } finally {
+                    sendingSince = 0;
+                }
+            }
+            // More frames pending: requeue behind other sessions' work
+            submit(this);
+        }
+    }
+
+    private void submit(Runnable task) {
+        try {
+            writers.execute(task);
+        } catch (RejectedExecutionException e) {
+            log.debug("WebSocket writer pool is shut down");
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.ridefast.ride_fast_backend.websocket;
+
+import com.ridefast.ride_fast_backend.enums.ServiceType;
+import com.ridefast.ride_fast_backend.service.dispatch.DriverSpatialIndex;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Map viewports of fleet monitoring sessions, indexed on the
+ * {@link DriverSpatialIndex} grid.
+ *
+ * Each viewport is registered in every grid cell its bounding box overlaps,
+ * so routing a driver update looks up the one cell the driver is in and
+ * checks only the viewports registered there. Boxes covering more than
+ * {@code app.realtime.viewports.max-cells} cells (zoomed-out dashboards) are
+ * kept in a small list checked on every update instead. Re-subscribing
+ * replaces the session's viewport in place.
+ */
+@Component
+@RequiredArgsConstructor
+public class ViewportRegistry {
+
+    private final DriverSpatialIndex driverSpatialIndex;
+
+    @Value("${app.realtime.viewports.max-cells:2500}")
+    private int maxCells;
+
+    private final Map<String, Viewport> viewports = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Viewport>> cells = new ConcurrentHashMap<>();
+    private final Set<Viewport> wide = ConcurrentHashMap.newKeySet();
+
+    /**
+     * {@code serviceType} null means all vehicle types; {@code cells} null means a wide viewport.
+     */
+    private record Viewport(WebSocketSession session, double minLat, double minLng, double maxLat, double maxLng,
+            ServiceType serviceType, long[] cells) {
+
+        boolean matches(double lat, double lng, ServiceType type) {
+            return lat >= minLat && lat <= maxLat && lng >= minLng && lng <= maxLng
+                    && (serviceType == null || type == null || serviceType == type);
+        }
+
+        // Identity semantics: one instance per subscription
+        @Override
+        public boolean equals(Object other) {
+            return this == other;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(this);
+        }
+    }
+
+    /**
+     * Set (or replace) the session's viewport.
+     */
+    public void subscribe(WebSocketSession session, double minLat, double minLng, double maxLat, double maxLng,
+            ServiceType serviceType) {
+        long[] keys = driverSpatialIndex.cellsCovering(minLat, minLng, maxLat, maxLng, maxCells);
+        Viewport viewport = new Viewport(session, minLat, minLng, maxLat, maxLng, serviceType, keys);
+        Viewport previous = viewports.put(session.getId(), viewport);
+        if (previous != null) {
+            unindex(previous);
+        }
+        if (keys == null) {
+            wide.add(viewport);
+        } else {
+            for (long key : keys) {
+                cells.compute(key, (k, set) -> {
+                    Set<Viewport> target = set != null ? set : ConcurrentHashMap.newKeySet();
+                    target.add(viewport);
+                    return target;
+                });
+            }
+        }
+    }
+
+    public void unsubscribe(String sessionId) {
+        Viewport previous = viewports.remove(sessionId);
+        if (previous != null) {
+            unindex(previous);
+        }
+    }
+
+    public boolean isSubscribed(String sessionId) {
+        return viewports.containsKey(sessionId);
+    }
+
+    public boolean isEmpty() {
+        return viewports.isEmpty();
+    }
+
+    public int size() {
+        return viewports.size();
+    }
+
+    /**
+     * Sessions whose viewport contains the point and accepts the vehicle type
+     * (an unknown type matches every filter).
+     */
+    public List<WebSocketSession> match(double lat, double lng, ServiceType serviceType) {
+        List<WebSocketSession> sessions = new ArrayList<>();
+        Set<Viewport> inCell = cells.get(driverSpatialIndex.cellOf(lat, lng));
+        if (inCell != null) {
+            for (Viewport viewport : inCell) {
+                if (viewport.matches(lat, lng, serviceType)) {
+                    sessions.add(viewport.session());
+                }
+            }
+        }
+        for (Viewport viewport : wide) {
+            if (viewport.matches(lat, lng, serviceType)) {
+                sessions.add(viewport.session());
+            }
+        }
+        return sessions;
+    }
+
+    private void unindex(Viewport viewport) {
+        if (viewport.cells() == null) {
+            wide.remove(viewport);
+            return;
+        }
+        for (long key : viewport.cells()) {
+            cells.computeIfPresent(key, (k, set) -> {
+                set.remove(viewport);
+                return set.isEmpty() ? null : set;
+            });
+        }
+    }
+}